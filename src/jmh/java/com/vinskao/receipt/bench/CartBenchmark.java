@@ -0,0 +1,51 @@
+package com.vinskao.receipt.bench;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 購物車計算熱路徑的 JMH 基準測試：稅金、小計、總金額與收據表格。
+ * 以 {@link CartState} 的 cartSize 與 locations 參數化，搭配 GC profiler 觀察每次呼叫的配置量。
+ * <p>
+ * 執行方式：
+ * <pre>
+ * mvn -P benchmarks test-compile exec:exec -Djmh.args="CartBenchmark"
+ * </pre>
+ *
+ * @author VinsKao
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CartBenchmark {
+
+    @Benchmark
+    public BigDecimal calculateTotalTax(CartState state) {
+        return state.taxCalculator.calculateTotalTax(state.items.values());
+    }
+
+    @Benchmark
+    public BigDecimal calSubtotal(CartState state) {
+        return state.shoppingCart.calSubtotal(state.items.values());
+    }
+
+    @Benchmark
+    public BigDecimal calTotal(CartState state) {
+        return state.shoppingCart.calTotal(state.items.values());
+    }
+
+    @Benchmark
+    public String getTable(CartState state) {
+        return state.receiptPrinter.getTable(state.items);
+    }
+}
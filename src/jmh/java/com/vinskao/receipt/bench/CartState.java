@@ -0,0 +1,61 @@
+package com.vinskao.receipt.bench;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.vinskao.receipt.config.ConfigSnapshot;
+import com.vinskao.receipt.model.ItemVO;
+import com.vinskao.receipt.model.LocationENUM;
+import com.vinskao.receipt.module.ReceiptPrinter;
+import com.vinskao.receipt.module.ShoppingCart;
+import com.vinskao.receipt.module.TaxCalculator;
+
+/**
+ * 基準測試共用的購物車資料。
+ * 依 cartSize 產生固定種子的隨機項目，項目的地區平均分布在前 locations 個地區。
+ * 設定快照只在 Trial 開始時載入一次，量測的是計算本身而非設定讀取。
+ * @author VinsKao
+ */
+@State(Scope.Benchmark)
+public class CartState {
+    private static final String[] PRODUCTS = {"book", "pencil", "shirt", "potato_chips"};
+    private static final String[] CATEGORIES = {"misc", "food", "clothing"};
+    // 設定檔中有稅率的地區，locations 參數最多為此陣列長度
+    private static final LocationENUM[] LOCATIONS = {LocationENUM.CA, LocationENUM.NY};
+
+    @Param({"2", "100", "10000", "100000"})
+    public int cartSize;
+
+    @Param({"1", "2"})
+    public int locations;
+
+    public Map<String, ItemVO> items;
+    public TaxCalculator taxCalculator;
+    public ShoppingCart shoppingCart;
+    public ReceiptPrinter receiptPrinter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (locations < 1 || locations > LOCATIONS.length) {
+            throw new IllegalArgumentException("locations 必須介於 1 與 " + LOCATIONS.length + " 之間: " + locations);
+        }
+        ConfigSnapshot snapshot = ConfigSnapshot.load();
+        taxCalculator = new TaxCalculator(snapshot);
+        shoppingCart = new ShoppingCart(snapshot);
+        receiptPrinter = new ReceiptPrinter(snapshot);
+
+        Random random = new Random(42L);
+        items = new LinkedHashMap<>();
+        for (int i = 1; i <= cartSize; i++) {
+            items.put("purchase" + i, new ItemVO(PRODUCTS[random.nextInt(PRODUCTS.length)], null,
+                    1 + random.nextInt(5), LOCATIONS[i % locations], CATEGORIES[random.nextInt(CATEGORIES.length)]));
+        }
+    }
+}
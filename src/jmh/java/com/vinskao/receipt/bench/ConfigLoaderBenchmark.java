@@ -0,0 +1,51 @@
+package com.vinskao.receipt.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vinskao.receipt.config.CartsConfigLoader;
+import com.vinskao.receipt.config.LocationsConfigLoader;
+import com.vinskao.receipt.config.PricesConfigLoader;
+import com.vinskao.receipt.model.CartDO;
+import com.vinskao.receipt.model.LocationDO;
+import com.vinskao.receipt.model.PriceDO;
+
+/**
+ * 設定檔載入的 JMH 基準測試，量測從類路徑讀取並轉換 prices.json、locations.json 與 carts.json 的成本。
+ * <p>
+ * 執行方式：
+ * <pre>
+ * mvn -P benchmarks test-compile exec:exec -Djmh.args="ConfigLoaderBenchmark"
+ * </pre>
+ *
+ * @author VinsKao
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigLoaderBenchmark {
+
+    @Benchmark
+    public PriceDO loadPrices() {
+        return PricesConfigLoader.load();
+    }
+
+    @Benchmark
+    public LocationDO loadLocations() {
+        return LocationsConfigLoader.load();
+    }
+
+    @Benchmark
+    public CartDO loadCarts() {
+        return CartsConfigLoader.load();
+    }
+}
@@ -0,0 +1,52 @@
+package com.vinskao.receipt.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vinskao.receipt.config.ConfigSnapshot;
+import com.vinskao.receipt.module.ReceiptPrinter;
+
+/**
+ * 商品名稱格式化的 JMH 基準測試，涵蓋短名稱、底線名稱、超過欄寬的名稱與非 ASCII 名稱。
+ * <p>
+ * 執行方式：
+ * <pre>
+ * mvn -P benchmarks test-compile exec:exec -Djmh.args="ItemNameFormatterBenchmark"
+ * </pre>
+ *
+ * @author VinsKao
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemNameFormatterBenchmark {
+
+    @Param({"book", "potato_chips", "extra_large_family_size_potato_chips", "有機蘋果汁"})
+    public String name;
+
+    private ReceiptPrinter printer;
+
+    @Setup
+    public void setUp() {
+        printer = new ReceiptPrinter(ConfigSnapshot.load());
+    }
+
+    @Benchmark
+    public String itemNameFormatter() {
+        return printer.itemNameFormatter(name);
+    }
+}
@@ -0,0 +1,78 @@
+package com.vinskao.receipt.bench;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vinskao.receipt.config.ConfigSnapshot;
+import com.vinskao.receipt.metrics.ReceiptMetrics;
+import com.vinskao.receipt.model.ItemVO;
+import com.vinskao.receipt.model.LocationENUM;
+import com.vinskao.receipt.module.ReceiptPrinter;
+
+/**
+ * 量測 {@link ReceiptMetrics} 開啟與關閉時產生一張收據的成本差異。
+ * 每張收據會記錄計價、計稅與輸出三個階段的延遲與輸出字元數。
+ * <p>
+ * 執行方式：
+ * <pre>
+ * mvn -P benchmarks test-compile exec:exec -Djmh.args="MetricsOverheadBenchmark"
+ * </pre>
+ *
+ * @author VinsKao
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+    private static final String[] PRODUCTS = {"book", "pencil", "shirt", "potato_chips"};
+    private static final String[] CATEGORIES = {"misc", "food", "clothing"};
+
+    @Param({"true", "false"})
+    public boolean metrics;
+
+    @Param({"5"})
+    public int cartSize;
+
+    private ReceiptPrinter printer;
+    private Map<String, ItemVO> items;
+
+    @Setup
+    public void setUp() {
+        ReceiptMetrics.enable(metrics);
+        printer = new ReceiptPrinter(ConfigSnapshot.load());
+        Random random = new Random(42L);
+        items = new LinkedHashMap<>();
+        for (int i = 1; i <= cartSize; i++) {
+            items.put("purchase" + i, new ItemVO(PRODUCTS[random.nextInt(PRODUCTS.length)], null,
+                    1 + random.nextInt(5), LocationENUM.CA, CATEGORIES[random.nextInt(CATEGORIES.length)]));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        ReceiptMetrics.enable(true);
+    }
+
+    @Benchmark
+    public String getTable() {
+        return printer.getTable(items);
+    }
+}
@@ -1,10 +1,301 @@
 package com.vinskao.receipt;
 
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import com.vinskao.receipt.config.CartsConfigLoader;
+import com.vinskao.receipt.config.CartsStreamReader;
+import com.vinskao.receipt.config.ConfigFileWatcher;
+import com.vinskao.receipt.config.ConfigSnapshot;
+import com.vinskao.receipt.config.ConfigSnapshotHolder;
+import com.vinskao.receipt.journal.ReceiptJournal;
+import com.vinskao.receipt.metrics.ReceiptMetrics;
+import com.vinskao.receipt.module.BatchReceiptProcessor;
+import com.vinskao.receipt.module.BatchReport;
+import com.vinskao.receipt.module.BatchingReceiptSink;
+import com.vinskao.receipt.module.FileReceiptSink;
+import com.vinskao.receipt.module.ReceiptCache;
+import com.vinskao.receipt.module.ReceiptCheckpoint;
 import com.vinskao.receipt.module.ReceiptPrinter;
+import com.vinskao.receipt.module.ReceiptSink;
+import com.vinskao.receipt.module.ResumableReceiptJob;
+import com.vinskao.receipt.module.StdoutReceiptSink;
+import com.vinskao.receipt.module.TaxLiabilityAggregator;
+import com.vinskao.receipt.module.TaxLiabilityReport;
+import com.vinskao.receipt.pipeline.ReceiptPipeline;
+import com.vinskao.receipt.server.ReceiptServer;
 
+/**
+ * 程式進入點。
+ * 可用參數：
+ * --prices=路徑 與 --locations=路徑：改用外部設定檔取代類路徑中的 prices.json 與 locations.json
+ * --watch：搭配外部設定檔使用，檔案變更時自動重新載入
+ * --carts=路徑：串流讀取外部購物車檔案取代類路徑中的 carts.json
+ * --output=路徑：收據寫入指定檔案（UTF-8）而非標準輸出
+ * --batch=N：每累積 N 張收據寫出一次，預設 256
+ * --parallelism=N：以 N 個執行緒平行產生收據，輸出順序不變，預設 1
+ * --pipeline[=計價,計稅,輸出]：以具背壓的分段管線產生收據，可分別指定各階段的執行緒數，預設皆為 1
+ * --input=目錄或glob 與 --output-dir=目錄：批次模式，每個購物車檔案產生一個同名 .txt 收據檔
+ * --workers=N：批次模式同時處理的檔案數，預設為 CPU 核心數
+ * --serve[=埠號]：服務模式，以 HTTP 提供收據計算，預設埠號 8080
+ * --threads=N：服務模式處理請求的執行緒數，預設在支援時使用 virtual thread
+ * --cache[=N]：內容相同的購物車沿用快取的收據，最多保留 N 張，預設 10000；不適用於 --pipeline
+ * --journal=目錄：每張收據的計算結果附加到該目錄的收據日誌；不適用於 --pipeline 與 --serve
+ * --tax-report[=csv|json]：不產生收據，改為依地區與類別彙總應稅、免稅銷售額與稅額，預設 CSV；
+ *   可搭配 --carts、--output 與 --parallelism
+ * --checkpoint=路徑：搭配 --carts 與 --output，定期將讀取與寫出的位置存入檢查點檔案
+ * --checkpoint-every=N：每 N 個 case 儲存一次檢查點，預設 10000
+ * --resume：從 --checkpoint 指定的檢查點接續執行，不重複也不遺漏收據；不適用於 --pipeline 與 --parallelism
+ * 各階段延遲與計數器以 JMX 公開（見 {@link ReceiptMetrics}），可用 -Dreceipt.metrics=false 關閉。
+ */
 public class Application {
-    public static void main(String[] args) {
-        ReceiptPrinter printer = new ReceiptPrinter();
-        printer.printReceiptFrames();
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        ReceiptMetrics.registerMBeans();
+
+        if (!options.containsKey("prices") && !options.containsKey("locations")) {
+            // 設定檔只載入一次，之後所有元件共用同一份快照
+            ConfigSnapshot snapshot = ConfigSnapshot.load();
+            ReceiptPrinter printer = new ReceiptPrinter(snapshot);
+            run(printer, () -> snapshot, options);
+            return;
+        }
+
+        if (!options.containsKey("prices") || !options.containsKey("locations")) {
+            throw new IllegalArgumentException("--prices 與 --locations 必須同時指定");
+        }
+        Path pricesFile = Path.of(options.get("prices"));
+        Path locationsFile = Path.of(options.get("locations"));
+        ConfigSnapshotHolder holder = new ConfigSnapshotHolder(ConfigSnapshot.load(pricesFile, locationsFile));
+
+        ConfigFileWatcher watcher = null;
+        if (options.containsKey("watch")) {
+            watcher = new ConfigFileWatcher(pricesFile, locationsFile, holder);
+            watcher.start();
+        }
+        try {
+            run(new ReceiptPrinter(holder), holder::current, options);
+        } finally {
+            if (watcher != null) {
+                watcher.close();
+            }
+        }
+    }
+
+    /**
+     * 依 --cache 與 --journal 設定收據印表機後產生收據，結束時關閉收據日誌。
+     */
+    private static void run(ReceiptPrinter printer, Supplier<ConfigSnapshot> snapshots,
+            Map<String, String> options) throws Exception {
+        if (options.containsKey("cache")) {
+            String value = options.get("cache");
+            printer.setCache(value.isEmpty() ? new ReceiptCache() : new ReceiptCache(Integer.parseInt(value)));
+        }
+        ReceiptJournal journal = options.containsKey("journal")
+                ? new ReceiptJournal(Path.of(options.get("journal")))
+                : null;
+        printer.setJournal(journal);
+        try {
+            printReceipts(printer, snapshots, options);
+        } finally {
+            if (journal != null) {
+                journal.close();
+            }
+        }
+    }
+
+    private static void printReceipts(ReceiptPrinter printer, Supplier<ConfigSnapshot> snapshots,
+            Map<String, String> options) throws Exception {
+        if (options.containsKey("serve")) {
+            serve(printer, options);
+            return;
+        }
+        if (options.containsKey("input")) {
+            processBatch(printer, options);
+            return;
+        }
+        if (options.containsKey("tax-report")) {
+            writeTaxReport(snapshots.get(), options);
+            return;
+        }
+        if (options.containsKey("checkpoint")) {
+            runCheckpointed(printer, options);
+            return;
+        }
+        if (options.containsKey("resume")) {
+            throw new IllegalArgumentException("--resume 必須搭配 --checkpoint");
+        }
+        try (ReceiptSink sink = openSink(options);
+                CartsStreamReader reader = options.containsKey("carts")
+                        ? CartsConfigLoader.openStream(Path.of(options.get("carts")))
+                        : CartsConfigLoader.openStream()) {
+            if (options.containsKey("pipeline")) {
+                newPipeline(snapshots, options).run(reader, sink);
+                return;
+            }
+            int parallelism = options.containsKey("parallelism") ? Integer.parseInt(options.get("parallelism")) : 1;
+            printer.printReceiptFrames(reader, sink, parallelism);
+        }
+    }
+
+    /**
+     * 依 --pipeline=計價,計稅,輸出 建立分段管線；省略的階段使用 1 個執行緒。
+     */
+    static ReceiptPipeline newPipeline(Supplier<ConfigSnapshot> snapshots, Map<String, String> options) {
+        ReceiptPipeline pipeline = new ReceiptPipeline(snapshots);
+        String value = options.get("pipeline");
+        if (value != null && !value.isEmpty()) {
+            String[] parts = value.split(",");
+            if (parts.length > 3) {
+                throw new IllegalArgumentException("--pipeline 最多指定 3 個階段: " + value);
+            }
+            pipeline.setPriceParallelism(Integer.parseInt(parts[0].trim()));
+            if (parts.length > 1) {
+                pipeline.setTaxParallelism(Integer.parseInt(parts[1].trim()));
+            }
+            if (parts.length > 2) {
+                pipeline.setRenderParallelism(Integer.parseInt(parts[2].trim()));
+            }
+        }
+        return pipeline;
+    }
+
+    /**
+     * 服務模式：啟動 HTTP 收據服務，直到程式被終止為止。
+     */
+    private static void serve(ReceiptPrinter printer, Map<String, String> options) throws Exception {
+        int port = options.get("serve").isEmpty() ? 8080 : Integer.parseInt(options.get("serve"));
+        int threads = options.containsKey("threads") ? Integer.parseInt(options.get("threads")) : 0;
+        // 回應標頭與內容分開寫出時，Nagle 演算法與 delayed ACK 會讓每個回應多等約 40ms；
+        // 此設定在 HttpServer 第一次建立時讀取，未以 -D 明確指定時預設關閉 Nagle
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        ReceiptServer server = new ReceiptServer(printer, port, threads);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        server.start();
+        System.out.println("收據服務已啟動: http://localhost:" + server.getPort() + ReceiptServer.RECEIPT_PATH);
+        // 服務在背景執行緒處理請求，主執行緒等待程式被終止
+        Thread.currentThread().join();
+    }
+
+    /**
+     * 批次模式：處理 --input 指定的所有購物車檔案，收據寫入 --output-dir，結束時印出吞吐量與延遲統計。
+     */
+    private static void processBatch(ReceiptPrinter printer, Map<String, String> options) throws Exception {
+        if (!options.containsKey("output-dir")) {
+            throw new IllegalArgumentException("批次模式必須指定 --output-dir");
+        }
+        List<Path> inputs = BatchReceiptProcessor.resolveInputs(options.get("input"));
+        int workers = options.containsKey("workers")
+                ? Integer.parseInt(options.get("workers"))
+                : Runtime.getRuntime().availableProcessors();
+        int batchSize = options.containsKey("batch")
+                ? Integer.parseInt(options.get("batch"))
+                : BatchingReceiptSink.DEFAULT_BATCH_SIZE;
+        BatchReport report = new BatchReceiptProcessor(printer, workers, batchSize)
+                .process(inputs, Path.of(options.get("output-dir")));
+        System.out.println(report);
+        if (!report.getFailures().isEmpty()) {
+            throw new IllegalStateException(report.getFailures().size() + " 個檔案處理失敗");
+        }
+    }
+
+    /**
+     * 檢查點模式：循序產生收據並定期儲存檢查點，指定 --resume 時從檢查點接續，結束時印出處理的收據數。
+     */
+    private static void runCheckpointed(ReceiptPrinter printer, Map<String, String> options) throws IOException {
+        if (!options.containsKey("carts") || !options.containsKey("output")) {
+            throw new IllegalArgumentException("--checkpoint 必須同時指定 --carts 與 --output");
+        }
+        if (options.containsKey("pipeline")
+                || (options.containsKey("parallelism") && Integer.parseInt(options.get("parallelism")) != 1)) {
+            throw new IllegalArgumentException("--checkpoint 只支援循序產生收據，不可搭配 --pipeline 或 --parallelism");
+        }
+        long interval = options.containsKey("checkpoint-every")
+                ? Long.parseLong(options.get("checkpoint-every"))
+                : ResumableReceiptJob.DEFAULT_INTERVAL;
+        int batchSize = options.containsKey("batch")
+                ? Integer.parseInt(options.get("batch"))
+                : BatchingReceiptSink.DEFAULT_BATCH_SIZE;
+        ReceiptCheckpoint checkpoint = new ResumableReceiptJob(printer, Path.of(options.get("carts")),
+                Path.of(options.get("output")), Path.of(options.get("checkpoint")), interval, batchSize)
+                .run(options.containsKey("resume"));
+        System.out.println(checkpoint);
+    }
+
+    /**
+     * 稅務報表模式：串流讀取購物車並彙總，報表寫入 --output 指定的檔案（UTF-8）或標準輸出。
+     */
+    private static void writeTaxReport(ConfigSnapshot snapshot, Map<String, String> options) throws IOException {
+        String format = options.get("tax-report").isEmpty() ? "csv" : options.get("tax-report");
+        if (!format.equals("csv") && !format.equals("json")) {
+            throw new IllegalArgumentException("--tax-report 只支援 csv 或 json: " + format);
+        }
+        int parallelism = options.containsKey("parallelism") ? Integer.parseInt(options.get("parallelism")) : 1;
+        TaxLiabilityReport report;
+        try (CartsStreamReader reader = options.containsKey("carts")
+                ? CartsConfigLoader.openStream(Path.of(options.get("carts")))
+                : CartsConfigLoader.openStream()) {
+            report = new TaxLiabilityAggregator(snapshot, parallelism).aggregate(reader);
+        }
+        if (options.containsKey("output")) {
+            try (Writer out = Files.newBufferedWriter(Path.of(options.get("output")), StandardCharsets.UTF_8)) {
+                writeTaxReport(report, format, out);
+            }
+        } else {
+            // 標準輸出不關閉，只寫出緩衝區
+            Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+            writeTaxReport(report, format, out);
+            out.flush();
+        }
+    }
+
+    private static void writeTaxReport(TaxLiabilityReport report, String format, Writer out) throws IOException {
+        if (format.equals("json")) {
+            report.writeJson(out);
+        } else {
+            report.writeCsv(out);
+        }
+    }
+
+    /**
+     * 依 --output 與 --batch 建立收據輸出目標；未指定 --output 時輸出到標準輸出。
+     */
+    static ReceiptSink openSink(Map<String, String> options) throws IOException {
+        int batchSize = options.containsKey("batch")
+                ? Integer.parseInt(options.get("batch"))
+                : BatchingReceiptSink.DEFAULT_BATCH_SIZE;
+        if (options.containsKey("output")) {
+            return new FileReceiptSink(Path.of(options.get("output")), batchSize, FileReceiptSink.DEFAULT_BUFFER_SIZE);
+        }
+        return new StdoutReceiptSink(System.out, batchSize);
+    }
+
+    /**
+     * 將 --key=value 形式的參數解析為 Map；沒有值的旗標以空字串表示。
+     */
+    static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("無法辨識的參數: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                options.put(arg.substring(2), "");
+            } else {
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return options;
     }
-}
\ No newline at end of file
+}
@@ -1,29 +1,122 @@
 package com.vinskao.receipt.config;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vinskao.receipt.metrics.ReceiptMetrics;
+import com.vinskao.receipt.metrics.ReceiptMetrics.Stage;
 import com.vinskao.receipt.model.CartDO;
 
 /**
  * CartsConfigLoader 類別負責載入購物車設定檔案，並將 JSON 資料轉換為 CartDO 物件。
+ * 檔案較大時應改用 {@link #openStream()} 逐一讀取 case，避免整份檔案載入記憶體。
  * @author VinsKao
  */
 public class CartsConfigLoader {
     private static final String CONFIG_FILE = "carts.json";
 
     public static CartDO load() {
-        // 創建 Jackson 的 ObjectMapper 實例，用於 JSON 轉換
-        ObjectMapper mapper = new ObjectMapper();
+        long start = ReceiptMetrics.start();
         // 使用 try-with-resources 自動關閉資源
         try (InputStream in = LocationsConfigLoader.class.getClassLoader().getResourceAsStream(CONFIG_FILE)) {
             if (in == null) {
                 throw new RuntimeException("找不到配置檔 " + CONFIG_FILE);
             }
             // 將 JSON 內容轉換為 CartDO 物件並返回
-            return mapper.readValue(in, CartDO.class);
+            return SharedObjectMapper.CARTS_READER.readValue(in);
         } catch (Exception e) {
             throw new RuntimeException("載入配置失敗", e);
+        } finally {
+            ReceiptMetrics.record(Stage.CONFIG_LOAD, start);
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * 以串流方式開啟類路徑中的 carts.json，每次只讀取一個 case。
+     *
+     * @return 串流讀取器，使用完畢後需關閉
+     */
+    public static CartsStreamReader openStream() {
+        InputStream in = CartsConfigLoader.class.getClassLoader().getResourceAsStream(CONFIG_FILE);
+        if (in == null) {
+            throw new RuntimeException("找不到配置檔 " + CONFIG_FILE);
+        }
+        try {
+            return new CartsStreamReader(in);
+        } catch (IOException e) {
+            throw new RuntimeException("載入配置失敗", e);
+        }
+    }
+
+    /**
+     * 以串流方式開啟外部的購物車檔案，每次只讀取一個 case。
+     *
+     * @param path 購物車檔案路徑
+     * @return 串流讀取器，使用完畢後需關閉
+     */
+    public static CartsStreamReader openStream(Path path) {
+        try {
+            return new CartsStreamReader(Files.newInputStream(path));
+        } catch (IOException e) {
+            throw new RuntimeException("載入配置失敗: " + path, e);
+        }
+    }
+
+    /**
+     * 從指定的位元組位置接續讀取外部的購物車檔案，位置應為某個 case 結尾之後，
+     * 即 {@link CartsStreamReader#getByteOffset()} 在讀取完該 case 時的值。
+     * 略過位置之後的空白與分隔 case 的逗號，並在前面補上 '{'，使剩餘內容成為合法的 JSON 物件。
+     *
+     * @param path       購物車檔案路徑
+     * @param byteOffset 開始讀取的位元組位置；為 0 時從頭讀取
+     * @return 串流讀取器，{@link CartsStreamReader#getByteOffset()} 仍回傳原始檔案中的位置
+     */
+    public static CartsStreamReader openStream(Path path, long byteOffset) {
+        if (byteOffset == 0) {
+            return openStream(path);
+        }
+        InputStream in = null;
+        try {
+            in = new BufferedInputStream(Files.newInputStream(path));
+            in.skipNBytes(byteOffset);
+            long skipped = 0;
+            boolean comma = false;
+            while (true) {
+                in.mark(1);
+                int b = in.read();
+                if (b == ' ' || b == '\t' || b == '\r' || b == '\n' || (b == ',' && !comma)) {
+                    comma |= b == ',';
+                    skipped++;
+                } else {
+                    in.reset();
+                    break;
+                }
+            }
+            InputStream resumed = new SequenceInputStream(new ByteArrayInputStream(new byte[] {'{'}), in);
+            // 補上的 '{' 不在原始檔案中，因此基準位置往前一個位元組
+            return new CartsStreamReader(resumed, byteOffset + skipped - 1);
+        } catch (EOFException e) {
+            closeQuietly(in);
+            throw new RuntimeException("購物車檔案比檢查點位置短: " + path, e);
+        } catch (IOException e) {
+            closeQuietly(in);
+            throw new RuntimeException("載入配置失敗: " + path, e);
+        }
+    }
+
+    private static void closeQuietly(InputStream in) {
+        if (in != null) {
+            try {
+                in.close();
+            } catch (IOException ignored) {
+                // 已在處理其他例外，關閉失敗不再拋出
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.vinskao.receipt.config;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.vinskao.receipt.metrics.CartParsedEvent;
+import com.vinskao.receipt.metrics.ReceiptMetrics;
+import com.vinskao.receipt.metrics.ReceiptMetrics.Stage;
+import com.vinskao.receipt.model.CartCaseVO;
+import com.vinskao.receipt.model.ItemVO;
+
+/**
+ * CartsStreamReader 以 Jackson {@link JsonParser} 串流讀取 carts.json，每次只解析一個 case。
+ * 記憶體用量只與單一 case 的大小有關，與整份檔案大小無關，
+ * 第一張收據也不必等整份檔案讀完才能開始列印。
+ * case 依檔案中的順序產生。
+ * @author VinsKao
+ */
+public class CartsStreamReader implements Iterator<CartCaseVO>, Closeable {
+    private final JsonParser parser;
+    // 輸入流第一個位元組在原始檔案中的位置，從檢查點接續讀取時不為 0
+    private final long baseOffset;
+    // 已讀取但尚未交給呼叫端的 case
+    private CartCaseVO next;
+    private boolean finished;
+
+    /**
+     * 建立串流讀取器，會立即讀取最外層的 '{'。
+     *
+     * @param in carts.json 的輸入流，由此讀取器負責關閉
+     * @throws IOException 檔案不是以 JSON 物件開頭時拋出
+     */
+    public CartsStreamReader(InputStream in) throws IOException {
+        this(in, 0L);
+    }
+
+    /**
+     * 建立串流讀取器，{@link #getByteOffset()} 回傳的位置會加上 baseOffset。
+     *
+     * @param in         以 '{' 開頭的輸入流，由此讀取器負責關閉
+     * @param baseOffset 輸入流第一個位元組對應到原始檔案中的位置
+     * @throws IOException 輸入流不是以 JSON 物件開頭時拋出
+     */
+    public CartsStreamReader(InputStream in, long baseOffset) throws IOException {
+        this.baseOffset = baseOffset;
+        this.parser = SharedObjectMapper.MAPPER.getFactory().createParser(in);
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            parser.close();
+            throw new IOException("carts.json 必須以 JSON 物件開頭");
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !finished) {
+            long start = ReceiptMetrics.start();
+            CartParsedEvent event = new CartParsedEvent();
+            event.begin();
+            next = readNext();
+            ReceiptMetrics.record(Stage.CART_PARSE, start);
+            if (next != null && event.shouldCommit()) {
+                event.caseKey = next.getCaseKey();
+                event.lineCount = next.getItems() == null ? 0 : next.getItems().size();
+                event.byteOffset = getByteOffset();
+                event.commit();
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public CartCaseVO next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        CartCaseVO current = next;
+        next = null;
+        return current;
+    }
+
+    /**
+     * 目前解析器在原始檔案中的位元組位置，讀取完一個 case 後即為該 case 結尾之後的位置。
+     *
+     * @return 已讀取的位元組數
+     */
+    public long getByteOffset() {
+        return baseOffset + parser.getCurrentLocation().getByteOffset();
+    }
+
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        parser.close();
+    }
+
+    private CartCaseVO readNext() {
+        try {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.END_OBJECT || token == null) {
+                finished = true;
+                return null;
+            }
+            if (token != JsonToken.FIELD_NAME) {
+                throw new IOException("carts.json 格式錯誤，預期 case 名稱，實際為 " + token);
+            }
+            String caseKey = parser.getCurrentName();
+            parser.nextToken();
+            Map<String, ItemVO> items = SharedObjectMapper.CASE_READER.readValue(parser);
+            return new CartCaseVO(caseKey, items);
+        } catch (IOException e) {
+            finished = true;
+            throw new UncheckedIOException("讀取購物車資料失敗", e);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.vinskao.receipt.config;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ConfigFileWatcher 以 NIO {@link WatchService} 監看外部的 prices.json 與 locations.json，
+ * 檔案變更時在背景執行緒重新解析，成功後才將新快照發布到 {@link ConfigSnapshotHolder}。
+ * 解析失敗時保留原本的快照，避免半寫入的檔案影響正在運作的收據計算。
+ * @author VinsKao
+ */
+public class ConfigFileWatcher implements Closeable {
+    // 編輯器存檔時常會連續觸發多個事件，等待一小段時間讓檔案寫完再讀取
+    private static final long SETTLE_MILLIS = 100;
+
+    private final Path pricesFile;
+    private final Path locationsFile;
+    private final ConfigSnapshotHolder holder;
+    private final WatchService watchService;
+    private final Thread worker;
+
+    /**
+     * 建立監看器並註冊設定檔所在目錄，需呼叫 {@link #start()} 後才開始監看。
+     *
+     * @param pricesFile    prices.json 路徑
+     * @param locationsFile locations.json 路徑
+     * @param holder        發布新快照的目標
+     * @throws IOException 無法註冊目錄監看時拋出
+     */
+    public ConfigFileWatcher(Path pricesFile, Path locationsFile, ConfigSnapshotHolder holder) throws IOException {
+        this.pricesFile = pricesFile.toAbsolutePath().normalize();
+        this.locationsFile = locationsFile.toAbsolutePath().normalize();
+        this.holder = holder;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        register(this.pricesFile.getParent());
+        if (!this.locationsFile.getParent().equals(this.pricesFile.getParent())) {
+            register(this.locationsFile.getParent());
+        }
+        this.worker = new Thread(this::watchLoop, "config-file-watcher");
+        this.worker.setDaemon(true);
+    }
+
+    public void start() {
+        worker.start();
+    }
+
+    /**
+     * 立即重新讀取兩個設定檔並發布新快照。
+     *
+     * @return 解析成功並已發布時回傳 true
+     */
+    public boolean reload() {
+        try {
+            holder.publish(ConfigSnapshot.load(pricesFile, locationsFile));
+            return true;
+        } catch (RuntimeException e) {
+            System.err.println("設定檔重新載入失敗，沿用原本的設定: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        worker.interrupt();
+    }
+
+    private void register(Path dir) throws IOException {
+        dir.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+    }
+
+    private void watchLoop() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = collectChanges(key);
+                // 合併短時間內的後續事件，只重新載入一次
+                WatchKey next;
+                while ((next = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= collectChanges(next);
+                }
+                if (changed) {
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // 監看器已關閉，結束背景執行緒
+        }
+    }
+
+    private boolean collectChanges(WatchKey key) {
+        boolean changed = false;
+        Path dir = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changed = true;
+                continue;
+            }
+            Path file = dir.resolve((Path) event.context());
+            if (file.equals(pricesFile) || file.equals(locationsFile)) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+}
@@ -0,0 +1,102 @@
+package com.vinskao.receipt.config;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.vinskao.receipt.model.LocationDO;
+import com.vinskao.receipt.model.PriceDO;
+import com.vinskao.receipt.model.ProductDictionary;
+import com.vinskao.receipt.model.TaxRuleTable;
+
+/**
+ * ConfigSnapshot 是價格與地區稅率設定的不可變快照。
+ * 整個程式只需載入一次，再以建構子注入的方式共用給
+ * {@code ShoppingCart}、{@code TaxCalculator} 與 {@code ReceiptPrinter}，
+ * 避免每建立一個物件就重新讀取 JSON 檔案。
+ * 快照發布後其內容不可再被修改；設定變更時應建立新的快照，
+ * 並透過 {@link ConfigSnapshotHolder} 整份替換。
+ * @author VinsKao
+ */
+public class ConfigSnapshot {
+    // 每建立一份快照即遞增的版本號，用來辨識設定是否已變更
+    private static final AtomicLong VERSION_SEQUENCE = new AtomicLong();
+
+    // 以商品字典為內容的唯讀價格設定
+    private final PriceDO priceDO;
+    private final LocationDO locationDO;
+    // 由 locationDO 編譯而成的稅率規則表，建立快照時編譯一次
+    private final TaxRuleTable taxRuleTable;
+    // 由 priceDO 編譯而成的商品字典，建立快照時編譯一次
+    private final ProductDictionary productDictionary;
+    private final long version;
+
+    public ConfigSnapshot(PriceDO priceDO, LocationDO locationDO) {
+        if (priceDO == null || locationDO == null) {
+            throw new IllegalArgumentException("PriceDO 與 LocationDO 不能為 null");
+        }
+        this.locationDO = locationDO;
+        this.taxRuleTable = TaxRuleTable.compile(locationDO);
+        this.productDictionary = ProductDictionary.compile(priceDO);
+        // 價格表改由商品字典的唯讀檢視提供，不保留載入時的 HashMap；
+        // 之後修改傳入的 PriceDO 也不會影響快照
+        this.priceDO = new PriceDO(productDictionary.asMap());
+        this.version = VERSION_SEQUENCE.incrementAndGet();
+    }
+
+    /**
+     * 從類路徑讀取 prices.json 與 locations.json，建立新的快照。
+     *
+     * @return 新載入的設定快照
+     */
+    public static ConfigSnapshot load() {
+        return new ConfigSnapshot(PricesConfigLoader.load(), LocationsConfigLoader.load());
+    }
+
+    /**
+     * 從外部檔案讀取 prices.json 與 locations.json，建立新的快照。
+     *
+     * @param pricesFile    prices.json 路徑
+     * @param locationsFile locations.json 路徑
+     * @return 新載入的設定快照
+     */
+    public static ConfigSnapshot load(Path pricesFile, Path locationsFile) {
+        return new ConfigSnapshot(PricesConfigLoader.load(pricesFile), LocationsConfigLoader.load(locationsFile));
+    }
+
+    /**
+     * 取得全程式共用的預設快照，第一次呼叫時才載入設定檔。
+     *
+     * @return 預設設定快照
+     */
+    public static ConfigSnapshot getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    /**
+     * @return 價格設定，{@link PriceDO#getPrices()} 回傳不可修改的 Map
+     */
+    public PriceDO getPriceDO() {
+        return priceDO;
+    }
+
+    public LocationDO getLocationDO() {
+        return locationDO;
+    }
+
+    public TaxRuleTable getTaxRuleTable() {
+        return taxRuleTable;
+    }
+
+    public ProductDictionary getProductDictionary() {
+        return productDictionary;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // 延遲初始化：類別載入機制保證只載入一次且執行緒安全
+    private static class DefaultHolder {
+        private static final ConfigSnapshot INSTANCE = load();
+    }
+}
@@ -0,0 +1,40 @@
+package com.vinskao.receipt.config;
+
+import com.vinskao.receipt.model.LocationENUM;
+
+/**
+ * ConfigSnapshotHolder 持有目前生效的 {@link ConfigSnapshot}。
+ * 讀取端只做一次 volatile 讀取，不需任何鎖；設定重載時由寫入端建立完整的新快照後，
+ * 以單一次 volatile 寫入整份替換。已經取得舊快照的收據會繼續使用舊快照直到完成。
+ * @author VinsKao
+ */
+public class ConfigSnapshotHolder {
+    private volatile ConfigSnapshot current;
+
+    public ConfigSnapshotHolder(ConfigSnapshot initial) {
+        publish(initial);
+    }
+
+    /**
+     * 取得目前生效的快照。呼叫端應在一張收據開始時取得一次，並在整張收據計算期間沿用。
+     *
+     * @return 目前生效的設定快照
+     */
+    public ConfigSnapshot current() {
+        return current;
+    }
+
+    /**
+     * 發布新的快照，之後呼叫 {@link #current()} 的讀取端都會看到新設定。
+     *
+     * @param snapshot 已完整載入的新快照
+     */
+    public void publish(ConfigSnapshot snapshot) {
+        if (snapshot == null) {
+            throw new IllegalArgumentException("ConfigSnapshot 不能為 null");
+        }
+        // 同步更新 LocationENUM 的地區設定，讓兩者看到同一份資料
+        LocationENUM.setTaxRules(snapshot.getTaxRuleTable());
+        this.current = snapshot;
+    }
+}
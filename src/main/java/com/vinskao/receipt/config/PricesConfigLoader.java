@@ -1,9 +1,12 @@
 package com.vinskao.receipt.config;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vinskao.receipt.metrics.ReceiptMetrics;
+import com.vinskao.receipt.metrics.ReceiptMetrics.Stage;
 import com.vinskao.receipt.model.PriceDO;
 
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 /**
  * PricesConfigLoader 類別負責載入價格設定檔案，並將 JSON 資料轉換為 PriceDO 物件。
@@ -13,17 +16,35 @@ public class PricesConfigLoader {
     private static final String CONFIG_FILE = "prices.json";
 
     public static PriceDO load() {
-        // 創建 Jackson 的 ObjectMapper 實例，用於 JSON 轉換
-        ObjectMapper mapper = new ObjectMapper();
+        long start = ReceiptMetrics.start();
         // 使用 try-with-resources 自動關閉資源，從類路徑中讀取價格配置文件
         try (InputStream in = LocationsConfigLoader.class.getClassLoader().getResourceAsStream(CONFIG_FILE)) {
             if (in == null) {
                 throw new RuntimeException("找不到配置檔 " + CONFIG_FILE);
             }
             // 將 JSON 內容轉換為 PriceDO 物件並返回
-            return mapper.readValue(in, PriceDO.class);
+            return SharedObjectMapper.PRICES_READER.readValue(in);
         } catch (Exception e) {
             throw new RuntimeException("載入配置失敗", e);
+        } finally {
+            ReceiptMetrics.record(Stage.CONFIG_LOAD, start);
+        }
+    }
+
+    /**
+     * 從外部檔案路徑載入 prices.json，供熱重載時讀取類路徑以外的設定檔使用。
+     *
+     * @param path 設定檔路徑
+     * @return 轉換後的 PriceDO 物件
+     */
+    public static PriceDO load(Path path) {
+        long start = ReceiptMetrics.start();
+        try (InputStream in = Files.newInputStream(path)) {
+            return SharedObjectMapper.PRICES_READER.readValue(in);
+        } catch (Exception e) {
+            throw new RuntimeException("載入配置失敗: " + path, e);
+        } finally {
+            ReceiptMetrics.record(Stage.CONFIG_LOAD, start);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.vinskao.receipt.config;
+
+import java.util.LinkedHashMap;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.vinskao.receipt.model.CartDO;
+import com.vinskao.receipt.model.ItemVO;
+import com.vinskao.receipt.model.LocationDO;
+import com.vinskao.receipt.model.PriceDO;
+
+/**
+ * SharedObjectMapper 提供全程式共用的 Jackson ObjectMapper 與各設定檔對應的 ObjectReader。
+ * ObjectMapper 建立成本高且為執行緒安全，因此只建立一次，避免每次載入都重新初始化 Jackson。
+ * @author VinsKao
+ */
+public final class SharedObjectMapper {
+    /**
+     * 全程式共用的 ObjectMapper，設定完成後不可再修改。
+     */
+    public static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // 預先建立的 ObjectReader，為不可變物件，可安全地跨執行緒共用
+    public static final ObjectReader PRICES_READER = MAPPER.readerFor(PriceDO.class);
+    public static final ObjectReader LOCATIONS_READER = MAPPER.readerFor(LocationDO.class);
+    public static final ObjectReader CARTS_READER = MAPPER.readerFor(CartDO.class);
+    // 單一 case 的購買項目，保留項目順序
+    public static final ObjectReader CASE_READER =
+            MAPPER.readerFor(new TypeReference<LinkedHashMap<String, ItemVO>>() {});
+
+    private SharedObjectMapper() {
+    }
+}
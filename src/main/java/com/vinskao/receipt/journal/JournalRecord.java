@@ -0,0 +1,232 @@
+package com.vinskao.receipt.journal;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.vinskao.receipt.model.LineItem;
+import com.vinskao.receipt.model.LocationENUM;
+import com.vinskao.receipt.model.ReceiptTotals;
+
+/**
+ * JournalRecord 是收據日誌中的一筆紀錄：case 名稱、購買項目、小計、稅金、總金額與計算時的設定版本。
+ * 建立後不可修改。
+ * <p>
+ * 二進位格式（big-endian）：
+ * <pre>
+ * long 設定版本 | 字串 case 名稱 | int 項目數
+ * 每個項目：字串 商品名稱 | int 數量 | 字串 類別 | byte 地區 | 金額 單價
+ * 金額 小計 | 金額 稅金 | 金額 總金額
+ * </pre>
+ * 字串為 int 長度加上 UTF-8 位元組，金額為 byte 長度、未縮放值位元組與 int 小數位數；null 以長度 -1 表示，地區為 null 時為 -1。
+ * @author VinsKao
+ */
+public final class JournalRecord {
+    private static final LocationENUM[] LOCATIONS = LocationENUM.values();
+
+    private final String caseKey;
+    private final long configVersion;
+    private final List<LineItem> lines;
+    private final BigDecimal subtotal;
+    private final BigDecimal tax;
+    private final BigDecimal total;
+
+    /**
+     * @param caseKey       case 名稱
+     * @param configVersion 計算時使用的設定快照版本號
+     * @param lines         購買項目，依列印順序排列
+     * @param totals        小計、稅金與總金額
+     */
+    public JournalRecord(String caseKey, long configVersion, List<LineItem> lines, ReceiptTotals totals) {
+        this(caseKey, configVersion, lines, totals.getSubtotal(), totals.getTax(), totals.getTotal());
+    }
+
+    private JournalRecord(String caseKey, long configVersion, List<LineItem> lines, BigDecimal subtotal,
+            BigDecimal tax, BigDecimal total) {
+        if (caseKey == null) {
+            throw new IllegalArgumentException("caseKey 不能為 null");
+        }
+        this.caseKey = caseKey;
+        this.configVersion = configVersion;
+        this.lines = Collections.unmodifiableList(new ArrayList<>(lines));
+        this.subtotal = subtotal;
+        this.tax = tax;
+        this.total = total;
+    }
+
+    public String getCaseKey() {
+        return caseKey;
+    }
+
+    public long getConfigVersion() {
+        return configVersion;
+    }
+
+    public List<LineItem> getLines() {
+        return lines;
+    }
+
+    public BigDecimal getSubtotal() {
+        return subtotal;
+    }
+
+    public BigDecimal getTax() {
+        return tax;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    /**
+     * @return 編碼後的位元組
+     */
+    byte[] encode() {
+        byte[] key = caseKey.getBytes(StandardCharsets.UTF_8);
+        // 先估計長度，不足時再擴充
+        ByteBuffer out = ByteBuffer.allocate(64 + key.length + lines.size() * 48);
+        out = putLong(out, configVersion);
+        out = putBytes(out, key);
+        out = putInt(out, lines.size());
+        for (LineItem line : lines) {
+            out = putString(out, line.getProductName());
+            out = putInt(out, line.getQuantity());
+            out = putString(out, line.getCategory());
+            out = ensure(out, 1);
+            out.put(line.getLocation() == null ? -1 : (byte) line.getLocation().ordinal());
+            out = putDecimal(out, line.getUnitPrice());
+        }
+        out = putDecimal(out, subtotal);
+        out = putDecimal(out, tax);
+        out = putDecimal(out, total);
+        byte[] bytes = new byte[out.position()];
+        out.flip();
+        out.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * 從 in 目前的位置解碼一筆紀錄。
+     *
+     * @param in 紀錄內容
+     * @return 解碼後的紀錄
+     */
+    static JournalRecord decode(ByteBuffer in) {
+        long configVersion = in.getLong();
+        String caseKey = getString(in);
+        int count = in.getInt();
+        List<LineItem> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String productName = getString(in);
+            int quantity = in.getInt();
+            String category = getString(in);
+            byte location = in.get();
+            BigDecimal unitPrice = getDecimal(in);
+            lines.add(new LineItem(productName, quantity, location < 0 ? null : LOCATIONS[location], category,
+                    unitPrice));
+        }
+        BigDecimal subtotal = getDecimal(in);
+        BigDecimal tax = getDecimal(in);
+        BigDecimal total = getDecimal(in);
+        return new JournalRecord(caseKey, configVersion, lines, subtotal, tax, total);
+    }
+
+    /**
+     * 只解碼 case 名稱，供建立索引與查詢時比對。
+     *
+     * @param in 紀錄內容，位置在紀錄開頭
+     * @return case 名稱
+     */
+    static String decodeCaseKey(ByteBuffer in) {
+        in.getLong();
+        return getString(in);
+    }
+
+    private static ByteBuffer ensure(ByteBuffer out, int bytes) {
+        if (out.remaining() >= bytes) {
+            return out;
+        }
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + bytes));
+        out.flip();
+        return larger.put(out);
+    }
+
+    private static ByteBuffer putInt(ByteBuffer out, int value) {
+        out = ensure(out, 4);
+        out.putInt(value);
+        return out;
+    }
+
+    private static ByteBuffer putLong(ByteBuffer out, long value) {
+        out = ensure(out, 8);
+        out.putLong(value);
+        return out;
+    }
+
+    private static ByteBuffer putBytes(ByteBuffer out, byte[] bytes) {
+        out = ensure(out, 4 + bytes.length);
+        out.putInt(bytes.length);
+        out.put(bytes);
+        return out;
+    }
+
+    private static ByteBuffer putString(ByteBuffer out, String value) {
+        if (value == null) {
+            return putInt(out, -1);
+        }
+        return putBytes(out, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ByteBuffer putDecimal(ByteBuffer out, BigDecimal value) {
+        if (value == null) {
+            out = ensure(out, 1);
+            out.put((byte) -1);
+            return out;
+        }
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        if (unscaled.length > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("金額位數過多: " + value);
+        }
+        out = ensure(out, 1 + unscaled.length + 4);
+        out.put((byte) unscaled.length);
+        out.put(unscaled);
+        out.putInt(value.scale());
+        return out;
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static BigDecimal getDecimal(ByteBuffer in) {
+        int length = in.get();
+        if (length < 0) {
+            return null;
+        }
+        byte[] unscaled = new byte[length];
+        in.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), in.getInt());
+    }
+
+    @Override
+    public String toString() {
+        return "JournalRecord{" +
+               "caseKey='" + caseKey + '\'' +
+               ", configVersion=" + configVersion +
+               ", lines=" + lines.size() +
+               ", subtotal=" + subtotal +
+               ", tax=" + tax +
+               ", total=" + total +
+               '}';
+    }
+}
@@ -0,0 +1,362 @@
+package com.vinskao.receipt.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * 收據日誌的單一區段檔，整個檔案以記憶體映射存取。
+ * <p>
+ * 檔案開頭為 8 位元組的標頭（magic 與格式版本），之後依序排列紀錄，每筆紀錄為
+ * {@code int 長度 | int CRC32 | 內容}。寫入時先寫 CRC 與內容，最後才寫長度，
+ * 長度為 0 的位置即為日誌結尾，因此寫到一半的紀錄不會被讀到。
+ * <p>
+ * 作用中的區段以 HashMap 記錄每個 case 名稱最後一筆紀錄的位置；區段寫滿封存時，
+ * 改寫成依 case 名稱雜湊排序的索引檔（{@code long 雜湊 | int 位置}），查詢時以二分搜尋讀取映射的索引檔。
+ * @author VinsKao
+ */
+final class JournalSegment implements Closeable {
+    static final String SUFFIX = ".journal";
+    static final String INDEX_SUFFIX = ".index";
+    static final int HEADER_SIZE = 8;
+    static final int RECORD_HEADER_SIZE = 8;
+
+    private static final int MAGIC = 0x52434A31;
+    private static final int INDEX_MAGIC = 0x52434931;
+    private static final int FORMAT_VERSION = 1;
+    private static final int INDEX_HEADER_SIZE = 8;
+    private static final int INDEX_ENTRY_SIZE = 12;
+
+    private final long number;
+    private final Path file;
+    private final Path indexFile;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    // 下一筆紀錄的寫入位置，也是目前有效內容的結尾
+    private int end;
+    // 開啟時丟棄的殘缺紀錄位元組數
+    private int discarded;
+    // 作用中區段：case 名稱 -> 最後一筆紀錄的位置；封存後為 null
+    private Map<String, Integer> latest;
+    // 封存區段的索引檔映射；作用中區段為 null
+    private MappedByteBuffer index;
+
+    private JournalSegment(long number, Path file, Path indexFile, FileChannel channel, MappedByteBuffer buffer) {
+        this.number = number;
+        this.file = file;
+        this.indexFile = indexFile;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    static Path fileOf(Path directory, long number) {
+        return directory.resolve(String.format("%020d", number) + SUFFIX);
+    }
+
+    private static Path indexFileOf(Path directory, long number) {
+        return directory.resolve(String.format("%020d", number) + INDEX_SUFFIX);
+    }
+
+    /**
+     * 建立新的作用中區段。
+     */
+    static JournalSegment create(Path directory, long number, int size) throws IOException {
+        Path file = fileOf(directory, number);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, FORMAT_VERSION);
+        JournalSegment segment = new JournalSegment(number, file, indexFileOf(directory, number), channel, buffer);
+        segment.end = HEADER_SIZE;
+        segment.latest = new HashMap<>();
+        return segment;
+    }
+
+    /**
+     * 開啟既有區段。作用中的區段會重新掃描以找出結尾，並清除寫到一半的紀錄；
+     * 已封存的區段直接使用索引檔，索引檔不存在或損壞時重新建立。
+     */
+    static JournalSegment open(Path directory, long number, boolean active) throws IOException {
+        Path file = fileOf(directory, number);
+        FileChannel channel = active
+                ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ);
+        long size = channel.size();
+        if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+            channel.close();
+            throw new IOException("日誌區段大小不正確: " + file);
+        }
+        MappedByteBuffer buffer = channel.map(active ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                0, size);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+            channel.close();
+            throw new IOException("不是收據日誌區段: " + file);
+        }
+        JournalSegment segment = new JournalSegment(number, file, indexFileOf(directory, number), channel, buffer);
+        if (active) {
+            segment.recover();
+        } else {
+            segment.loadIndex();
+        }
+        return segment;
+    }
+
+    /**
+     * 掃描所有完整的紀錄建立索引，並將結尾之後的殘留位元組清為 0。
+     */
+    private void recover() throws IOException {
+        latest = new HashMap<>();
+        end = scan(position -> latest.put(JournalRecord.decodeCaseKey(payload(position)), position));
+        int limit = buffer.capacity();
+        for (int i = end; i < limit; i++) {
+            if (buffer.get(i) != 0) {
+                buffer.put(i, (byte) 0);
+                discarded = i - end + 1;
+            }
+        }
+        // 作用中區段的索引只存在記憶體中，舊的索引檔已不再正確
+        Files.deleteIfExists(indexFile);
+    }
+
+    private void loadIndex() throws IOException {
+        if (Files.exists(indexFile)) {
+            try (FileChannel indexChannel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+                long size = indexChannel.size();
+                if (size >= INDEX_HEADER_SIZE && (size - INDEX_HEADER_SIZE) % INDEX_ENTRY_SIZE == 0) {
+                    MappedByteBuffer mapped = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                    if (mapped.getInt(0) == INDEX_MAGIC
+                            && mapped.getInt(4) == (size - INDEX_HEADER_SIZE) / INDEX_ENTRY_SIZE) {
+                        index = mapped;
+                        return;
+                    }
+                }
+            }
+        }
+        // 封存前程式中止時索引檔可能不存在，重新掃描建立
+        latest = new HashMap<>();
+        end = scan(position -> latest.put(JournalRecord.decodeCaseKey(payload(position)), position));
+        writeIndex();
+    }
+
+    /**
+     * 附加一筆紀錄。
+     *
+     * @param caseKey case 名稱
+     * @param payload 編碼後的紀錄內容
+     * @return 空間不足時回傳 false，不寫入任何資料
+     */
+    boolean append(String caseKey, byte[] payload) {
+        if (end + RECORD_HEADER_SIZE + payload.length > buffer.capacity()) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        buffer.put(end + RECORD_HEADER_SIZE, payload);
+        buffer.putInt(end + 4, (int) crc.getValue());
+        // 長度最後寫入，之前中止的寫入在重新開啟時會被視為結尾
+        buffer.putInt(end, payload.length);
+        latest.put(caseKey, end);
+        end += RECORD_HEADER_SIZE + payload.length;
+        return true;
+    }
+
+    /**
+     * 捨棄 offset 之後的紀錄，之後從 offset 繼續寫入。只能用於作用中區段。
+     *
+     * @param offset 保留內容的結尾，必須是某筆紀錄的開頭或目前的結尾
+     * @throws IOException offset 不是紀錄的邊界時拋出
+     */
+    void truncate(int offset) throws IOException {
+        boolean[] boundary = {offset == end};
+        scan(position -> boundary[0] |= position == offset);
+        if (!boundary[0]) {
+            throw new IOException("日誌區段 " + file + " 的位置 " + offset + " 不是紀錄的邊界");
+        }
+        for (int i = offset; i < end; i++) {
+            buffer.put(i, (byte) 0);
+        }
+        recover();
+    }
+
+    /**
+     * 封存區段：寫出排序後的索引檔並將內容寫回磁碟，之後不再寫入。
+     */
+    void seal() throws IOException {
+        buffer.force();
+        writeIndex();
+    }
+
+    private void writeIndex() throws IOException {
+        List<long[]> entries = new ArrayList<>(latest.size());
+        for (Map.Entry<String, Integer> entry : latest.entrySet()) {
+            entries.add(new long[] {hash(entry.getKey()), entry.getValue()});
+        }
+        entries.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        ByteBuffer out = ByteBuffer.allocate(INDEX_HEADER_SIZE + entries.size() * INDEX_ENTRY_SIZE);
+        out.putInt(INDEX_MAGIC).putInt(entries.size());
+        for (long[] entry : entries) {
+            out.putLong(entry[0]).putInt((int) entry[1]);
+        }
+        out.flip();
+        // 先寫到暫存檔再改名，索引檔不會只寫一半
+        Path temp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try (FileChannel indexChannel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                indexChannel.write(out);
+            }
+            indexChannel.force(true);
+        }
+        Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        try (FileChannel indexChannel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            index = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0, indexChannel.size());
+        }
+        latest = null;
+    }
+
+    /**
+     * 查詢 case 名稱在本區段中最後一筆紀錄的位置。
+     *
+     * @return 紀錄位置；不存在時回傳 -1
+     */
+    int find(String caseKey) {
+        if (latest != null) {
+            Integer position = latest.get(caseKey);
+            return position == null ? -1 : position;
+        }
+        long target = hash(caseKey);
+        int low = 0;
+        int high = index.getInt(4) - 1;
+        // 找出第一個雜湊值不小於 target 的項目
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (index.getLong(INDEX_HEADER_SIZE + mid * INDEX_ENTRY_SIZE) < target) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        int count = index.getInt(4);
+        // 雜湊值相同時逐一比對 case 名稱
+        for (int i = low; i < count; i++) {
+            int offset = INDEX_HEADER_SIZE + i * INDEX_ENTRY_SIZE;
+            if (index.getLong(offset) != target) {
+                break;
+            }
+            int position = index.getInt(offset + 8);
+            if (caseKey.equals(JournalRecord.decodeCaseKey(payload(position)))) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 依序走訪所有完整的紀錄。
+     *
+     * @param visitor 接收每筆紀錄的位置
+     * @return 最後一筆完整紀錄之後的位置
+     */
+    int scan(RecordVisitor visitor) throws IOException {
+        int limit = buffer.capacity();
+        int position = HEADER_SIZE;
+        CRC32 crc = new CRC32();
+        while (position + RECORD_HEADER_SIZE <= limit) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || length > limit - position - RECORD_HEADER_SIZE) {
+                break;
+            }
+            crc.reset();
+            crc.update(payload(position));
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+            visitor.visit(position);
+            position += RECORD_HEADER_SIZE + length;
+        }
+        return position;
+    }
+
+    /**
+     * @param position 紀錄位置
+     * @return 紀錄內容，獨立的位置與上限，可直接解碼
+     */
+    ByteBuffer payload(int position) {
+        int length = buffer.getInt(position);
+        return buffer.slice(position + RECORD_HEADER_SIZE, length);
+    }
+
+    JournalRecord read(int position) {
+        return JournalRecord.decode(payload(position));
+    }
+
+    /**
+     * 將已寫入的內容寫回磁碟。
+     */
+    void force() {
+        buffer.force();
+    }
+
+    long getNumber() {
+        return number;
+    }
+
+    /**
+     * @return 下一筆紀錄的寫入位置
+     */
+    int getEnd() {
+        return end;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    int getDiscarded() {
+        return discarded;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * 關閉並刪除區段檔與索引檔。
+     */
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(indexFile);
+        Files.deleteIfExists(file);
+    }
+
+    // FNV-1a 64 位元雜湊，只用來縮小比對範圍，雜湊相同時仍會比對 case 名稱
+    static long hash(String caseKey) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : caseKey.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * 走訪紀錄的回呼。
+     */
+    interface RecordVisitor {
+        void visit(int position) throws IOException;
+    }
+}
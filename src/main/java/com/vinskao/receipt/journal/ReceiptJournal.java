@@ -0,0 +1,243 @@
+package com.vinskao.receipt.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * 只能附加的收據日誌，保存每張產生過的收據作為稽核紀錄。
+ * <p>
+ * 日誌由目錄中依序編號的區段檔（{@code 00000000000000000000.journal}）組成，每個區段以記憶體映射寫入，
+ * 寫滿時封存並建立下一個區段。封存的區段另有依 case 名稱雜湊排序的索引檔，
+ * 以 {@link #lookup(String)} 查詢時每個區段只需一次二分搜尋；{@link #replay(Consumer)} 則依寫入順序走訪所有紀錄。
+ * <p>
+ * 紀錄寫入映射的記憶體後即存在於作業系統的頁面快取，程式中止不會遺失；需要在作業系統當機後仍保留時呼叫 {@link #sync()}。
+ * 重新開啟時會掃描最後一個區段，寫到一半或校驗碼不符的紀錄及其後的內容會被捨棄，之後從該位置繼續寫入。
+ * 從檢查點接續執行時，可以 {@link #truncate(long, int)} 捨棄檢查點之後寫入的紀錄，回到先前記錄的寫入位置。
+ * <p>
+ * 所有方法以 synchronized 保護，可由多個執行緒共用。
+ * @author VinsKao
+ */
+public class ReceiptJournal implements Closeable {
+    /** 預設區段大小 64 MiB */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+
+    private final Path directory;
+    private final int segmentSize;
+    // 依編號排序，最後一個為作用中的區段
+    private final List<JournalSegment> segments = new ArrayList<>();
+    private JournalSegment active;
+    // 開啟時從最後一個區段捨棄的位元組數
+    private final int discardedBytes;
+    private boolean closed;
+
+    public ReceiptJournal(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * 開啟日誌目錄，目錄不存在時建立。
+     *
+     * @param directory   日誌目錄
+     * @param segmentSize 新區段的位元組數；既有區段沿用原本的大小
+     * @throws IOException 讀取或建立區段失敗時拋出
+     */
+    public ReceiptJournal(Path directory, int segmentSize) throws IOException {
+        if (segmentSize < 1024) {
+            throw new IllegalArgumentException("segmentSize 不可小於 1024: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+        List<Long> numbers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(JournalSegment.SUFFIX))
+                    .forEach(name -> numbers.add(Long.parseLong(
+                            name.substring(0, name.length() - JournalSegment.SUFFIX.length()))));
+        }
+        numbers.sort(null);
+        try {
+            for (int i = 0; i < numbers.size(); i++) {
+                segments.add(JournalSegment.open(directory, numbers.get(i), i == numbers.size() - 1));
+            }
+            if (segments.isEmpty()) {
+                segments.add(JournalSegment.create(directory, 0, segmentSize));
+            }
+        } catch (IOException | RuntimeException e) {
+            closeSegments();
+            throw e;
+        }
+        active = segments.get(segments.size() - 1);
+        discardedBytes = active.getDiscarded();
+    }
+
+    /**
+     * 附加一筆紀錄，目前的區段空間不足時封存並建立新的區段。
+     * 紀錄在取得鎖之前編碼，多個執行緒同時附加時只有寫入區段的部分需要依序進行。
+     *
+     * @param record 收據紀錄
+     * @throws IOException 建立新區段或寫出索引檔失敗時拋出
+     * @throws IllegalArgumentException 紀錄大於區段可容納的大小時拋出
+     */
+    public void append(JournalRecord record) throws IOException {
+        byte[] payload = record.encode();
+        if (JournalSegment.HEADER_SIZE + JournalSegment.RECORD_HEADER_SIZE + payload.length > segmentSize) {
+            throw new IllegalArgumentException("紀錄大小 " + payload.length + " 超過區段大小 " + segmentSize);
+        }
+        synchronized (this) {
+            ensureOpen();
+            if (active.append(record.getCaseKey(), payload)) {
+                return;
+            }
+            active.seal();
+            JournalSegment next = JournalSegment.create(directory, active.getNumber() + 1, segmentSize);
+            segments.add(next);
+            active = next;
+            active.append(record.getCaseKey(), payload);
+        }
+    }
+
+    /**
+     * 查詢 case 名稱最新的一筆紀錄，由最新的區段往前搜尋。
+     *
+     * @param caseKey case 名稱
+     * @return 最新的紀錄；不存在時為 null
+     */
+    public synchronized JournalRecord lookup(String caseKey) {
+        ensureOpen();
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            JournalSegment segment = segments.get(i);
+            int position = segment.find(caseKey);
+            if (position >= 0) {
+                return segment.read(position);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 依寫入順序走訪所有紀錄。
+     *
+     * @param consumer 接收每筆紀錄
+     * @return 走訪的紀錄數
+     * @throws IOException 讀取區段失敗時拋出
+     */
+    public synchronized long replay(Consumer<JournalRecord> consumer) throws IOException {
+        ensureOpen();
+        long[] count = new long[1];
+        for (JournalSegment segment : segments) {
+            segment.scan(position -> {
+                consumer.accept(segment.read(position));
+                count[0]++;
+            });
+        }
+        return count[0];
+    }
+
+    /**
+     * 將作用中區段已寫入的內容寫回磁碟。
+     */
+    public synchronized void sync() {
+        ensureOpen();
+        active.force();
+    }
+
+    /**
+     * @return 作用中區段的編號，與 {@link #getActiveOffset()} 合起來為目前的寫入位置
+     */
+    public synchronized long getActiveSegment() {
+        return active.getNumber();
+    }
+
+    /**
+     * @return 作用中區段下一筆紀錄的寫入位置
+     */
+    public synchronized int getActiveOffset() {
+        return active.getEnd();
+    }
+
+    /**
+     * 捨棄指定位置之後的所有紀錄，之後的區段檔一併刪除，下一筆紀錄從該位置寫入。
+     * 位置應為先前以 {@link #getActiveSegment()} 與 {@link #getActiveOffset()} 取得的寫入位置。
+     *
+     * @param segment 區段編號
+     * @param offset  區段中保留內容的結尾
+     * @throws IOException 區段不存在、位置不是紀錄的邊界或刪除區段失敗時拋出
+     */
+    public synchronized void truncate(long segment, int offset) throws IOException {
+        ensureOpen();
+        int index = segments.size() - 1;
+        while (index >= 0 && segments.get(index).getNumber() != segment) {
+            index--;
+        }
+        if (index < 0) {
+            throw new IOException("日誌中沒有區段 " + segment + ": " + directory);
+        }
+        JournalSegment target = segments.get(index);
+        if (target != active) {
+            // 已封存的區段以唯讀映射開啟，重新以作用中區段開啟才能再寫入
+            target.close();
+            target = JournalSegment.open(directory, segment, true);
+            segments.set(index, target);
+        }
+        target.truncate(offset);
+        while (segments.size() > index + 1) {
+            segments.remove(segments.size() - 1).delete();
+        }
+        active = target;
+    }
+
+    /**
+     * @return 區段數，包含作用中的區段
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * @return 開啟時從最後一個區段捨棄的殘缺紀錄位元組數
+     */
+    public int getDiscardedBytes() {
+        return discardedBytes;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        active.force();
+        closeSegments();
+    }
+
+    private void closeSegments() throws IOException {
+        IOException failure = null;
+        for (JournalSegment segment : segments) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("日誌已關閉: " + directory);
+        }
+    }
+}
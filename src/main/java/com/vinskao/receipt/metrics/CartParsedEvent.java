@@ -0,0 +1,34 @@
+package com.vinskao.receipt.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR 事件：串流讀取器解析完一個 case，持續時間為解析所花的時間。
+ * 預設關閉，啟用方式見 {@code jfr/receipt.jfc}。
+ * @author VinsKao
+ */
+@Name("com.vinskao.receipt.CartParsed")
+@Label("Cart Parsed")
+@Category({"Receipt", "Stages"})
+@Description("串流讀取器解析一個 case")
+@Enabled(false)
+@StackTrace(false)
+public class CartParsedEvent extends Event {
+    @Label("Case Key")
+    public String caseKey;
+
+    @Label("Line Count")
+    public int lineCount;
+
+    @Label("Byte Offset")
+    @Description("解析完此 case 後在輸入檔中的位置")
+    @DataAmount
+    public long byteOffset;
+}
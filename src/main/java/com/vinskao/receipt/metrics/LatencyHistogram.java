@@ -0,0 +1,113 @@
+package com.vinskao.receipt.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 記錄延遲分布的對數線性直方圖，單位為奈秒。
+ * 小於 64 的值每個值一個桶；之後每個 2 的次方區間再平均分成 32 個桶，相對誤差約 3%。
+ * 記錄只對單一桶做一次原子遞增，不需加鎖，可由多個執行緒同時記錄。
+ * 取百分位數時回傳所在桶的中點，讀取期間仍在記錄的值可能只有部分被計入。
+ * @author VinsKao
+ */
+public class LatencyHistogram {
+    // 每個 2 的次方區間的子桶數：2^5 = 32
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // 小於此值的延遲直接以值作為桶索引
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+    // long 的最高位元為 62 時所需的桶數
+    private static final int BUCKETS = LINEAR_LIMIT + (62 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * 記錄一次延遲，負值以 0 計算。
+     *
+     * @param nanos 延遲奈秒數
+     */
+    public void record(long nanos) {
+        counts.incrementAndGet(indexOf(Math.max(0, nanos)));
+    }
+
+    /**
+     * @return 已記錄的次數
+     */
+    public long count() {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * 取得指定百分位數的延遲。
+     *
+     * @param percentile 百分位數，介於 0 到 100
+     * @return 延遲奈秒數；尚未記錄任何值時回傳 0
+     */
+    public long percentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("百分位數必須介於 0 到 100: " + percentile);
+        }
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        // 第 rank 個值（從 1 起算）所在的桶
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return midpointOf(i);
+            }
+        }
+        return midpointOf(BUCKETS - 1);
+    }
+
+    /**
+     * 將另一個直方圖的計數加到此直方圖。
+     *
+     * @param other 另一個直方圖
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = other.counts.get(i);
+            if (count != 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+    }
+
+    /**
+     * 清除所有記錄。
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    static long midpointOf(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = (index - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+        long mantissa = (index - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+        return (mantissa << shift) + (1L << (shift - 1));
+    }
+}
@@ -0,0 +1,49 @@
+package com.vinskao.receipt.metrics;
+
+import java.util.Collection;
+
+import com.vinskao.receipt.model.LineItem;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR 事件：一個購物車的購買項目已解析為含價格的 LineItem。
+ * 預設關閉，啟用方式見 {@code jfr/receipt.jfc}。
+ * @author VinsKao
+ */
+@Name("com.vinskao.receipt.PriceResolved")
+@Label("Price Resolved")
+@Category({"Receipt", "Stages"})
+@Description("將購物車的購買項目解析為含價格的 LineItem")
+@Enabled(false)
+@StackTrace(false)
+public class PriceResolvedEvent extends Event {
+    @Label("Line Count")
+    public int lineCount;
+
+    @Label("Missing Prices")
+    @Description("查無價格的項目數")
+    public int missingPrices;
+
+    /**
+     * 由已解析的項目填入項目數與查無價格的項目數，只應在 {@link #shouldCommit()} 為 true 時呼叫。
+     *
+     * @param lines 已解析的項目
+     */
+    public void describe(Collection<LineItem> lines) {
+        int missing = 0;
+        for (LineItem line : lines) {
+            if (!line.hasPrice()) {
+                missing++;
+            }
+        }
+        this.lineCount = lines.size();
+        this.missingPrices = missing;
+    }
+}
@@ -0,0 +1,248 @@
+package com.vinskao.receipt.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * 收據產生各階段的延遲直方圖與計數器，透過 JMX 公開。
+ * <p>
+ * 記錄方式：呼叫端以 {@link #start()} 取得起始時間，結束時呼叫 {@link #record(Stage, long)}。
+ * 延遲記錄在 {@link LatencyHistogram}，計數器使用 {@link LongAdder}，皆不需加鎖，可由多個執行緒同時記錄。
+ * <p>
+ * 預設開啟，可用系統屬性 {@code -Dreceipt.metrics=false} 或 JMX 的 Enabled 屬性關閉；
+ * 關閉後 {@link #start()} 不讀取時鐘，{@link #record(Stage, long)} 與計數器只做一次欄位讀取即返回。
+ * <p>
+ * JMX 名稱：
+ * <ul>
+ * <li>{@code com.vinskao.receipt:type=ReceiptMetrics}：開關、查無價格與未知地區次數、輸出字元數、收據快取命中率、重置</li>
+ * <li>{@code com.vinskao.receipt:type=StageLatency,name=<階段>}：各階段的次數與 p50/p99/p99.9 延遲（微秒）</li>
+ * </ul>
+ * @author VinsKao
+ */
+public final class ReceiptMetrics implements ReceiptMetricsMBean {
+    public static final String DOMAIN = "com.vinskao.receipt";
+
+    /**
+     * 計時的階段。
+     */
+    public enum Stage {
+        /** 讀取並轉換 prices.json、locations.json 或 carts.json */
+        CONFIG_LOAD("configLoad"),
+        /** 串流讀取器解析一個 case */
+        CART_PARSE("cartParse"),
+        /** 將購買項目解析為含價格的 LineItem */
+        PRICE("price"),
+        /** 計算小計、稅金與總金額 */
+        TAX("tax"),
+        /** 產生收據表格文字 */
+        RENDER("render");
+
+        private final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static final ReceiptMetrics INSTANCE = new ReceiptMetrics();
+
+    private static volatile boolean enabled = !"false".equalsIgnoreCase(System.getProperty("receipt.metrics"));
+    private static final LatencyHistogram[] LATENCIES = new LatencyHistogram[Stage.values().length];
+    private static final LongAdder MISSING_PRICES = new LongAdder();
+    private static final LongAdder UNKNOWN_LOCATIONS = new LongAdder();
+    private static final LongAdder RENDERED_CHARS = new LongAdder();
+    private static final LongAdder CACHE_HITS = new LongAdder();
+    private static final LongAdder CACHE_MISSES = new LongAdder();
+    private static final LongAdder CACHE_EVICTIONS = new LongAdder();
+    private static boolean registered;
+
+    static {
+        for (int i = 0; i < LATENCIES.length; i++) {
+            LATENCIES[i] = new LatencyHistogram();
+        }
+    }
+
+    private ReceiptMetrics() {
+    }
+
+    /**
+     * 開始計時。
+     *
+     * @return 起始時間；關閉時回傳 0，之後的 {@link #record(Stage, long)} 不會記錄
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * 記錄從 start 到現在的延遲。
+     *
+     * @param stage 階段
+     * @param start {@link #start()} 的回傳值
+     */
+    public static void record(Stage stage, long start) {
+        if (start != 0L) {
+            LATENCIES[stage.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 記錄一次查無價格的商品。
+     */
+    public static void missingPrice() {
+        if (enabled) {
+            MISSING_PRICES.increment();
+        }
+    }
+
+    /**
+     * 記錄一次未設定稅率的地區。
+     */
+    public static void unknownLocation() {
+        if (enabled) {
+            UNKNOWN_LOCATIONS.increment();
+        }
+    }
+
+    /**
+     * 記錄輸出的收據字元數。
+     *
+     * @param chars 字元數
+     */
+    public static void rendered(long chars) {
+        if (enabled) {
+            RENDERED_CHARS.add(chars);
+        }
+    }
+
+    /**
+     * 記錄一次收據快取命中。
+     */
+    public static void cacheHit() {
+        if (enabled) {
+            CACHE_HITS.increment();
+        }
+    }
+
+    /**
+     * 記錄一次收據快取未命中。
+     */
+    public static void cacheMiss() {
+        if (enabled) {
+            CACHE_MISSES.increment();
+        }
+    }
+
+    /**
+     * 記錄一次收據快取淘汰。
+     */
+    public static void cacheEviction() {
+        if (enabled) {
+            CACHE_EVICTIONS.increment();
+        }
+    }
+
+    /**
+     * @param stage 階段
+     * @return 該階段的延遲直方圖
+     */
+    public static LatencyHistogram latency(Stage stage) {
+        return LATENCIES[stage.ordinal()];
+    }
+
+    public static boolean enabled() {
+        return enabled;
+    }
+
+    public static void enable(boolean value) {
+        enabled = value;
+    }
+
+    /**
+     * 清除所有直方圖與計數器。
+     */
+    public static void resetAll() {
+        for (LatencyHistogram histogram : LATENCIES) {
+            histogram.reset();
+        }
+        MISSING_PRICES.reset();
+        UNKNOWN_LOCATIONS.reset();
+        RENDERED_CHARS.reset();
+        CACHE_HITS.reset();
+        CACHE_MISSES.reset();
+        CACHE_EVICTIONS.reset();
+    }
+
+    /**
+     * 將計數器與各階段的延遲註冊到平台 MBeanServer，重複呼叫不會重複註冊。
+     */
+    public static synchronized void registerMBeans() {
+        if (registered) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(INSTANCE, new ObjectName(DOMAIN + ":type=ReceiptMetrics"));
+            for (Stage stage : Stage.values()) {
+                server.registerMBean(new StageLatency(LATENCIES[stage.ordinal()]),
+                        new ObjectName(DOMAIN + ":type=StageLatency,name=" + stage.getLabel()));
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("註冊 MBean 失敗", e);
+        }
+        registered = true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    @Override
+    public long getMissingPrices() {
+        return MISSING_PRICES.sum();
+    }
+
+    @Override
+    public long getUnknownLocations() {
+        return UNKNOWN_LOCATIONS.sum();
+    }
+
+    @Override
+    public long getRenderedChars() {
+        return RENDERED_CHARS.sum();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return CACHE_HITS.sum();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return CACHE_MISSES.sum();
+    }
+
+    @Override
+    public long getCacheEvictions() {
+        return CACHE_EVICTIONS.sum();
+    }
+
+    @Override
+    public void reset() {
+        resetAll();
+    }
+}
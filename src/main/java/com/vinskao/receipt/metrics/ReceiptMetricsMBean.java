@@ -0,0 +1,46 @@
+package com.vinskao.receipt.metrics;
+
+/**
+ * {@link ReceiptMetrics} 的 JMX 介面。
+ * @author VinsKao
+ */
+public interface ReceiptMetricsMBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    /**
+     * @return 查無價格的商品次數
+     */
+    long getMissingPrices();
+
+    /**
+     * @return 查詢未設定稅率地區的次數
+     */
+    long getUnknownLocations();
+
+    /**
+     * @return 已產生的收據表格字元數
+     */
+    long getRenderedChars();
+
+    /**
+     * @return 收據快取命中次數
+     */
+    long getCacheHits();
+
+    /**
+     * @return 收據快取未命中次數
+     */
+    long getCacheMisses();
+
+    /**
+     * @return 收據快取因超過上限而淘汰的次數
+     */
+    long getCacheEvictions();
+
+    /**
+     * 清除所有直方圖與計數器。
+     */
+    void reset();
+}
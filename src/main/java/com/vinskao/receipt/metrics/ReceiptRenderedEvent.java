@@ -0,0 +1,32 @@
+package com.vinskao.receipt.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR 事件：一張收據表格產生完成，持續時間為輸出表格所花的時間。
+ * 預設關閉，啟用方式見 {@code jfr/receipt.jfc}。
+ * @author VinsKao
+ */
+@Name("com.vinskao.receipt.ReceiptRendered")
+@Label("Receipt Rendered")
+@Category({"Receipt", "Stages"})
+@Description("產生一張收據表格")
+@Enabled(false)
+@StackTrace(false)
+public class ReceiptRenderedEvent extends Event {
+    @Label("Case Key")
+    @Description("單獨產生表格（例如 HTTP 服務）時為 null")
+    public String caseKey;
+
+    @Label("Line Count")
+    public int lineCount;
+
+    @Label("Characters")
+    public int chars;
+}
@@ -0,0 +1,33 @@
+package com.vinskao.receipt.metrics;
+
+/**
+ * 以 JMX 公開單一階段的延遲分布，數值在讀取時才由直方圖計算。
+ * @author VinsKao
+ */
+public class StageLatency implements StageLatencyMBean {
+    private final LatencyHistogram histogram;
+
+    StageLatency(LatencyHistogram histogram) {
+        this.histogram = histogram;
+    }
+
+    @Override
+    public long getCount() {
+        return histogram.count();
+    }
+
+    @Override
+    public double getP50Micros() {
+        return histogram.percentile(50) / 1_000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return histogram.percentile(99) / 1_000.0;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return histogram.percentile(99.9) / 1_000.0;
+    }
+}
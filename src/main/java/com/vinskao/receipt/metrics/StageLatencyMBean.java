@@ -0,0 +1,18 @@
+package com.vinskao.receipt.metrics;
+
+/**
+ * {@link StageLatency} 的 JMX 介面。
+ * @author VinsKao
+ */
+public interface StageLatencyMBean {
+    /**
+     * @return 已記錄的次數
+     */
+    long getCount();
+
+    double getP50Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+}
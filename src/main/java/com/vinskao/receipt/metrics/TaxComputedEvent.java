@@ -0,0 +1,60 @@
+package com.vinskao.receipt.metrics;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Function;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR 事件：一個購物車的稅金（或小計、稅金與總金額）計算完成。
+ * 地區與類別為購物車中出現過的值，依出現順序以逗號分隔。
+ * 預設關閉，啟用方式見 {@code jfr/receipt.jfc}。
+ * @author VinsKao
+ */
+@Name("com.vinskao.receipt.TaxComputed")
+@Label("Tax Computed")
+@Category({"Receipt", "Stages"})
+@Description("計算一個購物車的稅金")
+@Enabled(false)
+@StackTrace(false)
+public class TaxComputedEvent extends Event {
+    @Label("Location")
+    public String location;
+
+    @Label("Category")
+    public String category;
+
+    @Label("Line Count")
+    public int lineCount;
+
+    @Label("Tax")
+    @Description("進位後的稅金")
+    public String tax;
+
+    /**
+     * 由購買項目填入地區、類別與項目數，只應在 {@link #shouldCommit()} 為 true 時呼叫。
+     *
+     * @param lines    購買項目
+     * @param location 取得項目地區的函式
+     * @param category 取得項目類別的函式
+     */
+    public <T> void describe(Collection<T> lines, Function<T, ?> location, Function<T, ?> category) {
+        Set<String> locations = new LinkedHashSet<>();
+        Set<String> categories = new LinkedHashSet<>();
+        for (T line : lines) {
+            locations.add(String.valueOf(location.apply(line)));
+            categories.add(String.valueOf(category.apply(line)));
+        }
+        this.location = String.join(",", locations);
+        this.category = String.join(",", categories);
+        this.lineCount = lines.size();
+    }
+}
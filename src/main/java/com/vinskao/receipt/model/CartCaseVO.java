@@ -0,0 +1,37 @@
+package com.vinskao.receipt.model;
+
+import java.util.Map;
+
+/**
+ * CartCaseVO 表示 carts.json 中的單一購物車 case，包含 case 名稱與該 case 的購買項目。
+ * 串流讀取時每次只會產生一個 CartCaseVO，不需一次載入整份檔案。
+ * @author VinsKao
+ */
+public class CartCaseVO {
+    private final String caseKey;
+    private final Map<String, ItemVO> items;
+
+    public CartCaseVO(String caseKey, Map<String, ItemVO> items) {
+        this.caseKey = caseKey;
+        this.items = items;
+    }
+
+    public String getCaseKey() {
+        return caseKey;
+    }
+
+    /**
+     * @return 購買項目，key 為`purchase + ${i}`(第i個購買)，value 為 ItemVO 物件，順序與檔案中相同
+     */
+    public Map<String, ItemVO> getItems() {
+        return items;
+    }
+
+    @Override
+    public String toString() {
+        return "CartCase{" +
+               "caseKey='" + caseKey + '\'' +
+               ", items=" + items.size() +
+               '}';
+    }
+}
@@ -0,0 +1,78 @@
+package com.vinskao.receipt.model;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * CategoryDictionary 將設定檔中的免稅類別字串對應為從 0 開始的連續整數 ID。
+ * 字典由 {@link TaxRuleTable} 編譯時建立，只包含設定的類別，建立後不可修改；
+ * 不在設定中的類別一律對應到 {@link #NO_CATEGORY}，因此輸入資料中的類別不會讓字典無限成長。
+ * 不同版本的設定各自擁有字典，ID 只在同一份稅率規則表內有效。
+ * @author VinsKao
+ */
+public final class CategoryDictionary {
+    /**
+     * 類別為 null 或不在設定中時使用的 ID，不會對應到任何免稅類別。
+     */
+    public static final int NO_CATEGORY = -1;
+
+    private final Map<String, Integer> ids;
+    private final String[] names;
+
+    private CategoryDictionary(Map<String, Integer> ids, String[] names) {
+        this.ids = ids;
+        this.names = names;
+    }
+
+    /**
+     * 依序為類別配發 ID，重複的類別沿用第一次配發的 ID。
+     *
+     * @param categories 類別名稱
+     * @return 類別字典
+     * @throws IllegalArgumentException 當 categories 包含 null 時拋出
+     */
+    static CategoryDictionary of(Collection<String> categories) {
+        Map<String, Integer> ids = new HashMap<>();
+        for (String category : categories) {
+            if (category == null) {
+                throw new IllegalArgumentException("類別不能為 null");
+            }
+            ids.putIfAbsent(category, ids.size());
+        }
+        String[] names = new String[ids.size()];
+        ids.forEach((name, id) -> names[id] = name);
+        return new CategoryDictionary(Map.copyOf(ids), names);
+    }
+
+    /**
+     * 取得類別對應的 ID。
+     *
+     * @param category 類別名稱，可為 null
+     * @return 類別 ID；category 為 null 或不在字典中時回傳 {@link #NO_CATEGORY}
+     */
+    public int idOf(String category) {
+        if (category == null) {
+            return NO_CATEGORY;
+        }
+        Integer id = ids.get(category);
+        return id != null ? id : NO_CATEGORY;
+    }
+
+    /**
+     * 取得 ID 對應的類別名稱。
+     *
+     * @param id 類別 ID
+     * @return 類別名稱；id 為 {@link #NO_CATEGORY} 時回傳 null
+     */
+    public String nameOf(int id) {
+        return id == NO_CATEGORY ? null : names[id];
+    }
+
+    /**
+     * @return 字典中的類別數量
+     */
+    public int size() {
+        return names.length;
+    }
+}
@@ -0,0 +1,194 @@
+package com.vinskao.receipt.model;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * LineItem 是計價流程使用的單一購買項目，由輸入用的 {@link ItemVO} 解析而成。
+ * 建立時即決定單價（ItemVO 的價格優先，否則查詢價格表）與地區，之後不可修改，
+ * 因此同一份 LineItem 可同時在多個執行緒計算，也可直接快取，不需防禦性複製。
+ * 計算過程不會再修改原本的 ItemVO。
+ * 以 {@link ProductDictionary} 解析時同時記錄商品 ID，之後的查表不必再以商品名稱計算雜湊。
+ * @author VinsKao
+ */
+public final class LineItem {
+    private final String productName;
+    // 解析時使用的商品字典中的 ID；不在字典中或未以字典解析時為 NO_PRODUCT
+    private final int productId;
+    // 單價取自此商品字典時為該字典；單價來自 ItemVO 或價格表時為 null
+    private final ProductDictionary priceSource;
+    private final int quantity;
+    private final LocationENUM location;
+    private final String category;
+    // 解析後的單價；查無價格時為 null
+    private final BigDecimal unitPrice;
+    // 單價 × 數量；查無價格時為 null
+    private final BigDecimal lineTotal;
+
+    /**
+     * @param productName 商品名稱
+     * @param quantity    數量
+     * @param location    地區，可為 null
+     * @param category    類別，可為 null
+     * @param unitPrice   單價，查無價格時為 null
+     */
+    public LineItem(String productName, int quantity, LocationENUM location, String category, BigDecimal unitPrice) {
+        this(productName, ProductDictionary.NO_PRODUCT, null, quantity, location, category, unitPrice,
+                lineTotal(unitPrice, quantity));
+    }
+
+    private LineItem(String productName, int productId, ProductDictionary priceSource, int quantity,
+            LocationENUM location, String category, BigDecimal unitPrice, BigDecimal lineTotal) {
+        this.productName = productName;
+        this.productId = productId;
+        this.priceSource = priceSource;
+        this.quantity = quantity;
+        this.location = location;
+        this.category = category;
+        this.unitPrice = unitPrice;
+        this.lineTotal = lineTotal;
+    }
+
+    private static BigDecimal lineTotal(BigDecimal unitPrice, int quantity) {
+        return unitPrice == null ? null : unitPrice.multiply(BigDecimal.valueOf(quantity));
+    }
+
+    /**
+     * 由 ItemVO 解析出 LineItem，地區維持原值。
+     *
+     * @param item   輸入的購買項目
+     * @param prices 價格表，key 為商品名稱
+     * @return 解析後的項目
+     * @throws IllegalArgumentException 當 item 為 null 時拋出
+     */
+    public static LineItem of(ItemVO item, Map<String, BigDecimal> prices) {
+        return of(item, prices, null);
+    }
+
+    /**
+     * 由 ItemVO 解析出 LineItem。
+     *
+     * @param item            輸入的購買項目
+     * @param prices          價格表，key 為商品名稱
+     * @param defaultLocation ItemVO 沒有地區時使用的地區，可為 null
+     * @return 解析後的項目
+     * @throws IllegalArgumentException 當 item 為 null 時拋出
+     */
+    public static LineItem of(ItemVO item, Map<String, BigDecimal> prices, LocationENUM defaultLocation) {
+        if (item == null) {
+            throw new IllegalArgumentException("商品列表中包含 null 項目");
+        }
+        BigDecimal price = item.getPrice();
+        if (price == null) {
+            price = prices.get(item.getProductName());
+        }
+        LocationENUM location = item.getLocation() != null ? item.getLocation() : defaultLocation;
+        return new LineItem(item.getProductName(), ProductDictionary.NO_PRODUCT, null, item.getQuantity(), location,
+                item.getCategory(), price, lineTotal(price, item.getQuantity()));
+    }
+
+    /**
+     * 由 ItemVO 解析出 LineItem，以商品字典查詢商品 ID 與價格，地區維持原值。
+     *
+     * @param item     輸入的購買項目
+     * @param products 商品字典
+     * @return 解析後的項目
+     * @throws IllegalArgumentException 當 item 為 null 時拋出
+     */
+    public static LineItem of(ItemVO item, ProductDictionary products) {
+        return of(item, products, null);
+    }
+
+    /**
+     * 由 ItemVO 解析出 LineItem，以商品字典查詢商品 ID 與價格。
+     * 商品名稱只在此時計算一次雜湊，之後以 {@link #getProductId()} 查表。
+     *
+     * @param item            輸入的購買項目
+     * @param products        商品字典
+     * @param defaultLocation ItemVO 沒有地區時使用的地區，可為 null
+     * @return 解析後的項目
+     * @throws IllegalArgumentException 當 item 為 null 時拋出
+     */
+    public static LineItem of(ItemVO item, ProductDictionary products, LocationENUM defaultLocation) {
+        if (item == null) {
+            throw new IllegalArgumentException("商品列表中包含 null 項目");
+        }
+        int productId = products.idOf(item.getProductName());
+        BigDecimal price = item.getPrice();
+        BigDecimal lineTotal;
+        ProductDictionary priceSource = null;
+        if (price == null) {
+            price = products.priceOf(productId);
+            lineTotal = products.lineTotalOf(productId, item.getQuantity());
+            priceSource = products;
+        } else {
+            lineTotal = lineTotal(price, item.getQuantity());
+        }
+        LocationENUM location = item.getLocation() != null ? item.getLocation() : defaultLocation;
+        return new LineItem(item.getProductName(), productId, priceSource, item.getQuantity(), location,
+                item.getCategory(), price, lineTotal);
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    /**
+     * @return 解析時使用的商品字典中的 ID；不在字典中或未以字典解析時為 {@link ProductDictionary#NO_PRODUCT}
+     */
+    public int getProductId() {
+        return productId;
+    }
+
+    /**
+     * 單價是否取自指定的商品字典。成立時可改以 {@code products.centsOf(getProductId())} 等方法依 ID 查表，
+     * 不必再由 {@link #getUnitPrice()} 的 BigDecimal 換算。
+     *
+     * @param products 商品字典
+     * @return 以 products 解析且 ItemVO 沒有提供價格時回傳 true
+     */
+    public boolean isPricedBy(ProductDictionary products) {
+        return priceSource != null && priceSource == products;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public LocationENUM getLocation() {
+        return location;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    /**
+     * @return 解析後的單價；查無價格時為 null
+     */
+    public BigDecimal getUnitPrice() {
+        return unitPrice;
+    }
+
+    /**
+     * @return 單價 × 數量；查無價格時為 null
+     */
+    public BigDecimal getLineTotal() {
+        return lineTotal;
+    }
+
+    public boolean hasPrice() {
+        return unitPrice != null;
+    }
+
+    @Override
+    public String toString() {
+        return "LineItem{" +
+               "productName='" + productName + '\'' +
+               ", unitPrice=" + unitPrice +
+               ", quantity=" + quantity +
+               ", category=" + category +
+               ", location=" + location +
+               '}';
+    }
+}
@@ -9,42 +9,40 @@ public enum LocationENUM {
     NY, 
     NA;
 
-    // 外部注入 LocationsDO 中的 locations 設定
-    private static Map<String, Map<String, Object>> locationConfigs;
+    // 由外部注入的 locations 設定編譯而成的稅率規則表，熱重載時整份替換，因此宣告為 volatile
+    private static volatile TaxRuleTable taxRules;
 
     /**
      * 注入配置，必須於應用初始化時呼叫一次。
      * 注入內容建議由 LocationsConfigLoader.load() 取得後，調用 getLocations() 取得。
+     * 設定會在注入時編譯為 {@link TaxRuleTable}，之後查詢不再重新解析。
      */
     public static void setLocationConfigs(Map<String, Map<String, Object>> configs) {
-        locationConfigs = configs;
+        LocationDO locationDO = new LocationDO();
+        locationDO.setLocations(configs);
+        setTaxRules(TaxRuleTable.compile(locationDO));
     }
 
-    private Map<String, Object> getConfig() {
-        if (locationConfigs == null) {
+    /**
+     * 直接注入已編譯的稅率規則表。
+     */
+    public static void setTaxRules(TaxRuleTable table) {
+        taxRules = table;
+    }
+
+    private TaxRuleTable getTaxRules() {
+        TaxRuleTable table = taxRules;
+        if (table == null) {
             throw new IllegalStateException("Location configs 尚未初始化");
         }
-        Map<String, Object> config = locationConfigs.get(this.name());
-        if (config == null) {
-            throw new IllegalArgumentException("未知地區: " + this.name());
-        }
-        return config;
+        return table;
     }
 
     public BigDecimal getTaxRate() {
-        Object taxRateObj = getConfig().get("taxRate");
-        if (taxRateObj == null) {
-            throw new IllegalArgumentException("taxRate 未定義: " + this.name());
-        }
-        return new BigDecimal(taxRateObj.toString());
+        return getTaxRules().taxRate(this);
     }
 
-    @SuppressWarnings("unchecked")
     public List<String> getExemptCategories() {
-        Object list = getConfig().get("exemptCategories");
-        if (list == null) {
-            throw new IllegalArgumentException("exemptCategories 未定義: " + this.name());
-        }
-        return (List<String>) list;
+        return getTaxRules().exemptCategories(this);
     }
 }
\ No newline at end of file
@@ -17,6 +17,15 @@ public class PriceDO {
     public PriceDO() {
     }
 
+    /**
+     * 以指定的 Map 作為價格資料，不會複製；傳入不可修改的 Map 即得到不可修改的價格資料。
+     *
+     * @param prices 商品名稱與價格
+     */
+    public PriceDO(Map<String, BigDecimal> prices) {
+        this.prices = prices;
+    }
+
     public Map<String, BigDecimal> getPrices() {
         return prices; 
     }
@@ -0,0 +1,502 @@
+package com.vinskao.receipt.model;
+
+import java.math.BigDecimal;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * ProductDictionary 是由 {@link PriceDO} 編譯而成的商品字典。
+ * 以最小完美雜湊 (hash and displace) 將 n 個商品名稱對應為 0 到 n-1 的連續整數 ID：
+ * 商品先依雜湊值分到平均 3 個商品的桶，再為每個桶找出位移量，使桶內商品落在略大於 n 的表中不同的空位置，
+ * 落在 n 之後的少數商品另以對照表移到 0 到 n-1 中剩下的空位置。
+ * 每個名稱只需計算一次雜湊、查一次位移表，再比對一次名稱即可確認，不會產生任何物件；
+ * 價格依 ID 以 long 陣列保存未縮放的數值與小數位數，不必為每個商品保存 Map 節點與 BigDecimal；
+ * 只有實際被查詢過的商品才會建立並保留價格的 BigDecimal，之後的查詢不再配置記憶體；
+ * 定點數計算以 {@link #centsOf(int)} 直接由 long 陣列取得以分為單位的價格，不會建立 BigDecimal。
+ * 購買項目在讀入時解析一次 ID（見 {@link LineItem#getProductId()}），之後的計算只需以 ID 查表。
+ * 需要以 Map 查詢價格的地方可使用 {@link #asMap()} 的唯讀檢視，不必另外保留原本的價格表。
+ * 建立後不可修改，可安全地跨執行緒共用。
+ * @author VinsKao
+ */
+public final class ProductDictionary {
+    /**
+     * 不在價格表中的商品使用的 ID。
+     */
+    public static final int NO_PRODUCT = -1;
+    /**
+     * {@link #centsOf(int)} 查無價格時的回傳值。
+     */
+    public static final long NO_PRICE_CENTS = -1L;
+    /**
+     * {@link #centsOf(int)} 價格為負數或無法以 long 的分精確表示時的回傳值。
+     */
+    public static final long CENTS_NOT_REPRESENTABLE = Long.MIN_VALUE;
+
+    // 平均每個桶的商品數
+    private static final int BUCKET_SIZE = 3;
+    // 雜湊衝突導致無法建立時，換一個種子重試的次數上限
+    private static final int MAX_ATTEMPTS = 16;
+    // 單一桶嘗試的位移量上限；表中保留約 1% 的空位置，正常情況下遠低於此上限
+    private static final int MAX_DISPLACEMENT = 1 << 20;
+    // 以分表示價格時的小數位數
+    private static final int CENTS_SCALE = 2;
+    // 價格表中此商品的價格為 null
+    private static final byte NO_PRICE = Byte.MIN_VALUE;
+    // 價格無法以 long 與 byte 小數位數表示，改存於 overflowPrices
+    private static final byte OVERFLOW = Byte.MIN_VALUE + 1;
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    private final long seed;
+    // 各桶的位移量，商品的位置 = slot(雜湊值, 所屬桶的位移量)
+    private final int[] displacements;
+    // 落在 n 之後的位置對應到 0 到 n-1 中的位置，索引為位置 - n
+    private final int[] remap;
+    private final String[] names;
+    // 價格的未縮放數值與小數位數，BigDecimal.valueOf(prices[id], scales[id]) 即為價格
+    private final long[] prices;
+    private final byte[] scales;
+    private final Map<Integer, BigDecimal> overflowPrices;
+    // 已查詢過的價格；BigDecimal 不可修改，多執行緒同時建立時只是重複建立相同的值
+    private final BigDecimal[] priceCache;
+
+    private ProductDictionary(long seed, int[] displacements, int[] remap, String[] names, long[] prices,
+            byte[] scales, Map<Integer, BigDecimal> overflowPrices) {
+        this.seed = seed;
+        this.displacements = displacements;
+        this.remap = remap;
+        this.names = names;
+        this.prices = prices;
+        this.scales = scales;
+        this.overflowPrices = overflowPrices;
+        this.priceCache = new BigDecimal[names.length];
+    }
+
+    /**
+     * 將價格設定編譯成商品字典。
+     *
+     * @param priceDO 價格設定
+     * @return 編譯完成的商品字典
+     */
+    public static ProductDictionary compile(PriceDO priceDO) {
+        return compile(priceDO.getPrices());
+    }
+
+    /**
+     * 將價格表編譯成商品字典，商品 ID 與價格表的走訪順序無關。
+     *
+     * @param prices 價格表，key 為商品名稱
+     * @return 編譯完成的商品字典
+     * @throws IllegalStateException 無法建立完美雜湊時拋出（商品名稱的 64 位元雜湊值在所有種子下都衝突）
+     */
+    public static ProductDictionary compile(Map<String, BigDecimal> prices) {
+        if (prices instanceof PriceMap) {
+            // 已是商品字典的檢視，不必重新編譯
+            return ((PriceMap) prices).dictionary();
+        }
+        String[] keys = prices.keySet().toArray(new String[0]);
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            long seed = attempt * GOLDEN;
+            Placement placement = place(keys, seed);
+            if (placement == null) {
+                continue;
+            }
+            String[] names = new String[keys.length];
+            long[] unscaled = new long[keys.length];
+            byte[] scales = new byte[keys.length];
+            Map<Integer, BigDecimal> overflow = new HashMap<>();
+            for (int id = 0; id < keys.length; id++) {
+                String name = keys[placement.keyOf[id]];
+                names[id] = name;
+                BigDecimal price = prices.get(name);
+                if (price == null) {
+                    scales[id] = NO_PRICE;
+                } else if (price.scale() > Byte.MAX_VALUE || price.scale() <= OVERFLOW
+                        || price.unscaledValue().bitLength() > 63) {
+                    scales[id] = OVERFLOW;
+                    overflow.put(id, price);
+                } else {
+                    unscaled[id] = price.unscaledValue().longValue();
+                    scales[id] = (byte) price.scale();
+                }
+            }
+            return new ProductDictionary(seed, placement.displacements, placement.remap, names, unscaled, scales,
+                    Map.copyOf(overflow));
+        }
+        throw new IllegalStateException("無法為 " + keys.length + " 個商品建立完美雜湊");
+    }
+
+    /**
+     * 依桶的大小由大到小，為每個桶找出使桶內所有商品都落在空位置的位移量，
+     * 再將落在 n 之後的商品移到 0 到 n-1 中剩下的空位置。
+     *
+     * @return 配置結果；有桶找不到位移量時回傳 null
+     */
+    private static Placement place(String[] keys, long seed) {
+        int n = keys.length;
+        int tableSize = n + (n + 99) / 100;
+        int bucketCount = Math.max(1, (n + BUCKET_SIZE - 1) / BUCKET_SIZE);
+        long[] hashes = new long[n];
+        // 以計數排序將商品依所屬的桶分組
+        int[] starts = new int[bucketCount + 1];
+        for (int i = 0; i < n; i++) {
+            hashes[i] = hash(keys[i], seed);
+            starts[bucket(hashes[i], bucketCount) + 1]++;
+        }
+        for (int b = 0; b < bucketCount; b++) {
+            starts[b + 1] += starts[b];
+        }
+        int[] members = new int[n];
+        int[] fill = Arrays.copyOf(starts, bucketCount);
+        for (int i = 0; i < n; i++) {
+            members[fill[bucket(hashes[i], bucketCount)]++] = i;
+        }
+        int[] buckets = bucketsBySizeDescending(starts, bucketCount);
+
+        int[] displacements = new int[bucketCount];
+        // 各位置的 keys 索引 + 1，0 代表空位置
+        int[] keyAt = new int[tableSize];
+        // 已使用的位置以位元記錄，大型價格表的嘗試過程也能留在 CPU 快取中
+        long[] taken = new long[(tableSize + 63) >>> 6];
+        int[] slots = new int[0];
+        for (int b : buckets) {
+            int size = starts[b + 1] - starts[b];
+            if (size == 0) {
+                break;
+            }
+            if (slots.length < size) {
+                slots = new int[size];
+            }
+            int displacement = 0;
+            while (!fits(hashes, members, starts[b], size, displacement, taken, tableSize, slots)) {
+                if (++displacement >= MAX_DISPLACEMENT) {
+                    return null;
+                }
+            }
+            for (int j = 0; j < size; j++) {
+                taken[slots[j] >>> 6] |= 1L << slots[j];
+                keyAt[slots[j]] = members[starts[b] + j] + 1;
+            }
+            displacements[b] = displacement;
+        }
+
+        int[] keyOf = new int[n];
+        int[] remap = new int[tableSize - n];
+        int free = 0;
+        for (int slot = 0; slot < tableSize; slot++) {
+            if (keyAt[slot] == 0) {
+                continue;
+            }
+            int id = slot;
+            if (slot >= n) {
+                // 落在 n 之後的商品數與 0 到 n-1 中的空位置數相同
+                while (keyAt[free] != 0) {
+                    free++;
+                }
+                id = free++;
+                remap[slot - n] = id;
+            }
+            keyOf[id] = keyAt[slot] - 1;
+        }
+        return new Placement(keyOf, displacements, remap);
+    }
+
+    // 桶的大小只有個位數，以計數排序依大小由大到小排列，不必將桶編號裝箱
+    private static int[] bucketsBySizeDescending(int[] starts, int bucketCount) {
+        int maxSize = 0;
+        for (int b = 0; b < bucketCount; b++) {
+            maxSize = Math.max(maxSize, starts[b + 1] - starts[b]);
+        }
+        int[] positions = new int[maxSize + 2];
+        for (int b = 0; b < bucketCount; b++) {
+            positions[maxSize - (starts[b + 1] - starts[b]) + 1]++;
+        }
+        for (int i = 0; i <= maxSize; i++) {
+            positions[i + 1] += positions[i];
+        }
+        int[] buckets = new int[bucketCount];
+        for (int b = 0; b < bucketCount; b++) {
+            buckets[positions[maxSize - (starts[b + 1] - starts[b])]++] = b;
+        }
+        return buckets;
+    }
+
+    // 桶內所有商品在此位移量下都落在空位置且彼此不衝突時，將位置寫入 slots
+    private static boolean fits(long[] hashes, int[] members, int start, int size, int displacement,
+            long[] taken, int tableSize, int[] slots) {
+        for (int j = 0; j < size; j++) {
+            int slot = slot(hashes[members[start + j]], displacement, tableSize);
+            if ((taken[slot >>> 6] & (1L << slot)) != 0) {
+                return false;
+            }
+            for (int k = 0; k < j; k++) {
+                if (slots[k] == slot) {
+                    return false;
+                }
+            }
+            slots[j] = slot;
+        }
+        return true;
+    }
+
+    /**
+     * 查詢商品名稱對應的 ID。
+     *
+     * @param name 商品名稱，可為 null
+     * @return 商品 ID；不在價格表中時回傳 {@link #NO_PRODUCT}
+     */
+    public int idOf(String name) {
+        if (name == null || names.length == 0) {
+            return NO_PRODUCT;
+        }
+        long h = hash(name, seed);
+        int n = names.length;
+        int id = slot(h, displacements[bucket(h, displacements.length)], n + remap.length);
+        if (id >= n) {
+            id = remap[id - n];
+        }
+        // 不在價格表中的名稱也會落在某個位置，需比對名稱確認
+        return name.equals(names[id]) ? id : NO_PRODUCT;
+    }
+
+    /**
+     * @param id 商品 ID
+     * @return 商品名稱
+     */
+    public String nameOf(int id) {
+        return names[id];
+    }
+
+    /**
+     * 取得商品的價格，第一次查詢時由 long 陣列建立 BigDecimal 並保留。
+     *
+     * @param id 商品 ID，可為 {@link #NO_PRODUCT}
+     * @return 價格；id 為 NO_PRODUCT 或價格表中的價格為 null 時回傳 null
+     */
+    public BigDecimal priceOf(int id) {
+        if (id == NO_PRODUCT) {
+            return null;
+        }
+        byte scale = scales[id];
+        if (scale == NO_PRICE) {
+            return null;
+        }
+        if (scale == OVERFLOW) {
+            return overflowPrices.get(id);
+        }
+        BigDecimal price = priceCache[id];
+        if (price == null) {
+            price = BigDecimal.valueOf(prices[id], scale);
+            priceCache[id] = price;
+        }
+        return price;
+    }
+
+    /**
+     * 以價格的未縮放數值乘上數量計算金額，結果與 {@code priceOf(id).multiply(BigDecimal.valueOf(quantity))} 相同，
+     * 但不需先建立單價的 BigDecimal。
+     *
+     * @param id       商品 ID，可為 {@link #NO_PRODUCT}
+     * @param quantity 數量
+     * @return 金額；查無價格時回傳 null
+     */
+    public BigDecimal lineTotalOf(int id, int quantity) {
+        if (id == NO_PRODUCT) {
+            return null;
+        }
+        byte scale = scales[id];
+        if (scale == NO_PRICE) {
+            return null;
+        }
+        if (scale != OVERFLOW) {
+            try {
+                return BigDecimal.valueOf(Math.multiplyExact(prices[id], (long) quantity), scale);
+            } catch (ArithmeticException e) {
+                // 乘積超出 long 範圍，改用 BigDecimal 計算
+            }
+        }
+        return priceOf(id).multiply(BigDecimal.valueOf(quantity));
+    }
+
+    /**
+     * 直接由 long 陣列取得以分為單位的價格，不建立也不保留 BigDecimal，
+     * 結果與 {@code priceOf(id).movePointRight(2).longValueExact()} 相同。
+     *
+     * @param id 商品 ID，可為 {@link #NO_PRODUCT}
+     * @return 價格（分）；查無價格時回傳 {@link #NO_PRICE_CENTS}；
+     *         價格為負數或無法以 long 的分精確表示時回傳 {@link #CENTS_NOT_REPRESENTABLE}
+     */
+    public long centsOf(int id) {
+        if (id == NO_PRODUCT) {
+            return NO_PRICE_CENTS;
+        }
+        byte scale = scales[id];
+        if (scale == NO_PRICE) {
+            return NO_PRICE_CENTS;
+        }
+        if (scale == OVERFLOW) {
+            // 未縮放數值超出 long 的價格很少見，直接以 BigDecimal 換算
+            BigDecimal price = overflowPrices.get(id);
+            if (price.signum() < 0) {
+                return CENTS_NOT_REPRESENTABLE;
+            }
+            try {
+                return price.movePointRight(CENTS_SCALE).longValueExact();
+            } catch (ArithmeticException e) {
+                return CENTS_NOT_REPRESENTABLE;
+            }
+        }
+        long cents = prices[id];
+        if (cents < 0) {
+            return CENTS_NOT_REPRESENTABLE;
+        }
+        try {
+            for (int shift = CENTS_SCALE - scale; shift > 0; shift--) {
+                cents = Math.multiplyExact(cents, 10L);
+            }
+        } catch (ArithmeticException e) {
+            return CENTS_NOT_REPRESENTABLE;
+        }
+        for (int shift = CENTS_SCALE - scale; shift < 0; shift++) {
+            if (cents % 10 != 0) {
+                return CENTS_NOT_REPRESENTABLE;
+            }
+            cents /= 10;
+        }
+        return cents;
+    }
+
+    /**
+     * @return 商品數量，ID 範圍為 0 到 size() - 1
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * 取得以商品名稱查詢價格的唯讀 Map 檢視，內容與編譯時的價格表相同。
+     * 檢視不另外保存資料，查詢時以 {@link #idOf(String)} 與 {@link #priceOf(int)} 取得價格；
+     * 走訪時才建立各商品價格的 BigDecimal，不會保留在字典中。
+     *
+     * @return 不可修改的價格表
+     */
+    public Map<String, BigDecimal> asMap() {
+        return new PriceMap();
+    }
+
+    // 建立價格的 BigDecimal 但不存入 priceCache，供走訪整個價格表時使用
+    private BigDecimal decodePrice(int id) {
+        byte scale = scales[id];
+        if (scale == NO_PRICE) {
+            return null;
+        }
+        if (scale == OVERFLOW) {
+            return overflowPrices.get(id);
+        }
+        BigDecimal price = priceCache[id];
+        return price != null ? price : BigDecimal.valueOf(prices[id], scale);
+    }
+
+    // 以種子開始的 64 位元 FNV-1a 雜湊，再以 murmur3 的 finalizer 打散
+    private static long hash(String name, long seed) {
+        long h = 0xCBF29CE484222325L ^ seed;
+        for (int i = 0; i < name.length(); i++) {
+            h = (h ^ name.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    // 以雜湊值的高 32 位元決定所屬的桶
+    private static int bucket(long hash, int bucketCount) {
+        return (int) (((hash >>> 32) * bucketCount) >>> 32);
+    }
+
+    // 以雜湊值與位移量決定位置，將 32 位元的值等比例對應到 [0, tableSize)
+    private static int slot(long hash, int displacement, int tableSize) {
+        return (int) (((mix(hash + displacement * GOLDEN) & 0xFFFFFFFFL) * tableSize) >>> 32);
+    }
+
+    /**
+     * 商品字典的唯讀 Map 檢視，依商品 ID 的順序走訪。
+     */
+    private class PriceMap extends AbstractMap<String, BigDecimal> {
+        private ProductDictionary dictionary() {
+            return ProductDictionary.this;
+        }
+
+        @Override
+        public BigDecimal get(Object key) {
+            return key instanceof String ? priceOf(idOf((String) key)) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String && idOf((String) key) != NO_PRODUCT;
+        }
+
+        @Override
+        public int size() {
+            return names.length;
+        }
+
+        @Override
+        public Set<Map.Entry<String, BigDecimal>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Map.Entry<String, BigDecimal>> iterator() {
+                    return new Iterator<>() {
+                        private int id;
+
+                        @Override
+                        public boolean hasNext() {
+                            return id < names.length;
+                        }
+
+                        @Override
+                        public Map.Entry<String, BigDecimal> next() {
+                            if (id >= names.length) {
+                                throw new NoSuchElementException();
+                            }
+                            Map.Entry<String, BigDecimal> entry =
+                                    new AbstractMap.SimpleImmutableEntry<>(names[id], decodePrice(id));
+                            id++;
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return names.length;
+                }
+            };
+        }
+    }
+
+    /**
+     * 完美雜湊的配置結果。
+     */
+    private static class Placement {
+        // 各商品 ID 對應的 keys 索引
+        private final int[] keyOf;
+        private final int[] displacements;
+        private final int[] remap;
+
+        private Placement(int[] keyOf, int[] displacements, int[] remap) {
+            this.keyOf = keyOf;
+            this.displacements = displacements;
+            this.remap = remap;
+        }
+    }
+}
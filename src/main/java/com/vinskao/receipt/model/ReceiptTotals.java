@@ -0,0 +1,55 @@
+package com.vinskao.receipt.model;
+
+import java.math.BigDecimal;
+
+/**
+ * ReceiptTotals 是一張收據的計算結果，包含品項數、小計、稅金與總金額。
+ * 由購物車一次走訪所有購買項目計算而成，收據列印時直接使用，不需再重新計算。
+ * 建立後不可修改。
+ * @author VinsKao
+ */
+public class ReceiptTotals {
+    private final int lines;
+    private final BigDecimal subtotal;
+    private final BigDecimal tax;
+    private final BigDecimal total;
+
+    /**
+     * @param lines    購買項目數
+     * @param subtotal 小計（不含稅）
+     * @param tax      已進位至 0.05 的稅金
+     * @param total    小計與稅金相加後的總金額
+     */
+    public ReceiptTotals(int lines, BigDecimal subtotal, BigDecimal tax, BigDecimal total) {
+        this.lines = lines;
+        this.subtotal = subtotal;
+        this.tax = tax;
+        this.total = total;
+    }
+
+    public int getLines() {
+        return lines;
+    }
+
+    public BigDecimal getSubtotal() {
+        return subtotal;
+    }
+
+    public BigDecimal getTax() {
+        return tax;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return "ReceiptTotals{" +
+               "lines=" + lines +
+               ", subtotal=" + subtotal +
+               ", tax=" + tax +
+               ", total=" + total +
+               '}';
+    }
+}
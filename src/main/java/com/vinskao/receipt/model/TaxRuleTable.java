@@ -0,0 +1,224 @@
+package com.vinskao.receipt.model;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import com.vinskao.receipt.metrics.ReceiptMetrics;
+
+/**
+ * TaxRuleTable 是由 {@link LocationDO} 編譯而成的稅率規則表。
+ * 以 {@link LocationENUM#ordinal()} 為索引，預先解析好每個地區的稅率，
+ * 並以 BitSet 記錄免稅類別的 ID（見 {@link CategoryDictionary}，字典只包含設定的免稅類別），
+ * 商品類別以 {@link #categoryId(String)} 轉換為 ID 後，查詢稅率只需兩次陣列存取，不會產生任何物件。
+ * 另外保存以百萬分之一 (ppm) 為單位的整數稅率，供定點數金額計算使用。
+ * 建立後不可修改，可安全地跨執行緒共用。
+ * @author VinsKao
+ */
+public class TaxRuleTable {
+    private static final LocationENUM[] LOCATIONS = LocationENUM.values();
+
+    /**
+     * 稅率無法以整數 ppm 精確表示時的標記值。
+     */
+    public static final long NOT_REPRESENTABLE = Long.MIN_VALUE;
+
+    // 各地區預先解析的稅率，未設定的地區為 null
+    private final BigDecimal[] taxRates;
+    // 各地區以 ppm 表示的稅率，無法精確表示時為 NOT_REPRESENTABLE
+    private final long[] taxRatesPpm;
+    // 各地區的免稅類別 ID 集合
+    private final BitSet[] exemptCategoryIds;
+    // 各地區原始的免稅類別清單，供非熱點路徑查詢使用
+    private final List<String>[] exemptCategories;
+    // 所有地區的免稅類別，ID 只在此規則表內有效
+    private final CategoryDictionary categories;
+
+    private TaxRuleTable(BigDecimal[] taxRates, long[] taxRatesPpm, List<String>[] exemptCategories,
+            CategoryDictionary categories) {
+        this.taxRates = taxRates;
+        this.taxRatesPpm = taxRatesPpm;
+        this.exemptCategories = exemptCategories;
+        this.categories = categories;
+        this.exemptCategoryIds = new BitSet[LOCATIONS.length];
+        for (int index = 0; index < LOCATIONS.length; index++) {
+            if (exemptCategories[index] != null) {
+                BitSet ids = new BitSet();
+                for (String category : exemptCategories[index]) {
+                    ids.set(categories.idOf(category));
+                }
+                exemptCategoryIds[index] = ids;
+            }
+        }
+    }
+
+    /**
+     * 將地區設定編譯成稅率規則表。
+     * 只會編譯 {@link LocationENUM} 中定義的地區；設定檔中沒有的地區在查詢時才拋出異常。
+     * 設定檔中有的地區必須完整定義 taxRate 與 exemptCategories，否則編譯失敗，
+     * 設定重載時即可沿用原本的設定，而不是發布一份每張收據都會失敗的規則表。
+     *
+     * @param locationDO 地區設定
+     * @return 編譯完成的稅率規則表
+     * @throws IllegalArgumentException 地區的 taxRate 或 exemptCategories 未定義或格式錯誤時拋出
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static TaxRuleTable compile(LocationDO locationDO) {
+        BigDecimal[] taxRates = new BigDecimal[LOCATIONS.length];
+        long[] taxRatesPpm = new long[LOCATIONS.length];
+        List<String>[] exemptCategories = new List[LOCATIONS.length];
+        Map<String, Map<String, Object>> locations = locationDO.getLocations();
+        List<String> allCategories = new ArrayList<>();
+        for (LocationENUM location : LOCATIONS) {
+            String name = location.name();
+            boolean configured = locations != null && locations.containsKey(name);
+            if (configured && locations.get(name) == null) {
+                throw new IllegalArgumentException("地區設定未定義: " + name);
+            }
+            BigDecimal taxRate;
+            List<String> categories;
+            try {
+                taxRate = locationDO.getTaxRate(name);
+                categories = exemptCategories(locationDO, name);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("taxRate 格式錯誤: " + name, e);
+            } catch (IllegalArgumentException e) {
+                if (!configured) {
+                    // 設定檔中沒有此地區
+                    continue;
+                }
+                throw e;
+            }
+            if (taxRate == null || categories == null) {
+                if (configured) {
+                    throw new IllegalArgumentException("地區設定缺少 taxRate 或 exemptCategories: " + name);
+                }
+                // 設定檔中沒有此地區，取值方法卻沒有拋出異常（例如 LocationDO 的子類別），同樣視為未設定
+                continue;
+            }
+            int index = location.ordinal();
+            taxRates[index] = taxRate;
+            taxRatesPpm[index] = toPpm(taxRate);
+            exemptCategories[index] = categories;
+            allCategories.addAll(categories);
+        }
+        return new TaxRuleTable(taxRates, taxRatesPpm, exemptCategories, CategoryDictionary.of(allCategories));
+    }
+
+    // 讀取免稅類別清單，清單中的每個類別都必須是字串
+    private static List<String> exemptCategories(LocationDO locationDO, String name) {
+        List<?> categories;
+        try {
+            categories = locationDO.getExemptCategories(name);
+        } catch (ClassCastException e) {
+            throw new IllegalArgumentException("exemptCategories 必須是清單: " + name, e);
+        }
+        if (categories == null) {
+            return null;
+        }
+        List<String> result = new ArrayList<>(categories.size());
+        for (Object category : categories) {
+            if (!(category instanceof String)) {
+                throw new IllegalArgumentException("exemptCategories 包含無效的類別 " + category + ": " + name);
+            }
+            result.add((String) category);
+        }
+        return List.copyOf(result);
+    }
+
+    /**
+     * 取得商品類別在此規則表中的 ID，供 {@link #taxRate(LocationENUM, int)} 與
+     * {@link #taxRatePpm(LocationENUM, int)} 查詢。
+     *
+     * @param category 商品類別，可為 null
+     * @return 類別 ID；不是任何地區的免稅類別時回傳 {@link CategoryDictionary#NO_CATEGORY}
+     */
+    public int categoryId(String category) {
+        return categories.idOf(category);
+    }
+
+    /**
+     * 查詢指定地區與類別適用的稅率。
+     *
+     * @param location   商品所在地區
+     * @param categoryId 商品類別 ID
+     * @return 免稅類別回傳 {@link BigDecimal#ZERO}，否則回傳該地區稅率
+     * @throws IllegalArgumentException 地區未設定稅率時拋出
+     */
+    public BigDecimal taxRate(LocationENUM location, int categoryId) {
+        int index = location.ordinal();
+        BigDecimal taxRate = taxRates[index];
+        if (taxRate == null) {
+            throw unknownLocation(location);
+        }
+        if (categoryId >= 0 && exemptCategoryIds[index].get(categoryId)) {
+            return BigDecimal.ZERO;
+        }
+        return taxRate;
+    }
+
+    /**
+     * 查詢指定地區與類別適用的 ppm 稅率，0.0975 即為 97500。
+     *
+     * @param location   商品所在地區
+     * @param categoryId 商品類別 ID
+     * @return 免稅類別回傳 0；稅率無法以整數 ppm 精確表示時回傳 {@link #NOT_REPRESENTABLE}
+     * @throws IllegalArgumentException 地區未設定稅率時拋出
+     */
+    public long taxRatePpm(LocationENUM location, int categoryId) {
+        int index = location.ordinal();
+        if (taxRates[index] == null) {
+            throw unknownLocation(location);
+        }
+        if (categoryId >= 0 && exemptCategoryIds[index].get(categoryId)) {
+            return 0;
+        }
+        return taxRatesPpm[index];
+    }
+
+    /**
+     * 取得指定地區的稅率（不考慮免稅類別）。
+     *
+     * @param location 地區
+     * @return 該地區稅率
+     * @throws IllegalArgumentException 地區未設定稅率時拋出
+     */
+    public BigDecimal taxRate(LocationENUM location) {
+        BigDecimal taxRate = taxRates[location.ordinal()];
+        if (taxRate == null) {
+            throw unknownLocation(location);
+        }
+        return taxRate;
+    }
+
+    /**
+     * 取得指定地區的免稅類別清單。
+     *
+     * @param location 地區
+     * @return 不可修改的免稅類別清單
+     * @throws IllegalArgumentException 地區未設定時拋出
+     */
+    public List<String> exemptCategories(LocationENUM location) {
+        List<String> categories = exemptCategories[location.ordinal()];
+        if (categories == null) {
+            throw unknownLocation(location);
+        }
+        return categories;
+    }
+
+    private static IllegalArgumentException unknownLocation(LocationENUM location) {
+        ReceiptMetrics.unknownLocation();
+        return new IllegalArgumentException("未知地區: " + location.name());
+    }
+
+    private static long toPpm(BigDecimal taxRate) {
+        try {
+            return taxRate.movePointRight(6).longValueExact();
+        } catch (ArithmeticException e) {
+            // 小數超過六位或數值過大
+            return NOT_REPRESENTABLE;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.vinskao.receipt.module;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.vinskao.receipt.config.CartsConfigLoader;
+import com.vinskao.receipt.config.CartsStreamReader;
+import com.vinskao.receipt.metrics.LatencyHistogram;
+import com.vinskao.receipt.model.CartCaseVO;
+
+/**
+ * 批次處理多個購物車檔案，每個輸入檔案產生一個同名的 .txt 收據檔。
+ * 檔案由固定大小的執行緒池同時處理，單一檔案內的 case 依序列印；
+ * 所有工作執行緒共用同一個 {@link ReceiptPrinter}，因此也共用同一份設定快照。
+ * 每張收據的延遲從讀出 case 起算，到收據交給輸出目標為止。
+ * @author VinsKao
+ */
+public class BatchReceiptProcessor {
+    private final ReceiptPrinter printer;
+    private final int workers;
+    private final int batchSize;
+
+    /**
+     * @param printer   收據印表機
+     * @param workers   同時處理的檔案數上限
+     * @param batchSize 輸出檔案每批次寫出的收據數
+     */
+    public BatchReceiptProcessor(ReceiptPrinter printer, int workers, int batchSize) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("workers 必須大於 0: " + workers);
+        }
+        this.printer = printer;
+        this.workers = workers;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 處理所有輸入檔案。單一檔案失敗不影響其他檔案，失敗原因記錄在結果中。
+     *
+     * @param inputs    購物車檔案
+     * @param outputDir 輸出目錄，不存在時會建立
+     * @return 處理結果統計
+     * @throws IOException          無法建立輸出目錄時拋出
+     * @throws InterruptedException 等待處理完成時被中斷
+     */
+    public BatchReport process(List<Path> inputs, Path outputDir) throws IOException, InterruptedException {
+        Files.createDirectories(outputDir);
+        LatencyHistogram latencies = new LatencyHistogram();
+        LongAdder carts = new LongAdder();
+        LongAdder lines = new LongAdder();
+
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(workers, Math.max(1, inputs.size())));
+        List<Future<?>> results = new ArrayList<>(inputs.size());
+        try {
+            for (Path input : inputs) {
+                Path output = outputDir.resolve(outputNameOf(input));
+                results.add(pool.submit(() -> {
+                    processFile(input, output, latencies, carts, lines);
+                    return null;
+                }));
+            }
+            int succeeded = 0;
+            List<String> failures = new ArrayList<>();
+            for (int i = 0; i < inputs.size(); i++) {
+                try {
+                    results.get(i).get();
+                    succeeded++;
+                } catch (ExecutionException e) {
+                    failures.add(inputs.get(i) + ": " + e.getCause());
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            return new BatchReport(succeeded, carts.sum(), lines.sum(), elapsed, latencies, failures);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void processFile(Path input, Path output, LatencyHistogram latencies, LongAdder carts, LongAdder lines)
+            throws IOException {
+        try (CartsStreamReader reader = CartsConfigLoader.openStream(input);
+                FileReceiptSink sink = new FileReceiptSink(output, batchSize, FileReceiptSink.DEFAULT_BUFFER_SIZE)) {
+            TimedReceipts timed = new TimedReceipts(reader, sink, latencies);
+            printer.printReceiptFrames(timed, timed);
+            carts.add(timed.carts);
+            lines.add(timed.lines);
+        }
+    }
+
+    /**
+     * 依路徑找出輸入檔案：目錄則取其中所有 .json 檔；否則最後一段視為 glob，例如 {@code /data/in/carts-*.json}。
+     *
+     * @param pattern 目錄或 glob
+     * @return 依檔名排序的檔案
+     * @throws IOException              讀取目錄失敗時拋出
+     * @throws IllegalArgumentException 找不到任何檔案時拋出
+     */
+    public static List<Path> resolveInputs(String pattern) throws IOException {
+        Path path = Path.of(pattern);
+        Path dir;
+        PathMatcher matcher;
+        if (Files.isDirectory(path)) {
+            dir = path;
+            matcher = FileSystems.getDefault().getPathMatcher("glob:*.json");
+        } else {
+            dir = path.getParent() != null ? path.getParent() : Path.of(".");
+            matcher = FileSystems.getDefault().getPathMatcher("glob:" + path.getFileName());
+        }
+        List<Path> inputs = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            for (Path entry : entries) {
+                if (Files.isRegularFile(entry) && matcher.matches(entry.getFileName())) {
+                    inputs.add(entry);
+                }
+            }
+        }
+        if (inputs.isEmpty()) {
+            throw new IllegalArgumentException("找不到購物車檔案: " + pattern);
+        }
+        Collections.sort(inputs);
+        return inputs;
+    }
+
+    // carts-01.json -> carts-01.txt
+    static String outputNameOf(Path input) {
+        String name = input.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return (dot > 0 ? name.substring(0, dot) : name) + ".txt";
+    }
+
+    /**
+     * 同時包裝讀取器與輸出目標：讀出 case 時記下開始時間，收據寫出時記錄延遲。
+     * 印表機對同一個檔案是依序處理，因此兩者一一對應。
+     */
+    private static class TimedReceipts implements Iterator<CartCaseVO>, ReceiptSink {
+        private final Iterator<CartCaseVO> reader;
+        private final ReceiptSink sink;
+        private final LatencyHistogram latencies;
+        private long startNanos;
+        private long carts;
+        private long lines;
+
+        TimedReceipts(Iterator<CartCaseVO> reader, ReceiptSink sink, LatencyHistogram latencies) {
+            this.reader = reader;
+            this.sink = sink;
+            this.latencies = latencies;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return reader.hasNext();
+        }
+
+        @Override
+        public CartCaseVO next() {
+            CartCaseVO cartCase = reader.next();
+            startNanos = System.nanoTime();
+            lines += cartCase.getItems().size();
+            return cartCase;
+        }
+
+        @Override
+        public void write(CharSequence receipt) throws IOException {
+            sink.write(receipt);
+            latencies.record(System.nanoTime() - startNanos);
+            carts++;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            sink.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            sink.close();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.vinskao.receipt.module;
+
+import java.util.List;
+
+import com.vinskao.receipt.metrics.LatencyHistogram;
+
+/**
+ * 批次處理的結果統計：處理的檔案數、收據數、項目數、耗時與每張收據的延遲分布。
+ * 建立後不可修改。
+ * @author VinsKao
+ */
+public class BatchReport {
+    private final int files;
+    private final long carts;
+    private final long lines;
+    private final long elapsedNanos;
+    private final long p50Nanos;
+    private final long p99Nanos;
+    private final List<String> failures;
+
+    /**
+     * @param files        成功處理的檔案數
+     * @param carts        收據數
+     * @param lines        購買項目數
+     * @param elapsedNanos 整批處理的耗時
+     * @param latencies    每張收據的延遲分布
+     * @param failures     處理失敗的檔案與原因
+     */
+    public BatchReport(int files, long carts, long lines, long elapsedNanos, LatencyHistogram latencies,
+            List<String> failures) {
+        this.files = files;
+        this.carts = carts;
+        this.lines = lines;
+        this.elapsedNanos = elapsedNanos;
+        this.p50Nanos = latencies.percentile(50);
+        this.p99Nanos = latencies.percentile(99);
+        this.failures = List.copyOf(failures);
+    }
+
+    public int getFiles() {
+        return files;
+    }
+
+    public long getCarts() {
+        return carts;
+    }
+
+    public long getLines() {
+        return lines;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getCartsPerSecond() {
+        return perSecond(carts);
+    }
+
+    public double getLinesPerSecond() {
+        return perSecond(lines);
+    }
+
+    /**
+     * @return 每張收據延遲的中位數（奈秒）
+     */
+    public long getP50Nanos() {
+        return p50Nanos;
+    }
+
+    /**
+     * @return 每張收據延遲的第 99 百分位數（奈秒）
+     */
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    /**
+     * @return 處理失敗的檔案與原因，全部成功時為空
+     */
+    public List<String> getFailures() {
+        return failures;
+    }
+
+    private double perSecond(long count) {
+        return elapsedNanos == 0 ? 0 : count * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("files: %d, carts: %d, lines: %d, elapsed: %.3f s%n",
+                files, carts, lines, elapsedNanos / 1e9));
+        report.append(String.format("carts/sec: %.1f, lines/sec: %.1f%n", getCartsPerSecond(), getLinesPerSecond()));
+        report.append(String.format("receipt latency p50: %.1f us, p99: %.1f us", p50Nanos / 1e3, p99Nanos / 1e3));
+        for (String failure : failures) {
+            report.append(String.format("%nfailed: %s", failure));
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,57 @@
+package com.vinskao.receipt.module;
+
+import java.io.IOException;
+
+/**
+ * 依批次大小寫出的收據輸出目標基底類別。
+ * 每累積 batchSize 張收據呼叫一次 {@link #flush()}，子類別只需實作緩衝與實際寫出。
+ * @author VinsKao
+ */
+public abstract class BatchingReceiptSink implements ReceiptSink {
+    /** 預設每 256 張收據寫出一次 */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private final int batchSize;
+    // 上次寫出後累積的收據數
+    private int pending;
+
+    protected BatchingReceiptSink(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize 必須大於 0: " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public final void write(CharSequence receipt) throws IOException {
+        buffer(receipt);
+        if (++pending >= batchSize) {
+            flush();
+        }
+    }
+
+    @Override
+    public final void flush() throws IOException {
+        pending = 0;
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * 將收據放入緩衝區；緩衝區已滿時可提前寫出。
+     */
+    protected abstract void buffer(CharSequence receipt) throws IOException;
+
+    /**
+     * 將緩衝區內容全部寫出。
+     */
+    protected abstract void drain() throws IOException;
+}
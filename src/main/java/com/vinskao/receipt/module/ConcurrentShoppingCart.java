@@ -0,0 +1,287 @@
+package com.vinskao.receipt.module;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.vinskao.receipt.config.ConfigSnapshot;
+import com.vinskao.receipt.metrics.ReceiptMetrics;
+import com.vinskao.receipt.model.ItemVO;
+import com.vinskao.receipt.model.LocationENUM;
+import com.vinskao.receipt.model.PriceDO;
+import com.vinskao.receipt.model.ProductDictionary;
+import com.vinskao.receipt.model.ReceiptTotals;
+import com.vinskao.receipt.model.TaxRuleTable;
+
+/**
+ * ConcurrentShoppingCart 是可由多個執行緒同時修改的購物車，適用於多裝置共同結帳的情境。
+ * 購買項目存放在 {@link ConcurrentHashMap} 中，同一項目的修改由該 key 所在的 bin 序列化；
+ * 小計與稅金以 long 定點數（分與 1e-8 元）累加在多個分段 (stripe) 中，
+ * 不同執行緒通常寫入不同分段，不會互相競爭，也沒有全域鎖。
+ * <p>
+ * 讀取總額時以雙重收集 (double collect) 取得一致的快照：每個分段以序號 (seqlock) 標示寫入中狀態，
+ * 連續兩次收集到完全相同的序號時，代表收集期間沒有任何寫入，所得的小計、稅金與品項數
+ * 必定對應到同一個時間點的購物車內容。寫入非常頻繁導致多次重試失敗時，才依序鎖定各分段取得快照。
+ * <p>
+ * 價格必須可用「分」精確表示、稅率必須可用 ppm 精確表示，否則加入項目時拋出異常。
+ * @author VinsKao
+ */
+public class ConcurrentShoppingCart {
+    // 無鎖讀取的最大重試次數，超過後改為鎖定所有分段
+    private static final int MAX_OPTIMISTIC_READS = 64;
+
+    private final FixedPointCalculator fixedPointCalculator;
+    private final TaxRuleTable taxRules;
+    private final ConcurrentHashMap<String, Line> lines = new ConcurrentHashMap<>();
+    private final Stripe[] stripes;
+    private final int stripeMask;
+
+    public ConcurrentShoppingCart() {
+        this(ConfigSnapshot.getDefault());
+    }
+
+    /**
+     * 以注入的設定快照建立購物車，分段數依可用處理器數決定。
+     *
+     * @param snapshot 價格與地區設定快照
+     */
+    public ConcurrentShoppingCart(ConfigSnapshot snapshot) {
+        this(snapshot.getProductDictionary(), snapshot.getTaxRuleTable(),
+                Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    /**
+     * @param priceDO  價格資料，建立時編譯為商品字典
+     * @param taxRules 稅率規則表
+     * @param stripes  分段數，會調整為 2 的次方
+     */
+    public ConcurrentShoppingCart(PriceDO priceDO, TaxRuleTable taxRules, int stripes) {
+        this(ProductDictionary.compile(priceDO), taxRules, stripes);
+    }
+
+    /**
+     * @param products 商品字典
+     * @param taxRules 稅率規則表
+     * @param stripes  分段數，會調整為 2 的次方
+     */
+    public ConcurrentShoppingCart(ProductDictionary products, TaxRuleTable taxRules, int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.fixedPointCalculator = new FixedPointCalculator(products, taxRules);
+        this.taxRules = taxRules;
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.stripeMask = size - 1;
+    }
+
+    /**
+     * 加入一個購買項目。
+     *
+     * @param lineKey 購買項目代號
+     * @param item    購買項目
+     * @throws IllegalArgumentException 代號已存在、項目為 null、缺少地區，或價格與稅率無法以定點數表示時拋出
+     */
+    public void add(String lineKey, ItemVO item) {
+        Line line = resolve(item);
+        lines.compute(lineKey, (key, existing) -> {
+            if (existing != null) {
+                throw new IllegalArgumentException("購買項目已存在: " + key);
+            }
+            apply(line.unitCents, line.ppm, line.quantity, 1);
+            return line;
+        });
+    }
+
+    /**
+     * 移除一個購買項目。
+     *
+     * @param lineKey 購買項目代號
+     * @return 項目存在並已移除時回傳 true
+     */
+    public boolean remove(String lineKey) {
+        boolean[] removed = new boolean[1];
+        lines.computeIfPresent(lineKey, (key, line) -> {
+            apply(line.unitCents, line.ppm, -line.quantity, -1);
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    /**
+     * 修改購買項目的數量。
+     *
+     * @param lineKey  購買項目代號
+     * @param quantity 新的數量
+     * @throws IllegalArgumentException 項目不存在時拋出
+     */
+    public void changeQuantity(String lineKey, int quantity) {
+        Line updated = lines.computeIfPresent(lineKey, (key, line) -> {
+            apply(line.unitCents, line.ppm, quantity - line.quantity, 0);
+            return line.withQuantity(quantity);
+        });
+        if (updated == null) {
+            throw new IllegalArgumentException("購買項目不存在: " + lineKey);
+        }
+    }
+
+    public BigDecimal getSubtotal() {
+        return getReceiptTotals().getSubtotal();
+    }
+
+    public BigDecimal getTax() {
+        return getReceiptTotals().getTax();
+    }
+
+    public BigDecimal getTotal() {
+        return getReceiptTotals().getTotal();
+    }
+
+    /**
+     * 取得一致的收據計算結果，小計、稅金與品項數對應到同一個時間點的購物車內容。
+     *
+     * @return 收據計算結果
+     */
+    public ReceiptTotals getReceiptTotals() {
+        long[] first = new long[stripes.length];
+        long[] second = new long[stripes.length];
+        long[] sums = new long[3];
+        for (int attempt = 0; attempt < MAX_OPTIMISTIC_READS; attempt++) {
+            if (collect(first, sums) && collect(second, sums) && Arrays.equals(first, second)) {
+                return toTotals(sums);
+            }
+            Thread.onSpinWait();
+        }
+        return lockedTotals();
+    }
+
+    // 收集所有分段的序號與累計值；任一分段正在寫入時回傳 false
+    private boolean collect(long[] sequences, long[] sums) {
+        long subtotal = 0;
+        long tax = 0;
+        long count = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            Stripe stripe = stripes[i];
+            long before = stripe.sequence;
+            if ((before & 1) != 0) {
+                return false;
+            }
+            long stripeSubtotal = stripe.subtotalCents;
+            long stripeTax = stripe.taxUnits;
+            long stripeLines = stripe.lines;
+            if (stripe.sequence != before) {
+                return false;
+            }
+            sequences[i] = before;
+            subtotal += stripeSubtotal;
+            tax += stripeTax;
+            count += stripeLines;
+        }
+        sums[0] = subtotal;
+        sums[1] = tax;
+        sums[2] = count;
+        return true;
+    }
+
+    // 依序鎖定所有分段後讀取，只在無鎖讀取持續失敗時使用
+    private ReceiptTotals lockedTotals() {
+        return lockedTotals(0, new long[3]);
+    }
+
+    private ReceiptTotals lockedTotals(int index, long[] sums) {
+        if (index == stripes.length) {
+            return toTotals(sums);
+        }
+        Stripe stripe = stripes[index];
+        synchronized (stripe) {
+            sums[0] += stripe.subtotalCents;
+            sums[1] += stripe.taxUnits;
+            sums[2] += stripe.lines;
+            return lockedTotals(index + 1, sums);
+        }
+    }
+
+    private static ReceiptTotals toTotals(long[] sums) {
+        long taxCents = FixedPointCalculator.roundUpToNickel(sums[1]);
+        return new ReceiptTotals((int) sums[2],
+                BigDecimal.valueOf(sums[0], FixedPointCalculator.PRICE_SCALE),
+                BigDecimal.valueOf(taxCents, FixedPointCalculator.PRICE_SCALE),
+                BigDecimal.valueOf(sums[0] + taxCents, FixedPointCalculator.PRICE_SCALE));
+    }
+
+    // 將數量變化累加到目前執行緒對應的分段
+    private void apply(long unitCents, long ppm, int quantityDelta, int lineDelta) {
+        long amount = Math.multiplyExact(unitCents, (long) quantityDelta);
+        long tax = Math.multiplyExact(amount, ppm);
+        Stripe stripe = stripes[stripeIndex()];
+        synchronized (stripe) {
+            stripe.sequence++;
+            stripe.subtotalCents += amount;
+            stripe.taxUnits += tax;
+            stripe.lines += lineDelta;
+            stripe.sequence++;
+        }
+    }
+
+    private int stripeIndex() {
+        long id = Thread.currentThread().getId();
+        // 以費氏雜湊打散連續的執行緒 ID
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 40) & stripeMask;
+    }
+
+    private Line resolve(ItemVO item) {
+        if (item == null || item.getLocation() == null) {
+            throw new IllegalArgumentException("Item 或 Location 不能為 null");
+        }
+        long cents = fixedPointCalculator.resolveCents(item);
+        if (cents == FixedPointCalculator.NOT_REPRESENTABLE) {
+            throw new IllegalArgumentException("價格無法以分精確表示: " + item.getProductName());
+        }
+        if (cents < 0) {
+            System.err.println("Item 價格為 null: " + item.getProductName());
+            ReceiptMetrics.missingPrice();
+            cents = 0;
+        }
+        LocationENUM location = item.getLocation();
+        long ppm = taxRules.taxRatePpm(location, taxRules.categoryId(item.getCategory()));
+        if (ppm == TaxRuleTable.NOT_REPRESENTABLE) {
+            throw new IllegalArgumentException("稅率無法以 ppm 精確表示: " + location.name());
+        }
+        return new Line(cents, ppm, item.getQuantity());
+    }
+
+    /**
+     * 購買項目加入時決定的單價 (分) 與稅率 (ppm)，以及目前數量。不可修改。
+     */
+    private static class Line {
+        private final long unitCents;
+        private final long ppm;
+        private final int quantity;
+
+        private Line(long unitCents, long ppm, int quantity) {
+            this.unitCents = unitCents;
+            this.ppm = ppm;
+            this.quantity = quantity;
+        }
+
+        private Line withQuantity(int newQuantity) {
+            return new Line(unitCents, ppm, newQuantity);
+        }
+    }
+
+    /**
+     * 單一分段的累計值。寫入時持有此分段的鎖並以 sequence 的奇偶標示寫入中狀態，
+     * 讀取端不加鎖，藉由前後兩次讀到相同的偶數序號確認讀到的值一致。
+     * 前後的填充欄位讓相鄰分段落在不同的快取列，避免偽共享。
+     */
+    @SuppressWarnings("unused")
+    private static class Stripe {
+        private long p1, p2, p3, p4, p5, p6, p7;
+        private volatile long sequence;
+        private volatile long subtotalCents;
+        private volatile long taxUnits;
+        private volatile long lines;
+        private long q1, q2, q3, q4, q5, q6, q7;
+    }
+}
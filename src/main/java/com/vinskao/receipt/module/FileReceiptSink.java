@@ -0,0 +1,129 @@
+package com.vinskao.receipt.module;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 以 FileChannel 寫入檔案的收據輸出目標，內容以 UTF-8 編碼。
+ * 收據直接編碼進一個大型 direct ByteBuffer，緩衝區滿或達到批次大小時才寫入檔案，
+ * 每張收據只多配置一個包裝用的 CharBuffer。
+ * @author VinsKao
+ */
+public class FileReceiptSink extends BatchingReceiptSink {
+    /** 預設緩衝區大小 1 MiB */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer bytes;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    public FileReceiptSink(Path file) throws IOException {
+        this(file, DEFAULT_BATCH_SIZE, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * 建立輸出目標，既有檔案會被覆寫。
+     *
+     * @param file       輸出檔案
+     * @param batchSize  每批次的收據數
+     * @param bufferSize 緩衝區位元組數
+     */
+    public FileReceiptSink(Path file, int batchSize, int bufferSize) throws IOException {
+        this(file, batchSize, bufferSize, 0L);
+    }
+
+    /**
+     * 建立從指定位置接續寫入的輸出目標，該位置之後的既有內容會被截斷。
+     * 用於從檢查點接續執行：位置之前的收據已寫出，之後的部分可能只寫了一半。
+     *
+     * @param file        輸出檔案
+     * @param batchSize   每批次的收據數
+     * @param bufferSize  緩衝區位元組數
+     * @param startOffset 開始寫入的位元組位置；為 0 時覆寫整個檔案
+     * @throws IOException 檔案比 startOffset 短或無法開啟時拋出
+     */
+    public FileReceiptSink(Path file, int batchSize, int bufferSize, long startOffset) throws IOException {
+        super(batchSize);
+        if (bufferSize < 16) {
+            throw new IllegalArgumentException("bufferSize 不可小於 16: " + bufferSize);
+        }
+        this.bytes = ByteBuffer.allocateDirect(bufferSize);
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < startOffset) {
+                throw new IOException("輸出檔案比檢查點位置短: " + file);
+            }
+            channel.truncate(startOffset);
+            channel.position(startOffset);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return 已寫入檔案的位元組數，不含仍在緩衝區中的內容
+     */
+    public long getPosition() throws IOException {
+        return channel.position();
+    }
+
+    /**
+     * 寫出緩衝區並將檔案內容寫回磁碟，之後 {@link #getPosition()} 之前的內容在當機後仍會保留。
+     *
+     * @throws IOException 寫出失敗時拋出
+     */
+    public void force() throws IOException {
+        flush();
+        channel.force(false);
+    }
+
+    @Override
+    protected void buffer(CharSequence receipt) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(receipt);
+        encoder.reset();
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, true);
+            if (result.isOverflow()) {
+                writeBytes();
+            } else {
+                break;
+            }
+        }
+        while (encoder.flush(bytes).isOverflow()) {
+            writeBytes();
+        }
+    }
+
+    @Override
+    protected void drain() throws IOException {
+        writeBytes();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void writeBytes() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+}
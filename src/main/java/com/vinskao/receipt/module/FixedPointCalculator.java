@@ -0,0 +1,212 @@
+package com.vinskao.receipt.module;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+
+import com.vinskao.receipt.metrics.ReceiptMetrics;
+import com.vinskao.receipt.model.ItemVO;
+import com.vinskao.receipt.model.LineItem;
+import com.vinskao.receipt.model.ProductDictionary;
+import com.vinskao.receipt.model.ReceiptTotals;
+import com.vinskao.receipt.model.TaxRuleTable;
+
+/**
+ * FixedPointCalculator 以 long 定點數計算購物車的小計與稅金，對應 {@link MoneyEngine#FIXED_POINT}。
+ * 價格以「分」(0.01) 為單位，稅率以 ppm (0.000001) 為單位，
+ * 因此單項稅金 = 分 × 數量 × ppm，單位為 1e-8 元，整個計算都是精確的整數運算。
+ * 只要有任何一項無法精確表示或運算溢位，就回傳 null，由呼叫端改用 BigDecimal 計算。
+ * @author VinsKao
+ */
+class FixedPointCalculator {
+    // 價格的小數位數：分
+    static final int PRICE_SCALE = 2;
+    // 0.05 元以稅金單位 (1e-8 元) 表示：5 分 × 1e6
+    private static final long NICKEL_IN_TAX_UNITS = 5_000_000L;
+    // 0.05 元以分表示
+    private static final long NICKEL_IN_CENTS = 5L;
+    // 無法以分精確表示的價格
+    static final long NOT_REPRESENTABLE = ProductDictionary.CENTS_NOT_REPRESENTABLE;
+
+    private final ProductDictionary products;
+    private final TaxRuleTable taxRules;
+
+    /**
+     * prices.json 的價格在計算時才以 {@link ProductDictionary#centsOf(int)} 查詢，
+     * 建立計算器不需走訪整個商品字典，也不會為商品建立 BigDecimal。
+     */
+    FixedPointCalculator(ProductDictionary products, TaxRuleTable taxRules) {
+        this.products = products;
+        this.taxRules = taxRules;
+    }
+
+    /**
+     * 以定點數計算小計，規則與 {@link ShoppingCart#calSubtotal(Collection)} 相同。
+     *
+     * @param items 購物車中的物品清單
+     * @return 小計，小數位數為 2；無法以定點數精確計算時回傳 null
+     */
+    BigDecimal calSubtotal(Collection<ItemVO> items) {
+        long subtotal = 0;
+        boolean missingPrice = false;
+        try {
+            for (ItemVO item : items) {
+                long cents = resolveCents(item);
+                if (cents == NOT_REPRESENTABLE) {
+                    return null;
+                }
+                if (cents < 0) {
+                    missingPrice = true;
+                    continue;
+                }
+                subtotal = Math.addExact(subtotal, Math.multiplyExact(cents, (long) item.getQuantity()));
+            }
+        } catch (ArithmeticException e) {
+            return null;
+        }
+        if (missingPrice) {
+            printMissingPrices(items);
+        }
+        return BigDecimal.valueOf(subtotal, PRICE_SCALE);
+    }
+
+    /**
+     * 以定點數計算總稅金並進位至 0.05，規則與 {@link TaxCalculator#calculateTotalTax(Collection)} 相同。
+     * 查無價格的商品以 0 計算，但不會修改傳入的 ItemVO。
+     *
+     * @param items 購物車中的物品清單
+     * @return 進位後的稅金，小數位數為 2；無法以定點數精確計算時回傳 null
+     * @throws IllegalArgumentException 當 items 為 null、包含 null 項目或商品缺少地區時拋出
+     */
+    BigDecimal calTax(Collection<ItemVO> items) {
+        if (items == null) {
+            throw new IllegalArgumentException("商品列表不能為 null");
+        }
+        long tax = 0;
+        try {
+            for (ItemVO item : items) {
+                if (item == null) {
+                    throw new IllegalArgumentException("商品列表中包含 null 項目");
+                }
+                if (item.getLocation() == null) {
+                    throw new IllegalArgumentException("Item 或 Location 不能為 null");
+                }
+                long cents = resolveCents(item);
+                if (cents == NOT_REPRESENTABLE) {
+                    return null;
+                }
+                long ppm = taxRules.taxRatePpm(item.getLocation(), taxRules.categoryId(item.getCategory()));
+                if (ppm == TaxRuleTable.NOT_REPRESENTABLE) {
+                    return null;
+                }
+                if (cents < 0 || ppm == 0) {
+                    continue;
+                }
+                tax = Math.addExact(tax, Math.multiplyExact(Math.multiplyExact(cents, (long) item.getQuantity()), ppm));
+            }
+        } catch (ArithmeticException e) {
+            return null;
+        }
+        // 無條件進位至 0.05
+        return BigDecimal.valueOf(roundUpToNickel(tax), PRICE_SCALE);
+    }
+
+    /**
+     * 以定點數一次走訪所有已解析的項目，同時計算小計與稅金，規則與 {@link ShoppingCart#calLineTotals(Collection)} 相同。
+     *
+     * @param lines 已解析的購買項目
+     * @return 收據計算結果；無法以定點數精確計算時回傳 null
+     * @throws IllegalArgumentException 當包含 null 項目或項目缺少地區時拋出
+     */
+    ReceiptTotals calLineTotals(Collection<LineItem> lines) {
+        long subtotal = 0;
+        long tax = 0;
+        int count = 0;
+        boolean missingPrice = false;
+        try {
+            for (LineItem line : lines) {
+                if (line == null) {
+                    throw new IllegalArgumentException("商品列表中包含 null 項目");
+                }
+                if (line.getLocation() == null) {
+                    throw new IllegalArgumentException("Item 或 Location 不能為 null");
+                }
+                count++;
+                long ppm = taxRules.taxRatePpm(line.getLocation(), taxRules.categoryId(line.getCategory()));
+                if (ppm == TaxRuleTable.NOT_REPRESENTABLE) {
+                    return null;
+                }
+                if (!line.hasPrice()) {
+                    missingPrice = true;
+                    continue;
+                }
+                // 價格取自同一份商品字典時依 ID 查表，只有 ItemVO 提供的價格才需由 BigDecimal 換算
+                long cents = line.isPricedBy(products)
+                        ? products.centsOf(line.getProductId())
+                        : toCents(line.getUnitPrice());
+                if (cents == NOT_REPRESENTABLE) {
+                    return null;
+                }
+                long itemTotal = Math.multiplyExact(cents, (long) line.getQuantity());
+                subtotal = Math.addExact(subtotal, itemTotal);
+                tax = Math.addExact(tax, Math.multiplyExact(itemTotal, ppm));
+            }
+        } catch (ArithmeticException e) {
+            return null;
+        }
+        if (missingPrice) {
+            for (LineItem line : lines) {
+                if (!line.hasPrice()) {
+                    System.err.println("Item 價格為 null: " + line.getProductName());
+                    ReceiptMetrics.missingPrice();
+                }
+            }
+        }
+        long taxCents = roundUpToNickel(tax);
+        return new ReceiptTotals(count,
+                BigDecimal.valueOf(subtotal, PRICE_SCALE),
+                BigDecimal.valueOf(taxCents, PRICE_SCALE),
+                BigDecimal.valueOf(subtotal + taxCents, PRICE_SCALE));
+    }
+
+    /**
+     * 將以 1e-8 元為單位的稅金無條件進位至 0.05，回傳以分為單位的結果。
+     */
+    static long roundUpToNickel(long tax) {
+        long nickels = -Math.floorDiv(-tax, NICKEL_IN_TAX_UNITS);
+        return nickels * NICKEL_IN_CENTS;
+    }
+
+    // 確定不需改用 BigDecimal 後才印出警告，避免重複
+    private void printMissingPrices(Collection<ItemVO> items) {
+        for (ItemVO item : items) {
+            if (item.getPrice() == null && resolveCents(item) < 0) {
+                System.err.println("Item 價格為 null: " + item.getProductName());
+                ReceiptMetrics.missingPrice();
+            }
+        }
+    }
+
+    /**
+     * 取得商品單價（分）。優先使用 ItemVO 中的價格，否則查詢 prices.json。
+     *
+     * @return 單價；查無價格時回傳 {@link ProductDictionary#NO_PRICE_CENTS}；價格無法以分精確表示時回傳 {@link #NOT_REPRESENTABLE}
+     */
+    long resolveCents(ItemVO item) {
+        BigDecimal price = item.getPrice();
+        if (price != null) {
+            return toCents(price);
+        }
+        return products.centsOf(products.idOf(item.getProductName()));
+    }
+
+    static long toCents(BigDecimal price) {
+        if (price.signum() < 0) {
+            return NOT_REPRESENTABLE;
+        }
+        try {
+            return price.movePointRight(PRICE_SCALE).longValueExact();
+        } catch (ArithmeticException e) {
+            return NOT_REPRESENTABLE;
+        }
+    }
+}
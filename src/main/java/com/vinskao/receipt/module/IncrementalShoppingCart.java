@@ -0,0 +1,212 @@
+package com.vinskao.receipt.module;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.vinskao.receipt.config.ConfigSnapshot;
+import com.vinskao.receipt.metrics.ReceiptMetrics;
+import com.vinskao.receipt.model.ItemVO;
+import com.vinskao.receipt.model.LocationENUM;
+import com.vinskao.receipt.model.PriceDO;
+import com.vinskao.receipt.model.ProductDictionary;
+import com.vinskao.receipt.model.ReceiptTotals;
+
+/**
+ * IncrementalShoppingCart 是有狀態的購物車，適合收銀機逐項掃描商品的情境。
+ * 每次新增、移除或修改數量時只調整該項目對小計與稅金的貢獻，
+ * 並保存各地區尚未進位的稅金累計，因此讀取目前總金額的成本是 O(1)，與品項數無關。
+ * 0.05 進位只在讀取時套用，避免逐項進位造成誤差。
+ * 此類別不是執行緒安全的，多執行緒共用請改用 {@link ConcurrentShoppingCart}。
+ * @author VinsKao
+ */
+public class IncrementalShoppingCart {
+    private final TaxCalculator taxCalculator;
+    private final PriceDO priceDO;
+    // 由 priceDO 編譯而成的商品字典，以快照建立時沿用快照中的字典，否則在第一次加入項目時才編譯
+    private ProductDictionary products;
+
+    // 目前的購買項目，key 為購買項目代號，保留加入順序
+    private final Map<String, Line> lines = new LinkedHashMap<>();
+    // 目前購買項目的原始資料，供列印收據使用
+    private final Map<String, ItemVO> items = new LinkedHashMap<>();
+    private final Map<String, ItemVO> itemsView = Collections.unmodifiableMap(items);
+
+    private BigDecimal subtotal = BigDecimal.ZERO;
+    // 尚未進位的稅金總和，以及依地區分開的累計
+    private BigDecimal unroundedTax = BigDecimal.ZERO;
+    private final EnumMap<LocationENUM, BigDecimal> unroundedTaxByLocation = new EnumMap<>(LocationENUM.class);
+
+    public IncrementalShoppingCart() {
+        this(ConfigSnapshot.getDefault());
+    }
+
+    /**
+     * 以注入的設定快照建立購物車，購物車存續期間都使用同一份設定。
+     *
+     * @param snapshot 價格與地區設定快照
+     */
+    public IncrementalShoppingCart(ConfigSnapshot snapshot) {
+        this(new TaxCalculator(snapshot), snapshot.getPriceDO());
+        this.products = snapshot.getProductDictionary();
+    }
+
+    public IncrementalShoppingCart(TaxCalculator taxCalculator, PriceDO priceDO) {
+        this.taxCalculator = taxCalculator;
+        this.priceDO = priceDO;
+    }
+
+    /**
+     * 加入一個購買項目。項目的價格、數量、地區與類別會在加入時讀取，之後修改傳入的 ItemVO 不會影響購物車。
+     *
+     * @param lineKey 購買項目代號，例如 purchase1
+     * @param item    購買項目
+     * @throws IllegalArgumentException 代號已存在、項目為 null 或缺少地區時拋出
+     */
+    public void add(String lineKey, ItemVO item) {
+        if (item == null) {
+            throw new IllegalArgumentException("Item 不能為 null");
+        }
+        if (lines.containsKey(lineKey)) {
+            throw new IllegalArgumentException("購買項目已存在: " + lineKey);
+        }
+        // 加入時即決定單價與稅率，之後修改數量不必重新查詢
+        BigDecimal unitPrice = item.getPrice();
+        if (unitPrice == null) {
+            if (products == null) {
+                products = ProductDictionary.compile(priceDO);
+            }
+            unitPrice = products.priceOf(products.idOf(item.getProductName()));
+        }
+        if (unitPrice == null) {
+            System.err.println("Item 價格為 null: " + item.getProductName());
+            ReceiptMetrics.missingPrice();
+            unitPrice = BigDecimal.ZERO;
+        }
+        Line line = new Line(unitPrice, taxCalculator.determineTax(item), item.getLocation(), item.getQuantity());
+        lines.put(lineKey, line);
+        items.put(lineKey, new ItemVO(item.getProductName(), item.getPrice(), item.getQuantity(),
+                item.getLocation(), item.getCategory()));
+        apply(line, line.quantity);
+    }
+
+    /**
+     * 移除一個購買項目。
+     *
+     * @param lineKey 購買項目代號
+     * @return 項目存在並已移除時回傳 true
+     */
+    public boolean remove(String lineKey) {
+        Line line = lines.remove(lineKey);
+        if (line == null) {
+            return false;
+        }
+        items.remove(lineKey);
+        apply(line, -line.quantity);
+        return true;
+    }
+
+    /**
+     * 修改購買項目的數量，只調整數量差異對小計與稅金的影響。
+     *
+     * @param lineKey  購買項目代號
+     * @param quantity 新的數量
+     * @throws IllegalArgumentException 項目不存在時拋出
+     */
+    public void changeQuantity(String lineKey, int quantity) {
+        Line line = lines.get(lineKey);
+        if (line == null) {
+            throw new IllegalArgumentException("購買項目不存在: " + lineKey);
+        }
+        apply(line, quantity - line.quantity);
+        line.quantity = quantity;
+        items.get(lineKey).setQuantity(quantity);
+    }
+
+    /**
+     * @return 目前的小計（不含稅）
+     */
+    public BigDecimal getSubtotal() {
+        return subtotal;
+    }
+
+    /**
+     * @return 目前已進位至 0.05 的稅金
+     */
+    public BigDecimal getTax() {
+        return TaxCalculator.roundUpToNickel(unroundedTax);
+    }
+
+    /**
+     * @return 目前的稅後總金額
+     */
+    public BigDecimal getTotal() {
+        return subtotal.add(getTax());
+    }
+
+    /**
+     * 取得指定地區尚未進位的稅金累計。
+     *
+     * @param location 地區
+     * @return 該地區的稅金累計，沒有該地區商品時為 0
+     */
+    public BigDecimal getUnroundedTax(LocationENUM location) {
+        return unroundedTaxByLocation.getOrDefault(location, BigDecimal.ZERO);
+    }
+
+    /**
+     * @return 目前購物車的收據計算結果
+     */
+    public ReceiptTotals getReceiptTotals() {
+        BigDecimal tax = getTax();
+        return new ReceiptTotals(lines.size(), subtotal, tax, subtotal.add(tax));
+    }
+
+    /**
+     * @return 目前購買項目的唯讀檢視，key 為購買項目代號
+     */
+    public Map<String, ItemVO> getItems() {
+        return itemsView;
+    }
+
+    /**
+     * @return 目前購買項目的唯讀集合
+     */
+    public Collection<ItemVO> getItemValues() {
+        return itemsView.values();
+    }
+
+    // 將數量變化 delta 對小計與稅金的影響累加到各累計值；BigDecimal 加減精確，反覆增減不會累積誤差
+    private void apply(Line line, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        BigDecimal amount = line.unitPrice.multiply(BigDecimal.valueOf(delta));
+        subtotal = subtotal.add(amount);
+        if (line.taxRate.signum() != 0) {
+            BigDecimal tax = amount.multiply(line.taxRate);
+            unroundedTax = unroundedTax.add(tax);
+            unroundedTaxByLocation.merge(line.location, tax, BigDecimal::add);
+        }
+    }
+
+    /**
+     * 購買項目在加入時決定的單價與稅率，以及目前數量。
+     */
+    private static class Line {
+        private final BigDecimal unitPrice;
+        private final BigDecimal taxRate;
+        private final LocationENUM location;
+        private int quantity;
+
+        private Line(BigDecimal unitPrice, BigDecimal taxRate, LocationENUM location, int quantity) {
+            this.unitPrice = unitPrice;
+            this.taxRate = taxRate;
+            this.location = location;
+            this.quantity = quantity;
+        }
+    }
+}
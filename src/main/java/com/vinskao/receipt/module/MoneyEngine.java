@@ -0,0 +1,19 @@
+package com.vinskao.receipt.module;
+
+/**
+ * 購物車計算金額時使用的數值引擎。
+ * @author VinsKao
+ */
+public enum MoneyEngine {
+    /**
+     * 以 BigDecimal 逐項計算，可處理任意精度的價格與稅率。
+     */
+    BIG_DECIMAL,
+
+    /**
+     * 以 long 定點數計算（價格單位為分，稅率單位為 ppm），計算過程不配置 BigDecimal。
+     * 價格超過兩位小數、稅率超過六位小數或數值溢位時，自動改用 {@link #BIG_DECIMAL} 計算，
+     * 因此結果永遠與 BIG_DECIMAL 相同。
+     */
+    FIXED_POINT
+}
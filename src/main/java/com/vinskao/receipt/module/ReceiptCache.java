@@ -0,0 +1,220 @@
+package com.vinskao.receipt.module;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.vinskao.receipt.metrics.ReceiptMetrics;
+import com.vinskao.receipt.model.ItemVO;
+import com.vinskao.receipt.model.ReceiptTotals;
+
+/**
+ * 以購物車內容定址的收據快取，保存計算完成的 {@link ReceiptTotals} 與收據表格文字。
+ * <p>
+ * key 由購買項目依列印順序的商品名稱、數量、類別、地區與自帶單價計算 SHA-256，再加上設定快照的版本號。
+ * 項目順序不同時收據列的順序也不同，因此視為不同的購物車。
+ * 價格或稅率設定變更時快照版本號隨之改變，舊版本的項目不會再被查到，之後依 LRU 順序自然淘汰，不需清空快取。
+ * <p>
+ * 項目數達上限時淘汰最久未使用的項目。存取以 synchronized 保護，可由多個執行緒共用；
+ * 命中、未命中與淘汰次數記錄在 {@link ReceiptMetrics}。
+ * @author VinsKao
+ */
+public class ReceiptCache {
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    // MessageDigest 不是執行緒安全的，每個執行緒各自保留一個
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("JDK 未提供 SHA-256", e);
+        }
+    });
+
+    private final int maxEntries;
+    private final Map<Key, Entry> entries;
+
+    public ReceiptCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxEntries 最多保留的收據數
+     */
+    public ReceiptCache(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries 必須大於 0: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        // accessOrder 為 true 時，最久未存取的項目排在最前面
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > ReceiptCache.this.maxEntries) {
+                    ReceiptMetrics.cacheEviction();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 計算購物車內容與設定版本對應的 key。
+     *
+     * @param items   購買項目，依列印順序排列
+     * @param version 設定快照的版本號
+     * @return 快取 key
+     */
+    public static Key keyOf(Collection<ItemVO> items, long version) {
+        MessageDigest digest = DIGEST.get();
+        digest.reset();
+        updateInt(digest, items.size());
+        for (ItemVO item : items) {
+            if (item == null) {
+                throw new IllegalArgumentException("商品列表中包含 null 項目");
+            }
+            updateString(digest, item.getProductName());
+            updateInt(digest, item.getQuantity());
+            updateString(digest, item.getCategory());
+            updateInt(digest, item.getLocation() == null ? -1 : item.getLocation().ordinal());
+            BigDecimal price = item.getPrice();
+            if (price == null) {
+                updateInt(digest, -1);
+            } else {
+                // 以未縮放值與小數位數表示，1.0 與 1.00 視為不同的價格
+                byte[] unscaled = price.unscaledValue().toByteArray();
+                updateInt(digest, unscaled.length);
+                digest.update(unscaled);
+                updateInt(digest, price.scale());
+            }
+        }
+        return new Key(version, digest.digest());
+    }
+
+    /**
+     * 查詢快取，命中時將該項目標記為最近使用。
+     *
+     * @param key 由 {@link #keyOf(Collection, long)} 計算的 key
+     * @return 快取的收據；未命中時為 null
+     */
+    public Entry get(Key key) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry == null) {
+            ReceiptMetrics.cacheMiss();
+        } else {
+            ReceiptMetrics.cacheHit();
+        }
+        return entry;
+    }
+
+    /**
+     * 存入計算完成的收據，超過上限時淘汰最久未使用的項目。
+     *
+     * @param key    由 {@link #keyOf(Collection, long)} 計算的 key
+     * @param totals 小計、稅金與總金額
+     * @param text   收據表格文字
+     */
+    public void put(Key key, ReceiptTotals totals, String text) {
+        Entry entry = new Entry(totals, text);
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    private static void updateInt(MessageDigest digest, int value) {
+        digest.update((byte) (value >>> 24));
+        digest.update((byte) (value >>> 16));
+        digest.update((byte) (value >>> 8));
+        digest.update((byte) value);
+    }
+
+    // 先寫入長度再寫入內容，避免相鄰欄位串接後產生相同的位元組；null 以長度 -1 表示
+    private static void updateString(MessageDigest digest, String value) {
+        if (value == null) {
+            updateInt(digest, -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        updateInt(digest, bytes.length);
+        digest.update(bytes);
+    }
+
+    /**
+     * 快取 key：設定快照版本號與購物車內容的 SHA-256。
+     */
+    public static final class Key {
+        private final long version;
+        private final byte[] hash;
+        private final int hashCode;
+
+        private Key(long version, byte[] hash) {
+            this.version = version;
+            this.hash = hash;
+            this.hashCode = 31 * Long.hashCode(version) + Arrays.hashCode(hash);
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return version == other.version && Arrays.equals(hash, other.hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * 快取的收據，建立後不可修改。
+     */
+    public static final class Entry {
+        private final ReceiptTotals totals;
+        private final String text;
+
+        private Entry(ReceiptTotals totals, String text) {
+            this.totals = totals;
+            this.text = text;
+        }
+
+        public ReceiptTotals getTotals() {
+            return totals;
+        }
+
+        /**
+         * @return 收據表格文字，結尾不含換行
+         */
+        public String getText() {
+            return text;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.vinskao.receipt.module;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import com.vinskao.receipt.config.SharedObjectMapper;
+
+/**
+ * 長時間收據批次的檢查點，以 JSON 儲存。
+ * 記錄已完整寫出的最後一個 case 在購物車檔案中的結尾位置與名稱、收據檔已寫出的位元組數，
+ * 以及到檢查點為止的收據數與項目數，接續執行時從這兩個位置繼續讀取與寫入。
+ * 有收據日誌時另外記錄日誌的寫入位置，接續時捨棄之後的紀錄，日誌中不會有重複的收據。
+ * @author VinsKao
+ */
+public class ReceiptCheckpoint {
+    // 購物車檔案的絕對路徑與大小，用來確認接續時讀取的是同一份檔案
+    private String input;
+    private long inputSize;
+    // 最後一個已寫出 case 的結尾在購物車檔案中的位置
+    private long inputOffset;
+    private String lastCaseKey;
+    private long receipts;
+    private long lines;
+    // 收據檔中已寫回磁碟的位元組數，之後的內容在接續時截斷
+    private long outputOffset;
+    // 收據日誌目錄的絕對路徑與已寫回磁碟的寫入位置；沒有日誌時 journal 為 null
+    private String journal;
+    private long journalSegment;
+    private int journalOffset;
+    private boolean completed;
+
+    public ReceiptCheckpoint() {
+    }
+
+    /**
+     * 讀取檢查點檔案。
+     *
+     * @param file 檢查點檔案
+     * @return 檢查點
+     * @throws IOException 檔案無法讀取或格式錯誤時拋出
+     */
+    public static ReceiptCheckpoint load(Path file) throws IOException {
+        return SharedObjectMapper.MAPPER.readValue(file.toFile(), ReceiptCheckpoint.class);
+    }
+
+    /**
+     * 寫入檢查點檔案。先寫到暫存檔再改名，中止時檔案內容不是舊的就是新的檢查點。
+     *
+     * @param file 檢查點檔案
+     * @throws IOException 寫入失敗時拋出
+     */
+    public void save(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, SharedObjectMapper.MAPPER.writeValueAsBytes(this));
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public String getInput() {
+        return input;
+    }
+
+    public void setInput(String input) {
+        this.input = input;
+    }
+
+    public long getInputSize() {
+        return inputSize;
+    }
+
+    public void setInputSize(long inputSize) {
+        this.inputSize = inputSize;
+    }
+
+    public long getInputOffset() {
+        return inputOffset;
+    }
+
+    public void setInputOffset(long inputOffset) {
+        this.inputOffset = inputOffset;
+    }
+
+    public String getLastCaseKey() {
+        return lastCaseKey;
+    }
+
+    public void setLastCaseKey(String lastCaseKey) {
+        this.lastCaseKey = lastCaseKey;
+    }
+
+    public long getReceipts() {
+        return receipts;
+    }
+
+    public void setReceipts(long receipts) {
+        this.receipts = receipts;
+    }
+
+    public long getLines() {
+        return lines;
+    }
+
+    public void setLines(long lines) {
+        this.lines = lines;
+    }
+
+    public long getOutputOffset() {
+        return outputOffset;
+    }
+
+    public void setOutputOffset(long outputOffset) {
+        this.outputOffset = outputOffset;
+    }
+
+    public String getJournal() {
+        return journal;
+    }
+
+    public void setJournal(String journal) {
+        this.journal = journal;
+    }
+
+    public long getJournalSegment() {
+        return journalSegment;
+    }
+
+    public void setJournalSegment(long journalSegment) {
+        this.journalSegment = journalSegment;
+    }
+
+    public int getJournalOffset() {
+        return journalOffset;
+    }
+
+    public void setJournalOffset(int journalOffset) {
+        this.journalOffset = journalOffset;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+
+    @Override
+    public String toString() {
+        return "ReceiptCheckpoint{" +
+               "input='" + input + '\'' +
+               ", inputOffset=" + inputOffset +
+               ", lastCaseKey='" + lastCaseKey + '\'' +
+               ", receipts=" + receipts +
+               ", lines=" + lines +
+               ", outputOffset=" + outputOffset +
+               ", journal='" + journal + '\'' +
+               ", journalSegment=" + journalSegment +
+               ", journalOffset=" + journalOffset +
+               ", completed=" + completed +
+               '}';
+    }
+}
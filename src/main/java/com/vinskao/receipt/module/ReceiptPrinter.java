@@ -1,59 +1,272 @@
 package com.vinskao.receipt.module;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import com.vinskao.receipt.config.CartsConfigLoader;
-import com.vinskao.receipt.config.PricesConfigLoader;
-import com.vinskao.receipt.model.CartDO;
+import com.vinskao.receipt.config.CartsStreamReader;
+import com.vinskao.receipt.config.ConfigSnapshot;
+import com.vinskao.receipt.config.ConfigSnapshotHolder;
+import com.vinskao.receipt.journal.JournalRecord;
+import com.vinskao.receipt.journal.ReceiptJournal;
+import com.vinskao.receipt.metrics.PriceResolvedEvent;
+import com.vinskao.receipt.metrics.ReceiptMetrics;
+import com.vinskao.receipt.metrics.ReceiptMetrics.Stage;
+import com.vinskao.receipt.metrics.ReceiptRenderedEvent;
+import com.vinskao.receipt.model.CartCaseVO;
 import com.vinskao.receipt.model.ItemVO;
-import com.vinskao.receipt.model.PriceDO;
+import com.vinskao.receipt.model.LineItem;
+import com.vinskao.receipt.model.LocationENUM;
+import com.vinskao.receipt.model.ProductDictionary;
+import com.vinskao.receipt.model.ReceiptTotals;
 
 /**
  * 收據印表機類別，用於生成並印出購物車中每個 case 的收據框。
- * 透過 ConfigLoader 讀取 carts.json 與 prices.json 檔案，
+ * 透過 CartsConfigLoader 串流讀取 carts.json，價格則取自注入的 {@link ConfigSnapshot}，
  * 然後根據讀取的資料印出每個case的收據表格。
+ * 若以 {@link ConfigSnapshotHolder} 建立，每個 case 開始時會取得當下生效的快照，
+ * 並以該快照完成整張收據，不受計算期間的設定重載影響。
+ * 設定 {@link ReceiptCache} 後，內容相同的購物車直接沿用快取的收據，不再重新計算與產生表格。
+ * 設定 {@link ReceiptJournal} 後，每個 case 的收據計算結果都會附加到日誌中。
  * @author VinsKao
  */
 public class ReceiptPrinter {
-    private ShoppingCart shoppingCart;
+    // 收據表格的輸出器，沒有狀態可共用
+    private static final ReceiptRenderer RENDERER = new ReceiptRenderer();
+    // 設定快照來源；為 null 時表示固定使用建構時注入的快照
+    private final ConfigSnapshotHolder snapshotHolder;
+    // 目前使用中的快照與對應的購物車，快照變更時整組替換
+    private volatile Binding binding;
+    // 收據快取；為 null 時每張收據都重新計算
+    private volatile ReceiptCache cache;
+    // 收據日誌；為 null 時不記錄
+    private volatile ReceiptJournal journal;
 
     public ReceiptPrinter(){
-        this.shoppingCart = new ShoppingCart();
+        this(ConfigSnapshot.getDefault());
+    }
+
+    /**
+     * 以注入的設定快照建立收據印表機，內部的購物車共用同一份快照。
+     *
+     * @param configSnapshot 價格與地區設定快照
+     */
+    public ReceiptPrinter(ConfigSnapshot configSnapshot){
+        this(configSnapshot, new ShoppingCart(configSnapshot));
+    }
+
+    /**
+     * 直接注入設定快照與購物車建立收據印表機。
+     *
+     * @param configSnapshot 價格與地區設定快照
+     * @param shoppingCart   用於計算小計、稅金與總金額的購物車
+     */
+    public ReceiptPrinter(ConfigSnapshot configSnapshot, ShoppingCart shoppingCart){
+        this.snapshotHolder = null;
+        this.binding = new Binding(configSnapshot, shoppingCart);
+    }
+
+    /**
+     * 以可熱重載的快照來源建立收據印表機，每個 case 都會使用當下最新的設定。
+     *
+     * @param snapshotHolder 設定快照來源
+     */
+    public ReceiptPrinter(ConfigSnapshotHolder snapshotHolder){
+        ConfigSnapshot initial = snapshotHolder.current();
+        this.snapshotHolder = snapshotHolder;
+        this.binding = new Binding(initial, new ShoppingCart(initial));
     }
     
     /**
-     * 讀取 carts.json 與 prices.json，然後依據每個case印出收據框。
-     * 將 CartDO 與 PriceDO 中的資料轉換成 Map 結構，
-     * 逐一列印各case的名稱與內部收據表格。
+     * 設定收據快取，之後產生的收據會先查詢快取。
+     * 含有查無價格商品的購物車不會存入快取，以保留每次計算時的警告輸出。
+     *
+     * @param cache 收據快取，為 null 時停用
+     */
+    public void setCache(ReceiptCache cache) {
+        this.cache = cache;
+    }
+
+    public ReceiptCache getCache() {
+        return cache;
+    }
+
+    /**
+     * 設定收據日誌，之後列印的每個 case 都會附加一筆紀錄。
+     * 平行列印時依計算完成的順序記錄，不一定與輸出順序相同。
+     * 日誌由呼叫端負責關閉。
+     *
+     * @param journal 收據日誌，為 null 時停用
+     */
+    public void setJournal(ReceiptJournal journal) {
+        this.journal = journal;
+    }
+
+    public ReceiptJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * 串流讀取 carts.json，並使用設定快照中的價格資料，依據每個case印出收據框。
+     * 每次只讀取一個 case，收據累積成批後才寫到標準輸出，記憶體用量與檔案大小無關。
      */
     public void printReceiptFrames() {
-        try { 
-            // 從 carts.json 載入購物車資料，並轉換為 CartDO 物件
-            CartDO cartDO = CartsConfigLoader.load(); 
-            // 從 prices.json 載入價格資料，並轉換為 PriceDO 物件
-            PriceDO priceDO = PricesConfigLoader.load(); 
-
-            // 取得所有case資料，key為case名稱，值為購買項目集合
-            Map<String, Map<String, ItemVO>> carts = cartDO.getCarts(); 
-            // 取得所有商品的價格資料，key為商品名稱，值為該商品價格
-            Map<String, BigDecimal> prices = priceDO.getPrices(); 
-
-            // 迭代每個cart中的case
-            for (String caseKey : carts.keySet()) { 
-                // case的名稱
-                System.out.println(caseKey); 
-                // 取得當前case的所有購買項目
-                Map<String, ItemVO> items = carts.get(caseKey); 
-                // 印出該case的收據表格
-                printTable(items, prices); 
-                System.out.println();
-            }
+        try (CartsStreamReader reader = CartsConfigLoader.openStream()) {
+            printReceiptFrames(reader);
         } catch (Exception e) { 
             e.printStackTrace();
         }
     }
 
+    /**
+     * 依序列印串流讀取器產生的每個 case，逐一列印各case的名稱與內部收據表格。
+     * 輸出到標準輸出，並以預設批次大小寫出。
+     *
+     * @param reader 購物車資料的串流讀取器，由呼叫端負責關閉
+     */
+    public void printReceiptFrames(Iterator<CartCaseVO> reader) {
+        try (ReceiptSink sink = new StdoutReceiptSink()) {
+            printReceiptFrames(reader, sink);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 依序將串流讀取器產生的每個 case 寫入指定的輸出目標。
+     * 輸出目標由呼叫端負責關閉，關閉前可能仍有尚未寫出的收據。
+     *
+     * @param reader 購物車資料的串流讀取器，由呼叫端負責關閉
+     * @param sink   收據輸出目標
+     * @throws IOException 寫出失敗時拋出
+     */
+    public void printReceiptFrames(Iterator<CartCaseVO> reader, ReceiptSink sink) throws IOException {
+        String lineSeparator = System.lineSeparator();
+        // 每張收據共用同一個緩衝區，整張收據組好後一次交給輸出目標
+        StringBuilder receipt = new StringBuilder(1024);
+        while (reader.hasNext()) {
+            CartCaseVO cartCase = reader.next();
+            receipt.setLength(0);
+            // 每個 case 開始時取得一次快照，整張收據都使用同一份設定
+            appendReceipt(cartCase, currentBinding(), lineSeparator, receipt);
+            sink.write(receipt);
+        }
+    }
+
+    /**
+     * 以多執行緒計算並產生每個 case 的收據，再依原本的 case 順序寫入輸出目標。
+     * 讀取 case 與寫出收據都在呼叫端執行緒進行；計算與表格產生交給 work-stealing 的 ForkJoinPool。
+     * 已送出但尚未寫出的收據依送出順序排在重排緩衝區中，最多 parallelism * 4 張，
+     * 緩衝區滿時等待最早的收據完成後寫出，因此記憶體用量有上限，輸出順序與循序列印完全相同。
+     * 快照在讀取 case 時取得，設定重載只影響之後讀取的 case。
+     *
+     * @param reader      購物車資料的串流讀取器，由呼叫端負責關閉
+     * @param sink        收據輸出目標，由呼叫端負責關閉
+     * @param parallelism 平行計算的執行緒數；為 1 時直接循序列印
+     * @throws IOException 寫出失敗時拋出
+     */
+    public void printReceiptFrames(Iterator<CartCaseVO> reader, ReceiptSink sink, int parallelism) throws IOException {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism 必須大於 0: " + parallelism);
+        }
+        if (parallelism == 1) {
+            printReceiptFrames(reader, sink);
+            return;
+        }
+        String lineSeparator = System.lineSeparator();
+        int window = parallelism * 4;
+        // 重排緩衝區：依 case 順序排列的待寫出收據
+        Deque<Future<String>> pending = new ArrayDeque<>(window);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            while (reader.hasNext()) {
+                if (pending.size() == window) {
+                    sink.write(await(pending.poll()));
+                }
+                CartCaseVO cartCase = reader.next();
+                Binding current = currentBinding();
+                pending.add(pool.submit(() -> {
+                    StringBuilder receipt = new StringBuilder(1024);
+                    appendReceipt(cartCase, current, lineSeparator, receipt);
+                    return receipt.toString();
+                }));
+            }
+            while (!pending.isEmpty()) {
+                sink.write(await(pending.poll()));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * 等待收據產生完成；計算過程拋出的例外原樣拋出。
+     */
+    private static String await(Future<String> receipt) {
+        try {
+            return receipt.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待收據產生時被中斷", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * 將單一 case 的收據（case 名稱、表格與結尾空行）附加到 receipt。
+     */
+    private void appendReceipt(CartCaseVO cartCase, Binding binding, String lineSeparator, StringBuilder receipt) {
+        // case的名稱
+        receipt.append(cartCase.getCaseKey()).append(lineSeparator);
+        // 該case的收據表格
+        Table table = appendTable(cartCase.getCaseKey(), cartCase.getItems(), binding, receipt);
+        receipt.append(lineSeparator).append(lineSeparator);
+        ReceiptJournal journal = this.journal;
+        if (journal != null) {
+            journal(journal, cartCase, binding, table);
+        }
+    }
+
+    /**
+     * 將 case 的計算結果附加到日誌，沿用產生表格時已解析的項目；
+     * 只有命中快取、沒有解析項目時才以與收據相同的規則解析，地區為 null 時記為 NA。
+     */
+    private static void journal(ReceiptJournal journal, CartCaseVO cartCase, Binding binding, Table table) {
+        List<LineItem> lines = table.lines;
+        if (lines == null) {
+            ProductDictionary products = binding.snapshot.getProductDictionary();
+            lines = new ArrayList<>(cartCase.getItems().size());
+            for (ItemVO item : cartCase.getItems().values()) {
+                lines.add(LineItem.of(item, products, LocationENUM.NA));
+            }
+        }
+        try {
+            journal.append(new JournalRecord(cartCase.getCaseKey(), binding.snapshot.getVersion(), lines,
+                    table.totals));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     /**
      * 依據傳入的購買項目資料與商品價格，生成一個收據文字表格。
      * 該表格包含表頭以及每筆購買項目的資料，僅保留最外層的框線，
@@ -63,81 +276,174 @@ public class ReceiptPrinter {
      * @param prices 商品價格資料，key為商品名稱，值為商品價格（以 BigDecimal 表示）
      */
     String getTable(Map<String, ItemVO> items, Map<String, BigDecimal> prices) {
-        int columnWidth = 15; // 基礎寬度 15 字元
-        int cellWidth = columnWidth + 2; // 每個 cell 包含左右各一個空白，共 17 字元
-        int numColumns = 3; // 表格設計為三個欄位：item、price 與 qty
-        // 計算表格內容區域的總寬度，cellWidth * 欄數，加上欄位間的空格 (numColumns - 1)
-        int totalInnerWidth = cellWidth * numColumns + (numColumns - 1);
-        // 根據總寬度產生上下框線，使用 '+' 與重複 '-' 號構成
-        String border = "+" + repeat("-", totalInnerWidth) + "+";
-
-        StringBuilder table = new StringBuilder();
-        // 輸出表格的頂部邊框
-        table.append(border).append("\n");
-
-        // 格式化表頭欄位
-        String header1 = String.format("%-" + cellWidth + "s", "item"); // 第一欄：左對齊 "item"
-        String header2 = String.format("%" + cellWidth + "s", "price"); // 第二欄：右對齊 "price"
-        String header3 = String.format("%" + cellWidth + "s", "qty"); // 第三欄：右對齊 "qty"
-
-        // 將格式化後的表頭連同左右邊框與中間空格輸出
-        table.append("|").append(header1).append(" ").append(header2).append(" ").append(header3).append("|").append("\n");
-        // 輸出一行空白，作為表頭與資料列間的間隔 (維持左右邊框)
-        table.append("|").append(repeat(" ", totalInnerWidth)).append("|").append("\n");
-
-        BigDecimal subtotal = BigDecimal.ZERO;
-
-        // 為避免 TaxCalculator 因 item.getLocation() 為 null 拋出異常，
-        // 先遍歷所有 ItemVO，若 location 為 null，則設定NA。
+        // 直接以傳入的價格表查價，不為每次呼叫編譯商品字典
+        List<LineItem> lines = new ArrayList<>(items.size());
         for (ItemVO item : items.values()) {
-            if (item.getLocation() == null) {
-                item.setLocation(com.vinskao.receipt.model.LocationENUM.NA);
-            }
+            lines.add(LineItem.of(item, prices, LocationENUM.NA));
+        }
+        ReceiptTotals totals = currentBinding().shoppingCart.calLineTotals(lines);
+        StringBuilder table = new StringBuilder(1024);
+        try {
+            RENDERER.render(lines, prices, totals, table);
+        } catch (IOException e) {
+            // StringBuilder 不會拋出 IOException
+            throw new UncheckedIOException(e);
         }
+        return table.toString();
+    }
 
-        // 迭代每筆購買資料並格式化列出
-        for (ItemVO item : items.values()) {
-            String formattedName = itemNameFormatter(item.getProductName()); // 格式化商品名稱
-            BigDecimal price = prices.getOrDefault(item.getProductName(), BigDecimal.ZERO); // 取得商品價格，若無則設為0
-            int quantity = item.getQuantity(); // 取得購買數量
-            
-            String prodName = String.format("%-" + cellWidth + "s", formattedName); // 格式化商品名稱欄位
-            String priceStr = String.format("%" + cellWidth + ".2f", price.doubleValue()); // 格式化價格欄位，保留兩位小數
-            String qtyStr = String.format("%" + cellWidth + "d", quantity); // 格式化數量欄位
-            table.append("|").append(prodName).append(" ").append(priceStr).append(" ").append(qtyStr).append("|").append("\n");
-            subtotal = shoppingCart.calSubtotal(items.values());
-        }
-
-        BigDecimal tax = shoppingCart.calTax(items.values()); // 計算稅金
-        // 防止calTax返回null導致NullPointerException
-        if (tax == null) {
-            tax = BigDecimal.ZERO;
-        }
-        BigDecimal total = shoppingCart.calTotal(items.values()); // 計算總金額
-
-        table.append("|").append(repeat(" ", totalInnerWidth)).append("|").append("\n");
-        table.append(String.format("|%-" + cellWidth + "s %" + (totalInnerWidth - cellWidth - 1) + ".2f|\n", "subtotal", subtotal)); // 保留後兩位數
-        table.append(String.format("|%-" + cellWidth + "s %" + (totalInnerWidth - cellWidth - 1) + ".2f|\n", "tax", tax)); // 保留後兩位數
-        table.append(String.format("|%-" + cellWidth + "s %" + (totalInnerWidth - cellWidth - 1) + ".2f|\n", "total", total)); // 保留後兩位數
-        // 輸出表格的底部邊框
-        table.append(border);
+    /**
+     * 以目前生效的設定快照產生單一購物車的收據表格。
+     *
+     * @param items 購買資料，key為 purchaseKey，值為單一購買項目的 ItemVO 物件
+     * @return 收據表格，結尾不含換行
+     */
+    public String getTable(Map<String, ItemVO> items) {
+        StringBuilder table = new StringBuilder(1024);
+        appendTable(null, items, currentBinding(), table);
         return table.toString();
     }
 
-    private void printTable(Map<String, ItemVO> items, Map<String, BigDecimal> prices) {
-        System.out.println(getTable(items, prices));
+    /**
+     * 以目前生效的設定快照計算單一購物車的小計、稅金與總金額，與收據表格中的金額相同。
+     *
+     * @param items 購買資料，key為 purchaseKey，值為單一購買項目的 ItemVO 物件
+     * @return 收據的計算結果
+     */
+    public ReceiptTotals getTotals(Map<String, ItemVO> items) {
+        Binding current = currentBinding();
+        ReceiptCache cache = this.cache;
+        if (cache != null) {
+            // 只查詢不存入：這裡沒有產生表格文字
+            ReceiptCache.Entry cached = cache.get(ReceiptCache.keyOf(items.values(), current.snapshot.getVersion()));
+            if (cached != null) {
+                return cached.getTotals();
+            }
+        }
+        return current.shoppingCart.calLineTotals(resolveLines(items, current.snapshot.getProductDictionary()));
     }
 
     /**
-     * 工具方法：將指定字串重複 n 次並返回結果。
+     * 解析為不可變的 LineItem；location 為 null 的項目以 NA 計算，不會修改傳入的 ItemVO，
+     * 因此同一份購物車可同時在多個執行緒列印。商品名稱在此查詢一次商品 ID，之後列印時以 ID 查價。
+     */
+    private static List<LineItem> resolveLines(Map<String, ItemVO> items, ProductDictionary products) {
+        long start = ReceiptMetrics.start();
+        PriceResolvedEvent event = new PriceResolvedEvent();
+        event.begin();
+        List<LineItem> lines = new ArrayList<>(items.size());
+        for (ItemVO item : items.values()) {
+            lines.add(LineItem.of(item, products, LocationENUM.NA));
+        }
+        ReceiptMetrics.record(Stage.PRICE, start);
+        if (event.shouldCommit()) {
+            event.describe(lines);
+            event.commit();
+        }
+        return lines;
+    }
+
+    /**
+     * 以指定的快照與購物車產生收據表格；有設定快取時先查詢快取，計算完成後再存入。
      *
-     * @param s 需要重複的字串
-     * @param n 重複的次數
-     * @return 由字串 s 重複 n 次所構成的新字串
+     * @return 收據的計算結果與已解析的項目；命中快取時沒有解析項目
      */
-    private String repeat(String s, int n) {
-        // 利用新的 char 陣列建立一個字串，再使用 replace 方法將空字符替換成指定字串 s 
-        return new String(new char[n]).replace("\0", s);
+    private Table appendTable(String caseKey, Map<String, ItemVO> items, Binding binding,
+            StringBuilder table) {
+        // 取得由價格資料編譯而成的商品字典
+        ProductDictionary products = binding.snapshot.getProductDictionary();
+        ReceiptCache cache = this.cache;
+        if (cache == null) {
+            List<LineItem> lines = resolveLines(items, products);
+            return new Table(appendTable(caseKey, lines, products, binding.shoppingCart, table), lines);
+        }
+        ReceiptCache.Key key = ReceiptCache.keyOf(items.values(), binding.snapshot.getVersion());
+        ReceiptCache.Entry cached = cache.get(key);
+        if (cached != null) {
+            table.append(cached.getText());
+            ReceiptMetrics.rendered(cached.getText().length());
+            return new Table(cached.getTotals(), null);
+        }
+        List<LineItem> lines = resolveLines(items, products);
+        int start = table.length();
+        ReceiptTotals totals = appendTable(caseKey, lines, products, binding.shoppingCart, table);
+        if (allPriced(lines)) {
+            cache.put(key, totals, table.substring(start));
+        }
+        return new Table(totals, lines);
+    }
+
+    private static boolean allPriced(List<LineItem> lines) {
+        for (LineItem line : lines) {
+            if (!line.hasPrice()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ReceiptTotals appendTable(String caseKey, List<LineItem> lines, ProductDictionary products,
+            ShoppingCart shoppingCart, StringBuilder table) {
+        // 小計、稅金與總金額由購物車一次走訪所有項目計算完成
+        ReceiptTotals totals = shoppingCart.calLineTotals(lines);
+        ReceiptRenderedEvent event = new ReceiptRenderedEvent();
+        event.begin();
+        int before = table.length();
+        try {
+            RENDERER.render(lines, products, totals, table);
+        } catch (IOException e) {
+            // StringBuilder 不會拋出 IOException
+            throw new UncheckedIOException(e);
+        }
+        if (event.shouldCommit()) {
+            event.caseKey = caseKey;
+            event.lineCount = lines.size();
+            event.chars = table.length() - before;
+            event.commit();
+        }
+        return totals;
+    }
+
+    /**
+     * 取得目前應使用的快照與購物車；若快照來源已發布新設定，則為新快照建立對應的購物車。
+     * 只讀取 volatile 欄位，不需加鎖。
+     */
+    private Binding currentBinding() {
+        Binding current = binding;
+        if (snapshotHolder != null) {
+            ConfigSnapshot latest = snapshotHolder.current();
+            if (current.snapshot != latest) {
+                current = new Binding(latest, new ShoppingCart(latest));
+                binding = current;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 將設定快照與以該快照建立的購物車綁定在一起，確保兩者永遠一致。
+     */
+    private static class Binding {
+        private final ConfigSnapshot snapshot;
+        private final ShoppingCart shoppingCart;
+
+        private Binding(ConfigSnapshot snapshot, ShoppingCart shoppingCart) {
+            this.snapshot = snapshot;
+            this.shoppingCart = shoppingCart;
+        }
+    }
+
+    /**
+     * 產生表格時的計算結果，以及解析後的項目；命中快取時 lines 為 null。
+     */
+    private static class Table {
+        private final ReceiptTotals totals;
+        private final List<LineItem> lines;
+
+        private Table(ReceiptTotals totals, List<LineItem> lines) {
+            this.totals = totals;
+            this.lines = lines;
+        }
     }
 
     /**
@@ -147,12 +453,17 @@ public class ReceiptPrinter {
      * @return 格式化後的商品名稱；若傳入 null 或空字串則直接返回原值
      */
     public String itemNameFormatter(String name) {
+        return formatItemName(name);
+    }
+
+    // itemNameFormatter 的實作，供 ReceiptRenderer 處理非 ASCII 名稱時共用
+    static String formatItemName(String name) {
         if (name == null || name.isEmpty()) {
             return name;
         }
         
-        // 先全部轉為小寫
-        name = name.toLowerCase();
+        // 先全部轉為小寫；以 Locale.ROOT 轉換，結果與預設語系無關（例如土耳其語系的 I 不會變成無點的 ı）
+        name = name.toLowerCase(Locale.ROOT);
 
         StringBuilder formattedName = new StringBuilder();
         boolean capitalizeNext = true;
@@ -0,0 +1,251 @@
+package com.vinskao.receipt.module;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.vinskao.receipt.metrics.ReceiptMetrics;
+import com.vinskao.receipt.metrics.ReceiptMetrics.Stage;
+import com.vinskao.receipt.model.LineItem;
+import com.vinskao.receipt.model.ProductDictionary;
+import com.vinskao.receipt.model.ReceiptTotals;
+
+/**
+ * ReceiptRenderer 將收據表格直接寫入呼叫端提供的 {@link Appendable}（例如 StringBuilder 或 Writer）。
+ * 框線與表頭只在類別載入時產生一次；商品名稱、價格與數量逐字元寫出，
+ * 不使用 String.format，也不產生中間字串，因此每一列幾乎不配置記憶體。
+ * 金額的小數點一律為 '.'，與執行環境的預設語系無關；在小數點為 '.' 的語系下，
+ * 輸出內容與原本以 String.format 組成的表格逐位元組相同。原本的實作依預設語系格式化，
+ * 例如德文語系會輸出 "17,99"，現在同一張收據的所有金額都固定為 "17.99"。
+ * 商品名稱的大小寫轉換同樣以 {@link Locale#ROOT} 進行，例如土耳其語系下 "PIN" 原本會輸出 "Pın"，
+ * 現在一律為 "Pin"，ASCII 與非 ASCII 名稱的規則相同。
+ * 此類別沒有狀態，可由多個執行緒共用。
+ * @author VinsKao
+ */
+public class ReceiptRenderer {
+    private static final int COLUMN_WIDTH = 15; // 基礎寬度 15 字元
+    private static final int CELL_WIDTH = COLUMN_WIDTH + 2; // 每個 cell 包含左右各一個空白，共 17 字元
+    private static final int NUM_COLUMNS = 3; // 表格設計為三個欄位：item、price 與 qty
+    // 表格內容區域的總寬度，cellWidth * 欄數，加上欄位間的空格 (numColumns - 1)
+    private static final int TOTAL_INNER_WIDTH = CELL_WIDTH * NUM_COLUMNS + (NUM_COLUMNS - 1);
+    // 小計、稅金與總金額欄位的寬度
+    private static final int SUMMARY_WIDTH = TOTAL_INNER_WIDTH - CELL_WIDTH - 1;
+
+    // 預先產生的上下框線
+    private static final String BORDER = "+" + "-".repeat(TOTAL_INNER_WIDTH) + "+";
+    // 預先產生的框線、表頭與表頭下方的空白列
+    private static final String HEADER = BORDER + "\n"
+            + "|" + padRight("item", CELL_WIDTH) + " " + padLeft("price", CELL_WIDTH) + " " + padLeft("qty", CELL_WIDTH) + "|\n"
+            + "|" + " ".repeat(TOTAL_INNER_WIDTH) + "|\n";
+    // 資料列與小計之間的空白列
+    private static final String SEPARATOR = "|" + " ".repeat(TOTAL_INNER_WIDTH) + "|\n";
+
+    private static final long[] POWERS_OF_TEN = {
+        1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L,
+        1_000_000_000L, 10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L,
+        10_000_000_000_000L, 100_000_000_000_000L, 1_000_000_000_000_000L,
+        10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+
+    /**
+     * 將收據表格寫入 out，結尾為底部框線，不含換行。
+     *
+     * @param lines  已解析的購買項目，依列印順序排列
+     * @param prices 商品價格資料，價格欄位顯示此表中的價格，查無價格的商品以 0 顯示
+     * @param totals 已計算完成的小計、稅金與總金額
+     * @param out    輸出目標
+     * @throws IOException 寫入 out 失敗時拋出
+     */
+    public void render(Collection<LineItem> lines, Map<String, BigDecimal> prices, ReceiptTotals totals,
+            Appendable out) throws IOException {
+        render(lines, line -> prices.getOrDefault(line.getProductName(), BigDecimal.ZERO), totals, out);
+    }
+
+    /**
+     * 將收據表格寫入 out，價格欄位以項目的商品 ID 查詢商品字典，不必再以商品名稱查表。
+     *
+     * @param lines    以同一份商品字典解析的購買項目，依列印順序排列
+     * @param products 商品字典，價格欄位顯示字典中的價格，查無價格的商品以 0 顯示
+     * @param totals   已計算完成的小計、稅金與總金額
+     * @param out      輸出目標
+     * @throws IOException 寫入 out 失敗時拋出
+     */
+    public void render(Collection<LineItem> lines, ProductDictionary products, ReceiptTotals totals,
+            Appendable out) throws IOException {
+        render(lines, line -> {
+            BigDecimal price = products.priceOf(line.getProductId());
+            return price == null ? BigDecimal.ZERO : price;
+        }, totals, out);
+    }
+
+    private void render(Collection<LineItem> lines, Function<LineItem, BigDecimal> prices, ReceiptTotals totals,
+            Appendable out) throws IOException {
+        long start = ReceiptMetrics.start();
+        // 輸出目標為 StringBuilder 等 CharSequence 時可計算寫入的字元數
+        int before = out instanceof CharSequence ? ((CharSequence) out).length() : -1;
+        out.append(HEADER);
+        for (LineItem line : lines) {
+            BigDecimal price = prices.apply(line);
+            out.append('|');
+            appendItemName(out, line.getProductName());
+            out.append(' ');
+            appendPrice(out, price);
+            out.append(' ');
+            appendLong(out, line.getQuantity(), CELL_WIDTH);
+            out.append("|\n");
+        }
+        out.append(SEPARATOR);
+        appendSummaryRow(out, "subtotal", totals.getSubtotal());
+        appendSummaryRow(out, "tax", totals.getTax());
+        appendSummaryRow(out, "total", totals.getTotal());
+        out.append(BORDER);
+        ReceiptMetrics.record(Stage.RENDER, start);
+        if (before >= 0) {
+            ReceiptMetrics.rendered(((CharSequence) out).length() - before);
+        }
+    }
+
+    private void appendSummaryRow(Appendable out, String label, BigDecimal amount) throws IOException {
+        out.append('|').append(label);
+        appendSpaces(out, CELL_WIDTH - label.length());
+        out.append(' ');
+        long cents = exactCents(amount);
+        if (cents == Long.MIN_VALUE) {
+            // 無法快速精確轉換時，沿用 BigDecimal 的格式化規則（四捨五入）
+            out.append(String.format(Locale.ROOT, "%" + SUMMARY_WIDTH + ".2f", amount));
+        } else {
+            appendCents(out, cents, SUMMARY_WIDTH);
+        }
+        out.append("|\n");
+    }
+
+    // 價格欄位沿用原本以 double 格式化的規則
+    private void appendPrice(Appendable out, BigDecimal price) throws IOException {
+        long cents = exactCents(price);
+        if (cents == Long.MIN_VALUE) {
+            out.append(String.format(Locale.ROOT, "%" + CELL_WIDTH + ".2f", price.doubleValue()));
+        } else {
+            appendCents(out, cents, CELL_WIDTH);
+        }
+    }
+
+    /**
+     * 將商品名稱格式化後靠左寫出並補足欄寬，規則與 {@link ReceiptPrinter#itemNameFormatter(String)} 相同。
+     * 僅含 ASCII 字元時逐字元轉換；否則改用 itemNameFormatter 以確保大小寫轉換結果一致。
+     */
+    private void appendItemName(Appendable out, String name) throws IOException {
+        if (name == null) {
+            out.append("null");
+            appendSpaces(out, CELL_WIDTH - 4);
+            return;
+        }
+        if (!isAscii(name)) {
+            String formatted = ReceiptPrinter.formatItemName(name);
+            out.append(formatted);
+            appendSpaces(out, CELL_WIDTH - formatted.length());
+            return;
+        }
+        boolean capitalizeNext = true;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '_') {
+                out.append(' ');
+                capitalizeNext = true;
+            } else if (capitalizeNext) {
+                out.append(Character.toUpperCase(Character.toLowerCase(c)));
+                capitalizeNext = false;
+            } else {
+                out.append(Character.toLowerCase(c));
+            }
+        }
+        appendSpaces(out, CELL_WIDTH - name.length());
+    }
+
+    /**
+     * 取得金額以分為單位的精確值。
+     * 小數不超過兩位且有效位數不超過 14 位時，double 乘以 100 後四捨五入必定得到精確值，且不會配置物件。
+     *
+     * @return 以分為單位的金額；無法精確轉換時回傳 Long.MIN_VALUE
+     */
+    private static long exactCents(BigDecimal amount) {
+        int scale = amount.scale();
+        if (scale < 0 || scale > 2 || amount.precision() > 14) {
+            return Long.MIN_VALUE;
+        }
+        return Math.round(amount.doubleValue() * 100);
+    }
+
+    // 將分為單位的金額以 "整數.兩位小數" 靠右寫出
+    private static void appendCents(Appendable out, long cents, int width) throws IOException {
+        boolean negative = cents < 0;
+        long abs = Math.abs(cents);
+        long units = abs / 100;
+        int fraction = (int) (abs % 100);
+        int length = digits(units) + 3 + (negative ? 1 : 0);
+        appendSpaces(out, width - length);
+        if (negative) {
+            out.append('-');
+        }
+        appendDigits(out, units);
+        out.append('.');
+        out.append((char) ('0' + fraction / 10));
+        out.append((char) ('0' + fraction % 10));
+    }
+
+    // 將整數靠右寫出
+    private static void appendLong(Appendable out, long value, int width) throws IOException {
+        boolean negative = value < 0;
+        if (value == Long.MIN_VALUE) {
+            String text = Long.toString(value);
+            appendSpaces(out, width - text.length());
+            out.append(text);
+            return;
+        }
+        long abs = Math.abs(value);
+        appendSpaces(out, width - digits(abs) - (negative ? 1 : 0));
+        if (negative) {
+            out.append('-');
+        }
+        appendDigits(out, abs);
+    }
+
+    private static void appendDigits(Appendable out, long value) throws IOException {
+        for (int i = digits(value) - 1; i >= 0; i--) {
+            out.append((char) ('0' + (value / POWERS_OF_TEN[i]) % 10));
+        }
+    }
+
+    private static int digits(long value) {
+        int count = 1;
+        while (count < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[count]) {
+            count++;
+        }
+        return count;
+    }
+
+    private static void appendSpaces(Appendable out, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            out.append(' ');
+        }
+    }
+
+    private static boolean isAscii(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 128) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String padRight(String s, int width) {
+        return s + " ".repeat(Math.max(0, width - s.length()));
+    }
+
+    private static String padLeft(String s, int width) {
+        return " ".repeat(Math.max(0, width - s.length())) + s;
+    }
+}
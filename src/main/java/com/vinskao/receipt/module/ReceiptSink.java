@@ -0,0 +1,29 @@
+package com.vinskao.receipt.module;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 收據輸出目標。
+ * 每次 {@link #write(CharSequence)} 傳入一張完整的收據（case 名稱、表格與結尾空行），
+ * 實作可自行緩衝，並依批次大小決定何時真正寫出；{@link #close()} 前會寫出所有剩餘內容。
+ * 實作不保證執行緒安全。
+ * @author VinsKao
+ */
+public interface ReceiptSink extends Closeable {
+
+    /**
+     * 寫入一張收據。呼叫端可在方法返回後重複使用傳入的緩衝區。
+     *
+     * @param receipt 完整的收據文字
+     * @throws IOException 寫出失敗時拋出
+     */
+    void write(CharSequence receipt) throws IOException;
+
+    /**
+     * 立即寫出目前緩衝中的所有收據。
+     *
+     * @throws IOException 寫出失敗時拋出
+     */
+    void flush() throws IOException;
+}
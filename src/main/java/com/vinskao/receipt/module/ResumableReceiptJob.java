@@ -0,0 +1,179 @@
+package com.vinskao.receipt.module;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+import com.vinskao.receipt.config.CartsConfigLoader;
+import com.vinskao.receipt.config.CartsStreamReader;
+import com.vinskao.receipt.journal.ReceiptJournal;
+import com.vinskao.receipt.model.CartCaseVO;
+
+/**
+ * 可從檢查點接續執行的收據批次：串流讀取外部購物車檔案，收據寫入指定檔案。
+ * <p>
+ * 每處理 interval 個 case 將收據檔寫回磁碟後儲存一次 {@link ReceiptCheckpoint}；
+ * 程式中止後以 resume 模式執行時，購物車檔案直接從檢查點的位元組位置接續讀取，
+ * 收據檔截斷到檢查點的位置後接著寫入，因此不會重複或遺漏收據，結果與一次執行完畢相同。
+ * 印表機設有收據日誌時，日誌同樣捨棄檢查點之後寫入的紀錄再接著附加。
+ * 收據依序產生，不支援平行列印。
+ * @author VinsKao
+ */
+public class ResumableReceiptJob {
+    /** 預設每 10000 個 case 儲存一次檢查點 */
+    public static final long DEFAULT_INTERVAL = 10_000;
+
+    private final ReceiptPrinter printer;
+    private final Path carts;
+    private final Path output;
+    private final Path checkpointFile;
+    private final long interval;
+    private final int batchSize;
+
+    /**
+     * @param printer        收據印表機
+     * @param carts          購物車檔案
+     * @param output         收據檔
+     * @param checkpointFile 檢查點檔案
+     * @param interval       每幾個 case 儲存一次檢查點
+     * @param batchSize      收據檔每批次的收據數
+     */
+    public ResumableReceiptJob(ReceiptPrinter printer, Path carts, Path output, Path checkpointFile, long interval,
+            int batchSize) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("interval 必須大於 0: " + interval);
+        }
+        this.printer = printer;
+        this.carts = carts;
+        this.output = output;
+        this.checkpointFile = checkpointFile;
+        this.interval = interval;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 執行批次。resume 為 true 且檢查點檔案存在時從檢查點接續，否則從頭開始並覆寫收據檔。
+     * 檢查點已標示完成時不做任何事。開始處理前先儲存一次檢查點，
+     * 第一個檢查點之前中止時，接續執行也能捨棄已附加到收據日誌的紀錄。
+     *
+     * @param resume 是否從檢查點接續
+     * @return 最後一次儲存的檢查點
+     * @throws IOException 讀寫檔案失敗時拋出
+     * @throws IllegalStateException 購物車檔案或收據日誌與檢查點記錄的不同時拋出
+     */
+    public ReceiptCheckpoint run(boolean resume) throws IOException {
+        String input = carts.toAbsolutePath().toString();
+        long inputSize = Files.size(carts);
+        ReceiptCheckpoint checkpoint;
+        if (resume && Files.exists(checkpointFile)) {
+            checkpoint = ReceiptCheckpoint.load(checkpointFile);
+            if (!input.equals(checkpoint.getInput()) || inputSize != checkpoint.getInputSize()) {
+                throw new IllegalStateException("購物車檔案與檢查點不符: " + checkpoint.getInput());
+            }
+            if (checkpoint.isCompleted()) {
+                return checkpoint;
+            }
+            rollbackJournal(checkpoint);
+        } else {
+            checkpoint = new ReceiptCheckpoint();
+            checkpoint.setInput(input);
+            checkpoint.setInputSize(inputSize);
+        }
+
+        try (CartsStreamReader reader = CartsConfigLoader.openStream(carts, checkpoint.getInputOffset());
+                FileReceiptSink sink = new FileReceiptSink(output, batchSize, FileReceiptSink.DEFAULT_BUFFER_SIZE,
+                        checkpoint.getOutputOffset())) {
+            CheckpointingReader checkpointing = new CheckpointingReader(reader, sink, checkpoint);
+            checkpointing.save();
+            try {
+                printer.printReceiptFrames(checkpointing, sink);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            checkpoint.setCompleted(true);
+            checkpointing.save();
+        }
+        return checkpoint;
+    }
+
+    /**
+     * 捨棄收據日誌中檢查點之後的紀錄。檢查點沒有記錄日誌，或這次執行沒有日誌時不需處理。
+     */
+    private void rollbackJournal(ReceiptCheckpoint checkpoint) throws IOException {
+        ReceiptJournal journal = printer.getJournal();
+        if (journal == null || checkpoint.getJournal() == null) {
+            return;
+        }
+        if (!checkpoint.getJournal().equals(journal.getDirectory().toAbsolutePath().toString())) {
+            throw new IllegalStateException("收據日誌與檢查點不符: " + checkpoint.getJournal());
+        }
+        journal.truncate(checkpoint.getJournalSegment(), checkpoint.getJournalOffset());
+    }
+
+    /**
+     * 包裝串流讀取器，記錄每個 case 的結尾位置，每 interval 個 case 在讀取下一個 case 前儲存檢查點。
+     * 循序列印時讀取下一個 case 前，已讀取的 case 都已交給輸出目標。
+     */
+    private class CheckpointingReader implements Iterator<CartCaseVO> {
+        private final CartsStreamReader reader;
+        private final FileReceiptSink sink;
+        private final ReceiptCheckpoint checkpoint;
+        // 最後一個讀取的 case 的結尾位置與名稱，尚未寫回磁碟
+        private long inputOffset;
+        private String lastCaseKey;
+        private long sinceCheckpoint;
+
+        CheckpointingReader(CartsStreamReader reader, FileReceiptSink sink, ReceiptCheckpoint checkpoint) {
+            this.reader = reader;
+            this.sink = sink;
+            this.checkpoint = checkpoint;
+            this.inputOffset = checkpoint.getInputOffset();
+            this.lastCaseKey = checkpoint.getLastCaseKey();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (sinceCheckpoint >= interval) {
+                try {
+                    save();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return reader.hasNext();
+        }
+
+        @Override
+        public CartCaseVO next() {
+            CartCaseVO cartCase = reader.next();
+            // 串流讀取器在 hasNext() 時已讀完此 case，此時的位置即為此 case 的結尾
+            inputOffset = reader.getByteOffset();
+            lastCaseKey = cartCase.getCaseKey();
+            checkpoint.setReceipts(checkpoint.getReceipts() + 1);
+            checkpoint.setLines(checkpoint.getLines() + cartCase.getItems().size());
+            sinceCheckpoint++;
+            return cartCase;
+        }
+
+        /**
+         * 先將收據檔與收據日誌寫回磁碟，再儲存檢查點，檢查點記錄的內容在中止後一定存在。
+         */
+        void save() throws IOException {
+            sink.force();
+            ReceiptJournal journal = printer.getJournal();
+            if (journal != null) {
+                journal.sync();
+                checkpoint.setJournal(journal.getDirectory().toAbsolutePath().toString());
+                checkpoint.setJournalSegment(journal.getActiveSegment());
+                checkpoint.setJournalOffset(journal.getActiveOffset());
+            }
+            checkpoint.setInputOffset(inputOffset);
+            checkpoint.setLastCaseKey(lastCaseKey);
+            checkpoint.setOutputOffset(sink.getPosition());
+            checkpoint.save(checkpointFile);
+            sinceCheckpoint = 0;
+        }
+    }
+}
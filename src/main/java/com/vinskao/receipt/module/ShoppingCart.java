@@ -1,11 +1,20 @@
 package com.vinskao.receipt.module;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
-import com.vinskao.receipt.config.PricesConfigLoader;
+import com.vinskao.receipt.config.ConfigSnapshot;
+import com.vinskao.receipt.metrics.PriceResolvedEvent;
+import com.vinskao.receipt.metrics.ReceiptMetrics;
+import com.vinskao.receipt.metrics.ReceiptMetrics.Stage;
+import com.vinskao.receipt.metrics.TaxComputedEvent;
 import com.vinskao.receipt.model.ItemVO;
+import com.vinskao.receipt.model.LineItem;
 import com.vinskao.receipt.model.PriceDO;
+import com.vinskao.receipt.model.ProductDictionary;
+import com.vinskao.receipt.model.ReceiptTotals;
 
 /**
  * ShoppingCart 購物車類別，用於計算購物車中物品的小計、稅金與總金額。
@@ -22,10 +31,47 @@ public class ShoppingCart {
      */
     private PriceDO priceDO;
 
+    /**
+     * 由 {@code priceDO} 編譯而成的商品字典，以快照建立時直接沿用快照中的字典，否則在第一次計算時才編譯。
+     */
+    private volatile ProductDictionary products;
+
+    /**
+     * 計算金額使用的數值引擎，預設為 BigDecimal。
+     */
+    private MoneyEngine moneyEngine = MoneyEngine.BIG_DECIMAL;
+
+    /**
+     * 定點數計算器，第一次使用 {@link MoneyEngine#FIXED_POINT} 時才建立。
+     */
+    private FixedPointCalculator fixedPointCalculator;
+
+    /**
+     * 使用全程式共用的預設設定快照建立購物車。
+     */
     public ShoppingCart() {
-        this.taxCalculator = new TaxCalculator();
-        // 將 prices.json 讀取成 PriceDO 物件
-        this.priceDO = PricesConfigLoader.load();
+        this(ConfigSnapshot.getDefault());
+    }
+
+    /**
+     * 以注入的設定快照建立購物車，價格與稅率設定皆取自同一份快照，不會重新讀取檔案。
+     *
+     * @param snapshot 價格與地區設定快照
+     */
+    public ShoppingCart(ConfigSnapshot snapshot) {
+        this(new TaxCalculator(snapshot), snapshot.getPriceDO());
+        this.products = snapshot.getProductDictionary();
+    }
+
+    /**
+     * 直接注入稅金計算器與價格資料建立購物車。
+     *
+     * @param taxCalculator 稅金計算器
+     * @param priceDO       價格資料
+     */
+    public ShoppingCart(TaxCalculator taxCalculator, PriceDO priceDO) {
+        this.taxCalculator = taxCalculator;
+        this.priceDO = priceDO;
     }
 
     /**
@@ -35,21 +81,31 @@ public class ShoppingCart {
      * @return 返回所有物品價格乘以數量的累計總和
      */
     public BigDecimal calSubtotal(Collection<ItemVO> items) {
+        if (moneyEngine == MoneyEngine.FIXED_POINT) {
+            BigDecimal subtotal = fixedPointCalculator().calSubtotal(items);
+            if (subtotal != null) {
+                return subtotal;
+            }
+        }
+        ProductDictionary products = getProducts();
         BigDecimal subtotal = BigDecimal.ZERO;
         for (ItemVO item : items) {
             // 嘗試使用 ItemVO 中所帶的價格
             BigDecimal price = item.getPrice();
-            
-            // 若ItemVO的price為null，則從PriceDO映射中取得對應的價格
-            if (price == null) {
-                price = priceDO.getPrices().get(item.getProductName());
+            BigDecimal itemTotal;
+            if (price != null) {
+                itemTotal = price.multiply(BigDecimal.valueOf(item.getQuantity()));
+            } else {
+                // 若ItemVO的price為null，則以商品字典的 ID 查詢價格並直接乘上數量
+                itemTotal = products.lineTotalOf(products.idOf(item.getProductName()), item.getQuantity());
             }
             
-            if (price != null) {
-                subtotal = subtotal.add(price.multiply(BigDecimal.valueOf(item.getQuantity())));
+            if (itemTotal != null) {
+                subtotal = subtotal.add(itemTotal);
             } else {
                 // 若從PriceDO中仍然找不到價格，將印出警告訊息。
-                System.out.println("Item 價格為 null: " + item.getProductName());
+                System.err.println("Item 價格為 null: " + item.getProductName());
+                ReceiptMetrics.missingPrice();
             }
         }
         return subtotal;
@@ -62,6 +118,12 @@ public class ShoppingCart {
      * @return 返回所有物品的稅金總和
      */
     public BigDecimal calTax(Collection<ItemVO> items) {
+        if (moneyEngine == MoneyEngine.FIXED_POINT) {
+            BigDecimal tax = fixedPointCalculator().calTax(items);
+            if (tax != null) {
+                return tax;
+            }
+        }
         return taxCalculator.calculateTotalTax(items);
     }
 
@@ -75,6 +137,142 @@ public class ShoppingCart {
         return calSubtotal(items).add(calTax(items));
     }
 
+    /**
+     * 一次走訪所有購買項目，同時計算小計、稅金與總金額。
+     * 每個項目只會被讀取一次，適合品項很多的購物車；結果與分別呼叫
+     * {@link #calSubtotal(Collection)}、{@link #calTax(Collection)}、{@link #calTotal(Collection)} 相同。
+     * 項目會先解析為不可變的 {@link LineItem}，不會修改傳入的 ItemVO。
+     *
+     * @param items 購物車中的物品清單
+     * @return 收據的計算結果
+     * @throws IllegalArgumentException 當 items 為 null、包含 null 項目或商品缺少地區時拋出
+     */
+    public ReceiptTotals calReceiptTotals(Collection<ItemVO> items) {
+        return calLineTotals(resolve(items));
+    }
+
+    /**
+     * 將購買項目解析為不可變的 {@link LineItem}：ItemVO 的價格優先，否則取自此購物車的價格資料。
+     *
+     * @param items 購物車中的物品清單
+     * @return 依原順序排列的已解析項目
+     * @throws IllegalArgumentException 當 items 為 null 或包含 null 項目時拋出
+     */
+    public List<LineItem> resolve(Collection<ItemVO> items) {
+        if (items == null) {
+            throw new IllegalArgumentException("商品列表不能為 null");
+        }
+        long start = ReceiptMetrics.start();
+        PriceResolvedEvent event = new PriceResolvedEvent();
+        event.begin();
+        ProductDictionary products = getProducts();
+        List<LineItem> lines = new ArrayList<>(items.size());
+        for (ItemVO item : items) {
+            lines.add(LineItem.of(item, products));
+        }
+        ReceiptMetrics.record(Stage.PRICE, start);
+        if (event.shouldCommit()) {
+            event.describe(lines);
+            event.commit();
+        }
+        return lines;
+    }
+
+    /**
+     * 一次走訪所有已解析的購買項目，同時計算小計、稅金與總金額。
+     * LineItem 不可修改，同一份清單可同時在多個執行緒計算。
+     *
+     * @param lines 已解析的購買項目
+     * @return 收據的計算結果
+     * @throws IllegalArgumentException 當 lines 為 null、包含 null 項目或項目缺少地區時拋出
+     */
+    public ReceiptTotals calLineTotals(Collection<LineItem> lines) {
+        if (lines == null) {
+            throw new IllegalArgumentException("商品列表不能為 null");
+        }
+        long start = ReceiptMetrics.start();
+        TaxComputedEvent event = new TaxComputedEvent();
+        event.begin();
+        try {
+            ReceiptTotals totals = sumLines(lines);
+            if (event.shouldCommit()) {
+                event.describe(lines, LineItem::getLocation, LineItem::getCategory);
+                event.tax = totals.getTax().toPlainString();
+                event.commit();
+            }
+            return totals;
+        } finally {
+            ReceiptMetrics.record(Stage.TAX, start);
+        }
+    }
+
+    private ReceiptTotals sumLines(Collection<LineItem> lines) {
+        if (moneyEngine == MoneyEngine.FIXED_POINT) {
+            ReceiptTotals totals = fixedPointCalculator().calLineTotals(lines);
+            if (totals != null) {
+                return totals;
+            }
+        }
+        BigDecimal subtotal = BigDecimal.ZERO;
+        BigDecimal tax = BigDecimal.ZERO;
+        int count = 0;
+        for (LineItem line : lines) {
+            if (line == null) {
+                throw new IllegalArgumentException("商品列表中包含 null 項目");
+            }
+            count++;
+            // 根據當前商品決定適用的稅率，同時檢查地區是否有效
+            BigDecimal taxRate = taxCalculator.determineLineTax(line);
+            if (!line.hasPrice()) {
+                // 找不到價格時不計入小計，稅金也以 0 計算
+                System.err.println("Item 價格為 null: " + line.getProductName());
+                ReceiptMetrics.missingPrice();
+                continue;
+            }
+            BigDecimal itemTotal = line.getLineTotal();
+            subtotal = subtotal.add(itemTotal);
+            tax = tax.add(itemTotal.multiply(taxRate));
+        }
+        BigDecimal roundedTax = TaxCalculator.roundUpToNickel(tax);
+        return new ReceiptTotals(count, subtotal, roundedTax, subtotal.add(roundedTax));
+    }
+
+    public MoneyEngine getMoneyEngine() {
+        return moneyEngine;
+    }
+
+    /**
+     * 設定此購物車計算金額時使用的數值引擎，兩種引擎的計算結果相同。
+     *
+     * @param moneyEngine 數值引擎
+     */
+    public void setMoneyEngine(MoneyEngine moneyEngine) {
+        if (moneyEngine == null) {
+            throw new IllegalArgumentException("MoneyEngine 不能為 null");
+        }
+        this.moneyEngine = moneyEngine;
+    }
+
+    /**
+     * 取得商品字典，尚未編譯時由 {@code priceDO} 編譯一次。
+     * 多執行緒同時編譯時結果相同，只會保留其中一份。
+     */
+    ProductDictionary getProducts() {
+        ProductDictionary dictionary = products;
+        if (dictionary == null) {
+            dictionary = ProductDictionary.compile(priceDO);
+            products = dictionary;
+        }
+        return dictionary;
+    }
+
+    private FixedPointCalculator fixedPointCalculator() {
+        if (fixedPointCalculator == null) {
+            fixedPointCalculator = new FixedPointCalculator(getProducts(), taxCalculator.getTaxRules());
+        }
+        return fixedPointCalculator;
+    }
+
     /**
      * 先全部轉小寫，再將開頭大寫、底鹹轉空格。
      */
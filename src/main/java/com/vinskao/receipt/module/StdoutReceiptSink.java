@@ -0,0 +1,41 @@
+package com.vinskao.receipt.module;
+
+import java.io.PrintStream;
+
+/**
+ * 輸出到標準輸出的收據目標。
+ * 收據先累積在記憶體中，每批次只呼叫一次 PrintStream 的 print 與 flush，
+ * 避免每張收據都經過 System.out 的同步與自動 flush。
+ * @author VinsKao
+ */
+public class StdoutReceiptSink extends BatchingReceiptSink {
+    private final PrintStream out;
+    private final StringBuilder batch = new StringBuilder(64 * 1024);
+
+    public StdoutReceiptSink() {
+        this(System.out, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param out       輸出串流
+     * @param batchSize 每批次的收據數
+     */
+    public StdoutReceiptSink(PrintStream out, int batchSize) {
+        super(batchSize);
+        this.out = out;
+    }
+
+    @Override
+    protected void buffer(CharSequence receipt) {
+        batch.append(receipt);
+    }
+
+    @Override
+    protected void drain() {
+        if (batch.length() > 0) {
+            out.append(batch);
+            batch.setLength(0);
+        }
+        out.flush();
+    }
+}
@@ -3,13 +3,18 @@ package com.vinskao.receipt.module;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.Collection;
-import java.util.List;
 
+import com.vinskao.receipt.config.ConfigSnapshot;
 import com.vinskao.receipt.config.LocationsConfigLoader;
-import com.vinskao.receipt.config.PricesConfigLoader;
+import com.vinskao.receipt.metrics.ReceiptMetrics;
+import com.vinskao.receipt.metrics.ReceiptMetrics.Stage;
+import com.vinskao.receipt.metrics.TaxComputedEvent;
 import com.vinskao.receipt.model.ItemVO;
+import com.vinskao.receipt.model.LineItem;
 import com.vinskao.receipt.model.LocationDO;
 import com.vinskao.receipt.model.PriceDO;
+import com.vinskao.receipt.model.ProductDictionary;
+import com.vinskao.receipt.model.TaxRuleTable;
 
 /**
  * TaxCalculator 類別負責根據商品的所在區域與類別資訊計算所需繳納的稅金。
@@ -29,15 +34,49 @@ public class TaxCalculator {
     private LocationDO locationsConfig;
     private PriceDO pricesConfig;
 
+    /**
+     * 由 {@code locationsConfig} 編譯而成的稅率規則表。
+     * 由快照建立時直接沿用快照中的規則表；否則在第一次計算時才編譯。
+     */
+    private volatile TaxRuleTable taxRules;
+
+    /**
+     * 由 {@code pricesConfig} 編譯而成的商品字典，建立方式與 {@link #taxRules} 相同。
+     */
+    private volatile ProductDictionary products;
+
+    // 稅金進位單位 0.05
+    private static final BigDecimal NICKEL = new BigDecimal("0.05");
+
     /**
      * 建構子 TaxCalculator
-     * 物件建立時自動從locations.json中載入各地區稅設定，
-     * 並將配置資訊儲存於 {@code locationsConfig} 成員變數之中，
-     * 以便後續計算稅金時使用。
+     * 使用全程式共用的預設設定快照，
+     * 各地區稅設定只會在第一次使用時從 locations.json 載入一次。
      */
     public TaxCalculator(){
-        this.locationsConfig = LocationsConfigLoader.load();
-        this.pricesConfig = PricesConfigLoader.load();
+        this(ConfigSnapshot.getDefault());
+    }
+
+    /**
+     * 以注入的設定快照建立 TaxCalculator，不會重新讀取設定檔。
+     *
+     * @param snapshot 價格與地區設定快照
+     */
+    public TaxCalculator(ConfigSnapshot snapshot){
+        this(snapshot.getLocationDO(), snapshot.getPriceDO());
+        this.taxRules = snapshot.getTaxRuleTable();
+        this.products = snapshot.getProductDictionary();
+    }
+
+    /**
+     * 直接注入地區與價格設定建立 TaxCalculator。
+     *
+     * @param locationsConfig 各地區稅率與免稅類別設定
+     * @param pricesConfig    商品價格設定
+     */
+    public TaxCalculator(LocationDO locationsConfig, PriceDO pricesConfig){
+        this.locationsConfig = locationsConfig;
+        this.pricesConfig = pricesConfig;
     }
     
     
@@ -53,24 +92,83 @@ public class TaxCalculator {
             throw new IllegalArgumentException("Item 或 Location 不能為 null");
         }
         
-        // 取得商品所在區域的代碼與商品類別
-        String location = item.getLocation().name();
-        String category = item.getCategory();
+        // 以地區序號與類別 ID 查表，免稅類別會得到 0 稅率
+        TaxRuleTable taxRules = getTaxRules();
+        return taxRules.taxRate(item.getLocation(), taxRules.categoryId(item.getCategory()));
+    }
 
-        // 從配置中取得該地區的稅率與免稅產品類別列表
-        BigDecimal taxRate = locationsConfig.getTaxRate(location);
-        List<String> exemptCategories = locationsConfig.getExemptCategories(location);
-        
-        // DEBUG：印出計算數學
-        if (exemptCategories.contains(category)) {
-            // System.err.println("Tax: Item '" + item.getProductName() 
-            //     + "' location '" + location + "' 免稅'" + category + "'. Tax rate = 0.");
+    /**
+     * 根據已解析的購買項目決定並回傳應用的稅率，規則與 {@link #determineTax(ItemVO)} 相同。
+     *
+     * @param line 已解析的購買項目，必須包含地區
+     * @return 若商品符合免稅條件則回傳 {@link BigDecimal#ZERO}，否則回傳該區域的稅率
+     * @throws IllegalArgumentException 當 {@code line} 或其地區為 null 時拋出此異常
+     */
+    public BigDecimal determineLineTax(LineItem line) {
+        if (line == null || line.getLocation() == null) {
+            throw new IllegalArgumentException("Item 或 Location 不能為 null");
+        }
+        TaxRuleTable taxRules = getTaxRules();
+        return taxRules.taxRate(line.getLocation(), taxRules.categoryId(line.getCategory()));
+    }
+
+    /**
+     * 計算已解析購買項目的稅金總和並進位至 0.05，查無價格的項目以 0 計算。
+     *
+     * @param lines 已解析的購買項目，不可包含 null
+     * @return 進位後的稅金
+     * @throws IllegalArgumentException 當 lines 為 null、包含 null 項目或項目缺少地區時拋出
+     */
+    public BigDecimal calculateLineTax(Collection<LineItem> lines) {
+        if (lines == null) {
+            throw new IllegalArgumentException("商品列表不能為 null");
+        }
+        BigDecimal tax = BigDecimal.ZERO;
+        for (LineItem line : lines) {
+            if (line == null) {
+                throw new IllegalArgumentException("商品列表中包含 null 項目");
+            }
+            tax = tax.add(unroundedTax(line));
+        }
+        return roundUpToNickel(tax);
+    }
+
+    /**
+     * 單一項目尚未進位的稅額（稅額 = 單價 * 數量 * 稅率）。
+     */
+    private BigDecimal unroundedTax(LineItem line) {
+        // 根據當前商品決定適用的稅（如果商品免稅，會是 0），同時檢查地區
+        BigDecimal taxRate = determineLineTax(line);
+        if (!line.hasPrice()) {
             return BigDecimal.ZERO;
         }
-        
-        // System.err.println("Tax: Item '" + item.getProductName() 
-        //     + "' location '" + location + "' tax rate: " + taxRate + ".");
-        return taxRate;        
+        return line.getLineTotal().multiply(taxRate);
+    }
+
+    /**
+     * 取得稅率規則表，尚未編譯時由 {@code locationsConfig} 編譯一次。
+     * 多執行緒同時編譯時結果相同，只會保留其中一份。
+     */
+    TaxRuleTable getTaxRules() {
+        TaxRuleTable table = taxRules;
+        if (table == null) {
+            table = TaxRuleTable.compile(locationsConfig);
+            taxRules = table;
+        }
+        return table;
+    }
+
+    /**
+     * 取得商品字典，尚未編譯時由 {@code pricesConfig} 編譯一次。
+     * 多執行緒同時編譯時結果相同，只會保留其中一份。
+     */
+    ProductDictionary getProducts() {
+        ProductDictionary dictionary = products;
+        if (dictionary == null) {
+            dictionary = ProductDictionary.compile(pricesConfig);
+            products = dictionary;
+        }
+        return dictionary;
     }
 
     /**
@@ -85,48 +183,32 @@ public class TaxCalculator {
             throw new IllegalArgumentException("商品列表不能為 null");
         }
         
+        long start = ReceiptMetrics.start();
+        TaxComputedEvent event = new TaxComputedEvent();
+        event.begin();
         BigDecimal tax = items.stream()
-                    .map(item -> {
-                        if (item == null) { 
-                            throw new IllegalArgumentException("商品列表中包含 null 項目");
-                        }
-                        // 若該項目的價格為 null，嘗試從 pricesConfig 裡取得對應價格
-                        if (item.getPrice() == null) {
-                            BigDecimal configPrice = pricesConfig.getPrices()
-                                    .getOrDefault(item.getProductName(), BigDecimal.ZERO);
-                            item.setPrice(configPrice);
-                        }
-                        // 根據當前商品決定適用的稅（如果商品免稅，會是 0）
-                        BigDecimal taxRate = determineTax(item);
-                        // 計算該商品總價 (總價 = 單價 * 數量)
-                        BigDecimal itemTotal = item.getPrice()
-                                    .multiply(BigDecimal.valueOf(item.getQuantity()));
-                        // 計算該商品需支付的稅額（稅額 = 總價 * 稅率）
-                        BigDecimal taxAmount = itemTotal.multiply(taxRate);
-
-                        // DEBUG：印出計算數學
-                        // if(taxRate.compareTo(BigDecimal.ZERO) == 0){
-                        //     System.err.println("Tax: Item '" + item.getProductName() 
-                        //             + "' 免稅. (" + item.getPrice() + " * " 
-                        //             + item.getQuantity() + " = " + itemTotal + ") * " 
-                        //             + taxRate + " = " + taxAmount);
-                        // } else {
-                        //     System.err.println("Tax: " 
-                        //             + item.getProductName() + "': (" + item.getPrice() + " * " 
-                        //             + item.getQuantity() + " = " + itemTotal + ") * " 
-                        //             + taxRate + " = " + taxAmount);
-                        // }
-                        return taxAmount;
-                    })
+                    // 解析為不可變的 LineItem，查無價格的商品以 0 計算，不會修改傳入的 ItemVO
+                    .map(item -> unroundedTax(LineItem.of(item, getProducts())))
                     // 將所有計算出來的稅額相加， 從 0 起始累加每一次 map 中的 return
                     .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // Round up to nearest 0.05
-        BigDecimal roundedTax = tax.setScale(1, RoundingMode.HALF_UP);
-        if (tax.subtract(roundedTax).compareTo(BigDecimal.ZERO) > 0) {
-            roundedTax = roundedTax.add(new BigDecimal("0.05"));
+        BigDecimal rounded = roundUpToNickel(tax);
+        ReceiptMetrics.record(Stage.TAX, start);
+        if (event.shouldCommit()) {
+            event.describe(items, ItemVO::getLocation, ItemVO::getCategory);
+            event.tax = rounded.toPlainString();
+            event.commit();
         }
-        
-        return roundedTax;
+        return rounded;
+    }
+
+    /**
+     * 將稅金無條件進位至最接近的 0.05。
+     * 已是 0.05 倍數的金額維持不變，例如 9.75 仍為 9.75，9.751 則進位為 9.80。
+     *
+     * @param tax 尚未進位的稅金
+     * @return 進位後的稅金，小數位數為 2
+     */
+    public static BigDecimal roundUpToNickel(BigDecimal tax) {
+        return tax.divide(NICKEL, 0, RoundingMode.CEILING).multiply(NICKEL);
     }
 }
@@ -0,0 +1,133 @@
+package com.vinskao.receipt.module;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.vinskao.receipt.metrics.ReceiptMetrics;
+import com.vinskao.receipt.model.LineItem;
+import com.vinskao.receipt.model.LocationENUM;
+
+/**
+ * 依地區與類別累計應稅銷售額、免稅銷售額與稅額的累加器，供稅務報表使用。
+ * <p>
+ * 每個地區與類別的組合對應一格，以地區序號索引後再依類別名稱查詢，記憶體用量只與組合數有關，與收據數無關。
+ * 金額以 BigDecimal 累加，不會有進位誤差。各格的稅額為項目尚未進位的稅額；
+ * 每張收據進位至 0.05 的差額另外累計，兩者相加即為實際收取的稅金。
+ * <p>
+ * 累加器不是執行緒安全的：每個執行緒各自累加，最後再以 {@link #merge(TaxLiabilityAccumulator)} 合併。
+ * @author VinsKao
+ */
+public class TaxLiabilityAccumulator {
+    private static final LocationENUM[] LOCATIONS = LocationENUM.values();
+
+    private final TaxCalculator taxCalculator;
+    // [地區序號] 類別名稱 → 累計結果，沒有類別的項目以 null 為 key
+    private final List<Map<String, Cell>> cells = new ArrayList<>(LOCATIONS.length);
+    private long receipts;
+    private long missingPriceLines;
+    private BigDecimal unroundedTax = BigDecimal.ZERO;
+    private BigDecimal collectedTax = BigDecimal.ZERO;
+
+    /**
+     * @param taxCalculator 判斷各項目稅率的稅金計算器
+     */
+    public TaxLiabilityAccumulator(TaxCalculator taxCalculator) {
+        this.taxCalculator = taxCalculator;
+        for (int i = 0; i < LOCATIONS.length; i++) {
+            cells.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * 累計一張收據的所有項目。稅率為 0 的項目計入免稅銷售額；查無價格的項目只計入項目數。
+     *
+     * @param lines 已解析的購買項目，必須包含地區
+     * @throws IllegalArgumentException 當 lines 包含 null 項目或項目缺少地區時拋出
+     */
+    public void add(Collection<LineItem> lines) {
+        BigDecimal receiptTax = BigDecimal.ZERO;
+        for (LineItem line : lines) {
+            BigDecimal taxRate = taxCalculator.determineLineTax(line);
+            Cell cell = cell(line.getLocation().ordinal(), line.getCategory());
+            cell.lines++;
+            if (!line.hasPrice()) {
+                missingPriceLines++;
+                ReceiptMetrics.missingPrice();
+                continue;
+            }
+            BigDecimal amount = line.getLineTotal();
+            if (taxRate.signum() == 0) {
+                cell.exemptSales = cell.exemptSales.add(amount);
+            } else {
+                BigDecimal tax = amount.multiply(taxRate);
+                cell.taxableSales = cell.taxableSales.add(amount);
+                cell.tax = cell.tax.add(tax);
+                receiptTax = receiptTax.add(tax);
+            }
+        }
+        receipts++;
+        unroundedTax = unroundedTax.add(receiptTax);
+        collectedTax = collectedTax.add(TaxCalculator.roundUpToNickel(receiptTax));
+    }
+
+    /**
+     * 將另一個累加器的結果併入此累加器，other 不會被修改。
+     *
+     * @param other 另一個累加器
+     */
+    public void merge(TaxLiabilityAccumulator other) {
+        for (int location = 0; location < LOCATIONS.length; location++) {
+            for (Map.Entry<String, Cell> entry : other.cells.get(location).entrySet()) {
+                Cell source = entry.getValue();
+                Cell target = cell(location, entry.getKey());
+                target.lines += source.lines;
+                target.taxableSales = target.taxableSales.add(source.taxableSales);
+                target.exemptSales = target.exemptSales.add(source.exemptSales);
+                target.tax = target.tax.add(source.tax);
+            }
+        }
+        receipts += other.receipts;
+        missingPriceLines += other.missingPriceLines;
+        unroundedTax = unroundedTax.add(other.unroundedTax);
+        collectedTax = collectedTax.add(other.collectedTax);
+    }
+
+    /**
+     * 依目前累計的結果產生報表，之後的累加不影響已產生的報表。
+     *
+     * @return 稅務報表
+     */
+    public TaxLiabilityReport toReport() {
+        List<TaxLiabilityReport.Row> rows = new ArrayList<>();
+        for (int location = 0; location < LOCATIONS.length; location++) {
+            for (Map.Entry<String, Cell> entry : cells.get(location).entrySet()) {
+                Cell cell = entry.getValue();
+                rows.add(new TaxLiabilityReport.Row(LOCATIONS[location], entry.getKey(), cell.lines,
+                        cell.taxableSales, cell.exemptSales, cell.tax));
+            }
+        }
+        return new TaxLiabilityReport(rows, receipts, missingPriceLines, unroundedTax, collectedTax);
+    }
+
+    public long getReceipts() {
+        return receipts;
+    }
+
+    private Cell cell(int location, String category) {
+        return cells.get(location).computeIfAbsent(category, key -> new Cell());
+    }
+
+    /**
+     * 單一地區與類別的累計結果。
+     */
+    private static class Cell {
+        private long lines;
+        private BigDecimal taxableSales = BigDecimal.ZERO;
+        private BigDecimal exemptSales = BigDecimal.ZERO;
+        private BigDecimal tax = BigDecimal.ZERO;
+    }
+}
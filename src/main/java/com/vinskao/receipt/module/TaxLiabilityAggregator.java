@@ -0,0 +1,145 @@
+package com.vinskao.receipt.module;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import com.vinskao.receipt.config.ConfigSnapshot;
+import com.vinskao.receipt.model.CartCaseVO;
+import com.vinskao.receipt.model.ItemVO;
+import com.vinskao.receipt.model.LineItem;
+import com.vinskao.receipt.model.LocationENUM;
+import com.vinskao.receipt.model.ProductDictionary;
+
+/**
+ * 串流讀取購物車並彙總稅務報表，不產生收據表格。
+ * <p>
+ * 讀取 case 在呼叫端執行緒進行，每 batchSize 個 case 組成一批交給 ForkJoinPool；
+ * 每個工作執行緒各自持有一個 {@link TaxLiabilityAccumulator}，累加時不需同步，全部完成後再合併。
+ * 已送出但尚未完成的批次最多 parallelism * 4 批，因此記憶體用量與 case 數無關。
+ * 整份報表使用建立時的設定快照計算，項目沒有地區時以 NA 計算，與收據相同。
+ * @author VinsKao
+ */
+public class TaxLiabilityAggregator {
+    /** 預設每批 case 數 */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private final ConfigSnapshot snapshot;
+    private final TaxCalculator taxCalculator;
+    private final int parallelism;
+    private final int batchSize;
+
+    public TaxLiabilityAggregator(ConfigSnapshot snapshot, int parallelism) {
+        this(snapshot, parallelism, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param snapshot    價格與地區設定快照
+     * @param parallelism 平行累加的執行緒數；為 1 時在呼叫端執行緒累加
+     * @param batchSize   每批 case 數
+     */
+    public TaxLiabilityAggregator(ConfigSnapshot snapshot, int parallelism, int batchSize) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism 必須大於 0: " + parallelism);
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize 必須大於 0: " + batchSize);
+        }
+        this.snapshot = snapshot;
+        this.taxCalculator = new TaxCalculator(snapshot);
+        this.parallelism = parallelism;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 讀取所有 case 並彙總為稅務報表。
+     *
+     * @param reader 購物車資料的串流讀取器，由呼叫端負責關閉
+     * @return 稅務報表
+     */
+    public TaxLiabilityReport aggregate(Iterator<CartCaseVO> reader) {
+        if (parallelism == 1) {
+            TaxLiabilityAccumulator accumulator = new TaxLiabilityAccumulator(taxCalculator);
+            while (reader.hasNext()) {
+                accumulate(accumulator, reader.next());
+            }
+            return accumulator.toReport();
+        }
+        // 每個工作執行緒第一次累加時建立自己的累加器並登記，最後逐一合併
+        List<TaxLiabilityAccumulator> accumulators = Collections.synchronizedList(new ArrayList<>());
+        ThreadLocal<TaxLiabilityAccumulator> local = ThreadLocal.withInitial(() -> {
+            TaxLiabilityAccumulator accumulator = new TaxLiabilityAccumulator(taxCalculator);
+            accumulators.add(accumulator);
+            return accumulator;
+        });
+        int window = parallelism * 4;
+        Deque<Future<?>> pending = new ArrayDeque<>(window);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            while (reader.hasNext()) {
+                List<CartCaseVO> batch = new ArrayList<>(batchSize);
+                while (batch.size() < batchSize && reader.hasNext()) {
+                    batch.add(reader.next());
+                }
+                if (pending.size() == window) {
+                    await(pending.poll());
+                }
+                pending.add(pool.submit(() -> {
+                    TaxLiabilityAccumulator accumulator = local.get();
+                    for (CartCaseVO cartCase : batch) {
+                        accumulate(accumulator, cartCase);
+                    }
+                }));
+            }
+            // 等待所有批次完成後，累加器不再被修改，可在呼叫端執行緒讀取
+            while (!pending.isEmpty()) {
+                await(pending.poll());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        TaxLiabilityAccumulator total = new TaxLiabilityAccumulator(taxCalculator);
+        synchronized (accumulators) {
+            for (TaxLiabilityAccumulator accumulator : accumulators) {
+                total.merge(accumulator);
+            }
+        }
+        return total.toReport();
+    }
+
+    private void accumulate(TaxLiabilityAccumulator accumulator, CartCaseVO cartCase) {
+        ProductDictionary products = snapshot.getProductDictionary();
+        List<LineItem> lines = new ArrayList<>(cartCase.getItems().size());
+        for (ItemVO item : cartCase.getItems().values()) {
+            lines.add(LineItem.of(item, products, LocationENUM.NA));
+        }
+        accumulator.add(lines);
+    }
+
+    /**
+     * 等待批次完成；累加過程拋出的例外原樣拋出。
+     */
+    private static void await(Future<?> batch) {
+        try {
+            batch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待稅務彙總時被中斷", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.vinskao.receipt.module;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.vinskao.receipt.config.SharedObjectMapper;
+import com.vinskao.receipt.model.LocationENUM;
+
+/**
+ * 依地區與類別彙總的稅務報表：各組合的項目數、應稅銷售額、免稅銷售額與稅額，
+ * 以及收據數、查無價格的項目數與收據進位至 0.05 的差額。建立後不可修改。
+ * <p>
+ * 各列的稅額為尚未進位的稅額，加上進位差額即為實際收取的稅金 {@link #getCollectedTax()}。
+ * 金額以 {@link BigDecimal#toPlainString()} 輸出，保留完整的小數位數。
+ * @author VinsKao
+ */
+public class TaxLiabilityReport {
+    /** CSV 中進位差額列的地區欄位 */
+    public static final String ROUNDING = "ROUNDING";
+    /** CSV 中合計列的地區欄位 */
+    public static final String TOTAL = "TOTAL";
+
+    // 依地區序號、類別名稱排序，沒有類別的列排在最前面
+    private static final Comparator<Row> ORDER = Comparator.comparing(Row::getLocation)
+            .thenComparing(Row::getCategory, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final List<Row> rows;
+    private final long receipts;
+    private final long missingPriceLines;
+    private final BigDecimal unroundedTax;
+    private final BigDecimal collectedTax;
+
+    /**
+     * @param rows              各地區與類別的彙總
+     * @param receipts          收據數
+     * @param missingPriceLines 查無價格的項目數
+     * @param unroundedTax      所有項目尚未進位的稅額總和
+     * @param collectedTax      每張收據進位至 0.05 後的稅金總和
+     */
+    public TaxLiabilityReport(List<Row> rows, long receipts, long missingPriceLines, BigDecimal unroundedTax,
+            BigDecimal collectedTax) {
+        List<Row> sorted = new ArrayList<>(rows);
+        sorted.sort(ORDER);
+        this.rows = List.copyOf(sorted);
+        this.receipts = receipts;
+        this.missingPriceLines = missingPriceLines;
+        this.unroundedTax = unroundedTax;
+        this.collectedTax = collectedTax;
+    }
+
+    public List<Row> getRows() {
+        return rows;
+    }
+
+    public long getReceipts() {
+        return receipts;
+    }
+
+    public long getMissingPriceLines() {
+        return missingPriceLines;
+    }
+
+    public long getLines() {
+        long lines = 0;
+        for (Row row : rows) {
+            lines += row.lines;
+        }
+        return lines;
+    }
+
+    public BigDecimal getTaxableSales() {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (Row row : rows) {
+            sum = sum.add(row.taxableSales);
+        }
+        return sum;
+    }
+
+    public BigDecimal getExemptSales() {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (Row row : rows) {
+            sum = sum.add(row.exemptSales);
+        }
+        return sum;
+    }
+
+    /**
+     * @return 收據進位至 0.05 所增加的稅金總和
+     */
+    public BigDecimal getRoundingAdjustment() {
+        return collectedTax.subtract(unroundedTax);
+    }
+
+    /**
+     * @return 每張收據進位至 0.05 後的稅金總和，與收據上的 tax 加總相同
+     */
+    public BigDecimal getCollectedTax() {
+        return collectedTax;
+    }
+
+    /**
+     * 以 CSV 輸出：表頭、各地區與類別一列、進位差額一列，最後為合計列。
+     * 稅額欄位由上而下加總（不含合計列）等於實際收取的稅金。
+     *
+     * @param out 輸出目標
+     * @throws IOException 寫入失敗時拋出
+     */
+    public void writeCsv(Appendable out) throws IOException {
+        out.append("location,category,lines,taxable_sales,exempt_sales,tax\n");
+        for (Row row : rows) {
+            appendCsvRow(out, row.location.name(), row.category, row.lines, row.taxableSales, row.exemptSales,
+                    row.tax);
+        }
+        appendCsvRow(out, ROUNDING, null, 0, BigDecimal.ZERO, BigDecimal.ZERO, getRoundingAdjustment());
+        appendCsvRow(out, TOTAL, null, getLines(), getTaxableSales(), getExemptSales(), collectedTax);
+    }
+
+    private static void appendCsvRow(Appendable out, String location, String category, long lines,
+            BigDecimal taxableSales, BigDecimal exemptSales, BigDecimal tax) throws IOException {
+        out.append(location).append(',');
+        if (category != null) {
+            appendCsvField(out, category);
+        }
+        out.append(',').append(Long.toString(lines))
+                .append(',').append(taxableSales.toPlainString())
+                .append(',').append(exemptSales.toPlainString())
+                .append(',').append(tax.toPlainString())
+                .append('\n');
+    }
+
+    // 含逗號、引號或換行的欄位以雙引號包住，內部的雙引號重複一次
+    private static void appendCsvField(Appendable out, String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            out.append(value);
+            return;
+        }
+        out.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    /**
+     * 以 JSON 輸出，金額以數字輸出並保留完整的小數位數。
+     *
+     * @param out 輸出目標，不會被關閉
+     * @throws IOException 寫入失敗時拋出
+     */
+    public void writeJson(Writer out) throws IOException {
+        try (JsonGenerator json = SharedObjectMapper.MAPPER.getFactory().createGenerator(out)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.useDefaultPrettyPrinter();
+            json.writeStartObject();
+            json.writeNumberField("receipts", receipts);
+            json.writeNumberField("lines", getLines());
+            json.writeNumberField("missingPriceLines", missingPriceLines);
+            writeAmount(json, "taxableSales", getTaxableSales());
+            writeAmount(json, "exemptSales", getExemptSales());
+            writeAmount(json, "unroundedTax", unroundedTax);
+            writeAmount(json, "roundingAdjustment", getRoundingAdjustment());
+            writeAmount(json, "collectedTax", collectedTax);
+            json.writeArrayFieldStart("rows");
+            for (Row row : rows) {
+                json.writeStartObject();
+                json.writeStringField("location", row.location.name());
+                json.writeStringField("category", row.category);
+                json.writeNumberField("lines", row.lines);
+                writeAmount(json, "taxableSales", row.taxableSales);
+                writeAmount(json, "exemptSales", row.exemptSales);
+                writeAmount(json, "tax", row.tax);
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+        out.write('\n');
+    }
+
+    // 以字串寫入數字，避免 Jackson 以科學記號輸出 BigDecimal
+    private static void writeAmount(JsonGenerator json, String name, BigDecimal amount) throws IOException {
+        json.writeFieldName(name);
+        json.writeNumber(amount.toPlainString());
+    }
+
+    @Override
+    public String toString() {
+        return "TaxLiabilityReport{" +
+               "receipts=" + receipts +
+               ", rows=" + rows.size() +
+               ", taxableSales=" + getTaxableSales() +
+               ", exemptSales=" + getExemptSales() +
+               ", collectedTax=" + collectedTax +
+               '}';
+    }
+
+    /**
+     * 單一地區與類別的彙總，建立後不可修改。
+     */
+    public static final class Row {
+        private final LocationENUM location;
+        private final String category;
+        private final long lines;
+        private final BigDecimal taxableSales;
+        private final BigDecimal exemptSales;
+        private final BigDecimal tax;
+
+        /**
+         * @param location     地區
+         * @param category     類別，可為 null
+         * @param lines        項目數，包含查無價格的項目
+         * @param taxableSales 應稅銷售額
+         * @param exemptSales  免稅（稅率為 0）銷售額
+         * @param tax          尚未進位的稅額
+         */
+        public Row(LocationENUM location, String category, long lines, BigDecimal taxableSales,
+                BigDecimal exemptSales, BigDecimal tax) {
+            this.location = location;
+            this.category = category;
+            this.lines = lines;
+            this.taxableSales = taxableSales;
+            this.exemptSales = exemptSales;
+            this.tax = tax;
+        }
+
+        public LocationENUM getLocation() {
+            return location;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public long getLines() {
+            return lines;
+        }
+
+        public BigDecimal getTaxableSales() {
+            return taxableSales;
+        }
+
+        public BigDecimal getExemptSales() {
+            return exemptSales;
+        }
+
+        public BigDecimal getTax() {
+            return tax;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.vinskao.receipt.pipeline;
+
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 依下游需求從 Iterator 讀取資料的 {@link Flow.Publisher}，只允許一個訂閱者。
+ * 只有在下游請求時才呼叫 {@link Iterator#next()}，因此以串流讀取器作為來源時，
+ * 下游停止請求就不會再解析新的 case。讀取在指定的執行緒上進行，不會佔用呼叫 request 的執行緒。
+ * @author VinsKao
+ */
+class IteratorPublisher<T> implements Flow.Publisher<T> {
+    private final Iterator<T> source;
+    private final Executor executor;
+    private final AtomicLong demand = new AtomicLong();
+    // 待處理的 drain 次數，為 0 時才排入新的 drain
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile boolean done;
+    private Flow.Subscriber<? super T> subscriber;
+
+    IteratorPublisher(Iterator<T> source, Executor executor) {
+        this.source = source;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        synchronized (this) {
+            if (this.subscriber != null) {
+                throw new IllegalStateException("只允許一個訂閱者");
+            }
+            this.subscriber = subscriber;
+        }
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    terminate(new IllegalArgumentException("請求數量必須大於 0: " + n));
+                    return;
+                }
+                demand.accumulateAndGet(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+                schedule();
+            }
+
+            @Override
+            public void cancel() {
+                done = true;
+            }
+        });
+    }
+
+    private void schedule() {
+        if (wip.getAndIncrement() == 0) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        int missed = 1;
+        while (true) {
+            long requested = demand.get();
+            long emitted = 0;
+            while (emitted != requested) {
+                if (done) {
+                    return;
+                }
+                T item;
+                try {
+                    if (!source.hasNext()) {
+                        done = true;
+                        subscriber.onComplete();
+                        return;
+                    }
+                    item = source.next();
+                } catch (Throwable t) {
+                    // 包含 Error：解析執行緒結束前一定要通知下游，否則等待結果的呼叫端會一直等下去
+                    terminate(t);
+                    return;
+                }
+                subscriber.onNext(item);
+                emitted++;
+            }
+            demand.addAndGet(-emitted);
+            missed = wip.addAndGet(-missed);
+            if (missed == 0) {
+                return;
+            }
+        }
+    }
+
+    private void terminate(Throwable error) {
+        if (!done) {
+            done = true;
+            subscriber.onError(error);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.vinskao.receipt.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/**
+ * 以固定數量的工作執行緒轉換資料的 {@link Flow.Processor}，輸出順序與輸入順序相同。
+ * <p>
+ * 背壓：一開始只向上游請求 bufferSize 筆，之後每送出一筆給下游才再向上游請求一筆，
+ * 因此處理中與已完成但尚未送出的資料合計不會超過 bufferSize。
+ * 下游沒有需求時資料停留在此階段，緩衝區滿後便不再向上游請求，上游也隨之停止。
+ * <p>
+ * 已完成的結果依序號放在環狀緩衝區，只有下一個序號完成時才會送出；
+ * 送出由單一執行緒負責（drain），確保 onNext 不會同時被呼叫。
+ * @author VinsKao
+ */
+class ParallelStage<I, O> implements Flow.Processor<I, O> {
+    private final Function<I, O> function;
+    private final ExecutorService workers;
+    private final int bufferSize;
+
+    // 以 this 保護的狀態
+    private final Object[] results;
+    private final boolean[] ready;
+    private Flow.Subscriber<? super O> downstream;
+    private long nextInput;
+    private long nextOutput;
+    private long demand;
+    private boolean upstreamDone;
+    private Throwable error;
+    private boolean terminated;
+    private boolean draining;
+    private boolean missed;
+
+    private volatile Flow.Subscription upstream;
+    // 只由負責 drain 的執行緒使用
+    private final List<O> pending = new ArrayList<>();
+
+    /**
+     * @param function   轉換函式，不可回傳 null
+     * @param workers    執行轉換的執行緒池，其大小即此階段的平行度
+     * @param bufferSize 此階段最多保留的資料筆數
+     */
+    ParallelStage(Function<I, O> function, ExecutorService workers, int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize 必須大於 0: " + bufferSize);
+        }
+        this.function = function;
+        this.workers = workers;
+        this.bufferSize = bufferSize;
+        this.results = new Object[bufferSize];
+        this.ready = new boolean[bufferSize];
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super O> subscriber) {
+        synchronized (this) {
+            if (downstream != null) {
+                subscriber.onSubscribe(new Flow.Subscription() {
+                    @Override
+                    public void request(long n) {
+                    }
+
+                    @Override
+                    public void cancel() {
+                    }
+                });
+                subscriber.onError(new IllegalStateException("只允許一個訂閱者"));
+                return;
+            }
+            downstream = subscriber;
+        }
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    fail(new IllegalArgumentException("請求數量必須大於 0: " + n));
+                    return;
+                }
+                synchronized (ParallelStage.this) {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                synchronized (ParallelStage.this) {
+                    terminated = true;
+                }
+                cancelUpstream();
+            }
+        });
+        drain();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        upstream = subscription;
+        subscription.request(bufferSize);
+    }
+
+    @Override
+    public void onNext(I item) {
+        long seq;
+        synchronized (this) {
+            if (terminated || error != null) {
+                return;
+            }
+            if (nextInput - nextOutput >= bufferSize) {
+                // 上游送出超過請求數量，違反背壓約定
+                error = new IllegalStateException("上游送出的資料超過請求數量");
+                seq = -1;
+            } else {
+                seq = nextInput++;
+            }
+        }
+        if (seq < 0) {
+            cancelUpstream();
+            drain();
+            return;
+        }
+        try {
+            workers.execute(() -> process(seq, item));
+        } catch (RejectedExecutionException e) {
+            fail(e);
+        }
+    }
+
+    private void process(long seq, I item) {
+        O result;
+        try {
+            result = function.apply(item);
+            if (result == null) {
+                throw new NullPointerException("轉換結果不能為 null");
+            }
+        } catch (Throwable t) {
+            fail(t);
+            return;
+        }
+        synchronized (this) {
+            int index = (int) (seq % bufferSize);
+            results[index] = result;
+            ready[index] = true;
+        }
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        fail(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        synchronized (this) {
+            upstreamDone = true;
+        }
+        drain();
+    }
+
+    private void fail(Throwable throwable) {
+        synchronized (this) {
+            if (error == null) {
+                error = throwable;
+            }
+        }
+        cancelUpstream();
+        drain();
+    }
+
+    private void cancelUpstream() {
+        Flow.Subscription subscription = upstream;
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    /**
+     * 依序送出已完成的結果。同一時間只有一個執行緒在此迴圈中；
+     * 其他執行緒呼叫時只標記 missed，由目前的執行緒再檢查一次。
+     */
+    @SuppressWarnings("unchecked")
+    private void drain() {
+        synchronized (this) {
+            if (draining) {
+                missed = true;
+                return;
+            }
+            draining = true;
+        }
+        while (true) {
+            Flow.Subscriber<? super O> target;
+            Throwable failure = null;
+            boolean complete = false;
+            synchronized (this) {
+                target = downstream;
+                if (target == null || terminated) {
+                    draining = false;
+                    return;
+                }
+                if (error != null) {
+                    terminated = true;
+                    failure = error;
+                } else {
+                    while (demand > 0 && nextOutput < nextInput && ready[(int) (nextOutput % bufferSize)]) {
+                        int index = (int) (nextOutput % bufferSize);
+                        pending.add((O) results[index]);
+                        results[index] = null;
+                        ready[index] = false;
+                        nextOutput++;
+                        demand--;
+                    }
+                    if (upstreamDone && nextOutput == nextInput) {
+                        terminated = true;
+                        complete = true;
+                    }
+                }
+                if (failure == null && pending.isEmpty() && !complete) {
+                    if (!missed) {
+                        draining = false;
+                        return;
+                    }
+                    missed = false;
+                    continue;
+                }
+                missed = false;
+            }
+            if (failure != null) {
+                target.onError(failure);
+                return;
+            }
+            int emitted = pending.size();
+            for (O result : pending) {
+                target.onNext(result);
+            }
+            pending.clear();
+            Flow.Subscription subscription = upstream;
+            if (emitted > 0 && subscription != null && !complete) {
+                subscription.request(emitted);
+            }
+            if (complete) {
+                target.onComplete();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.vinskao.receipt.pipeline;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import com.vinskao.receipt.config.ConfigSnapshot;
+import com.vinskao.receipt.metrics.PriceResolvedEvent;
+import com.vinskao.receipt.metrics.ReceiptMetrics;
+import com.vinskao.receipt.metrics.ReceiptMetrics.Stage;
+import com.vinskao.receipt.metrics.ReceiptRenderedEvent;
+import com.vinskao.receipt.model.CartCaseVO;
+import com.vinskao.receipt.model.ItemVO;
+import com.vinskao.receipt.model.LineItem;
+import com.vinskao.receipt.model.LocationENUM;
+import com.vinskao.receipt.model.ProductDictionary;
+import com.vinskao.receipt.model.ReceiptTotals;
+import com.vinskao.receipt.module.ReceiptRenderer;
+import com.vinskao.receipt.module.ReceiptSink;
+import com.vinskao.receipt.module.ShoppingCart;
+
+/**
+ * ReceiptPipeline 將收據產生拆成以 {@link java.util.concurrent.Flow} 串接的四個階段：
+ * <ol>
+ * <li>解析：依需求從串流讀取器取得下一個 case（單一執行緒，串流解析無法平行）</li>
+ * <li>計價：以設定快照的商品字典將購買項目解析為 {@link LineItem}</li>
+ * <li>計稅：以 ShoppingCart（TaxCalculator）計算小計、稅金與總金額</li>
+ * <li>輸出：產生收據文字並依 case 順序寫入 {@link ReceiptSink}</li>
+ * </ol>
+ * 每個階段的緩衝區大小固定，且只在下游請求時才向上游要資料，
+ * 因此輸出目標寫得慢時，解析也會跟著停下來，記憶體中的 case 數量有上限（約為緩衝區大小 × 3）。
+ * 計價、計稅與輸出階段的平行度可分別設定，輸出內容與 {@code ReceiptPrinter.printReceiptFrames} 相同。
+ * @author VinsKao
+ */
+public class ReceiptPipeline {
+    private static final ReceiptRenderer RENDERER = new ReceiptRenderer();
+
+    private final Supplier<ConfigSnapshot> snapshots;
+    private int priceParallelism = 1;
+    private int taxParallelism = 1;
+    private int renderParallelism = 1;
+    private int bufferSize = 64;
+    // 目前使用中的快照與對應的購物車，快照變更時整組替換
+    private volatile Binding binding;
+
+    /**
+     * 以固定的設定快照建立管線。
+     *
+     * @param snapshot 價格與地區設定快照
+     */
+    public ReceiptPipeline(ConfigSnapshot snapshot) {
+        this(() -> snapshot);
+    }
+
+    /**
+     * 以快照來源建立管線，每個 case 在計價階段取得當下生效的快照，並以該快照完成整張收據。
+     *
+     * @param snapshots 設定快照來源，例如 {@code holder::current}
+     */
+    public ReceiptPipeline(Supplier<ConfigSnapshot> snapshots) {
+        this.snapshots = snapshots;
+    }
+
+    /**
+     * 執行管線直到所有 case 都寫入輸出目標，或任一階段失敗為止。
+     *
+     * @param reader 購物車資料的串流讀取器，由呼叫端負責關閉
+     * @param sink   收據輸出目標，由呼叫端負責關閉
+     * @return 寫出的收據數
+     * @throws IOException 寫出失敗時拋出
+     */
+    public long run(Iterator<CartCaseVO> reader, ReceiptSink sink) throws IOException {
+        String lineSeparator = System.lineSeparator();
+        List<ExecutorService> pools = new ArrayList<>();
+        try {
+            ExecutorService parsePool = track(pools, Executors.newSingleThreadExecutor());
+            ParallelStage<CartCaseVO, PricedCart> price = new ParallelStage<>(
+                    this::price, track(pools, Executors.newFixedThreadPool(priceParallelism)), bufferSize);
+            ParallelStage<PricedCart, TaxedCart> tax = new ParallelStage<>(
+                    ReceiptPipeline::tax, track(pools, Executors.newFixedThreadPool(taxParallelism)), bufferSize);
+            ParallelStage<TaxedCart, String> render = new ParallelStage<>(
+                    cart -> render(cart, lineSeparator),
+                    track(pools, Executors.newFixedThreadPool(renderParallelism)), bufferSize);
+            SinkSubscriber output = new SinkSubscriber(sink);
+
+            // 由下游往上游串接，資料開始流動前所有階段都已就緒
+            render.subscribe(output);
+            tax.subscribe(render);
+            price.subscribe(tax);
+            new IteratorPublisher<>(reader, parsePool).subscribe(price);
+
+            return output.result().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待管線完成時被中斷", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            for (ExecutorService pool : pools) {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    private static ExecutorService track(List<ExecutorService> pools, ExecutorService pool) {
+        pools.add(pool);
+        return pool;
+    }
+
+    // 計價：取得當下的快照，並以其價格表解析購買項目；location 為 null 的項目以 NA 計算
+    private PricedCart price(CartCaseVO cartCase) {
+        Binding current = currentBinding();
+        long start = ReceiptMetrics.start();
+        PriceResolvedEvent event = new PriceResolvedEvent();
+        event.begin();
+        ProductDictionary products = current.snapshot.getProductDictionary();
+        List<LineItem> lines = new ArrayList<>(cartCase.getItems().size());
+        for (ItemVO item : cartCase.getItems().values()) {
+            lines.add(LineItem.of(item, products, LocationENUM.NA));
+        }
+        ReceiptMetrics.record(Stage.PRICE, start);
+        if (event.shouldCommit()) {
+            event.describe(lines);
+            event.commit();
+        }
+        return new PricedCart(cartCase.getCaseKey(), lines, products, current.shoppingCart);
+    }
+
+    // 計稅：一次走訪所有項目計算小計、稅金與總金額
+    private static TaxedCart tax(PricedCart cart) {
+        return new TaxedCart(cart, cart.shoppingCart.calLineTotals(cart.lines));
+    }
+
+    // 輸出：case 名稱、收據表格與結尾空行，與 ReceiptPrinter 的格式相同
+    private static String render(TaxedCart cart, String lineSeparator) {
+        StringBuilder receipt = new StringBuilder(1024);
+        receipt.append(cart.priced.caseKey).append(lineSeparator);
+        ReceiptRenderedEvent event = new ReceiptRenderedEvent();
+        event.begin();
+        int before = receipt.length();
+        try {
+            RENDERER.render(cart.priced.lines, cart.priced.products, cart.totals, receipt);
+        } catch (IOException e) {
+            // StringBuilder 不會拋出 IOException
+            throw new UncheckedIOException(e);
+        }
+        if (event.shouldCommit()) {
+            event.caseKey = cart.priced.caseKey;
+            event.lineCount = cart.priced.lines.size();
+            event.chars = receipt.length() - before;
+            event.commit();
+        }
+        receipt.append(lineSeparator).append(lineSeparator);
+        return receipt.toString();
+    }
+
+    private Binding currentBinding() {
+        ConfigSnapshot latest = snapshots.get();
+        Binding current = binding;
+        if (current == null || current.snapshot != latest) {
+            current = new Binding(latest, new ShoppingCart(latest));
+            binding = current;
+        }
+        return current;
+    }
+
+    public int getPriceParallelism() {
+        return priceParallelism;
+    }
+
+    public void setPriceParallelism(int priceParallelism) {
+        this.priceParallelism = requirePositive(priceParallelism, "priceParallelism");
+    }
+
+    public int getTaxParallelism() {
+        return taxParallelism;
+    }
+
+    public void setTaxParallelism(int taxParallelism) {
+        this.taxParallelism = requirePositive(taxParallelism, "taxParallelism");
+    }
+
+    public int getRenderParallelism() {
+        return renderParallelism;
+    }
+
+    public void setRenderParallelism(int renderParallelism) {
+        this.renderParallelism = requirePositive(renderParallelism, "renderParallelism");
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * 設定每個階段最多保留的 case 數。
+     *
+     * @param bufferSize 緩衝區大小，預設 64
+     */
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = requirePositive(bufferSize, "bufferSize");
+    }
+
+    private static int requirePositive(int value, String name) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + " 必須大於 0: " + value);
+        }
+        return value;
+    }
+
+    /**
+     * 設定快照與以該快照建立的購物車。
+     */
+    private static class Binding {
+        private final ConfigSnapshot snapshot;
+        private final ShoppingCart shoppingCart;
+
+        private Binding(ConfigSnapshot snapshot, ShoppingCart shoppingCart) {
+            this.snapshot = snapshot;
+            this.shoppingCart = shoppingCart;
+        }
+    }
+
+    /**
+     * 計價階段的結果：已解析的項目，以及計算與列印時要使用的商品字典與購物車。
+     */
+    private static class PricedCart {
+        private final String caseKey;
+        private final List<LineItem> lines;
+        private final ProductDictionary products;
+        private final ShoppingCart shoppingCart;
+
+        private PricedCart(String caseKey, List<LineItem> lines, ProductDictionary products,
+                ShoppingCart shoppingCart) {
+            this.caseKey = caseKey;
+            this.lines = lines;
+            this.products = products;
+            this.shoppingCart = shoppingCart;
+        }
+    }
+
+    /**
+     * 計稅階段的結果。
+     */
+    private static class TaxedCart {
+        private final PricedCart priced;
+        private final ReceiptTotals totals;
+
+        private TaxedCart(PricedCart priced, ReceiptTotals totals) {
+            this.priced = priced;
+            this.totals = totals;
+        }
+    }
+}
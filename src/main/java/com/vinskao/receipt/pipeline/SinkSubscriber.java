@@ -0,0 +1,63 @@
+package com.vinskao.receipt.pipeline;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+import com.vinskao.receipt.module.ReceiptSink;
+
+/**
+ * 管線的最後一站，將收據逐一寫入 {@link ReceiptSink}。
+ * 每寫完一張才向上游請求下一張，輸出目標寫得慢時整條管線隨之減速。
+ * 完成或失敗時透過 {@link #result()} 通知呼叫端。
+ * @author VinsKao
+ */
+class SinkSubscriber implements Flow.Subscriber<String> {
+    private final ReceiptSink sink;
+    private final CompletableFuture<Long> result = new CompletableFuture<>();
+    private Flow.Subscription subscription;
+    private long written;
+
+    SinkSubscriber(ReceiptSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * @return 完成時為寫出的收據數；失敗時以例外完成
+     */
+    CompletableFuture<Long> result() {
+        return result;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(String receipt) {
+        if (result.isDone()) {
+            return;
+        }
+        try {
+            sink.write(receipt);
+            written++;
+        } catch (IOException | RuntimeException e) {
+            subscription.cancel();
+            result.completeExceptionally(e);
+            return;
+        }
+        subscription.request(1);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        result.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        result.complete(written);
+    }
+}
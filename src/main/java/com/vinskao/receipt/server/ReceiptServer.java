@@ -0,0 +1,258 @@
+package com.vinskao.receipt.server;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.vinskao.receipt.config.SharedObjectMapper;
+import com.vinskao.receipt.model.ItemVO;
+import com.vinskao.receipt.module.ReceiptPrinter;
+
+/**
+ * ReceiptServer 以 JDK 內建的 {@link HttpServer} 提供收據計算服務。
+ * <p>
+ * {@code POST /receipt}：請求內容為單一購物車 case（與 carts.json 中每個 case 的格式相同），
+ * 預設回傳收據表格（text/plain）；加上 {@code ?format=json} 則回傳小計、稅金與總金額的 JSON。
+ * 請求內容超過大小上限時回傳 413，不會讀入整個請求。
+ * 所有請求共用同一個 {@link ReceiptPrinter}，因此也共用同一份設定快照。
+ * <p>
+ * 執行環境支援 virtual thread（Java 21 以上）時，每個請求在各自的 virtual thread 上處理；
+ * 否則使用固定大小的執行緒池。也可指定執行緒數強制使用固定執行緒池。
+ * <p>
+ * JDK 的 HttpServer 預設啟用 Nagle 演算法，回應標頭與內容分開寫出時，與 delayed ACK 一起會讓每個回應多等約 40ms；
+ * 需要低延遲時以 {@code -Dsun.net.httpserver.nodelay=true} 啟動（{@code --serve} 模式未指定時會自動設定）。
+ * @author VinsKao
+ */
+public class ReceiptServer implements Closeable {
+    /** 收據服務的路徑 */
+    public static final String RECEIPT_PATH = "/receipt";
+    /** 預設的請求內容大小上限 1 MiB */
+    public static final int DEFAULT_MAX_BODY_SIZE = 1 << 20;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ReceiptPrinter printer;
+    private final long maxBodySize;
+
+    /**
+     * 建立收據服務，尚未開始接受連線。
+     *
+     * @param printer 共用的收據印表機
+     * @param port    監聽的埠號，0 表示由系統指定
+     * @param threads 處理請求的執行緒數；0 表示優先使用 virtual thread
+     * @throws IOException 無法綁定埠號時拋出
+     */
+    public ReceiptServer(ReceiptPrinter printer, int port, int threads) throws IOException {
+        this(printer, port, threads, DEFAULT_MAX_BODY_SIZE);
+    }
+
+    /**
+     * 建立收據服務，尚未開始接受連線。
+     *
+     * @param printer     共用的收據印表機
+     * @param port        監聽的埠號，0 表示由系統指定
+     * @param threads     處理請求的執行緒數；0 表示優先使用 virtual thread
+     * @param maxBodySize 請求內容的位元組數上限
+     * @throws IOException 無法綁定埠號時拋出
+     */
+    public ReceiptServer(ReceiptPrinter printer, int port, int threads, long maxBodySize) throws IOException {
+        if (threads < 0) {
+            throw new IllegalArgumentException("threads 不可小於 0: " + threads);
+        }
+        if (maxBodySize <= 0) {
+            throw new IllegalArgumentException("maxBodySize 必須大於 0: " + maxBodySize);
+        }
+        this.printer = printer;
+        this.maxBodySize = maxBodySize;
+        this.executor = threads == 0 ? newRequestExecutor() : Executors.newFixedThreadPool(threads);
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.server.createContext(RECEIPT_PATH, this::handle);
+        this.server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * @return 實際監聽的埠號
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * 停止接受新請求，並等待處理中的請求最多一秒。
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                send(exchange, 405, "text/plain; charset=utf-8", "只接受 POST");
+                return;
+            }
+            if (contentLength(exchange) > maxBodySize) {
+                send(exchange, 413, "text/plain; charset=utf-8", "請求內容超過 " + maxBodySize + " 位元組");
+                return;
+            }
+            Map<String, ItemVO> items;
+            try (InputStream body = new LimitedInputStream(exchange.getRequestBody(), maxBodySize)) {
+                items = SharedObjectMapper.CASE_READER.readValue(body);
+            } catch (BodyTooLargeException e) {
+                send(exchange, 413, "text/plain; charset=utf-8", "請求內容超過 " + maxBodySize + " 位元組");
+                return;
+            } catch (JsonProcessingException e) {
+                send(exchange, 400, "text/plain; charset=utf-8", "購物車格式錯誤: " + e.getOriginalMessage());
+                return;
+            }
+            if (items == null) {
+                send(exchange, 400, "text/plain; charset=utf-8", "購物車不能為空");
+                return;
+            }
+            try {
+                if (wantsJson(exchange)) {
+                    send(exchange, 200, "application/json",
+                            SharedObjectMapper.MAPPER.writeValueAsString(printer.getTotals(items)));
+                } else {
+                    send(exchange, 200, "text/plain; charset=utf-8", printer.getTable(items));
+                }
+            } catch (IllegalArgumentException e) {
+                // 例如 null 項目或未設定稅率的地區
+                send(exchange, 400, "text/plain; charset=utf-8", e.getMessage());
+            }
+        } catch (RuntimeException e) {
+            System.err.println("收據請求處理失敗: " + e);
+            send(exchange, 500, "text/plain; charset=utf-8", "伺服器錯誤");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static boolean wantsJson(HttpExchange exchange) {
+        return "json".equals(queryParameter(exchange.getRequestURI().getQuery(), "format"));
+    }
+
+    /**
+     * 取得查詢字串中指定參數的值，參數重複時以第一個為準。
+     *
+     * @param query 已解碼的查詢字串，可為 null
+     * @param name  參數名稱
+     * @return 參數值；沒有此參數時為 null，只有名稱沒有值時為空字串
+     */
+    static String queryParameter(String query, String name) {
+        if (query == null) {
+            return null;
+        }
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            String key = separator < 0 ? parameter : parameter.substring(0, separator);
+            if (key.equals(name)) {
+                return separator < 0 ? "" : parameter.substring(separator + 1);
+            }
+        }
+        return null;
+    }
+
+    // 請求標頭宣告的內容長度；未宣告或格式錯誤時回傳 -1，由 LimitedInputStream 在讀取時限制
+    private static long contentLength(HttpExchange exchange) {
+        String value = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * 讀取超過上限時拋出 {@link BodyTooLargeException} 的輸入串流。
+     */
+    private static class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                consume(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                consume(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            consume(skipped);
+            return skipped;
+        }
+
+        private void consume(long n) throws BodyTooLargeException {
+            remaining -= n;
+            if (remaining < 0) {
+                throw new BodyTooLargeException();
+            }
+        }
+    }
+
+    /**
+     * 請求內容超過大小上限。
+     */
+    private static class BodyTooLargeException extends IOException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * 執行環境有 {@code Executors.newVirtualThreadPerTaskExecutor()} 時使用 virtual thread，
+     * 否則使用 CPU 核心數 4 倍的固定執行緒池。以反射呼叫，才能在 Java 17 編譯與執行。
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 4);
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package com.vinskao.receipt.bench;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.vinskao.receipt.config.SharedObjectMapper;
+import com.vinskao.receipt.model.LocationENUM;
+
+/**
+ * 產生負載與擴展性測試用的合成資料：carts.json、prices.json 與 locations.json。
+ * <p>
+ * 相同的種子與設定一定產生逐位元組相同的檔案。商品目錄（名稱、價格、類別）與購物車內容使用各自的亂數序列，
+ * 因此調整 case 數或每個 case 的項目數時，prices.json 不會改變。
+ * carts.json 以 Jackson 串流寫出，記憶體用量與 case 數無關，可產生數 GB 的檔案。
+ * <p>
+ * 每個 case 的所有項目使用同一個地區，地區依權重抽選；每個商品在目錄中有固定的類別，類別依權重分配。
+ * <p>
+ * 執行方式：
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/classes:target/test-classes:$(cat target/cp.txt) \
+ *     com.vinskao.receipt.bench.CartWorkloadGenerator --output-dir=/data/load \
+ *     --seed=42 --cases=1000000 --lines=1-20 --catalog=5000 \
+ *     --categories=misc:5,food:3,clothing:2 --locations=CA:1,NY:1
+ * </pre>
+ * 產生的檔案可直接搭配 {@code --prices}、{@code --locations}、{@code --carts} 或批次模式使用。
+ *
+ * @author VinsKao
+ */
+public class CartWorkloadGenerator {
+    public static final String CARTS_FILE = "carts.json";
+    public static final String PRICES_FILE = "prices.json";
+    public static final String LOCATIONS_FILE = "locations.json";
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int MAX_QUANTITY = 5;
+    // 價格範圍 0.25 至 199.99，以分為單位
+    private static final int MIN_CENTS = 25;
+    private static final int MAX_CENTS = 19_999;
+
+    private long seed = 42L;
+    private long cases = 1_000;
+    private int minLines = 1;
+    private int maxLines = 10;
+    private int catalogSize = 100;
+    // 權重的順序會影響抽選結果，因此使用有固定順序的 Map
+    private Map<String, Integer> categoryMix = new LinkedHashMap<>();
+    private Map<LocationENUM, Integer> locationMix = new EnumMap<>(LocationENUM.class);
+
+    public CartWorkloadGenerator() {
+        categoryMix.put("misc", 5);
+        categoryMix.put("food", 3);
+        categoryMix.put("clothing", 2);
+        locationMix.put(LocationENUM.CA, 1);
+        locationMix.put(LocationENUM.NY, 1);
+    }
+
+    public static void main(String[] args) throws IOException {
+        CartWorkloadGenerator generator = new CartWorkloadGenerator();
+        Path outputDir = Path.of(".");
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("參數格式必須為 --key=value: " + arg);
+            }
+            String key = arg.substring(2, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "output-dir":
+                    outputDir = Path.of(value);
+                    break;
+                case "seed":
+                    generator.setSeed(Long.parseLong(value));
+                    break;
+                case "cases":
+                    generator.setCases(Long.parseLong(value));
+                    break;
+                case "lines":
+                    int dash = value.indexOf('-');
+                    if (dash < 0) {
+                        generator.setLines(Integer.parseInt(value), Integer.parseInt(value));
+                    } else {
+                        generator.setLines(Integer.parseInt(value.substring(0, dash)),
+                                Integer.parseInt(value.substring(dash + 1)));
+                    }
+                    break;
+                case "catalog":
+                    generator.setCatalogSize(Integer.parseInt(value));
+                    break;
+                case "categories":
+                    generator.setCategoryMix(parseWeights(value));
+                    break;
+                case "locations":
+                    Map<LocationENUM, Integer> locations = new EnumMap<>(LocationENUM.class);
+                    parseWeights(value).forEach((name, weight) -> locations.put(LocationENUM.valueOf(name), weight));
+                    generator.setLocationMix(locations);
+                    break;
+                default:
+                    throw new IllegalArgumentException("無法辨識的參數: " + arg);
+            }
+        }
+        long start = System.nanoTime();
+        generator.generate(outputDir);
+        System.out.printf("已產生 %d 個 case 至 %s（%.1f MB，%.1f 秒）%n", generator.getCases(),
+                outputDir.toAbsolutePath(), Files.size(outputDir.resolve(CARTS_FILE)) / 1e6,
+                (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * 在指定目錄產生 carts.json、prices.json 與 locations.json。
+     *
+     * @param outputDir 輸出目錄，不存在時會建立
+     * @throws IOException 寫出失敗時拋出
+     */
+    public void generate(Path outputDir) throws IOException {
+        Files.createDirectories(outputDir);
+        try (OutputStream out = Files.newOutputStream(outputDir.resolve(PRICES_FILE))) {
+            writePrices(out);
+        }
+        try (OutputStream out = Files.newOutputStream(outputDir.resolve(LOCATIONS_FILE))) {
+            writeLocations(out);
+        }
+        try (OutputStream out = Files.newOutputStream(outputDir.resolve(CARTS_FILE))) {
+            writeCarts(out);
+        }
+    }
+
+    /**
+     * 寫出 CartDO 格式的購物車資料，每個 case 寫完即釋放，不會在記憶體中累積。
+     *
+     * @param out 輸出串流，由呼叫端負責關閉
+     * @throws IOException 寫出失敗時拋出
+     */
+    public void writeCarts(OutputStream out) throws IOException {
+        Catalog catalog = buildCatalog();
+        LocationENUM[] locations = locationMix.keySet().toArray(new LocationENUM[0]);
+        int[] locationWeights = cumulative(locationMix.values());
+        Random random = new Random(seed ^ 0x5DEECE66DL);
+        try (JsonGenerator json = openGenerator(new BufferedOutputStream(out, BUFFER_SIZE))) {
+            json.writeStartObject();
+            for (long c = 1; c <= cases; c++) {
+                json.writeObjectFieldStart("case" + c);
+                String location = locations[pick(locationWeights, random)].name();
+                int lines = minLines + random.nextInt(maxLines - minLines + 1);
+                for (int i = 1; i <= lines; i++) {
+                    int product = random.nextInt(catalogSize);
+                    json.writeObjectFieldStart("purchase" + i);
+                    json.writeStringField("productName", catalog.names[product]);
+                    json.writeNumberField("quantity", 1 + random.nextInt(MAX_QUANTITY));
+                    json.writeStringField("category", catalog.categories[product]);
+                    json.writeStringField("location", location);
+                    json.writeEndObject();
+                }
+                json.writeEndObject();
+            }
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * 寫出商品目錄中每個商品的價格。
+     *
+     * @param out 輸出串流，由呼叫端負責關閉
+     * @throws IOException 寫出失敗時拋出
+     */
+    public void writePrices(OutputStream out) throws IOException {
+        Catalog catalog = buildCatalog();
+        try (JsonGenerator json = openGenerator(out)) {
+            json.useDefaultPrettyPrinter();
+            json.writeStartObject();
+            for (int i = 0; i < catalogSize; i++) {
+                json.writeFieldName(catalog.names[i]);
+                json.writeNumber(catalog.prices[i]);
+            }
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * 寫出地區稅率設定，涵蓋地區分布中的所有地區。
+     * CA 與 NY 沿用預設 locations.json 的稅率與免稅類別，其他地區使用 5% 稅率且不免稅。
+     *
+     * @param out 輸出串流，由呼叫端負責關閉
+     * @throws IOException 寫出失敗時拋出
+     */
+    public void writeLocations(OutputStream out) throws IOException {
+        try (JsonGenerator json = openGenerator(out)) {
+            json.useDefaultPrettyPrinter();
+            json.writeStartObject();
+            json.writeObjectFieldStart("locations");
+            for (LocationENUM location : locationMix.keySet()) {
+                json.writeObjectFieldStart(location.name());
+                List<String> exempt;
+                switch (location) {
+                    case CA:
+                        json.writeNumberField("taxRate", new BigDecimal("0.0975"));
+                        exempt = List.of("food");
+                        break;
+                    case NY:
+                        json.writeNumberField("taxRate", new BigDecimal("0.08875"));
+                        exempt = List.of("food", "clothing");
+                        break;
+                    default:
+                        json.writeNumberField("taxRate", new BigDecimal("0.05"));
+                        exempt = List.of();
+                        break;
+                }
+                json.writeArrayFieldStart("exemptCategories");
+                for (String category : exempt) {
+                    json.writeString(category);
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+            json.writeEndObject();
+            json.writeEndObject();
+        }
+    }
+
+    // 商品目錄只依種子與目錄大小決定
+    private Catalog buildCatalog() {
+        String[] categories = categoryMix.keySet().toArray(new String[0]);
+        int[] categoryWeights = cumulative(categoryMix.values());
+        Random random = new Random(seed);
+        int digits = Integer.toString(catalogSize - 1).length();
+        Catalog catalog = new Catalog(catalogSize);
+        for (int i = 0; i < catalogSize; i++) {
+            StringBuilder name = new StringBuilder("product_");
+            String number = Integer.toString(i);
+            for (int pad = number.length(); pad < digits; pad++) {
+                name.append('0');
+            }
+            catalog.names[i] = name.append(number).toString();
+            catalog.prices[i] = BigDecimal.valueOf(MIN_CENTS + random.nextInt(MAX_CENTS - MIN_CENTS + 1), 2);
+            catalog.categories[i] = categories[pick(categoryWeights, random)];
+        }
+        return catalog;
+    }
+
+    private static int[] cumulative(Iterable<Integer> weights) {
+        List<Integer> list = new ArrayList<>();
+        weights.forEach(list::add);
+        int[] result = new int[list.size()];
+        int total = 0;
+        for (int i = 0; i < result.length; i++) {
+            total += list.get(i);
+            result[i] = total;
+        }
+        return result;
+    }
+
+    // 依累積權重抽選索引
+    private static int pick(int[] cumulativeWeights, Random random) {
+        int target = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int index = Arrays.binarySearch(cumulativeWeights, target + 1);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static Map<String, Integer> parseWeights(String value) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            int colon = part.indexOf(':');
+            if (colon < 0) {
+                weights.put(part.trim(), 1);
+            } else {
+                weights.put(part.substring(0, colon).trim(), Integer.parseInt(part.substring(colon + 1).trim()));
+            }
+        }
+        return weights;
+    }
+
+    // JsonGenerator 關閉時只 flush，不關閉呼叫端的串流
+    private static JsonGenerator openGenerator(OutputStream out) throws IOException {
+        return SharedObjectMapper.MAPPER.getFactory().createGenerator(out, JsonEncoding.UTF8)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    private static Map<String, Integer> requireWeights(Map<String, Integer> weights, String name) {
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException(name + " 不能為空");
+        }
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            if (entry.getValue() <= 0) {
+                throw new IllegalArgumentException(name + " 的權重必須大於 0: " + entry);
+            }
+        }
+        return weights;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public long getCases() {
+        return cases;
+    }
+
+    public void setCases(long cases) {
+        if (cases < 0) {
+            throw new IllegalArgumentException("cases 不能小於 0: " + cases);
+        }
+        this.cases = cases;
+    }
+
+    public int getMinLines() {
+        return minLines;
+    }
+
+    public int getMaxLines() {
+        return maxLines;
+    }
+
+    /**
+     * 設定每個 case 的項目數範圍，項目數在範圍內平均分布。
+     */
+    public void setLines(int minLines, int maxLines) {
+        if (minLines < 1 || maxLines < minLines) {
+            throw new IllegalArgumentException("項目數範圍不正確: " + minLines + "-" + maxLines);
+        }
+        this.minLines = minLines;
+        this.maxLines = maxLines;
+    }
+
+    public int getCatalogSize() {
+        return catalogSize;
+    }
+
+    public void setCatalogSize(int catalogSize) {
+        if (catalogSize <= 0) {
+            throw new IllegalArgumentException("catalogSize 必須大於 0: " + catalogSize);
+        }
+        this.catalogSize = catalogSize;
+    }
+
+    public Map<String, Integer> getCategoryMix() {
+        return categoryMix;
+    }
+
+    /**
+     * 設定類別與其權重，例如 misc:5、food:3、clothing:2。
+     */
+    public void setCategoryMix(Map<String, Integer> categoryMix) {
+        this.categoryMix = new LinkedHashMap<>(requireWeights(categoryMix, "categoryMix"));
+    }
+
+    public Map<LocationENUM, Integer> getLocationMix() {
+        return locationMix;
+    }
+
+    /**
+     * 設定地區與其權重，每個 case 依權重抽選一個地區。
+     */
+    public void setLocationMix(Map<LocationENUM, Integer> locationMix) {
+        Map<String, Integer> byName = new LinkedHashMap<>();
+        locationMix.forEach((location, weight) -> byName.put(location.name(), weight));
+        requireWeights(byName, "locationMix");
+        this.locationMix = new EnumMap<>(locationMix);
+    }
+
+    /**
+     * 商品目錄：名稱、價格與類別以相同索引對應。
+     */
+    private static class Catalog {
+        private final String[] names;
+        private final BigDecimal[] prices;
+        private final String[] categories;
+
+        private Catalog(int size) {
+            names = new String[size];
+            prices = new BigDecimal[size];
+            categories = new String[size];
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.vinskao.receipt.bench;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.vinskao.receipt.config.CartsConfigLoader;
+import com.vinskao.receipt.config.CartsStreamReader;
+import com.vinskao.receipt.config.ConfigSnapshot;
+import com.vinskao.receipt.model.CartCaseVO;
+import com.vinskao.receipt.model.ItemVO;
+import com.vinskao.receipt.model.LocationENUM;
+import com.vinskao.receipt.module.ReceiptPrinter;
+import com.vinskao.receipt.module.ReceiptSink;
+
+/**
+ * CartWorkloadGenerator 單元測試
+ * 測試合成資料產生器，包括：
+ * 1. 相同種子產生相同內容，不同種子產生不同內容
+ * 2. 產生的檔案符合設定的 case 數、項目數與分布，且可被串流讀取器解析
+ * 3. 產生的設定檔可直接用來產生收據
+ *
+ * @author VinsKao
+ */
+class CartWorkloadGeneratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Nested
+    class DeterminismTests {
+        /**
+         * 測試相同種子的輸出逐位元組相同，不同種子的輸出不同
+         */
+        @Test
+        void shouldBeDeterministicForSeed() throws IOException {
+            assertArrayEquals(carts(7L), carts(7L));
+            assertFalse(Arrays.equals(carts(7L), carts(8L)));
+        }
+
+        /**
+         * 測試調整 case 數不會改變商品目錄與價格
+         */
+        @Test
+        void shouldKeepCatalogIndependentOfCaseCount() throws IOException {
+            CartWorkloadGenerator small = new CartWorkloadGenerator();
+            small.setCases(10);
+            CartWorkloadGenerator large = new CartWorkloadGenerator();
+            large.setCases(10_000);
+            assertEquals(prices(small), prices(large));
+        }
+    }
+
+    @Nested
+    class ContentTests {
+        /**
+         * 測試 case 數、項目數範圍、地區分布與商品類別都符合設定
+         */
+        @Test
+        void shouldFollowConfiguredShape() throws IOException {
+            CartWorkloadGenerator generator = new CartWorkloadGenerator();
+            generator.setCases(500);
+            generator.setLines(2, 4);
+            generator.setCatalogSize(20);
+            Map<String, Integer> categories = new LinkedHashMap<>();
+            categories.put("food", 1);
+            categories.put("misc", 1);
+            generator.setCategoryMix(categories);
+            Map<LocationENUM, Integer> locations = new EnumMap<>(LocationENUM.class);
+            locations.put(LocationENUM.NY, 1);
+            generator.setLocationMix(locations);
+            generator.generate(tempDir);
+
+            Map<String, String> productCategories = new LinkedHashMap<>();
+            int count = 0;
+            try (CartsStreamReader reader = CartsConfigLoader.openStream(tempDir.resolve(CartWorkloadGenerator.CARTS_FILE))) {
+                while (reader.hasNext()) {
+                    CartCaseVO cartCase = reader.next();
+                    count++;
+                    assertEquals("case" + count, cartCase.getCaseKey());
+                    int lines = cartCase.getItems().size();
+                    assertTrue(lines >= 2 && lines <= 4, "lines=" + lines);
+                    for (ItemVO item : cartCase.getItems().values()) {
+                        assertEquals(LocationENUM.NY, item.getLocation());
+                        assertTrue(item.getQuantity() >= 1);
+                        assertTrue(categories.containsKey(item.getCategory()));
+                        // 同一商品的類別固定
+                        String previous = productCategories.putIfAbsent(item.getProductName(), item.getCategory());
+                        assertTrue(previous == null || previous.equals(item.getCategory()));
+                    }
+                }
+            }
+            assertEquals(500, count);
+            assertTrue(productCategories.size() <= 20);
+        }
+
+        /**
+         * 測試產生的價格與地區設定可以直接用來產生所有收據
+         */
+        @Test
+        void shouldDriveReceiptPrinter() throws IOException {
+            CartWorkloadGenerator generator = new CartWorkloadGenerator();
+            generator.setCases(200);
+            Map<LocationENUM, Integer> locations = new EnumMap<>(LocationENUM.class);
+            locations.put(LocationENUM.CA, 2);
+            locations.put(LocationENUM.NY, 1);
+            locations.put(LocationENUM.NA, 1);
+            generator.setLocationMix(locations);
+            generator.generate(tempDir);
+
+            ConfigSnapshot snapshot = ConfigSnapshot.load(tempDir.resolve(CartWorkloadGenerator.PRICES_FILE),
+                    tempDir.resolve(CartWorkloadGenerator.LOCATIONS_FILE));
+            assertEquals(generator.getCatalogSize(), snapshot.getPriceDO().getPrices().size());
+            int[] receipts = new int[1];
+            ReceiptSink counting = new ReceiptSink() {
+                @Override
+                public void write(CharSequence receipt) {
+                    receipts[0]++;
+                }
+
+                @Override
+                public void flush() {
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+            try (CartsStreamReader reader = CartsConfigLoader.openStream(tempDir.resolve(CartWorkloadGenerator.CARTS_FILE))) {
+                new ReceiptPrinter(snapshot).printReceiptFrames(reader, counting);
+            }
+            assertEquals(200, receipts[0]);
+        }
+
+        /**
+         * 測試不合理的設定會被拒絕
+         */
+        @Test
+        void shouldRejectInvalidSettings() {
+            CartWorkloadGenerator generator = new CartWorkloadGenerator();
+            assertThrows(IllegalArgumentException.class, () -> generator.setLines(0, 3));
+            assertThrows(IllegalArgumentException.class, () -> generator.setLines(5, 3));
+            assertThrows(IllegalArgumentException.class, () -> generator.setCatalogSize(0));
+            assertThrows(IllegalArgumentException.class, () -> generator.setCategoryMix(Map.of()));
+            assertThrows(IllegalArgumentException.class, () -> generator.setLocationMix(Map.of(LocationENUM.CA, 0)));
+        }
+    }
+
+    private static byte[] carts(long seed) throws IOException {
+        CartWorkloadGenerator generator = new CartWorkloadGenerator();
+        generator.setSeed(seed);
+        generator.setCases(100);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        generator.writeCarts(out);
+        return out.toByteArray();
+    }
+
+    private static String prices(CartWorkloadGenerator generator) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        generator.writePrices(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,141 @@
+package com.vinskao.receipt.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.vinskao.receipt.config.ConfigSnapshot;
+import com.vinskao.receipt.model.ItemVO;
+import com.vinskao.receipt.model.LocationENUM;
+import com.vinskao.receipt.module.ConcurrentShoppingCart;
+import com.vinskao.receipt.module.IncrementalShoppingCart;
+
+/**
+ * 共用購物車的競爭基準測試。
+ * 比較 {@link ConcurrentShoppingCart} 與以 synchronized 包裝的 {@link IncrementalShoppingCart}
+ * 在 1 到 64 個執行緒下的吞吐量。每個執行緒反覆修改自己的品項數量，每 10 次修改讀取一次總金額。
+ * <p>
+ * 執行方式：
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/classes:target/test-classes:$(cat target/cp.txt) \
+ *     com.vinskao.receipt.bench.ConcurrentShoppingCartBenchmark [每輪毫秒數]
+ * </pre>
+ *
+ * @author VinsKao
+ */
+public class ConcurrentShoppingCartBenchmark {
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64};
+    private static final int LINES_PER_THREAD = 16;
+    private static final int READ_EVERY = 10;
+
+    public static void main(String[] args) throws Exception {
+        long millis = args.length > 0 ? Long.parseLong(args[0]) : 2_000;
+        ConfigSnapshot snapshot = ConfigSnapshot.load();
+
+        System.out.printf("%8s %20s %20s%n", "threads", "concurrent ops/s", "synchronized ops/s");
+        for (int threads : THREADS) {
+            ConcurrentShoppingCart concurrent = new ConcurrentShoppingCart(snapshot);
+            double concurrentOps = run(threads, millis, new Target() {
+                @Override
+                public void add(String key, ItemVO item) {
+                    concurrent.add(key, item);
+                }
+
+                @Override
+                public void changeQuantity(String key, int quantity) {
+                    concurrent.changeQuantity(key, quantity);
+                }
+
+                @Override
+                public Object read() {
+                    return concurrent.getReceiptTotals();
+                }
+            });
+
+            IncrementalShoppingCart incremental = new IncrementalShoppingCart(snapshot);
+            double synchronizedOps = run(threads, millis, new Target() {
+                @Override
+                public void add(String key, ItemVO item) {
+                    synchronized (incremental) {
+                        incremental.add(key, item);
+                    }
+                }
+
+                @Override
+                public void changeQuantity(String key, int quantity) {
+                    synchronized (incremental) {
+                        incremental.changeQuantity(key, quantity);
+                    }
+                }
+
+                @Override
+                public Object read() {
+                    synchronized (incremental) {
+                        return incremental.getReceiptTotals();
+                    }
+                }
+            });
+            System.out.printf("%8d %20.0f %20.0f%n", threads, concurrentOps, synchronizedOps);
+        }
+    }
+
+    private static double run(int threads, long millis, Target target) throws Exception {
+        LongAdder operations = new LongAdder();
+        AtomicBoolean stop = new AtomicBoolean();
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            Thread worker = new Thread(() -> {
+                String[] keys = new String[LINES_PER_THREAD];
+                for (int i = 0; i < LINES_PER_THREAD; i++) {
+                    keys[i] = "t" + id + "-" + i;
+                    target.add(keys[i], new ItemVO("book", null, 1, LocationENUM.CA, "misc"));
+                }
+                ready.countDown();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long count = 0;
+                Object sink = null;
+                while (!stop.get()) {
+                    target.changeQuantity(keys[(int) (count % LINES_PER_THREAD)], (int) (count & 7) + 1);
+                    if (count % READ_EVERY == 0) {
+                        sink = target.read();
+                    }
+                    count++;
+                }
+                operations.add(count + count / READ_EVERY);
+                if (sink == null) {
+                    System.out.print("");
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        ready.await();
+        long begin = System.nanoTime();
+        start.countDown();
+        Thread.sleep(millis);
+        stop.set(true);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        return operations.sum() / seconds;
+    }
+
+    private interface Target {
+        void add(String key, ItemVO item);
+
+        void changeQuantity(String key, int quantity);
+
+        Object read();
+    }
+}
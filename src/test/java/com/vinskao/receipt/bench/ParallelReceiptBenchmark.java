@@ -0,0 +1,100 @@
+package com.vinskao.receipt.bench;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.vinskao.receipt.config.ConfigSnapshot;
+import com.vinskao.receipt.model.CartCaseVO;
+import com.vinskao.receipt.model.ItemVO;
+import com.vinskao.receipt.model.LocationENUM;
+import com.vinskao.receipt.module.ReceiptPrinter;
+import com.vinskao.receipt.module.ReceiptSink;
+
+/**
+ * 平行產生收據的吞吐量基準測試。
+ * 以 1 到 32 的平行度列印相同的一批隨機 case，輸出寫入只計算字元數的目標，量測每秒可產生的收據數。
+ * 超過 {@link Runtime#availableProcessors()} 的平行度不會再提升吞吐量，結果需以實際核心數解讀。
+ * <p>
+ * 執行方式：
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/classes:target/test-classes:$(cat target/cp.txt) \
+ *     com.vinskao.receipt.bench.ParallelReceiptBenchmark [case 數] [每個 case 的項目數]
+ * </pre>
+ *
+ * @author VinsKao
+ */
+public class ParallelReceiptBenchmark {
+    private static final int[] PARALLELISM = {1, 2, 4, 8, 16, 32};
+    private static final String[] PRODUCTS = {"book", "pencil", "shirt", "potato_chips"};
+    private static final String[] CATEGORIES = {"misc", "food", "clothing"};
+    private static final LocationENUM[] LOCATIONS = {LocationENUM.CA, LocationENUM.NY};
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        int cases = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int lines = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        ReceiptPrinter printer = new ReceiptPrinter(ConfigSnapshot.load());
+
+        // 暖機
+        printer.printReceiptFrames(generate(cases / 10, lines).iterator(), new CountingSink(), 1);
+
+        System.out.printf("cores: %d, cases: %d, lines per case: %d%n",
+                Runtime.getRuntime().availableProcessors(), cases, lines);
+        System.out.printf("%12s %16s %10s%n", "parallelism", "receipts/s", "speedup");
+        double baseline = 0;
+        for (int parallelism : PARALLELISM) {
+            double best = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                List<CartCaseVO> batch = generate(cases, lines);
+                CountingSink sink = new CountingSink();
+                long start = System.nanoTime();
+                printer.printReceiptFrames(batch.iterator(), sink, parallelism);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                best = Math.max(best, cases / seconds);
+            }
+            if (parallelism == 1) {
+                baseline = best;
+            }
+            System.out.printf("%12d %16.0f %9.2fx%n", parallelism, best, best / baseline);
+        }
+    }
+
+    private static List<CartCaseVO> generate(int cases, int lines) {
+        Random random = new Random(7L);
+        List<CartCaseVO> result = new ArrayList<>(cases);
+        for (int c = 0; c < cases; c++) {
+            Map<String, ItemVO> items = new LinkedHashMap<>();
+            for (int i = 1; i <= lines; i++) {
+                items.put("purchase" + i, new ItemVO(PRODUCTS[random.nextInt(PRODUCTS.length)], null,
+                        1 + random.nextInt(5), LOCATIONS[random.nextInt(LOCATIONS.length)],
+                        CATEGORIES[random.nextInt(CATEGORIES.length)]));
+            }
+            result.add(new CartCaseVO("case" + c, items));
+        }
+        return result;
+    }
+
+    /**
+     * 只累計字元數的輸出目標，避免 I/O 影響量測結果。
+     */
+    private static class CountingSink implements ReceiptSink {
+        private long chars;
+
+        @Override
+        public void write(CharSequence receipt) {
+            chars += receipt.length();
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.vinskao.receipt.bench;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.vinskao.receipt.config.ConfigSnapshot;
+import com.vinskao.receipt.metrics.LatencyHistogram;
+import com.vinskao.receipt.module.ReceiptPrinter;
+import com.vinskao.receipt.server.ReceiptServer;
+
+/**
+ * 收據服務的本機負載測試用戶端。
+ * 以多個執行緒各自連續送出請求（closed loop），量測吞吐量與 p50/p99/p99.9 延遲。
+ * 未指定網址時會在本機啟動一個 {@link ReceiptServer}。
+ * <p>
+ * 執行方式：
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/classes:target/test-classes:$(cat target/cp.txt) \
+ *     com.vinskao.receipt.bench.ReceiptServerLoadBenchmark [並行數] [每個執行緒的請求數] [網址] [json]
+ * </pre>
+ *
+ * @author VinsKao
+ */
+public class ReceiptServerLoadBenchmark {
+    private static final String CART = "{"
+            + "\"purchase1\": {\"productName\": \"book\", \"quantity\": 1, \"category\": \"misc\", \"location\": \"CA\"},"
+            + "\"purchase2\": {\"productName\": \"potato_chips\", \"quantity\": 1, \"category\": \"food\", \"location\": \"CA\"},"
+            + "\"purchase3\": {\"productName\": \"shirt\", \"quantity\": 2, \"category\": \"clothing\", \"location\": \"NY\"}"
+            + "}";
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        boolean json = args.length > 3 && "json".equals(args[3]);
+
+        ReceiptServer embedded = null;
+        String url;
+        if (args.length > 2 && !args[2].isEmpty()) {
+            url = args[2];
+        } else {
+            // 與 --serve 模式相同，關閉 Nagle 演算法
+            if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+                System.setProperty("sun.net.httpserver.nodelay", "true");
+            }
+            embedded = new ReceiptServer(new ReceiptPrinter(ConfigSnapshot.load()), 0, 0);
+            embedded.start();
+            url = "http://localhost:" + embedded.getPort() + ReceiptServer.RECEIPT_PATH;
+        }
+        URI uri = URI.create(url + (json ? "?format=json" : ""));
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.ofString(CART)).build();
+
+        // 暖機
+        for (int i = 0; i < 500; i++) {
+            client.send(request, HttpResponse.BodyHandlers.discarding());
+        }
+
+        LatencyHistogram latencies = new LatencyHistogram();
+        AtomicLong errors = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < concurrency; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < requests; i++) {
+                    long begin = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    latencies.record(System.nanoTime() - begin);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long total = latencies.count();
+        System.out.printf("url: %s, concurrency: %d, requests: %d, errors: %d%n", uri, concurrency, total, errors.get());
+        System.out.printf("throughput: %.0f req/s%n", total / seconds);
+        System.out.printf("latency p50: %.1f us, p99: %.1f us, p99.9: %.1f us%n",
+                latencies.percentile(50) / 1e3, latencies.percentile(99) / 1e3, latencies.percentile(99.9) / 1e3);
+        if (embedded != null) {
+            embedded.close();
+        }
+    }
+}
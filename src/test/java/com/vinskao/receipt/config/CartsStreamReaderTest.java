@@ -0,0 +1,129 @@
+package com.vinskao.receipt.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.vinskao.receipt.model.CartCaseVO;
+import com.vinskao.receipt.model.CartDO;
+import com.vinskao.receipt.model.ItemVO;
+import com.vinskao.receipt.model.LocationENUM;
+
+/**
+ * CartsStreamReader 單元測試
+ * 測試串流讀取購物車資料，包括：
+ * 1. 依檔案順序逐一產生 case
+ * 2. 與一次載入的 CartDO 內容一致
+ * 3. 格式錯誤時拋出異常
+ * 4. 從讀取完某個 case 時的位元組位置接續讀取
+ *
+ * @author VinsKao
+ */
+class CartsStreamReaderTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * 測試依檔案中的順序逐一讀取 case 與其購買項目。
+     */
+    @Test
+    void shouldReadCasesInFileOrder() throws Exception {
+        String json = "{"
+                + "\"b\": {\"purchase1\": {\"productName\": \"book\", \"quantity\": 2, \"category\": \"misc\", \"location\": \"CA\"}},"
+                + "\"a\": {\"purchase1\": {\"productName\": \"pencil\", \"quantity\": 1},"
+                + "        \"purchase2\": {\"productName\": \"shirt\", \"quantity\": 3, \"location\": \"NY\"}}"
+                + "}";
+
+        List<CartCaseVO> cases = new ArrayList<>();
+        try (CartsStreamReader reader = open(json)) {
+            reader.forEachRemaining(cases::add);
+        }
+
+        assertEquals(2, cases.size());
+        assertEquals("b", cases.get(0).getCaseKey());
+        assertEquals("a", cases.get(1).getCaseKey());
+        ItemVO book = cases.get(0).getItems().get("purchase1");
+        assertEquals("book", book.getProductName());
+        assertEquals(2, book.getQuantity());
+        assertEquals(LocationENUM.CA, book.getLocation());
+        assertEquals(List.of("purchase1", "purchase2"), new ArrayList<>(cases.get(1).getItems().keySet()));
+    }
+
+    /**
+     * 測試串流讀取類路徑中的 carts.json，結果應與一次載入的 CartDO 相同。
+     */
+    @Test
+    void shouldMatchFullyLoadedCarts() throws Exception {
+        CartDO cartDO = CartsConfigLoader.load();
+        int count = 0;
+        try (CartsStreamReader reader = CartsConfigLoader.openStream()) {
+            while (reader.hasNext()) {
+                CartCaseVO cartCase = reader.next();
+                Map<String, ItemVO> expected = cartDO.getCarts().get(cartCase.getCaseKey());
+                assertNotNull(expected);
+                assertEquals(expected.toString(), cartCase.getItems().toString());
+                count++;
+            }
+        }
+        assertEquals(cartDO.getCarts().size(), count);
+    }
+
+    /**
+     * 測試檔案最外層不是 JSON 物件時拋出異常。
+     */
+    @Test
+    void shouldRejectNonObjectRoot() {
+        assertThrows(java.io.IOException.class, () -> open("[1, 2]"));
+    }
+
+    /**
+     * 測試從每個 case 結尾的位元組位置接續讀取，得到其餘的 case，位置仍以原始檔案計算。
+     */
+    @Test
+    void shouldResumeFromByteOffset() throws Exception {
+        String json = "{\n"
+                + "  \"書本\" : {\"purchase1\": {\"productName\": \"book\", \"quantity\": 2}} ,\n"
+                + "  \"b\": {\"purchase1\": {\"productName\": \"鉛筆\", \"quantity\": 1}},\n"
+                + "  \"c\": {\"purchase1\": {\"productName\": \"shirt\", \"quantity\": 3}}\n"
+                + "}\n";
+        Path file = directory.resolve("carts.json");
+        Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+
+        List<String> keys = new ArrayList<>();
+        List<Long> offsets = new ArrayList<>();
+        try (CartsStreamReader reader = CartsConfigLoader.openStream(file)) {
+            while (reader.hasNext()) {
+                keys.add(reader.next().getCaseKey());
+                offsets.add(reader.getByteOffset());
+            }
+        }
+
+        for (int i = 0; i < offsets.size(); i++) {
+            List<String> remaining = new ArrayList<>();
+            List<Long> remainingOffsets = new ArrayList<>();
+            try (CartsStreamReader reader = CartsConfigLoader.openStream(file, offsets.get(i))) {
+                while (reader.hasNext()) {
+                    remaining.add(reader.next().getCaseKey());
+                    remainingOffsets.add(reader.getByteOffset());
+                }
+            }
+            assertEquals(keys.subList(i + 1, keys.size()), remaining);
+            assertEquals(offsets.subList(i + 1, offsets.size()), remainingOffsets);
+        }
+        assertThrows(RuntimeException.class, () -> CartsConfigLoader.openStream(file, Files.size(file) + 1));
+    }
+
+    private CartsStreamReader open(String json) throws Exception {
+        return new CartsStreamReader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,99 @@
+package com.vinskao.receipt.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.vinskao.receipt.model.LocationDO;
+import com.vinskao.receipt.model.PriceDO;
+
+/**
+ * ConfigFileWatcher 與 ConfigSnapshotHolder 單元測試
+ * 測試設定檔熱重載，包括：
+ * 1. 檔案變更後發布新快照
+ * 2. 解析失敗時保留原快照
+ * 3. 已取得的舊快照內容不受重載影響，快照的價格表不可修改
+ *
+ * @author VinsKao
+ */
+class ConfigFileWatcherTest {
+
+    private static final String LOCATIONS_JSON =
+            "{\"locations\":{\"CA\":{\"taxRate\":0.0975,\"exemptCategories\":[\"food\"]}}}";
+
+    @TempDir
+    Path dir;
+
+    /**
+     * 測試修改 prices.json 後，監看器會在背景發布新的快照，
+     * 而先前取得的快照仍維持舊價格。
+     */
+    @Test
+    void shouldPublishNewSnapshotWhenFileChanges() throws Exception {
+        Path prices = writeFile("prices.json", "{\"book\": 17.99}");
+        Path locations = writeFile("locations.json", LOCATIONS_JSON);
+        ConfigSnapshotHolder holder = new ConfigSnapshotHolder(ConfigSnapshot.load(prices, locations));
+        ConfigSnapshot before = holder.current();
+
+        try (ConfigFileWatcher watcher = new ConfigFileWatcher(prices, locations, holder)) {
+            watcher.start();
+            writeFile("prices.json", "{\"book\": 19.99}");
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (holder.current() == before && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+        }
+
+        ConfigSnapshot after = holder.current();
+        assertNotSame(before, after, "檔案變更後應發布新的快照");
+        assertTrue(after.getVersion() > before.getVersion());
+        assertEquals(new BigDecimal("19.99"), after.getPriceDO().getPrices().get("book"));
+        assertEquals(new BigDecimal("17.99"), before.getPriceDO().getPrices().get("book"),
+                "已取得的舊快照不應被修改");
+    }
+
+    /**
+     * 測試快照的價格表不可修改，建立快照後修改原本的 PriceDO 也不影響快照。
+     */
+    @Test
+    void shouldNotExposeMutablePrices() {
+        PriceDO priceDO = new PriceDO();
+        priceDO.addPrice("book", new BigDecimal("17.99"));
+        ConfigSnapshot snapshot = new ConfigSnapshot(priceDO, new LocationDO());
+
+        priceDO.addPrice("book", new BigDecimal("0.01"));
+        assertEquals(new BigDecimal("17.99"), snapshot.getPriceDO().getPrices().get("book"));
+        assertThrows(UnsupportedOperationException.class,
+                () -> snapshot.getPriceDO().getPrices().put("book", BigDecimal.ONE));
+        assertThrows(UnsupportedOperationException.class,
+                () -> snapshot.getPriceDO().addPrice("pen", BigDecimal.ONE));
+    }
+
+    /**
+     * 測試設定檔內容無法解析時，重新載入失敗並保留原本的快照。
+     */
+    @Test
+    void shouldKeepCurrentSnapshotWhenReloadFails() throws Exception {
+        Path prices = writeFile("prices.json", "{\"book\": 17.99}");
+        Path locations = writeFile("locations.json", LOCATIONS_JSON);
+        ConfigSnapshotHolder holder = new ConfigSnapshotHolder(ConfigSnapshot.load(prices, locations));
+        ConfigSnapshot before = holder.current();
+
+        try (ConfigFileWatcher watcher = new ConfigFileWatcher(prices, locations, holder)) {
+            writeFile("prices.json", "{\"book\": ");
+            assertFalse(watcher.reload());
+        }
+
+        assertSame(before, holder.current());
+    }
+
+    private Path writeFile(String name, String content) throws Exception {
+        return Files.writeString(dir.resolve(name), content);
+    }
+}
@@ -0,0 +1,274 @@
+package com.vinskao.receipt.journal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.vinskao.receipt.config.ConfigSnapshot;
+import com.vinskao.receipt.model.CartCaseVO;
+import com.vinskao.receipt.model.ItemVO;
+import com.vinskao.receipt.model.LineItem;
+import com.vinskao.receipt.model.LocationENUM;
+import com.vinskao.receipt.model.ReceiptTotals;
+import com.vinskao.receipt.module.ReceiptPrinter;
+import com.vinskao.receipt.module.ReceiptSink;
+
+/**
+ * ReceiptJournal 單元測試
+ * 測試收據日誌，包括：
+ * 1. 紀錄寫入後可依 case 名稱查詢並依序重播
+ * 2. 區段寫滿時建立新區段，重新開啟後以索引檔查詢
+ * 3. 寫到一半的紀錄在重新開啟時被捨棄，之後可繼續寫入；截斷到先前的寫入位置後從該位置繼續寫入
+ * 4. 列印收據時記錄每個 case 的計算結果
+ *
+ * @author VinsKao
+ */
+class ReceiptJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Nested
+    class AppendTests {
+        /**
+         * 測試寫入的紀錄可完整查詢與重播，同名的 case 查詢到最新一筆
+         */
+        @Test
+        void shouldLookupAndReplay() throws IOException {
+            try (ReceiptJournal journal = new ReceiptJournal(directory)) {
+                journal.append(record("case1", "1.00"));
+                journal.append(record("case2", "2.50"));
+                journal.append(record("case1", "3.00"));
+
+                JournalRecord found = journal.lookup("case1");
+                assertEquals("case1", found.getCaseKey());
+                assertEquals(new BigDecimal("3.00"), found.getSubtotal());
+                assertEquals(7L, found.getConfigVersion());
+                assertEquals(2, found.getLines().size());
+                LineItem line = found.getLines().get(1);
+                assertEquals("potato_chips", line.getProductName());
+                assertEquals(LocationENUM.NY, line.getLocation());
+                assertEquals("food", line.getCategory());
+                assertNull(line.getUnitPrice());
+                assertNull(journal.lookup("case3"));
+
+                List<String> keys = new ArrayList<>();
+                assertEquals(3, journal.replay(record -> keys.add(record.getCaseKey())));
+                assertEquals(List.of("case1", "case2", "case1"), keys);
+            }
+        }
+
+        /**
+         * 測試寫滿區段時建立新區段，重新開啟後仍可查詢與依序重播
+         */
+        @Test
+        void shouldRollOverSegments() throws IOException {
+            try (ReceiptJournal journal = new ReceiptJournal(directory, 1024)) {
+                for (int i = 0; i < 200; i++) {
+                    journal.append(record("case" + i, i + ".00"));
+                }
+                assertTrue(journal.getSegmentCount() > 5);
+                assertEquals(new BigDecimal("3.00"), journal.lookup("case3").getSubtotal());
+            }
+            try (ReceiptJournal journal = new ReceiptJournal(directory, 1024)) {
+                for (int i = 0; i < 200; i++) {
+                    assertEquals(new BigDecimal(i + ".00"), journal.lookup("case" + i).getSubtotal(), "case" + i);
+                }
+                List<String> keys = new ArrayList<>();
+                journal.replay(record -> keys.add(record.getCaseKey()));
+                assertEquals(200, keys.size());
+                assertEquals("case199", keys.get(199));
+            }
+        }
+
+        /**
+         * 測試封存區段的索引檔遺失時重新建立
+         */
+        @Test
+        void shouldRebuildMissingIndex() throws IOException {
+            try (ReceiptJournal journal = new ReceiptJournal(directory, 1024)) {
+                for (int i = 0; i < 50; i++) {
+                    journal.append(record("case" + i, "1.00"));
+                }
+            }
+            Files.delete(directory.resolve(String.format("%020d", 0) + JournalSegment.INDEX_SUFFIX));
+            try (ReceiptJournal journal = new ReceiptJournal(directory, 1024)) {
+                assertEquals("case0", journal.lookup("case0").getCaseKey());
+            }
+        }
+
+        /**
+         * 測試大於區段大小的紀錄被拒絕
+         */
+        @Test
+        void shouldRejectOversizedRecord() throws IOException {
+            try (ReceiptJournal journal = new ReceiptJournal(directory, 1024)) {
+                assertThrows(IllegalArgumentException.class, () -> journal.append(record("x".repeat(2000), "1.00")));
+            }
+        }
+    }
+
+    @Nested
+    class RecoveryTests {
+        /**
+         * 測試寫到一半的紀錄在重新開啟時被捨棄，之後寫入的紀錄可正常讀取
+         */
+        @Test
+        void shouldDiscardTornTail() throws IOException {
+            int end;
+            try (ReceiptJournal journal = new ReceiptJournal(directory)) {
+                journal.append(record("case1", "1.00"));
+                journal.append(record("case2", "2.00"));
+            }
+            Path segment = JournalSegment.fileOf(directory, 0);
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                end = findEnd(channel);
+                // 模擬寫入長度後、內容寫完前中止：長度與部分內容存在，校驗碼不符
+                ByteBuffer torn = ByteBuffer.allocate(20);
+                torn.putInt(100).putInt(12345).putLong(7L).putInt(5);
+                torn.flip();
+                channel.write(torn, end);
+            }
+
+            try (ReceiptJournal journal = new ReceiptJournal(directory)) {
+                assertEquals(20, journal.getDiscardedBytes());
+                assertEquals(2, journal.replay(record -> { }));
+                journal.append(record("case3", "3.00"));
+            }
+            try (ReceiptJournal journal = new ReceiptJournal(directory)) {
+                assertEquals(0, journal.getDiscardedBytes());
+                List<String> keys = new ArrayList<>();
+                journal.replay(record -> keys.add(record.getCaseKey()));
+                assertEquals(List.of("case1", "case2", "case3"), keys);
+            }
+        }
+
+        /**
+         * 測試截斷到先前記錄的寫入位置，之後的紀錄與區段被捨棄，重新開啟後仍可查詢與寫入
+         */
+        @Test
+        void shouldTruncateToRecordedPosition() throws IOException {
+            long segment;
+            int offset;
+            try (ReceiptJournal journal = new ReceiptJournal(directory, 1024)) {
+                for (int i = 0; i < 30; i++) {
+                    journal.append(record("case" + i, "1.00"));
+                }
+                segment = journal.getActiveSegment();
+                offset = journal.getActiveOffset();
+                for (int i = 30; i < 100; i++) {
+                    journal.append(record("case" + i, "1.00"));
+                }
+                assertTrue(journal.getActiveSegment() > segment);
+                assertThrows(IOException.class, () -> journal.truncate(segment, offset + 1));
+
+                journal.truncate(segment, offset);
+                assertEquals(segment, journal.getActiveSegment());
+                assertEquals(offset, journal.getActiveOffset());
+                assertNull(journal.lookup("case30"));
+                journal.append(record("case30", "2.00"));
+            }
+            try (ReceiptJournal journal = new ReceiptJournal(directory, 1024)) {
+                List<String> keys = new ArrayList<>();
+                journal.replay(record -> keys.add(record.getCaseKey()));
+                assertEquals(31, keys.size());
+                assertEquals("case30", keys.get(30));
+                assertEquals(new BigDecimal("2.00"), journal.lookup("case30").getSubtotal());
+                assertEquals("case0", journal.lookup("case0").getCaseKey());
+                assertThrows(IOException.class, () -> journal.truncate(segment + 100, JournalSegment.HEADER_SIZE));
+            }
+        }
+
+        /**
+         * 測試非日誌檔案被拒絕
+         */
+        @Test
+        void shouldRejectForeignFile() throws IOException {
+            Files.write(JournalSegment.fileOf(directory, 0), new byte[64]);
+            assertThrows(IOException.class, () -> new ReceiptJournal(directory));
+        }
+    }
+
+    @Nested
+    class PrinterTests {
+        /**
+         * 測試列印收據時每個 case 都記錄一筆，金額與收據相同
+         */
+        @Test
+        void shouldJournalPrintedReceipts() throws IOException {
+            ReceiptPrinter printer = new ReceiptPrinter(ConfigSnapshot.getDefault());
+            List<CartCaseVO> cases = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                Map<String, ItemVO> items = new LinkedHashMap<>();
+                items.put("purchase1", new ItemVO("book", null, 1 + i, LocationENUM.CA, "misc"));
+                items.put("purchase2", new ItemVO("potato_chips", null, 2, LocationENUM.NY, "food"));
+                cases.add(new CartCaseVO("case" + i, items));
+            }
+            try (ReceiptJournal journal = new ReceiptJournal(directory)) {
+                printer.setJournal(journal);
+                printer.printReceiptFrames(cases.iterator(), new DiscardingSink(), 4);
+
+                assertEquals(20, journal.replay(record -> { }));
+                for (CartCaseVO cartCase : cases) {
+                    JournalRecord record = journal.lookup(cartCase.getCaseKey());
+                    ReceiptTotals totals = printer.getTotals(cartCase.getItems());
+                    assertEquals(totals.getTotal(), record.getTotal());
+                    assertEquals(totals.getTax(), record.getTax());
+                    assertEquals(ConfigSnapshot.getDefault().getVersion(), record.getConfigVersion());
+                    assertEquals(LocationENUM.NY, record.getLines().get(1).getLocation());
+                }
+            }
+        }
+    }
+
+    private static JournalRecord record(String caseKey, String subtotal) {
+        List<LineItem> lines = List.of(
+                new LineItem("book", 1, LocationENUM.CA, "misc", new BigDecimal(subtotal)),
+                new LineItem("potato_chips", 2, LocationENUM.NY, "food", null));
+        BigDecimal amount = new BigDecimal(subtotal);
+        return new JournalRecord(caseKey, 7L, lines, new ReceiptTotals(2, amount, BigDecimal.ZERO, amount));
+    }
+
+    // 依紀錄長度跳過所有完整的紀錄，回傳第一個長度為 0 的位置
+    private static int findEnd(FileChannel channel) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(4);
+        int position = JournalSegment.HEADER_SIZE;
+        while (true) {
+            length.clear();
+            channel.read(length, position);
+            int value = length.getInt(0);
+            if (value == 0) {
+                return position;
+            }
+            position += JournalSegment.RECORD_HEADER_SIZE + value;
+        }
+    }
+
+    private static class DiscardingSink implements ReceiptSink {
+        @Override
+        public void write(CharSequence receipt) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.vinskao.receipt.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * LatencyHistogram 單元測試
+ * 測試延遲直方圖，包括：
+ * 1. 桶索引與中點的換算
+ * 2. 百分位數的相對誤差
+ * 3. 合併與清除
+ *
+ * @author VinsKao
+ */
+class LatencyHistogramTest {
+
+    /**
+     * 測試每個值都落在其所屬桶的範圍內，且中點的相對誤差不超過 1/32
+     */
+    @Test
+    void shouldMapValuesToBuckets() {
+        Random random = new Random(1L);
+        for (int i = 0; i < 100_000; i++) {
+            long value = (random.nextLong() >>> 1) >>> random.nextInt(63);
+            long midpoint = LatencyHistogram.midpointOf(LatencyHistogram.indexOf(value));
+            assertTrue(Math.abs(midpoint - value) <= Math.max(1, value / 32), value + " -> " + midpoint);
+        }
+        assertEquals(63, LatencyHistogram.midpointOf(LatencyHistogram.indexOf(63)));
+        LatencyHistogram.midpointOf(LatencyHistogram.indexOf(Long.MAX_VALUE));
+    }
+
+    /**
+     * 測試百分位數與排序後的實際值接近
+     */
+    @Test
+    void shouldEstimatePercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(2L);
+        long[] values = new long[10_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1_000 + (long) (random.nextDouble() * 1_000_000);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        assertEquals(values.length, histogram.count());
+        for (double p : new double[] {50, 99}) {
+            long expected = values[(int) Math.ceil(p / 100 * values.length) - 1];
+            long actual = histogram.percentile(p);
+            assertTrue(Math.abs(actual - expected) <= expected / 32, p + ": " + expected + " vs " + actual);
+        }
+        assertEquals(0, new LatencyHistogram().percentile(99));
+    }
+
+    /**
+     * 測試合併與清除
+     */
+    @Test
+    void shouldAddAndReset() {
+        LatencyHistogram a = new LatencyHistogram();
+        LatencyHistogram b = new LatencyHistogram();
+        a.record(10);
+        b.record(20);
+        b.record(-5);
+
+        a.add(b);
+        assertEquals(3, a.count());
+        assertEquals(0, a.percentile(0));
+        assertEquals(20, a.percentile(100));
+
+        a.reset();
+        assertEquals(0, a.count());
+    }
+}
@@ -0,0 +1,132 @@
+package com.vinskao.receipt.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.vinskao.receipt.config.CartsStreamReader;
+import com.vinskao.receipt.config.ConfigSnapshot;
+import com.vinskao.receipt.module.ReceiptPrinter;
+import com.vinskao.receipt.module.ReceiptSink;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * 收據 JFR 事件單元測試
+ * 測試各階段的 JFR 事件，包括：
+ * 1. 啟用後產生收據會記錄解析、計價、計稅與輸出事件及其欄位
+ * 2. 未啟用時不記錄任何收據事件
+ *
+ * @author VinsKao
+ */
+class ReceiptEventsTest {
+
+    private static final String CARTS = "{\"case1\": {"
+            + "\"purchase1\": {\"productName\": \"book\", \"quantity\": 1, \"category\": \"misc\", \"location\": \"CA\"},"
+            + "\"purchase2\": {\"productName\": \"unknown_item\", \"quantity\": 2, \"category\": \"food\", \"location\": \"NY\"}"
+            + "}}";
+
+    @TempDir
+    Path tempDir;
+
+    @Nested
+    class EnabledTests {
+        /**
+         * 測試啟用後四種事件都會記錄，且欄位內容正確
+         */
+        @Test
+        void shouldRecordStageEvents() throws IOException {
+            List<RecordedEvent> events = record(true);
+
+            RecordedEvent parsed = single(events, "com.vinskao.receipt.CartParsed");
+            assertEquals("case1", parsed.getString("caseKey"));
+            assertEquals(2, parsed.getInt("lineCount"));
+            assertTrue(parsed.getLong("byteOffset") > 0);
+
+            RecordedEvent priced = single(events, "com.vinskao.receipt.PriceResolved");
+            assertEquals(2, priced.getInt("lineCount"));
+            assertEquals(1, priced.getInt("missingPrices"));
+
+            RecordedEvent taxed = single(events, "com.vinskao.receipt.TaxComputed");
+            assertEquals("CA,NY", taxed.getString("location"));
+            assertEquals("misc,food", taxed.getString("category"));
+            assertEquals(2, taxed.getInt("lineCount"));
+            assertEquals("1.80", taxed.getString("tax"));
+
+            RecordedEvent rendered = single(events, "com.vinskao.receipt.ReceiptRendered");
+            assertEquals("case1", rendered.getString("caseKey"));
+            assertEquals(2, rendered.getInt("lineCount"));
+            assertTrue(rendered.getInt("chars") > 0);
+        }
+    }
+
+    @Nested
+    class DisabledTests {
+        /**
+         * 測試事件預設關閉，未啟用時不會被記錄
+         */
+        @Test
+        void shouldBeDisabledByDefault() throws IOException {
+            List<RecordedEvent> events = record(false);
+            assertTrue(events.stream().noneMatch(e -> e.getEventType().getName().startsWith("com.vinskao.receipt.")));
+        }
+    }
+
+    private List<RecordedEvent> record(boolean enable) throws IOException {
+        Path file = tempDir.resolve("receipt.jfr");
+        try (Recording recording = new Recording()) {
+            if (enable) {
+                recording.enable(CartParsedEvent.class);
+                recording.enable(PriceResolvedEvent.class);
+                recording.enable(TaxComputedEvent.class);
+                recording.enable(ReceiptRenderedEvent.class);
+            }
+            recording.start();
+            ReceiptPrinter printer = new ReceiptPrinter(ConfigSnapshot.getDefault());
+            try (CartsStreamReader reader = new CartsStreamReader(
+                    new ByteArrayInputStream(CARTS.getBytes(StandardCharsets.UTF_8)))) {
+                printer.printReceiptFrames(reader, new DiscardingSink());
+            }
+            recording.stop();
+            recording.dump(file);
+        }
+        // 只保留本執行緒的事件，排除其他執行緒在錄製期間產生的事件
+        String thread = Thread.currentThread().getName();
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(e -> e.getThread() != null && thread.equals(e.getThread().getJavaName()))
+                .collect(Collectors.toList());
+    }
+
+    private static RecordedEvent single(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> matches = events.stream()
+                .filter(e -> e.getEventType().getName().equals(name))
+                .collect(Collectors.toList());
+        assertEquals(1, matches.size(), name);
+        return matches.get(0);
+    }
+
+    private static class DiscardingSink implements ReceiptSink {
+        @Override
+        public void write(CharSequence receipt) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.vinskao.receipt.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.management.Attribute;
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.vinskao.receipt.config.ConfigSnapshot;
+import com.vinskao.receipt.config.PricesConfigLoader;
+import com.vinskao.receipt.metrics.ReceiptMetrics.Stage;
+import com.vinskao.receipt.model.ItemVO;
+import com.vinskao.receipt.model.LocationENUM;
+import com.vinskao.receipt.module.ReceiptPrinter;
+
+/**
+ * ReceiptMetrics 單元測試
+ * 測試各階段延遲與計數器，包括：
+ * 1. 產生收據時記錄計價、計稅、輸出階段與輸出字元數
+ * 2. 查無價格與未知地區的計數
+ * 3. 關閉後不再記錄
+ * 4. 透過 JMX 讀取與重置
+ *
+ * @author VinsKao
+ */
+class ReceiptMetricsTest {
+
+    private final ReceiptPrinter printer = new ReceiptPrinter(ConfigSnapshot.getDefault());
+
+    @BeforeEach
+    void setUp() {
+        ReceiptMetrics.enable(true);
+        ReceiptMetrics.resetAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReceiptMetrics.enable(true);
+        ReceiptMetrics.resetAll();
+    }
+
+    @Nested
+    class RecordingTests {
+        /**
+         * 測試產生一張收據會記錄各階段延遲，輸出字元數與表格長度相同
+         */
+        @Test
+        void shouldRecordStagesForReceipt() {
+            String table = printer.getTable(cart("book", LocationENUM.CA));
+            assertEquals(1, ReceiptMetrics.latency(Stage.PRICE).count());
+            assertEquals(1, ReceiptMetrics.latency(Stage.TAX).count());
+            assertEquals(1, ReceiptMetrics.latency(Stage.RENDER).count());
+            assertEquals(table.length(), instance().getRenderedChars());
+        }
+
+        /**
+         * 測試載入設定檔會記錄 CONFIG_LOAD 階段
+         */
+        @Test
+        void shouldRecordConfigLoad() {
+            PricesConfigLoader.load();
+            assertEquals(1, ReceiptMetrics.latency(Stage.CONFIG_LOAD).count());
+        }
+
+        /**
+         * 測試查無價格與未知地區分別計數
+         */
+        @Test
+        void shouldCountMissingPricesAndUnknownLocations() {
+            printer.getTable(cart("unknown_item", LocationENUM.CA));
+            assertEquals(1, instance().getMissingPrices());
+
+            assertThrows(IllegalArgumentException.class, () -> printer.getTable(cart("book", LocationENUM.NA)));
+            assertEquals(1, instance().getUnknownLocations());
+        }
+
+        /**
+         * 測試關閉後不記錄延遲與計數
+         */
+        @Test
+        void shouldNotRecordWhenDisabled() {
+            ReceiptMetrics.enable(false);
+            printer.getTable(cart("unknown_item", LocationENUM.CA));
+            for (Stage stage : Stage.values()) {
+                assertEquals(0, ReceiptMetrics.latency(stage).count(), stage.name());
+            }
+            assertEquals(0, instance().getMissingPrices());
+            assertEquals(0, instance().getRenderedChars());
+        }
+    }
+
+    @Nested
+    class JmxTests {
+        /**
+         * 測試 MBean 註冊後可讀取屬性、切換開關並重置
+         */
+        @Test
+        void shouldExposeMetricsThroughJmx() throws Exception {
+            ReceiptMetrics.registerMBeans();
+            // 重複註冊不會失敗
+            ReceiptMetrics.registerMBeans();
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName counters = new ObjectName(ReceiptMetrics.DOMAIN + ":type=ReceiptMetrics");
+            ObjectName render = new ObjectName(ReceiptMetrics.DOMAIN + ":type=StageLatency,name=render");
+
+            printer.getTable(cart("book", LocationENUM.CA));
+            assertEquals(1L, server.getAttribute(render, "Count"));
+            assertTrue((Double) server.getAttribute(render, "P99Micros") > 0);
+            assertTrue((Long) server.getAttribute(counters, "RenderedChars") > 0);
+
+            server.invoke(counters, "reset", null, null);
+            assertEquals(0L, server.getAttribute(render, "Count"));
+
+            server.setAttribute(counters, new Attribute("Enabled", false));
+            assertFalse(ReceiptMetrics.enabled());
+        }
+    }
+
+    private static ReceiptMetricsMBean instance() {
+        return JMX.newMBeanProxy(ManagementFactory.getPlatformMBeanServer(),
+                objectName(), ReceiptMetricsMBean.class);
+    }
+
+    private static ObjectName objectName() {
+        ReceiptMetrics.registerMBeans();
+        try {
+            return new ObjectName(ReceiptMetrics.DOMAIN + ":type=ReceiptMetrics");
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Map<String, ItemVO> cart(String product, LocationENUM location) {
+        Map<String, ItemVO> items = new LinkedHashMap<>();
+        items.put("purchase1", new ItemVO(product, null, 1, location, "misc"));
+        return items;
+    }
+}
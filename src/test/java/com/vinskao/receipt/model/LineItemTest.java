@@ -0,0 +1,64 @@
+package com.vinskao.receipt.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * LineItem 單元測試
+ * 測試由 ItemVO 解析購買項目，包括：
+ * 1. ItemVO 的價格優先，否則使用價格表
+ * 2. 沒有地區時使用預設地區
+ * 3. 解析過程不修改 ItemVO
+ *
+ * @author VinsKao
+ */
+class LineItemTest {
+
+    private final Map<String, BigDecimal> prices = Map.of("book", new BigDecimal("17.99"));
+
+    /**
+     * 測試價格解析的優先順序與查無價格的情況
+     */
+    @Test
+    void shouldResolvePrice() {
+        LineItem fromTable = LineItem.of(new ItemVO("book", null, 2, LocationENUM.CA, "misc"), prices);
+        assertEquals(new BigDecimal("17.99"), fromTable.getUnitPrice());
+        assertEquals(new BigDecimal("35.98"), fromTable.getLineTotal());
+
+        LineItem fromItem = LineItem.of(new ItemVO("book", new BigDecimal("10"), 3, LocationENUM.CA, "misc"), prices);
+        assertEquals(new BigDecimal("10"), fromItem.getUnitPrice());
+        assertEquals(new BigDecimal("30"), fromItem.getLineTotal());
+
+        LineItem missing = LineItem.of(new ItemVO("pen", null, 1, LocationENUM.CA, "misc"), prices);
+        assertFalse(missing.hasPrice());
+        assertNull(missing.getLineTotal());
+    }
+
+    /**
+     * 測試沒有地區時使用預設地區，且不修改原本的 ItemVO
+     */
+    @Test
+    void shouldResolveLocationWithoutMutatingItem() {
+        ItemVO item = new ItemVO("book", null, 1, null, "misc");
+
+        LineItem line = LineItem.of(item, prices, LocationENUM.NA);
+
+        assertEquals(LocationENUM.NA, line.getLocation());
+        assertEquals("misc", line.getCategory());
+        assertNull(item.getLocation(), "解析不應修改 ItemVO 的地區");
+        assertNull(item.getPrice(), "解析不應修改 ItemVO 的價格");
+        assertNull(LineItem.of(item, prices).getLocation());
+    }
+
+    /**
+     * 測試 null 項目拋出異常
+     */
+    @Test
+    void shouldRejectNullItem() {
+        assertThrows(IllegalArgumentException.class, () -> LineItem.of(null, prices));
+    }
+}
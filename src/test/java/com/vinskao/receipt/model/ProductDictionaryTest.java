@@ -0,0 +1,183 @@
+package com.vinskao.receipt.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * ProductDictionary 單元測試
+ * 測試商品字典的編譯與查詢，包括：
+ * 1. 每個商品對應到 0 到 n-1 之間不重複的 ID，不在價格表中的名稱查無 ID
+ * 2. 價格保留原本的數值與小數位數，無法以 long 表示的價格也能查詢
+ * 3. 以商品字典解析的 LineItem 與以價格表解析的結果相同
+ * 4. 以 Map 檢視查詢的結果與原本的價格表相同
+ *
+ * @author VinsKao
+ */
+class ProductDictionaryTest {
+
+    @Nested
+    class LookupTests {
+        /**
+         * 測試大型價格表的每個商品都對應到不重複的連續 ID
+         */
+        @Test
+        void shouldBuildMinimalPerfectHash() {
+            Random random = new Random(42L);
+            Map<String, BigDecimal> prices = new HashMap<>();
+            while (prices.size() < 200_000) {
+                prices.put("sku_" + Long.toHexString(random.nextLong()), BigDecimal.valueOf(random.nextInt(100_000), 2));
+            }
+            ProductDictionary dictionary = ProductDictionary.compile(prices);
+
+            assertEquals(prices.size(), dictionary.size());
+            BitSet ids = new BitSet();
+            for (Map.Entry<String, BigDecimal> entry : prices.entrySet()) {
+                int id = dictionary.idOf(entry.getKey());
+                assertTrue(id >= 0 && id < prices.size(), entry.getKey());
+                assertFalse(ids.get(id), entry.getKey());
+                ids.set(id);
+                assertEquals(entry.getKey(), dictionary.nameOf(id));
+                assertEquals(entry.getValue(), dictionary.priceOf(id));
+            }
+            assertEquals(prices.size(), ids.cardinality());
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(ProductDictionary.NO_PRODUCT, dictionary.idOf("unknown_" + i));
+            }
+        }
+
+        /**
+         * 測試空的價格表、null 名稱與價格為 null 的商品
+         */
+        @Test
+        void shouldHandleEmptyAndMissing() {
+            ProductDictionary empty = ProductDictionary.compile(new HashMap<>());
+            assertEquals(0, empty.size());
+            assertEquals(ProductDictionary.NO_PRODUCT, empty.idOf("book"));
+
+            Map<String, BigDecimal> prices = new HashMap<>();
+            prices.put("book", new BigDecimal("12.49"));
+            prices.put("unpriced", null);
+            ProductDictionary dictionary = ProductDictionary.compile(prices);
+            assertEquals(ProductDictionary.NO_PRODUCT, dictionary.idOf(null));
+            int unpriced = dictionary.idOf("unpriced");
+            assertNotEquals(ProductDictionary.NO_PRODUCT, unpriced);
+            assertNull(dictionary.priceOf(unpriced));
+            assertNull(dictionary.lineTotalOf(unpriced, 2));
+            assertNull(dictionary.priceOf(ProductDictionary.NO_PRODUCT));
+            assertNull(dictionary.lineTotalOf(ProductDictionary.NO_PRODUCT, 2));
+        }
+    }
+
+    @Nested
+    class PriceTests {
+        /**
+         * 測試價格與金額保留原本的小數位數，超出 long 範圍的價格與乘積改以 BigDecimal 計算
+         */
+        @Test
+        void shouldPreservePrices() {
+            Map<String, BigDecimal> prices = new LinkedHashMap<>();
+            prices.put("integer", new BigDecimal("20"));
+            prices.put("cents", new BigDecimal("0.99"));
+            prices.put("precise", new BigDecimal("1.23456789"));
+            prices.put("scientific", new BigDecimal("1E+3"));
+            prices.put("huge", new BigDecimal("123456789012345678901234567890.12"));
+            prices.put("large", BigDecimal.valueOf(Long.MAX_VALUE / 2, 2));
+            ProductDictionary dictionary = ProductDictionary.compile(prices);
+
+            for (Map.Entry<String, BigDecimal> entry : prices.entrySet()) {
+                int id = dictionary.idOf(entry.getKey());
+                BigDecimal price = dictionary.priceOf(id);
+                assertEquals(entry.getValue(), price, entry.getKey());
+                assertSame(price, dictionary.priceOf(id), entry.getKey());
+                for (int quantity : new int[] {0, 1, 7, Integer.MAX_VALUE}) {
+                    assertEquals(entry.getValue().multiply(BigDecimal.valueOf(quantity)),
+                            dictionary.lineTotalOf(id, quantity), entry.getKey() + " x " + quantity);
+                }
+            }
+        }
+
+        /**
+         * 測試以分查詢的價格與 BigDecimal 換算的結果相同，無法精確表示或查無價格時回傳對應的值
+         */
+        @Test
+        void shouldConvertPricesToCents() {
+            Map<String, BigDecimal> prices = new LinkedHashMap<>();
+            prices.put("cents", new BigDecimal("0.99"));
+            prices.put("trailingZeros", new BigDecimal("1.5000"));
+            prices.put("scientific", new BigDecimal("1E+3"));
+            prices.put("zero", new BigDecimal("0.000"));
+            prices.put("fraction", new BigDecimal("0.995"));
+            prices.put("negative", new BigDecimal("-1.00"));
+            prices.put("tooLarge", BigDecimal.valueOf(Long.MAX_VALUE));
+            prices.put("huge", new BigDecimal("123456789012345678901234567890.12"));
+            prices.put("unpriced", null);
+            ProductDictionary dictionary = ProductDictionary.compile(prices);
+
+            assertEquals(99L, dictionary.centsOf(dictionary.idOf("cents")));
+            assertEquals(150L, dictionary.centsOf(dictionary.idOf("trailingZeros")));
+            assertEquals(100_000L, dictionary.centsOf(dictionary.idOf("scientific")));
+            assertEquals(0L, dictionary.centsOf(dictionary.idOf("zero")));
+            for (String name : new String[] {"fraction", "negative", "tooLarge", "huge"}) {
+                assertEquals(ProductDictionary.CENTS_NOT_REPRESENTABLE, dictionary.centsOf(dictionary.idOf(name)), name);
+            }
+            assertEquals(ProductDictionary.NO_PRICE_CENTS, dictionary.centsOf(dictionary.idOf("unpriced")));
+            assertEquals(ProductDictionary.NO_PRICE_CENTS, dictionary.centsOf(ProductDictionary.NO_PRODUCT));
+        }
+
+        /**
+         * 測試以商品字典解析的 LineItem 與以價格表解析的結果相同，並記錄商品 ID
+         */
+        @Test
+        void shouldResolveLineItems() {
+            Map<String, BigDecimal> prices = Map.of("book", new BigDecimal("17.99"), "pencil", new BigDecimal("2.99"));
+            ProductDictionary dictionary = ProductDictionary.compile(prices);
+            ItemVO[] items = {
+                new ItemVO("book", null, 3, LocationENUM.CA, "misc"),
+                new ItemVO("pencil", new BigDecimal("1.50"), 2, null, "office"),
+                new ItemVO("pen", null, 1, LocationENUM.NY, null)
+            };
+            for (ItemVO item : items) {
+                LineItem expected = LineItem.of(item, prices, LocationENUM.NA);
+                LineItem line = LineItem.of(item, dictionary, LocationENUM.NA);
+                assertEquals(expected.toString(), line.toString());
+                assertEquals(expected.getLineTotal(), line.getLineTotal());
+                assertEquals(dictionary.idOf(item.getProductName()), line.getProductId());
+            }
+            assertEquals(ProductDictionary.NO_PRODUCT, LineItem.of(items[0], prices).getProductId());
+        }
+    }
+
+    @Nested
+    class MapViewTests {
+        /**
+         * 測試 Map 檢視的查詢與走訪結果與原本的價格表相同，且不可修改
+         */
+        @Test
+        void shouldExposePricesAsReadOnlyMap() {
+            Map<String, BigDecimal> prices = new HashMap<>();
+            prices.put("book", new BigDecimal("12.49"));
+            prices.put("huge", new BigDecimal("123456789012345678901234567890.12"));
+            prices.put("unpriced", null);
+            ProductDictionary dictionary = ProductDictionary.compile(prices);
+            Map<String, BigDecimal> view = dictionary.asMap();
+
+            assertEquals(prices, view);
+            assertEquals(new HashMap<>(prices), new HashMap<>(view));
+            assertEquals(new BigDecimal("12.49"), view.get("book"));
+            assertTrue(view.containsKey("unpriced"));
+            assertFalse(view.containsKey("pen"));
+            assertNull(view.get(42));
+            assertThrows(UnsupportedOperationException.class, () -> view.put("pen", BigDecimal.ONE));
+            assertSame(dictionary, ProductDictionary.compile(view));
+        }
+    }
+}
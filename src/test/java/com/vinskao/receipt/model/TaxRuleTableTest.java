@@ -0,0 +1,98 @@
+package com.vinskao.receipt.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * TaxRuleTable 單元測試
+ * 測試稅率規則表的編譯與查詢，包括：
+ * 1. 應稅類別回傳地區稅率
+ * 2. 免稅類別回傳 0 稅率
+ * 3. 未設定的地區拋出異常
+ * 4. 地區設定不完整時編譯失敗，不在設定中的類別不配發 ID
+ *
+ * @author VinsKao
+ */
+class TaxRuleTableTest {
+
+    private TaxRuleTable table;
+
+    @BeforeEach
+    void setup() {
+        LocationDO locationDO = new LocationDO();
+        locationDO.setLocations(Map.of(
+                "CA", Map.of("taxRate", 0.0975, "exemptCategories", List.of("food")),
+                "NY", Map.of("taxRate", 0.08875, "exemptCategories", List.of("food", "clothing"))));
+        table = TaxRuleTable.compile(locationDO);
+    }
+
+    /**
+     * 測試應稅與免稅類別的稅率查詢。
+     */
+    @Test
+    void shouldResolveTaxRateByLocationAndCategory() {
+        assertEquals(new BigDecimal("0.0975"), table.taxRate(LocationENUM.CA, table.categoryId("misc")));
+        assertEquals(BigDecimal.ZERO, table.taxRate(LocationENUM.CA, table.categoryId("food")));
+        assertEquals(new BigDecimal("0.0975"), table.taxRate(LocationENUM.CA, table.categoryId("clothing")));
+        assertEquals(BigDecimal.ZERO, table.taxRate(LocationENUM.NY, table.categoryId("clothing")));
+        assertEquals(new BigDecimal("0.08875"), table.taxRate(LocationENUM.NY, CategoryDictionary.NO_CATEGORY));
+    }
+
+    /**
+     * 測試查詢設定檔中沒有的地區時拋出異常。
+     */
+    @Test
+    void shouldRejectUnknownLocation() {
+        assertThrows(IllegalArgumentException.class,
+                () -> table.taxRate(LocationENUM.NA, table.categoryId("misc")));
+        assertThrows(IllegalArgumentException.class, () -> table.exemptCategories(LocationENUM.NA));
+    }
+
+    /**
+     * 測試類別 ID 只配發給設定的免稅類別，其他類別對應到 NO_CATEGORY。
+     */
+    @Test
+    void shouldOnlyAssignIdsToConfiguredCategories() {
+        int id = table.categoryId("clothing");
+        assertNotEquals(CategoryDictionary.NO_CATEGORY, id);
+        assertEquals(id, table.categoryId(new String("clothing")));
+        assertNotEquals(table.categoryId("food"), id);
+        assertEquals(CategoryDictionary.NO_CATEGORY, table.categoryId("misc"));
+        assertEquals(CategoryDictionary.NO_CATEGORY, table.categoryId("random_" + System.nanoTime()));
+        assertEquals(CategoryDictionary.NO_CATEGORY, table.categoryId(null));
+    }
+
+    /**
+     * 測試設定檔中的地區缺少或設定錯誤的 taxRate、exemptCategories 時編譯失敗。
+     */
+    @Test
+    void shouldRejectMalformedLocation() {
+        assertMalformed("taxRate 未定義: CA", Map.of("exemptCategories", List.of("food")));
+        assertMalformed("taxRate 格式錯誤: CA", Map.of("taxRate", "abc", "exemptCategories", List.of("food")));
+        assertMalformed("exemptCategories 未定義: CA", Map.of("taxRate", 0.0975));
+        assertMalformed("exemptCategories 必須是清單: CA", Map.of("taxRate", 0.0975, "exemptCategories", "food"));
+        assertMalformed("exemptCategories 包含無效的類別 null: CA",
+                Map.of("taxRate", 0.0975, "exemptCategories", Arrays.asList("food", null)));
+        Map<String, Map<String, Object>> locations = new HashMap<>();
+        locations.put("CA", null);
+        LocationDO locationDO = new LocationDO();
+        locationDO.setLocations(locations);
+        assertThrows(IllegalArgumentException.class, () -> TaxRuleTable.compile(locationDO));
+    }
+
+    private static void assertMalformed(String message, Map<String, Object> location) {
+        LocationDO locationDO = new LocationDO();
+        locationDO.setLocations(Map.of("CA", location, "NY", Map.of("taxRate", 0.08875, "exemptCategories", List.of())));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> TaxRuleTable.compile(locationDO));
+        assertEquals(message, e.getMessage());
+    }
+}
@@ -0,0 +1,148 @@
+package com.vinskao.receipt.module;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.vinskao.receipt.config.ConfigSnapshot;
+import com.vinskao.receipt.model.ItemVO;
+import com.vinskao.receipt.model.LineItem;
+import com.vinskao.receipt.model.LocationENUM;
+
+/**
+ * 熱路徑的記憶體配置預算測試
+ * 以 {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)} 量測大型購物車每個項目配置的位元組數，
+ * 超過下方宣告的預算時測試失敗，包括：
+ * 1. TaxCalculator.calculateTotalTax
+ * 2. ShoppingCart.calSubtotal
+ * 3. ReceiptPrinter.getTable
+ * 4. ShoppingCart.calLineTotals 以 {@link MoneyEngine#FIXED_POINT} 計算已解析的項目
+ * <p>
+ * 每項先暖機讓 JIT 完成編譯與逃逸分析，再取多次量測中的最小值，排除偶發的 TLAB 或類別載入配置。
+ * 完整測試執行時 JIT 的 profile 受其他測試影響，實測值會比單獨執行時高，預算已保留此差距；
+ * 有意增加配置時應同時調整預算並說明原因。
+ *
+ * @author VinsKao
+ */
+class AllocationBudgetTest {
+
+    // 每個項目的配置預算（位元組），目前實測值見各註解
+    /** 實測約 100～140 B/line（依 JIT 是否消除串流的中間物件）：每個項目一個 LineItem 與稅額 BigDecimal */
+    private static final long TOTAL_TAX_BYTES_PER_LINE = 200;
+    /** 實測約 40～80 B/line（依 JIT 是否消除數量的 BigDecimal）：每個項目一次 BigDecimal 乘法與加法 */
+    private static final long SUBTOTAL_BYTES_PER_LINE = 128;
+    /** 實測約 450 B/line：LineItem、稅額計算，以及表格文字本身（每列約 56 個字元） */
+    private static final long TABLE_BYTES_PER_LINE = 680;
+    /** 實測約 0 B/line：價格依商品 ID 以分查表，只在最後建立結果的 BigDecimal */
+    private static final long FIXED_POINT_BYTES_PER_LINE = 8;
+
+    private static final int LINES = 20_000;
+    private static final int WARMUP_ROUNDS = 30;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final String[] PRODUCTS = {"book", "pencil", "shirt", "potato_chips"};
+    private static final String[] CATEGORIES = {"misc", "food", "clothing"};
+    private static final LocationENUM[] LOCATIONS = {LocationENUM.CA, LocationENUM.NY};
+
+    private static com.sun.management.ThreadMXBean threads;
+    private static Map<String, ItemVO> cart;
+    private final ConfigSnapshot snapshot = ConfigSnapshot.getDefault();
+
+    @BeforeAll
+    static void setUpAll() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean, "JVM 不支援執行緒配置量測");
+        threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "JVM 不支援執行緒配置量測");
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        Random random = new Random(42L);
+        cart = new LinkedHashMap<>();
+        for (int i = 1; i <= LINES; i++) {
+            cart.put("purchase" + i, new ItemVO(PRODUCTS[random.nextInt(PRODUCTS.length)], null,
+                    1 + random.nextInt(5), LOCATIONS[random.nextInt(LOCATIONS.length)],
+                    CATEGORIES[random.nextInt(CATEGORIES.length)]));
+        }
+    }
+
+    @Nested
+    class TaxTests {
+        /**
+         * 測試 calculateTotalTax 每個項目的配置量不超過預算
+         */
+        @Test
+        void shouldStayWithinTotalTaxBudget() {
+            TaxCalculator calculator = new TaxCalculator(snapshot);
+            assertWithinBudget("calculateTotalTax", TOTAL_TAX_BYTES_PER_LINE,
+                    () -> calculator.calculateTotalTax(cart.values()));
+        }
+    }
+
+    @Nested
+    class SubtotalTests {
+        /**
+         * 測試 calSubtotal 每個項目的配置量不超過預算
+         */
+        @Test
+        void shouldStayWithinSubtotalBudget() {
+            ShoppingCart shoppingCart = new ShoppingCart(snapshot);
+            assertWithinBudget("calSubtotal", SUBTOTAL_BYTES_PER_LINE,
+                    () -> shoppingCart.calSubtotal(cart.values()));
+        }
+    }
+
+    @Nested
+    class TableTests {
+        /**
+         * 測試 getTable 每個項目的配置量不超過預算
+         */
+        @Test
+        void shouldStayWithinTableBudget() {
+            ReceiptPrinter printer = new ReceiptPrinter(snapshot);
+            assertWithinBudget("getTable", TABLE_BYTES_PER_LINE, () -> printer.getTable(cart));
+        }
+    }
+
+    @Nested
+    class FixedPointTests {
+        /**
+         * 測試定點數引擎計算已解析項目時，每個項目的配置量不超過預算
+         */
+        @Test
+        void shouldStayWithinFixedPointBudget() {
+            ShoppingCart shoppingCart = new ShoppingCart(snapshot);
+            shoppingCart.setMoneyEngine(MoneyEngine.FIXED_POINT);
+            List<LineItem> lines = shoppingCart.resolve(cart.values());
+            assertWithinBudget("calLineTotals (FIXED_POINT)", FIXED_POINT_BYTES_PER_LINE,
+                    () -> shoppingCart.calLineTotals(lines));
+        }
+    }
+
+    private static void assertWithinBudget(String name, long budgetPerLine, Supplier<Object> operation) {
+        Object sink = null;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink = operation.get();
+        }
+        long threadId = Thread.currentThread().getId();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long before = threads.getThreadAllocatedBytes(threadId);
+            sink = operation.get();
+            long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+            best = Math.min(best, allocated);
+        }
+        assertNotNull(sink);
+        long perLine = best / LINES;
+        assertTrue(perLine <= budgetPerLine,
+                name + " 每個項目配置 " + perLine + " 位元組，超過預算 " + budgetPerLine + " 位元組");
+    }
+}
@@ -0,0 +1,119 @@
+package com.vinskao.receipt.module;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.vinskao.receipt.config.CartsConfigLoader;
+import com.vinskao.receipt.config.CartsStreamReader;
+
+/**
+ * BatchReceiptProcessor 單元測試
+ * 測試批次處理多個購物車檔案，包括：
+ * 1. 目錄與 glob 的輸入檔案解析
+ * 2. 每個輸入檔案的輸出與單獨列印相同
+ * 3. 統計數量與失敗檔案的回報
+ *
+ * @author VinsKao
+ */
+class BatchReceiptProcessorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path inputDir;
+    private final ReceiptPrinter printer = new ReceiptPrinter();
+
+    @BeforeEach
+    void setup() throws IOException {
+        inputDir = Files.createDirectories(tempDir.resolve("in"));
+        byte[] carts;
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("carts.json")) {
+            carts = in.readAllBytes();
+        }
+        for (String name : new String[] {"carts-1.json", "carts-2.json", "carts-3.json", "other.json"}) {
+            Files.write(inputDir.resolve(name), carts);
+        }
+        Files.writeString(inputDir.resolve("notes.txt"), "ignored");
+    }
+
+    @Nested
+    class InputResolutionTests {
+        /**
+         * 測試目錄取得所有 .json 檔，glob 只取符合的檔案
+         */
+        @Test
+        void shouldResolveDirectoryAndGlob() throws IOException {
+            assertEquals(4, BatchReceiptProcessor.resolveInputs(inputDir.toString()).size());
+            assertEquals(List.of(inputDir.resolve("carts-1.json"), inputDir.resolve("carts-2.json"),
+                    inputDir.resolve("carts-3.json")),
+                    BatchReceiptProcessor.resolveInputs(inputDir.resolve("carts-*.json").toString()));
+            assertThrows(IllegalArgumentException.class,
+                    () -> BatchReceiptProcessor.resolveInputs(inputDir.resolve("missing-*.json").toString()));
+        }
+    }
+
+    @Nested
+    class ProcessingTests {
+        /**
+         * 測試每個輸入檔案產生同名的 .txt，內容與單獨列印相同，並回報正確的統計
+         */
+        @Test
+        void shouldProcessFilesConcurrently() throws Exception {
+            List<Path> inputs = BatchReceiptProcessor.resolveInputs(inputDir.toString());
+            Path outputDir = tempDir.resolve("out");
+
+            BatchReport report = new BatchReceiptProcessor(printer, 2, 1).process(inputs, outputDir);
+
+            String expected = printSequentially();
+            for (Path input : inputs) {
+                Path output = outputDir.resolve(BatchReceiptProcessor.outputNameOf(input));
+                assertEquals(expected, Files.readString(output), output.toString());
+            }
+            assertEquals(4, report.getFiles());
+            assertEquals(4 * 3, report.getCarts());
+            assertEquals(4 * 6, report.getLines());
+            assertTrue(report.getFailures().isEmpty());
+            assertTrue(report.getP50Nanos() > 0);
+            assertTrue(report.getP99Nanos() >= report.getP50Nanos());
+            assertTrue(report.getCartsPerSecond() > 0);
+        }
+
+        /**
+         * 測試格式錯誤的檔案記錄為失敗，其他檔案仍正常處理
+         */
+        @Test
+        void shouldReportFailedFiles() throws Exception {
+            Files.writeString(inputDir.resolve("broken.json"), "[1, 2, 3]");
+            List<Path> inputs = BatchReceiptProcessor.resolveInputs(inputDir.toString());
+
+            BatchReport report = new BatchReceiptProcessor(printer, 3, 16).process(inputs, tempDir.resolve("out"));
+
+            assertEquals(4, report.getFiles());
+            assertEquals(1, report.getFailures().size());
+            assertTrue(report.getFailures().get(0).contains("broken.json"));
+            assertTrue(report.toString().contains("failed:"));
+        }
+    }
+
+    private String printSequentially() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (CartsStreamReader reader = CartsConfigLoader.openStream(inputDir.resolve("carts-1.json"));
+                StdoutReceiptSink sink = new StdoutReceiptSink(new PrintStream(bytes, false, StandardCharsets.UTF_8), 1)) {
+            printer.printReceiptFrames(reader, sink);
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+}
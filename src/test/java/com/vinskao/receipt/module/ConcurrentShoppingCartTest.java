@@ -0,0 +1,193 @@
+package com.vinskao.receipt.module;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.vinskao.receipt.config.ConfigSnapshot;
+import com.vinskao.receipt.model.ItemVO;
+import com.vinskao.receipt.model.LocationENUM;
+import com.vinskao.receipt.model.ReceiptTotals;
+
+/**
+ * ConcurrentShoppingCart 單元測試
+ * 測試多執行緒共用購物車，包括：
+ * 1. 單執行緒下的金額計算
+ * 2. 多執行緒同時修改後的最終結果
+ * 3. 修改進行中讀取到的快照彼此一致
+ * 4. 跨分段的修改不會被讀取到一半
+ *
+ * @author VinsKao
+ */
+class ConcurrentShoppingCartTest {
+
+    private final ConfigSnapshot snapshot = ConfigSnapshot.getDefault();
+
+    @Nested
+    class SingleThreadTests {
+        /**
+         * 測試新增、修改數量與移除後的金額（對應 carts.json case3）
+         */
+        @Test
+        void shouldCalculateTotals() {
+            ConcurrentShoppingCart cart = new ConcurrentShoppingCart(snapshot);
+            cart.add("purchase1", new ItemVO("pencil", null, 2, LocationENUM.NY, "misc"));
+            cart.add("purchase2", new ItemVO("shirt", null, 1, LocationENUM.NY, "clothing"));
+
+            assertEquals(0, new BigDecimal("35.97").compareTo(cart.getSubtotal()));
+            assertEquals(0, new BigDecimal("0.55").compareTo(cart.getTax()));
+            assertEquals(0, new BigDecimal("36.52").compareTo(cart.getTotal()));
+
+            cart.changeQuantity("purchase1", 3);
+            assertEquals(0, new BigDecimal("0.80").compareTo(cart.getTax()));
+            assertTrue(cart.remove("purchase2"));
+            assertFalse(cart.remove("purchase2"));
+            assertEquals(1, cart.getReceiptTotals().getLines());
+            assertEquals(0, new BigDecimal("8.97").compareTo(cart.getSubtotal()));
+            assertThrows(IllegalArgumentException.class, () -> cart.changeQuantity("purchase2", 1));
+            assertThrows(IllegalArgumentException.class,
+                    () -> cart.add("purchase1", new ItemVO("pencil", null, 1, LocationENUM.NY, "misc")));
+        }
+    }
+
+    @Nested
+    class ConcurrencyTests {
+        /**
+         * 測試多個執行緒同時加入與移除項目，期間讀取到的每個快照都必須一致：
+         * 所有項目單價與稅率相同，因此小計必定等於品項數乘以單價，且品項數不會為負。
+         * 全部完成後的結果需與單執行緒計算相同。
+         */
+        @Test
+        void shouldReadConsistentSnapshotsUnderContention() throws Exception {
+            ConcurrentShoppingCart cart = new ConcurrentShoppingCart(snapshot.getPriceDO(), snapshot.getTaxRuleTable(), 8);
+            int writers = 8;
+            int perWriter = 5_000;
+            BigDecimal unitPrice = new BigDecimal("17.99");
+            ConcurrentLinkedQueue<String> added = new ConcurrentLinkedQueue<>();
+            AtomicBoolean done = new AtomicBoolean();
+            List<String> violations = new ArrayList<>();
+            ExecutorService pool = Executors.newFixedThreadPool(writers + 1);
+            CountDownLatch start = new CountDownLatch(1);
+            try {
+                Future<?> reader = pool.submit(() -> {
+                    start.await();
+                    while (!done.get()) {
+                        ReceiptTotals totals = cart.getReceiptTotals();
+                        BigDecimal expected = unitPrice.multiply(BigDecimal.valueOf(totals.getLines()));
+                        if (totals.getLines() < 0 || expected.compareTo(totals.getSubtotal()) != 0) {
+                            violations.add(totals.toString());
+                        }
+                    }
+                    return null;
+                });
+                List<Future<?>> futures = new ArrayList<>();
+                for (int w = 0; w < writers; w++) {
+                    int writer = w;
+                    futures.add(pool.submit(() -> {
+                        start.await();
+                        for (int i = 0; i < perWriter; i++) {
+                            String key = "w" + writer + "-" + i;
+                            cart.add(key, new ItemVO("book", null, 1, LocationENUM.CA, "misc"));
+                            added.add(key);
+                            // 移除其他執行緒加入的項目，讓加入與移除落在不同分段
+                            if (i % 2 == 1) {
+                                String victim = added.poll();
+                                if (victim != null) {
+                                    cart.remove(victim);
+                                }
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+                done.set(true);
+                reader.get();
+            } finally {
+                pool.shutdownNow();
+            }
+
+            assertTrue(violations.isEmpty(), "讀取到不一致的快照: " + violations);
+            ReceiptTotals totals = cart.getReceiptTotals();
+            assertEquals(added.size(), totals.getLines());
+
+            List<ItemVO> remaining = new ArrayList<>();
+            for (int i = 0; i < added.size(); i++) {
+                remaining.add(new ItemVO("book", null, 1, LocationENUM.CA, "misc"));
+            }
+            ReceiptTotals expected = new ShoppingCart(snapshot).calReceiptTotals(remaining);
+            assertEquals(0, expected.getSubtotal().compareTo(totals.getSubtotal()));
+            assertEquals(0, expected.getTax().compareTo(totals.getTax()));
+        }
+
+        /**
+         * 測試多個執行緒輪流將同一個項目的數量改為 1 或 2，數量變化分別累加到各執行緒的分段，
+         * 單一分段的累計值可能為負數，但購物車的實際內容只會是 1 個或 2 個。
+         * 讀取時若只讀到其中一個分段的變化，小計會是 0 或 3 倍單價，因此每次讀取的小計都必須恰為 1 或 2 倍單價。
+         */
+        @Test
+        void shouldNotTearAcrossStripes() throws Exception {
+            ConcurrentShoppingCart cart = new ConcurrentShoppingCart(snapshot.getPriceDO(), snapshot.getTaxRuleTable(), 64);
+            cart.add("purchase1", new ItemVO("book", null, 1, LocationENUM.CA, "misc"));
+            int writers = 4;
+            int perWriter = 100_000;
+            BigDecimal unitPrice = new BigDecimal("17.99");
+            BigDecimal single = unitPrice;
+            BigDecimal twice = unitPrice.multiply(BigDecimal.valueOf(2));
+            AtomicBoolean done = new AtomicBoolean();
+            List<String> violations = new ArrayList<>();
+            ExecutorService pool = Executors.newFixedThreadPool(writers + 1);
+            CountDownLatch start = new CountDownLatch(1);
+            try {
+                Future<?> reader = pool.submit(() -> {
+                    start.await();
+                    while (!done.get()) {
+                        ReceiptTotals totals = cart.getReceiptTotals();
+                        BigDecimal subtotal = totals.getSubtotal();
+                        if (totals.getLines() != 1
+                                || (subtotal.compareTo(single) != 0 && subtotal.compareTo(twice) != 0)) {
+                            violations.add(totals.toString());
+                        }
+                    }
+                    return null;
+                });
+                List<Future<?>> futures = new ArrayList<>();
+                for (int w = 0; w < writers; w++) {
+                    futures.add(pool.submit(() -> {
+                        start.await();
+                        for (int i = 0; i < perWriter; i++) {
+                            cart.changeQuantity("purchase1", 1 + i % 2);
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+                done.set(true);
+                reader.get();
+            } finally {
+                pool.shutdownNow();
+            }
+
+            assertTrue(violations.isEmpty(), "讀取到跨分段不一致的快照: " + violations);
+            // 每個執行緒最後都將數量改為 2
+            assertEquals(0, twice.compareTo(cart.getSubtotal()));
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.vinskao.receipt.module;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.vinskao.receipt.config.ConfigSnapshot;
+import com.vinskao.receipt.model.ItemVO;
+import com.vinskao.receipt.model.LocationENUM;
+import com.vinskao.receipt.model.ReceiptTotals;
+
+/**
+ * IncrementalShoppingCart 單元測試
+ * 測試有狀態購物車，包括：
+ * 1. 新增、移除與修改數量後的累計金額
+ * 2. 讀取時才進位稅金
+ * 3. 隨機操作後與重新計算整台購物車的結果一致
+ *
+ * @author VinsKao
+ */
+class IncrementalShoppingCartTest {
+
+    private final ConfigSnapshot snapshot = ConfigSnapshot.getDefault();
+
+    @Nested
+    class RunningTotalTests {
+        /**
+         * 測試逐項掃描商品時的累計金額（對應 carts.json case1）
+         */
+        @Test
+        void shouldKeepRunningTotalsWhileScanning() {
+            IncrementalShoppingCart cart = new IncrementalShoppingCart(snapshot);
+
+            cart.add("purchase1", new ItemVO("book", null, 1, LocationENUM.CA, "misc"));
+            assertEquals(0, new BigDecimal("17.99").compareTo(cart.getSubtotal()));
+            assertEquals(0, new BigDecimal("1.80").compareTo(cart.getTax()));
+
+            cart.add("purchase2", new ItemVO("potato_chips", null, 1, LocationENUM.CA, "food"));
+            assertEquals(0, new BigDecimal("21.98").compareTo(cart.getSubtotal()));
+            assertEquals(0, new BigDecimal("1.80").compareTo(cart.getTax()));
+            assertEquals(0, new BigDecimal("23.78").compareTo(cart.getTotal()));
+        }
+
+        /**
+         * 測試修改數量與移除項目後，累計金額回到正確的值
+         */
+        @Test
+        void shouldAdjustTotalsOnChangeAndRemove() {
+            IncrementalShoppingCart cart = new IncrementalShoppingCart(snapshot);
+            cart.add("purchase1", new ItemVO("pencil", null, 2, LocationENUM.NY, "misc"));
+            cart.add("purchase2", new ItemVO("shirt", null, 1, LocationENUM.NY, "clothing"));
+            assertEquals(0, new BigDecimal("0.55").compareTo(cart.getTax()));
+
+            cart.changeQuantity("purchase1", 3);
+            assertEquals(0, new BigDecimal("38.96").compareTo(cart.getSubtotal()));
+            assertEquals(0, new BigDecimal("0.80").compareTo(cart.getTax()));
+
+            assertTrue(cart.remove("purchase1"));
+            assertFalse(cart.remove("purchase1"));
+            assertEquals(0, new BigDecimal("29.99").compareTo(cart.getSubtotal()));
+            assertEquals(0, BigDecimal.ZERO.compareTo(cart.getTax()));
+            assertEquals(0, BigDecimal.ZERO.compareTo(cart.getUnroundedTax(LocationENUM.NY)));
+        }
+
+        /**
+         * 測試重複的購買項目代號與不存在的項目
+         */
+        @Test
+        void shouldRejectInvalidOperations() {
+            IncrementalShoppingCart cart = new IncrementalShoppingCart(snapshot);
+            cart.add("purchase1", new ItemVO("book", null, 1, LocationENUM.CA, "misc"));
+
+            assertThrows(IllegalArgumentException.class,
+                    () -> cart.add("purchase1", new ItemVO("book", null, 1, LocationENUM.CA, "misc")));
+            assertThrows(IllegalArgumentException.class, () -> cart.changeQuantity("purchase9", 1));
+            assertThrows(IllegalArgumentException.class,
+                    () -> cart.add("purchase2", new ItemVO("book", null, 1, null, "misc")));
+        }
+    }
+
+    @Nested
+    class ConsistencyTests {
+        /**
+         * 測試隨機新增、移除與修改數量後，累計結果與重新計算整台購物車相同
+         */
+        @Test
+        void shouldMatchFullRecalculation() {
+            Random random = new Random(7L);
+            String[] products = {"book", "pencil", "shirt", "potato_chips"};
+            String[] categories = {"misc", "misc", "clothing", "food"};
+            LocationENUM[] locations = {LocationENUM.CA, LocationENUM.NY};
+            IncrementalShoppingCart cart = new IncrementalShoppingCart(snapshot);
+            ShoppingCart reference = new ShoppingCart(snapshot);
+            List<String> keys = new ArrayList<>();
+
+            for (int step = 0; step < 2000; step++) {
+                int op = random.nextInt(3);
+                if (op == 0 || keys.isEmpty()) {
+                    int p = random.nextInt(products.length);
+                    String key = "purchase" + step;
+                    cart.add(key, new ItemVO(products[p], null, 1 + random.nextInt(5),
+                            locations[random.nextInt(locations.length)], categories[p]));
+                    keys.add(key);
+                } else if (op == 1) {
+                    cart.remove(keys.remove(random.nextInt(keys.size())));
+                } else {
+                    cart.changeQuantity(keys.get(random.nextInt(keys.size())), random.nextInt(10));
+                }
+
+                ReceiptTotals expected = reference.calReceiptTotals(new ArrayList<>(cart.getItemValues()));
+                ReceiptTotals actual = cart.getReceiptTotals();
+                assertEquals(expected.getLines(), actual.getLines());
+                assertEquals(0, expected.getSubtotal().compareTo(actual.getSubtotal()), "step " + step);
+                assertEquals(0, expected.getTax().compareTo(actual.getTax()), "step " + step);
+                assertEquals(0, expected.getTotal().compareTo(actual.getTotal()), "step " + step);
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.vinskao.receipt.module;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.vinskao.receipt.config.ConfigSnapshot;
+import com.vinskao.receipt.model.ItemVO;
+import com.vinskao.receipt.model.LocationDO;
+import com.vinskao.receipt.model.LocationENUM;
+import com.vinskao.receipt.model.PriceDO;
+
+/**
+ * MoneyEngine 等價性測試
+ * 以固定亂數種子產生大量隨機的價格、稅率與購物車，
+ * 驗證 {@link MoneyEngine#FIXED_POINT} 與 {@link MoneyEngine#BIG_DECIMAL} 產生的收據完全相同。
+ *
+ * @author VinsKao
+ */
+class MoneyEngineEquivalenceTest {
+
+    private static final String[] CATEGORIES = {"food", "clothing", "misc", "electronics"};
+    private static final LocationENUM[] LOCATIONS = {LocationENUM.CA, LocationENUM.NY};
+    private static final int PRODUCTS = 20;
+
+    @Nested
+    class PropertyTests {
+        /**
+         * 隨機產生 2000 組設定與購物車，比較兩種引擎的收據文字、小計與稅金。
+         */
+        @Test
+        void shouldProduceIdenticalReceiptsForRandomCarts() {
+            Random random = new Random(20240501L);
+            for (int run = 0; run < 2000; run++) {
+                ConfigSnapshot snapshot = randomSnapshot(random);
+                List<ItemVO> cart = randomCart(random);
+                assertSameReceipt(snapshot, cart, "run " + run);
+            }
+        }
+    }
+
+    @Nested
+    class BoundaryTests {
+        /**
+         * 測試稅金剛好落在 0.05 倍數時不進位，略高於倍數時進位。
+         */
+        @Test
+        void shouldRoundUpToNickelExactly() {
+            ConfigSnapshot snapshot = snapshot("0.0975", "0.08875", Map.of("laptop", "100", "cable", "100.01"));
+            ShoppingCart cart = new ShoppingCart(snapshot);
+            cart.setMoneyEngine(MoneyEngine.FIXED_POINT);
+
+            assertEquals(0, new BigDecimal("9.75").compareTo(cart.calTax(List.of(item("laptop", 1, LocationENUM.CA, "misc")))));
+            assertEquals(0, new BigDecimal("9.80").compareTo(cart.calTax(List.of(item("cable", 1, LocationENUM.CA, "misc")))));
+            assertEquals(0, BigDecimal.ZERO.compareTo(cart.calTax(List.of(item("laptop", 3, LocationENUM.NY, "food")))));
+        }
+
+        /**
+         * 測試價格超過兩位小數或稅率超過六位小數時，改用 BigDecimal 計算並得到相同結果。
+         */
+        @Test
+        void shouldFallBackWhenValuesAreNotRepresentable() {
+            ConfigSnapshot snapshot = snapshot("0.09751234", "0.08875", Map.of("gum", "0.995", "book", "17.99"));
+            List<ItemVO> cart = List.of(item("gum", 7, LocationENUM.CA, "misc"), item("book", 2, LocationENUM.NY, "misc"));
+            assertSameReceipt(snapshot, cart, "fallback");
+        }
+
+        /**
+         * 測試查無價格的商品在兩種引擎中都以 0 計算。
+         */
+        @Test
+        void shouldTreatMissingPriceAsZero() {
+            ConfigSnapshot snapshot = snapshot("0.0975", "0.08875", Map.of("book", "17.99"));
+            List<ItemVO> cart = List.of(item("book", 1, LocationENUM.CA, "misc"), item("unknown", 4, LocationENUM.CA, "misc"));
+            assertSameReceipt(snapshot, cart, "missing price");
+        }
+    }
+
+    private static void assertSameReceipt(ConfigSnapshot snapshot, List<ItemVO> cart, String message) {
+        ShoppingCart bigDecimalCart = new ShoppingCart(snapshot);
+        ShoppingCart fixedPointCart = new ShoppingCart(snapshot);
+        fixedPointCart.setMoneyEngine(MoneyEngine.FIXED_POINT);
+
+        String before = cart.toString();
+        assertEquals(0, bigDecimalCart.calSubtotal(cart).compareTo(fixedPointCart.calSubtotal(cart)), message);
+        assertEquals(0, bigDecimalCart.calTax(cart).compareTo(fixedPointCart.calTax(cart)), message);
+
+        Map<String, BigDecimal> prices = snapshot.getPriceDO().getPrices();
+        String expected = new ReceiptPrinter(snapshot, bigDecimalCart).getTable(toItemMap(cart), prices);
+        String actual = new ReceiptPrinter(snapshot, fixedPointCart).getTable(toItemMap(cart), prices);
+        assertEquals(expected, actual, message);
+        // 兩種引擎計價時都不會修改傳入的 ItemVO
+        assertEquals(before, cart.toString(), message);
+    }
+
+    private static ConfigSnapshot randomSnapshot(Random random) {
+        Map<String, String> prices = new HashMap<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            prices.put("product_" + i, BigDecimal.valueOf(random.nextInt(100_000), random.nextInt(3)).toPlainString());
+        }
+        String caRate = BigDecimal.valueOf(random.nextInt(200_000), 6).toPlainString();
+        String nyRate = BigDecimal.valueOf(random.nextInt(200_000), 6).toPlainString();
+        return snapshot(caRate, nyRate, prices);
+    }
+
+    private static List<ItemVO> randomCart(Random random) {
+        int lines = 1 + random.nextInt(30);
+        List<ItemVO> items = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            ItemVO item = item("product_" + random.nextInt(PRODUCTS), random.nextInt(21),
+                    LOCATIONS[random.nextInt(LOCATIONS.length)], CATEGORIES[random.nextInt(CATEGORIES.length)]);
+            // 部分商品直接帶入價格，驗證優先使用 ItemVO 價格的規則
+            if (random.nextInt(10) == 0) {
+                item.setPrice(BigDecimal.valueOf(random.nextInt(10_000), 2));
+            }
+            items.add(item);
+        }
+        return items;
+    }
+
+    private static ConfigSnapshot snapshot(String caRate, String nyRate, Map<String, String> prices) {
+        PriceDO priceDO = new PriceDO();
+        prices.forEach((name, price) -> priceDO.addPrice(name, new BigDecimal(price)));
+        Map<String, Map<String, Object>> locations = new HashMap<>();
+        locations.put("CA", Map.of("taxRate", new BigDecimal(caRate), "exemptCategories", List.of("food")));
+        locations.put("NY", Map.of("taxRate", new BigDecimal(nyRate), "exemptCategories", List.of("food", "clothing")));
+        LocationDO locationDO = new LocationDO();
+        locationDO.setLocations(locations);
+        return new ConfigSnapshot(priceDO, locationDO);
+    }
+
+    private static ItemVO item(String productName, int quantity, LocationENUM location, String category) {
+        return new ItemVO(productName, null, quantity, location, category);
+    }
+
+    private static Map<String, ItemVO> toItemMap(List<ItemVO> items) {
+        Map<String, ItemVO> map = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            map.put("purchase" + (i + 1), items.get(i));
+        }
+        return map;
+    }
+}
@@ -0,0 +1,101 @@
+package com.vinskao.receipt.module;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.vinskao.receipt.config.ConfigSnapshot;
+import com.vinskao.receipt.model.CartCaseVO;
+import com.vinskao.receipt.model.ItemVO;
+import com.vinskao.receipt.model.LocationENUM;
+
+/**
+ * ReceiptPrinter 平行列印單元測試
+ * 測試平行產生收據，包括：
+ * 1. 不同平行度的輸出與循序列印逐字元相同
+ * 2. 計算過程的例外會傳回呼叫端
+ *
+ * @author VinsKao
+ */
+class ParallelReceiptPrinterTest {
+
+    private static final String[] PRODUCTS = {"book", "pencil", "shirt", "potato_chips"};
+    private static final String[] CATEGORIES = {"misc", "food", "clothing"};
+    private static final LocationENUM[] LOCATIONS = {LocationENUM.CA, LocationENUM.NY};
+
+    private final ReceiptPrinter printer = new ReceiptPrinter(ConfigSnapshot.getDefault());
+
+    @Nested
+    class OrderingTests {
+        /**
+         * 測試各種平行度的輸出順序與內容都與循序列印相同
+         */
+        @Test
+        void shouldMatchSequentialOutput() throws IOException {
+            String expected = print(randomCases(300), 1);
+            for (int parallelism : new int[] {2, 4, 8, 32}) {
+                assertEquals(expected, print(randomCases(300), parallelism), "parallelism=" + parallelism);
+            }
+        }
+
+        /**
+         * 測試平行度必須大於 0
+         */
+        @Test
+        void shouldRejectInvalidParallelism() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> printer.printReceiptFrames(randomCases(1).iterator(), new StdoutReceiptSink(), 0));
+        }
+    }
+
+    @Nested
+    class FailureTests {
+        /**
+         * 測試其中一個 case 計算失敗時，例外會傳回呼叫端
+         */
+        @Test
+        void shouldPropagateFailures() {
+            List<CartCaseVO> cases = randomCases(50);
+            Map<String, ItemVO> broken = new LinkedHashMap<>();
+            broken.put("purchase1", null);
+            cases.add(20, new CartCaseVO("broken", broken));
+            assertThrows(IllegalArgumentException.class, () -> print(cases, 4));
+        }
+    }
+
+    private String print(List<CartCaseVO> cases, int parallelism) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (StdoutReceiptSink sink = new StdoutReceiptSink(new PrintStream(bytes, false, StandardCharsets.UTF_8), 16)) {
+            printer.printReceiptFrames(cases.iterator(), sink, parallelism);
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    // 每次以相同種子重新建立，各輪列印使用互不共用的 ItemVO
+    private static List<CartCaseVO> randomCases(int count) {
+        Random random = new Random(42L);
+        List<CartCaseVO> cases = new ArrayList<>();
+        for (int c = 0; c < count; c++) {
+            Map<String, ItemVO> items = new LinkedHashMap<>();
+            int lines = 1 + random.nextInt(6);
+            for (int i = 1; i <= lines; i++) {
+                LocationENUM location = LOCATIONS[random.nextInt(LOCATIONS.length)];
+                items.put("purchase" + i, new ItemVO(PRODUCTS[random.nextInt(PRODUCTS.length)], null,
+                        1 + random.nextInt(5), location, CATEGORIES[random.nextInt(CATEGORIES.length)]));
+            }
+            cases.add(new CartCaseVO("case" + c, items));
+        }
+        return cases;
+    }
+}
@@ -0,0 +1,287 @@
+package com.vinskao.receipt.module;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.management.JMX;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.vinskao.receipt.config.ConfigSnapshot;
+import com.vinskao.receipt.config.ConfigSnapshotHolder;
+import com.vinskao.receipt.journal.JournalRecord;
+import com.vinskao.receipt.journal.ReceiptJournal;
+import com.vinskao.receipt.metrics.ReceiptMetrics;
+import com.vinskao.receipt.metrics.ReceiptMetricsMBean;
+import com.vinskao.receipt.model.CartCaseVO;
+import com.vinskao.receipt.model.ItemVO;
+import com.vinskao.receipt.model.LocationDO;
+import com.vinskao.receipt.model.LocationENUM;
+import com.vinskao.receipt.model.PriceDO;
+import com.vinskao.receipt.model.ReceiptTotals;
+
+/**
+ * ReceiptCache 單元測試
+ * 測試收據快取，包括：
+ * 1. key 隨購物車內容、項目順序與設定版本改變
+ * 2. 使用快取的輸出與不使用快取時逐字元相同，重複的購物車會命中
+ * 3. 設定重載後以版本號區隔，不需清空快取
+ * 4. 超過上限時淘汰最久未使用的收據
+ * 5. 命中快取的收據也會寫入日誌
+ *
+ * @author VinsKao
+ */
+class ReceiptCacheTest {
+
+    private static final String[] PRODUCTS = {"book", "pencil", "shirt", "potato_chips"};
+    private static final String[] CATEGORIES = {"misc", "food", "clothing"};
+    private static final LocationENUM[] LOCATIONS = {LocationENUM.CA, LocationENUM.NY};
+
+    @BeforeEach
+    void setUp() {
+        ReceiptMetrics.enable(true);
+        ReceiptMetrics.resetAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReceiptMetrics.resetAll();
+    }
+
+    @Nested
+    class KeyTests {
+        /**
+         * 測試內容相同的購物車得到相同的 key
+         */
+        @Test
+        void shouldMatchForSameContent() {
+            List<ItemVO> items = List.of(item("book", 1, LocationENUM.CA, "misc"), item("pencil", 3, LocationENUM.CA, "misc"));
+            List<ItemVO> copy = List.of(item("book", 1, LocationENUM.CA, "misc"), item("pencil", 3, LocationENUM.CA, "misc"));
+            assertEquals(ReceiptCache.keyOf(items, 1), ReceiptCache.keyOf(copy, 1));
+            assertEquals(ReceiptCache.keyOf(items, 1).hashCode(), ReceiptCache.keyOf(copy, 1).hashCode());
+        }
+
+        /**
+         * 測試數量、類別、地區、自帶價格、項目順序或設定版本不同時 key 也不同
+         */
+        @Test
+        void shouldDifferForDifferentContent() {
+            ItemVO book = item("book", 1, LocationENUM.CA, "misc");
+            ItemVO pencil = item("pencil", 3, LocationENUM.CA, "misc");
+            ReceiptCache.Key key = ReceiptCache.keyOf(List.of(book, pencil), 1);
+
+            assertNotEquals(key, ReceiptCache.keyOf(List.of(pencil, book), 1));
+            assertNotEquals(key, ReceiptCache.keyOf(List.of(book, pencil), 2));
+            assertNotEquals(key, ReceiptCache.keyOf(List.of(book, item("pencil", 2, LocationENUM.CA, "misc")), 1));
+            assertNotEquals(key, ReceiptCache.keyOf(List.of(book, item("pencil", 3, LocationENUM.NY, "misc")), 1));
+            assertNotEquals(key, ReceiptCache.keyOf(List.of(book, item("pencil", 3, LocationENUM.CA, "food")), 1));
+            ItemVO priced = item("pencil", 3, LocationENUM.CA, "misc");
+            priced.setPrice(new BigDecimal("0.99"));
+            assertNotEquals(key, ReceiptCache.keyOf(List.of(book, priced), 1));
+        }
+    }
+
+    @Nested
+    class PrinterTests {
+        /**
+         * 測試使用快取時輸出與不使用快取完全相同，第二次列印全部命中
+         */
+        @Test
+        void shouldMatchUncachedOutput() throws IOException {
+            ReceiptPrinter plain = new ReceiptPrinter(ConfigSnapshot.getDefault());
+            ReceiptPrinter cached = new ReceiptPrinter(ConfigSnapshot.getDefault());
+            cached.setCache(new ReceiptCache());
+
+            String expected = print(plain, randomCases(200));
+            assertEquals(expected, print(cached, randomCases(200)));
+            int entries = cached.getCache().size();
+            long hits = metrics().getCacheHits();
+            long misses = metrics().getCacheMisses();
+            assertTrue(hits > 0, "同一批 case 中重複的購物車應命中");
+
+            assertEquals(expected, print(cached, randomCases(200)));
+            assertEquals(hits + 200, metrics().getCacheHits());
+            assertEquals(misses, metrics().getCacheMisses());
+            assertEquals(entries, cached.getCache().size());
+        }
+
+        /**
+         * 測試產生過收據的購物車，計算結果也由快取取得
+         */
+        @Test
+        void shouldServeTotalsFromCache() {
+            ReceiptPrinter printer = new ReceiptPrinter(ConfigSnapshot.getDefault());
+            printer.setCache(new ReceiptCache());
+            Map<String, ItemVO> items = cart(item("book", 2, LocationENUM.CA, "misc"));
+            ReceiptTotals expected = printer.getTotals(items);
+
+            printer.getTable(items);
+            ReceiptTotals totals = printer.getTotals(cart(item("book", 2, LocationENUM.CA, "misc")));
+            assertEquals(expected.getTotal(), totals.getTotal());
+            assertEquals(expected.getTax(), totals.getTax());
+            assertEquals(1, metrics().getCacheHits());
+        }
+
+        /**
+         * 測試命中快取的收據也會寫入日誌，紀錄內容與第一次計算時相同
+         */
+        @Test
+        void shouldJournalCachedReceipts(@TempDir Path directory) throws IOException {
+            ReceiptPrinter printer = new ReceiptPrinter(ConfigSnapshot.getDefault());
+            printer.setCache(new ReceiptCache());
+            try (ReceiptJournal journal = new ReceiptJournal(directory)) {
+                printer.setJournal(journal);
+                List<CartCaseVO> cases = List.of(
+                        new CartCaseVO("first", cart(item("book", 2, LocationENUM.CA, "misc"))),
+                        new CartCaseVO("second", cart(item("book", 2, LocationENUM.CA, "misc"))));
+                print(printer, cases);
+                assertEquals(1, metrics().getCacheHits());
+
+                JournalRecord first = journal.lookup("first");
+                JournalRecord second = journal.lookup("second");
+                assertEquals(first.getLines().toString(), second.getLines().toString());
+                assertEquals(first.getTotal(), second.getTotal());
+            }
+        }
+
+        /**
+         * 測試含有查無價格商品的購物車不會存入快取
+         */
+        @Test
+        void shouldNotCacheMissingPrices() {
+            ReceiptPrinter printer = new ReceiptPrinter(ConfigSnapshot.getDefault());
+            printer.setCache(new ReceiptCache());
+            printer.getTable(cart(item("no_such_product", 1, LocationENUM.CA, "misc")));
+            assertEquals(0, printer.getCache().size());
+        }
+    }
+
+    @Nested
+    class VersionTests {
+        /**
+         * 測試發布新的設定快照後，收據使用新價格計算，舊收據仍留在快取中等待淘汰
+         */
+        @Test
+        void shouldInvalidateByVersion() {
+            ConfigSnapshotHolder holder = new ConfigSnapshotHolder(snapshot("1.00"));
+            ReceiptPrinter printer = new ReceiptPrinter(holder);
+            printer.setCache(new ReceiptCache());
+            Map<String, ItemVO> items = cart(item("book", 1, LocationENUM.CA, "misc"));
+
+            String before = printer.getTable(items);
+            assertEquals(before, printer.getTable(items));
+            holder.publish(snapshot("2.00"));
+            String after = printer.getTable(items);
+
+            assertNotEquals(before, after);
+            assertEquals(new ReceiptPrinter(snapshot("2.00")).getTable(items), after);
+            assertEquals(2, printer.getCache().size());
+        }
+    }
+
+    @Nested
+    class EvictionTests {
+        /**
+         * 測試超過上限時淘汰最久未使用的收據
+         */
+        @Test
+        void shouldEvictLeastRecentlyUsed() {
+            ReceiptCache cache = new ReceiptCache(2);
+            ReceiptCache.Key first = ReceiptCache.keyOf(List.of(item("book", 1, LocationENUM.CA, "misc")), 1);
+            ReceiptCache.Key second = ReceiptCache.keyOf(List.of(item("book", 2, LocationENUM.CA, "misc")), 1);
+            ReceiptCache.Key third = ReceiptCache.keyOf(List.of(item("book", 3, LocationENUM.CA, "misc")), 1);
+            cache.put(first, null, "first");
+            cache.put(second, null, "second");
+            assertNotNull(cache.get(first));
+            cache.put(third, null, "third");
+
+            assertEquals(2, cache.size());
+            assertEquals("first", cache.get(first).getText());
+            assertNull(cache.get(second));
+            assertEquals("third", cache.get(third).getText());
+            assertEquals(1, metrics().getCacheEvictions());
+        }
+
+        /**
+         * 測試上限必須大於 0
+         */
+        @Test
+        void shouldRejectInvalidCapacity() {
+            assertThrows(IllegalArgumentException.class, () -> new ReceiptCache(0));
+        }
+    }
+
+    private static String print(ReceiptPrinter printer, List<CartCaseVO> cases) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (StdoutReceiptSink sink = new StdoutReceiptSink(new PrintStream(bytes, false, StandardCharsets.UTF_8), 16)) {
+            printer.printReceiptFrames(cases.iterator(), sink);
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    // 固定種子，購物車組合數少於 case 數，因此同一批 case 中也會有重複的購物車
+    private static List<CartCaseVO> randomCases(int count) {
+        Random random = new Random(42);
+        List<CartCaseVO> cases = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, ItemVO> items = new LinkedHashMap<>();
+            int lines = 1 + random.nextInt(2);
+            for (int j = 0; j < lines; j++) {
+                items.put("purchase" + (j + 1), item(PRODUCTS[random.nextInt(PRODUCTS.length)], 1 + random.nextInt(2),
+                        LOCATIONS[random.nextInt(LOCATIONS.length)], CATEGORIES[random.nextInt(CATEGORIES.length)]));
+            }
+            cases.add(new CartCaseVO("case" + i, items));
+        }
+        return cases;
+    }
+
+    private static Map<String, ItemVO> cart(ItemVO item) {
+        Map<String, ItemVO> items = new LinkedHashMap<>();
+        items.put("purchase1", item);
+        return items;
+    }
+
+    private static ItemVO item(String productName, int quantity, LocationENUM location, String category) {
+        return new ItemVO(productName, null, quantity, location, category);
+    }
+
+    private static ConfigSnapshot snapshot(String bookPrice) {
+        PriceDO priceDO = new PriceDO();
+        priceDO.addPrice("book", new BigDecimal(bookPrice));
+        Map<String, Map<String, Object>> locations = new HashMap<>();
+        locations.put("CA", Map.of("taxRate", new BigDecimal("0.0975"), "exemptCategories", List.of("food")));
+        LocationDO locationDO = new LocationDO();
+        locationDO.setLocations(locations);
+        return new ConfigSnapshot(priceDO, locationDO);
+    }
+
+    // 透過 JMX 讀取計數器，同時驗證計數器已公開
+    private static ReceiptMetricsMBean metrics() {
+        ReceiptMetrics.registerMBeans();
+        try {
+            return JMX.newMBeanProxy(ManagementFactory.getPlatformMBeanServer(),
+                    new ObjectName(ReceiptMetrics.DOMAIN + ":type=ReceiptMetrics"), ReceiptMetricsMBean.class);
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
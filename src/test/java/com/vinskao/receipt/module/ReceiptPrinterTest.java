@@ -13,12 +13,15 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 
+import com.vinskao.receipt.config.ConfigSnapshot;
 import com.vinskao.receipt.model.ItemVO;
 import com.vinskao.receipt.model.LocationENUM;
+import com.vinskao.receipt.model.ReceiptTotals;
 
 /**
  * ReceiptPrinter 單元測試
@@ -31,6 +34,9 @@ public class ReceiptPrinterTest {
     
     @Mock
     private ShoppingCart shoppingCart;
+
+    @Spy
+    private ConfigSnapshot configSnapshot = ConfigSnapshot.getDefault();
     
     @InjectMocks
     private ReceiptPrinter receiptPrinter;
@@ -129,9 +135,8 @@ public class ReceiptPrinterTest {
             prices.put("potato_chips", new BigDecimal("3.99"));
 
             // 設置模擬行為
-            when(shoppingCart.calSubtotal(anyCollection())).thenReturn(new BigDecimal("21.98"));
-            when(shoppingCart.calTax(anyCollection())).thenReturn(new BigDecimal("1.80"));
-            when(shoppingCart.calTotal(anyCollection())).thenReturn(new BigDecimal("23.78"));
+            when(shoppingCart.calLineTotals(anyCollection())).thenReturn(new ReceiptTotals(2,
+                    new BigDecimal("21.98"), new BigDecimal("1.80"), new BigDecimal("23.78")));
 
             // 執行測試
             String receipt = receiptPrinter.getTable(items, prices);
@@ -149,6 +154,8 @@ public class ReceiptPrinterTest {
                 "|total                                           23.78|\n" +
                 "+-----------------------------------------------------+";
             assertEquals(expectedReceipt, receipt);
+            // 沒有地區的項目以 NA 計算，但不修改傳入的 ItemVO
+            assertNull(book.getLocation());
         }
 
         /**
@@ -184,9 +191,8 @@ public class ReceiptPrinterTest {
             prices.put("book", new BigDecimal("17.99"));
 
             // 為這個特定測試案例設置模擬行為
-            when(shoppingCart.calSubtotal(anyCollection())).thenReturn(new BigDecimal("26.96"));
-            when(shoppingCart.calTax(anyCollection())).thenReturn(new BigDecimal("2.40"));
-            when(shoppingCart.calTotal(anyCollection())).thenReturn(new BigDecimal("29.35"));
+            when(shoppingCart.calLineTotals(anyCollection())).thenReturn(new ReceiptTotals(2,
+                    new BigDecimal("26.96"), new BigDecimal("2.40"), new BigDecimal("29.35")));
 
             // 執行測試
             String receipt = receiptPrinter.getTable(items, prices);
@@ -239,9 +245,8 @@ public class ReceiptPrinterTest {
             prices.put("shirt", new BigDecimal("29.99"));
 
             // 設置模擬行為
-            when(shoppingCart.calSubtotal(anyCollection())).thenReturn(new BigDecimal("35.97"));
-            when(shoppingCart.calTax(anyCollection())).thenReturn(new BigDecimal("0.55"));
-            when(shoppingCart.calTotal(anyCollection())).thenReturn(new BigDecimal("36.50"));
+            when(shoppingCart.calLineTotals(anyCollection())).thenReturn(new ReceiptTotals(2,
+                    new BigDecimal("35.97"), new BigDecimal("0.55"), new BigDecimal("36.50")));
 
             // 執行測試
             String receipt = receiptPrinter.getTable(items, prices);
@@ -260,5 +265,33 @@ public class ReceiptPrinterTest {
                 "+-----------------------------------------------------+";
             assertEquals(expectedReceipt, receipt);
         }
+    
+        /**
+         * 測試收據表格只向購物車取得一次計算結果，
+         * 不再於每一列重新計算小計，也不再分別計算稅金與總金額。
+         */
+        @Test
+        void shouldComputeTotalsOncePerReceipt() {
+            // 準備測試資料
+            Map<String, ItemVO> items = new HashMap<>();
+            for (int i = 0; i < 50; i++) {
+                ItemVO pencil = new ItemVO();
+                pencil.setProductName("pencil");
+                pencil.setQuantity(1);
+                pencil.setLocation(LocationENUM.NY);
+                items.put("item" + i, pencil);
+            }
+            when(shoppingCart.calLineTotals(anyCollection())).thenReturn(new ReceiptTotals(50,
+                    new BigDecimal("149.50"), new BigDecimal("13.30"), new BigDecimal("162.80")));
+
+            // 執行測試
+            receiptPrinter.getTable(items, Map.of("pencil", new BigDecimal("2.99")));
+
+            // 驗證只計算一次
+            verify(shoppingCart, times(1)).calLineTotals(anyCollection());
+            verify(shoppingCart, never()).calSubtotal(anyCollection());
+            verify(shoppingCart, never()).calTax(anyCollection());
+            verify(shoppingCart, never()).calTotal(anyCollection());
+        }
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
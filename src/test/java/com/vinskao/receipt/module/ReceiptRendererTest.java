@@ -0,0 +1,235 @@
+package com.vinskao.receipt.module;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.vinskao.receipt.model.ItemVO;
+import com.vinskao.receipt.model.LineItem;
+import com.vinskao.receipt.model.LocationENUM;
+import com.vinskao.receipt.model.ReceiptTotals;
+
+/**
+ * ReceiptRenderer 單元測試
+ * 以原本使用 String.format 組成表格的實作作為基準，測試：
+ * 1. 一般、特殊名稱與邊界金額的輸出逐字元一致
+ * 2. 隨機資料的輸出逐字元一致
+ * 3. 可直接寫入 Writer
+ * 4. 金額的小數點與商品名稱的大小寫不受預設語系影響
+ *
+ * @author VinsKao
+ */
+class ReceiptRendererTest {
+
+    private final ReceiptRenderer renderer = new ReceiptRenderer();
+    private final ReceiptPrinter printer = new ReceiptPrinter();
+
+    @Nested
+    class FixedCaseTests {
+        /**
+         * 測試特殊商品名稱：底線、大寫、空字串、null 與非 ASCII 字元
+         */
+        @Test
+        void shouldMatchLegacyForSpecialNames() throws IOException {
+            Map<String, BigDecimal> prices = new LinkedHashMap<>();
+            Map<String, ItemVO> items = new LinkedHashMap<>();
+            String[] names = {"potato_chips", "SHIRT", "", null, "_lead__double_", "a_very_long_product_name_here",
+                "café_au_lait", "straße", "İstanbul_tea"};
+            for (int i = 0; i < names.length; i++) {
+                items.put("purchase" + i, new ItemVO(names[i], null, i, LocationENUM.CA, "misc"));
+                if (names[i] != null) {
+                    prices.put(names[i], new BigDecimal("1.5"));
+                }
+            }
+            assertRendersLikeLegacy(items, prices, totals("1", "2", "3"));
+        }
+
+        /**
+         * 測試邊界金額：負數、各種小數位數、需要四捨五入與非常大的數值
+         */
+        @Test
+        void shouldMatchLegacyForBoundaryAmounts() throws IOException {
+            String[] amounts = {"0", "0.00", "-0.01", "-12.5", "0.005", "0.015", "1.125", "2.675", "7",
+                "99999999999.99", "999999999999.99", "12345678901234567.89", "1E+3", "123.456789"};
+            for (String amount : amounts) {
+                Map<String, ItemVO> items = new LinkedHashMap<>();
+                items.put("purchase1", new ItemVO("book", null, Integer.MIN_VALUE, LocationENUM.NY, "misc"));
+                items.put("purchase2", new ItemVO("pen", null, Integer.MAX_VALUE, LocationENUM.NY, "misc"));
+                Map<String, BigDecimal> prices = Map.of("book", new BigDecimal(amount));
+                assertRendersLikeLegacy(items, prices, totals(amount, amount, amount));
+            }
+        }
+
+        /**
+         * 測試沒有任何項目的收據
+         */
+        @Test
+        void shouldMatchLegacyForEmptyReceipt() throws IOException {
+            assertRendersLikeLegacy(new LinkedHashMap<>(), Map.of(), totals("0", "0", "0"));
+        }
+
+        /**
+         * 測試直接寫入 Writer 的結果與 StringBuilder 相同
+         */
+        @Test
+        void shouldStreamIntoWriter() throws IOException {
+            Map<String, ItemVO> items = new LinkedHashMap<>();
+            items.put("purchase1", new ItemVO("book", null, 1, LocationENUM.CA, "misc"));
+            Map<String, BigDecimal> prices = Map.of("book", new BigDecimal("17.99"));
+            StringWriter writer = new StringWriter();
+            renderer.render(lines(items), prices, totals("17.99", "1.80", "19.79"), writer);
+            assertEquals(legacyTable(items, prices, totals("17.99", "1.80", "19.79")), writer.toString());
+        }
+    }
+
+    @Nested
+    class LocaleTests {
+        /**
+         * 測試預設語系的小數點為 ',' 時，快速路徑與 String.format 路徑的金額都以 '.' 輸出
+         */
+        @Test
+        void shouldUseDotRegardlessOfDefaultLocale() throws IOException {
+            Locale original = Locale.getDefault();
+            Locale.setDefault(Locale.GERMANY);
+            try {
+                Map<String, ItemVO> items = new LinkedHashMap<>();
+                items.put("purchase1", new ItemVO("book", null, 1, LocationENUM.CA, "misc"));
+                items.put("purchase2", new ItemVO("pen", null, 1, LocationENUM.CA, "misc"));
+                // 17.99 走快速路徑；小數超過兩位的金額改以 String.format 格式化
+                Map<String, BigDecimal> prices = Map.of("book", new BigDecimal("17.99"),
+                        "pen", new BigDecimal("1.125"));
+                ReceiptTotals totals = totals("19.115", "1.80", "20.915");
+                StringBuilder actual = new StringBuilder();
+                renderer.render(lines(items), prices, totals, actual);
+                assertFalse(actual.toString().contains(","), actual.toString());
+                assertEquals(legacyTable(items, prices, totals), actual.toString());
+            } finally {
+                Locale.setDefault(original);
+            }
+        }
+
+        /**
+         * 測試預設語系為土耳其語時，ASCII 快速路徑與 itemNameFormatter 的大小寫轉換結果相同
+         */
+        @Test
+        void shouldFormatNamesRegardlessOfDefaultLocale() throws IOException {
+            Locale original = Locale.getDefault();
+            Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+            try {
+                assertEquals("Pin Clip", ReceiptPrinter.formatItemName("PIN_CLIP"));
+                assertEquals("Pié", ReceiptPrinter.formatItemName("PIÉ"));
+                Map<String, ItemVO> items = new LinkedHashMap<>();
+                items.put("purchase1", new ItemVO("PIN_CLIP", null, 1, LocationENUM.CA, "misc"));
+                items.put("purchase2", new ItemVO("PIÉ", null, 1, LocationENUM.CA, "misc"));
+                StringBuilder actual = new StringBuilder();
+                renderer.render(lines(items), Map.of(), totals("0.00", "0.00", "0.00"), actual);
+                assertTrue(actual.toString().contains("|Pin Clip "), actual.toString());
+                assertTrue(actual.toString().contains("|Pié "), actual.toString());
+            } finally {
+                Locale.setDefault(original);
+            }
+        }
+    }
+
+    @Nested
+    class RandomizedTests {
+        /**
+         * 以固定種子產生隨機收據，比對輸出與原實作一致
+         */
+        @Test
+        void shouldMatchLegacyForRandomReceipts() throws IOException {
+            Random random = new Random(20240901L);
+            for (int run = 0; run < 500; run++) {
+                Map<String, ItemVO> items = new LinkedHashMap<>();
+                Map<String, BigDecimal> prices = new LinkedHashMap<>();
+                int lines = random.nextInt(8);
+                for (int i = 0; i < lines; i++) {
+                    String name = randomName(random);
+                    items.put("purchase" + i, new ItemVO(name, null, random.nextInt(2000) - 1000, LocationENUM.CA, "misc"));
+                    if (random.nextInt(5) > 0) {
+                        prices.put(name, randomAmount(random));
+                    }
+                }
+                ReceiptTotals totals = new ReceiptTotals(lines, randomAmount(random), randomAmount(random),
+                        randomAmount(random));
+                assertRendersLikeLegacy(items, prices, totals);
+            }
+        }
+
+        private String randomName(Random random) {
+            String alphabet = "abcXYZ__é";
+            StringBuilder name = new StringBuilder();
+            int length = random.nextInt(24);
+            for (int i = 0; i < length; i++) {
+                name.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            return name.toString();
+        }
+
+        private BigDecimal randomAmount(Random random) {
+            long unscaled = random.nextBoolean() ? random.nextInt(1_000_000) : random.nextLong() / 1000;
+            return BigDecimal.valueOf(unscaled, random.nextInt(5));
+        }
+    }
+
+    private void assertRendersLikeLegacy(Map<String, ItemVO> items, Map<String, BigDecimal> prices,
+            ReceiptTotals totals) throws IOException {
+        StringBuilder actual = new StringBuilder();
+        renderer.render(lines(items), prices, totals, actual);
+        assertEquals(legacyTable(items, prices, totals), actual.toString());
+    }
+
+    private static List<LineItem> lines(Map<String, ItemVO> items) {
+        List<LineItem> lines = new ArrayList<>();
+        for (ItemVO item : items.values()) {
+            lines.add(new LineItem(item.getProductName(), item.getQuantity(), item.getLocation(), item.getCategory(),
+                    item.getPrice()));
+        }
+        return lines;
+    }
+
+    private static ReceiptTotals totals(String subtotal, String tax, String total) {
+        return new ReceiptTotals(0, new BigDecimal(subtotal), new BigDecimal(tax), new BigDecimal(total));
+    }
+
+    /**
+     * 原本 ReceiptPrinter.getTable 以 String.format 組成表格的實作，作為比對基準；
+     * 金額固定以 Locale.ROOT 格式化，對應小數點為 '.' 的語系。
+     */
+    private String legacyTable(Map<String, ItemVO> items, Map<String, BigDecimal> prices, ReceiptTotals totals) {
+        int cellWidth = 17;
+        int totalInnerWidth = cellWidth * 3 + 2;
+        String border = "+" + "-".repeat(totalInnerWidth) + "+";
+        StringBuilder table = new StringBuilder();
+        table.append(border).append("\n");
+        table.append("|").append(String.format("%-" + cellWidth + "s", "item")).append(" ")
+                .append(String.format("%" + cellWidth + "s", "price")).append(" ")
+                .append(String.format("%" + cellWidth + "s", "qty")).append("|").append("\n");
+        table.append("|").append(" ".repeat(totalInnerWidth)).append("|").append("\n");
+        for (ItemVO item : items.values()) {
+            String formattedName = printer.itemNameFormatter(item.getProductName());
+            BigDecimal price = prices.getOrDefault(item.getProductName(), BigDecimal.ZERO);
+            table.append("|").append(String.format("%-" + cellWidth + "s", formattedName)).append(" ")
+                    .append(String.format(Locale.ROOT, "%" + cellWidth + ".2f", price.doubleValue())).append(" ")
+                    .append(String.format("%" + cellWidth + "d", item.getQuantity())).append("|").append("\n");
+        }
+        table.append("|").append(" ".repeat(totalInnerWidth)).append("|").append("\n");
+        String summary = "|%-" + cellWidth + "s %" + (totalInnerWidth - cellWidth - 1) + ".2f|\n";
+        table.append(String.format(Locale.ROOT, summary, "subtotal", totals.getSubtotal()));
+        table.append(String.format(Locale.ROOT, summary, "tax", totals.getTax()));
+        table.append(String.format(Locale.ROOT, summary, "total", totals.getTotal()));
+        table.append(border);
+        return table.toString();
+    }
+}
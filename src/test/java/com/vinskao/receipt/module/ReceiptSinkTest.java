@@ -0,0 +1,113 @@
+package com.vinskao.receipt.module;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.vinskao.receipt.config.CartsConfigLoader;
+import com.vinskao.receipt.config.CartsStreamReader;
+
+/**
+ * ReceiptSink 單元測試
+ * 測試收據輸出目標，包括：
+ * 1. 達到批次大小才寫出
+ * 2. 關閉時寫出剩餘內容
+ * 3. 檔案與標準輸出的內容一致
+ *
+ * @author VinsKao
+ */
+class ReceiptSinkTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Nested
+    class StdoutSinkTests {
+        /**
+         * 測試收據累積到批次大小才寫出，關閉時寫出剩餘的收據
+         */
+        @Test
+        void shouldFlushOncePerBatch() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            PrintStream out = new PrintStream(bytes, false, StandardCharsets.UTF_8);
+            StdoutReceiptSink sink = new StdoutReceiptSink(out, 3);
+
+            sink.write("a\n");
+            sink.write("b\n");
+            assertEquals(0, bytes.size());
+            sink.write("c\n");
+            assertEquals("a\nb\nc\n", bytes.toString(StandardCharsets.UTF_8));
+
+            sink.write("d\n");
+            sink.close();
+            assertEquals("a\nb\nc\nd\n", bytes.toString(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * 測試批次大小必須大於 0
+         */
+        @Test
+        void shouldRejectInvalidBatchSize() {
+            assertThrows(IllegalArgumentException.class, () -> new StdoutReceiptSink(System.out, 0));
+        }
+    }
+
+    @Nested
+    class FileSinkTests {
+        /**
+         * 測試收據累積到批次大小才寫入檔案，且緩衝區比收據小時仍完整寫出
+         */
+        @Test
+        void shouldWriteFileInBatches() throws IOException {
+            Path file = tempDir.resolve("receipts.txt");
+            StringBuilder expected = new StringBuilder();
+            try (FileReceiptSink sink = new FileReceiptSink(file, 2, FileReceiptSink.DEFAULT_BUFFER_SIZE)) {
+                sink.write("第一張\n");
+                expected.append("第一張\n");
+                assertEquals(0, Files.size(file));
+                sink.write("second\n");
+                expected.append("second\n");
+                assertEquals(expected.toString(), Files.readString(file));
+
+                // 緩衝區小於收據長度時，需分多次寫出
+                String large = "收據".repeat(100) + "\n";
+                try (FileReceiptSink small = new FileReceiptSink(tempDir.resolve("small.txt"), 10, 16)) {
+                    small.write(large);
+                }
+                assertEquals(large, Files.readString(tempDir.resolve("small.txt")));
+            }
+            assertEquals(expected.toString(), Files.readString(file));
+        }
+
+        /**
+         * 測試 carts.json 寫入檔案的內容與輸出到標準輸出的內容一致
+         */
+        @Test
+        void shouldMatchStdoutOutput() throws IOException {
+            ReceiptPrinter printer = new ReceiptPrinter();
+            Path file = tempDir.resolve("carts.txt");
+            try (CartsStreamReader reader = CartsConfigLoader.openStream();
+                    FileReceiptSink sink = new FileReceiptSink(file)) {
+                printer.printReceiptFrames(reader, sink);
+            }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (CartsStreamReader reader = CartsConfigLoader.openStream();
+                    StdoutReceiptSink sink = new StdoutReceiptSink(new PrintStream(bytes, false, StandardCharsets.UTF_8), 1)) {
+                printer.printReceiptFrames(reader, sink);
+            }
+
+            assertFalse(Files.readString(file).isEmpty());
+            assertEquals(bytes.toString(StandardCharsets.UTF_8), Files.readString(file));
+        }
+    }
+}
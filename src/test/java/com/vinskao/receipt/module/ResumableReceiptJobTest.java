@@ -0,0 +1,268 @@
+package com.vinskao.receipt.module;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.vinskao.receipt.config.CartsConfigLoader;
+import com.vinskao.receipt.config.CartsStreamReader;
+import com.vinskao.receipt.config.ConfigSnapshot;
+import com.vinskao.receipt.journal.JournalRecord;
+import com.vinskao.receipt.journal.ReceiptJournal;
+import com.vinskao.receipt.model.CartCaseVO;
+
+/**
+ * ResumableReceiptJob 單元測試
+ * 測試檢查點與接續執行，包括：
+ * 1. 中止後接續執行的收據檔與一次執行完畢相同，不重複也不遺漏
+ * 2. 檢查點記錄的位置、收據數與項目數
+ * 3. 已完成或與購物車檔案不符的檢查點
+ * 4. 接續執行時收據日誌捨棄檢查點之後的紀錄，不會重複
+ *
+ * @author VinsKao
+ */
+class ResumableReceiptJobTest {
+
+    private static final String[] PRODUCTS = {"book", "pencil", "shirt", "potato_chips", "茶葉"};
+    private static final int CASES = 95;
+
+    private final ConfigSnapshot snapshot = ConfigSnapshot.getDefault();
+
+    @TempDir
+    Path directory;
+
+    @Nested
+    class ResumeTests {
+        /**
+         * 測試在不同位置中止後接續執行，收據檔與一次執行完畢的結果逐位元組相同
+         */
+        @Test
+        void shouldMatchUninterruptedRun() throws IOException {
+            Path carts = writeCarts();
+            byte[] expected = fullRun(carts);
+
+            for (int crashAfter : new int[] {0, 5, 10, 23, 94}) {
+                Path output = directory.resolve("receipts-" + crashAfter + ".txt");
+                Path checkpointFile = directory.resolve("receipts-" + crashAfter + ".checkpoint");
+                ResumableReceiptJob crashing = new ResumableReceiptJob(new CrashingPrinter(crashAfter), carts, output,
+                        checkpointFile, 10, 1);
+                assertThrows(IllegalStateException.class, () -> crashing.run(false));
+                // 模擬最後一筆寫到一半：檢查點之後多出不完整的內容
+                Files.write(output, "====".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+                ReceiptCheckpoint checkpoint = new ResumableReceiptJob(new ReceiptPrinter(snapshot), carts, output,
+                        checkpointFile, 10, 1).run(true);
+                assertTrue(checkpoint.isCompleted());
+                assertEquals(CASES, checkpoint.getReceipts(), "crashAfter=" + crashAfter);
+                assertArrayEquals(expected, Files.readAllBytes(output), "crashAfter=" + crashAfter);
+            }
+        }
+
+        /**
+         * 測試中止前的檢查點只包含已寫出的 case，收據檔在檢查點位置之前的內容與一次執行完畢相同
+         */
+        @Test
+        void shouldCheckpointWrittenCases() throws IOException {
+            Path carts = writeCarts();
+            byte[] expected = fullRun(carts);
+            Path output = directory.resolve("receipts.txt");
+            Path checkpointFile = directory.resolve("receipts.checkpoint");
+            assertThrows(IllegalStateException.class, () -> new ResumableReceiptJob(new CrashingPrinter(25), carts,
+                    output, checkpointFile, 10, 1000).run(false));
+
+            ReceiptCheckpoint checkpoint = ReceiptCheckpoint.load(checkpointFile);
+            assertFalse(checkpoint.isCompleted());
+            assertEquals(20, checkpoint.getReceipts());
+            assertEquals("case19", checkpoint.getLastCaseKey());
+            int outputOffset = (int) checkpoint.getOutputOffset();
+            assertTrue(outputOffset > 0 && outputOffset < expected.length);
+            assertArrayEquals(Arrays.copyOf(expected, outputOffset),
+                    Arrays.copyOf(Files.readAllBytes(output), outputOffset));
+            assertEquals(Files.size(carts), checkpoint.getInputSize());
+            assertTrue(checkpoint.getLines() >= 20);
+        }
+
+        /**
+         * 測試沒有檢查點檔案時從頭開始
+         */
+        @Test
+        void shouldStartOverWithoutCheckpoint() throws IOException {
+            Path carts = writeCarts();
+            Path output = directory.resolve("receipts.txt");
+            Files.write(output, "stale".getBytes(StandardCharsets.UTF_8));
+            new ResumableReceiptJob(new ReceiptPrinter(snapshot), carts, output, directory.resolve("none.checkpoint"),
+                    10, 1).run(true);
+            assertArrayEquals(fullRun(carts), Files.readAllBytes(output));
+        }
+    }
+
+    @Nested
+    class JournalTests {
+        /**
+         * 測試在不同位置中止後接續執行，收據日誌依序包含每個 case 恰好一次，包含跨越多個區段的情況
+         */
+        @Test
+        void shouldNotDuplicateJournalRecords() throws IOException {
+            Path carts = writeCarts();
+            for (int crashAfter : new int[] {0, 5, 23, 94}) {
+                Path journalDirectory = directory.resolve("journal-" + crashAfter);
+                Path output = directory.resolve("receipts-" + crashAfter + ".txt");
+                Path checkpointFile = directory.resolve("receipts-" + crashAfter + ".checkpoint");
+                try (ReceiptJournal journal = new ReceiptJournal(journalDirectory, 4096)) {
+                    CrashingPrinter crashing = new CrashingPrinter(crashAfter);
+                    crashing.setJournal(journal);
+                    assertThrows(IllegalStateException.class, () -> new ResumableReceiptJob(crashing, carts, output,
+                            checkpointFile, 10, 1).run(false));
+                }
+                try (ReceiptJournal journal = new ReceiptJournal(journalDirectory, 4096)) {
+                    ReceiptPrinter printer = new ReceiptPrinter(snapshot);
+                    printer.setJournal(journal);
+                    new ResumableReceiptJob(printer, carts, output, checkpointFile, 10, 1).run(true);
+
+                    List<String> caseKeys = new ArrayList<>();
+                    journal.replay(record -> caseKeys.add(record.getCaseKey()));
+                    List<String> expected = new ArrayList<>();
+                    for (int i = 0; i < CASES; i++) {
+                        expected.add("case" + i);
+                    }
+                    assertEquals(expected, caseKeys, "crashAfter=" + crashAfter);
+                    assertTrue(journal.getSegmentCount() > 1);
+                    JournalRecord last = journal.lookup("case" + (CASES - 1));
+                    assertNotNull(last);
+                }
+            }
+        }
+
+        /**
+         * 測試以不同的收據日誌接續執行時拒絕接續
+         */
+        @Test
+        void shouldRejectDifferentJournal() throws IOException {
+            Path carts = writeCarts();
+            Path output = directory.resolve("receipts.txt");
+            Path checkpointFile = directory.resolve("receipts.checkpoint");
+            try (ReceiptJournal journal = new ReceiptJournal(directory.resolve("journal"))) {
+                CrashingPrinter crashing = new CrashingPrinter(15);
+                crashing.setJournal(journal);
+                assertThrows(IllegalStateException.class, () -> new ResumableReceiptJob(crashing, carts, output,
+                        checkpointFile, 10, 1).run(false));
+            }
+            try (ReceiptJournal journal = new ReceiptJournal(directory.resolve("other"))) {
+                ReceiptPrinter printer = new ReceiptPrinter(snapshot);
+                printer.setJournal(journal);
+                ResumableReceiptJob job = new ResumableReceiptJob(printer, carts, output, checkpointFile, 10, 1);
+                assertThrows(IllegalStateException.class, () -> job.run(true));
+            }
+        }
+    }
+
+    @Nested
+    class ValidationTests {
+        /**
+         * 測試已完成的檢查點接續執行時不再產生收據
+         */
+        @Test
+        void shouldSkipCompletedRun() throws IOException {
+            Path carts = writeCarts();
+            Path output = directory.resolve("receipts.txt");
+            Path checkpointFile = directory.resolve("receipts.checkpoint");
+            new ResumableReceiptJob(new ReceiptPrinter(snapshot), carts, output, checkpointFile, 10, 1).run(false);
+            byte[] expected = Files.readAllBytes(output);
+
+            ReceiptCheckpoint checkpoint = new ResumableReceiptJob(new CrashingPrinter(0), carts, output,
+                    checkpointFile, 10, 1).run(true);
+            assertTrue(checkpoint.isCompleted());
+            assertArrayEquals(expected, Files.readAllBytes(output));
+        }
+
+        /**
+         * 測試購物車檔案在中止後被修改時拒絕接續
+         */
+        @Test
+        void shouldRejectModifiedInput() throws IOException {
+            Path carts = writeCarts();
+            Path output = directory.resolve("receipts.txt");
+            Path checkpointFile = directory.resolve("receipts.checkpoint");
+            assertThrows(IllegalStateException.class, () -> new ResumableReceiptJob(new CrashingPrinter(15), carts,
+                    output, checkpointFile, 10, 1).run(false));
+            Files.write(carts, "\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+            ResumableReceiptJob job = new ResumableReceiptJob(new ReceiptPrinter(snapshot), carts, output,
+                    checkpointFile, 10, 1);
+            assertThrows(IllegalStateException.class, () -> job.run(true));
+        }
+    }
+
+    private byte[] fullRun(Path carts) throws IOException {
+        Path output = directory.resolve("expected.txt");
+        try (CartsStreamReader reader = CartsConfigLoader.openStream(carts);
+                FileReceiptSink sink = new FileReceiptSink(output, 1, FileReceiptSink.DEFAULT_BUFFER_SIZE)) {
+            new ReceiptPrinter(snapshot).printReceiptFrames(reader, sink);
+        }
+        return Files.readAllBytes(output);
+    }
+
+    // 排版不一致的購物車檔案，含非 ASCII 商品名稱，確認位元組位置的計算
+    private Path writeCarts() throws IOException {
+        StringBuilder json = new StringBuilder("{\n");
+        for (int i = 0; i < CASES; i++) {
+            json.append(i % 3 == 0 ? "  " : "").append('"').append("case").append(i).append("\":{");
+            for (int j = 0; j <= i % 4; j++) {
+                json.append(j > 0 ? ", " : "")
+                        .append("\"purchase").append(j + 1).append("\": {\"productName\": \"")
+                        .append(PRODUCTS[(i + j) % PRODUCTS.length]).append("\", \"quantity\": ").append(1 + i % 7)
+                        .append(", \"location\": \"").append(i % 2 == 0 ? "CA" : "NY")
+                        .append("\", \"category\": \"").append(j % 2 == 0 ? "misc" : "food").append("\"}");
+            }
+            json.append('}').append(i < CASES - 1 ? (i % 2 == 0 ? " ,\n" : ",") : "\n");
+        }
+        json.append("}\n");
+        Path carts = directory.resolve("carts.json");
+        Files.write(carts, json.toString().getBytes(StandardCharsets.UTF_8));
+        return carts;
+    }
+
+    /**
+     * 讀取 crashAfter 個 case 後拋出例外，模擬程式中止。
+     */
+    private class CrashingPrinter extends ReceiptPrinter {
+        private final int crashAfter;
+
+        CrashingPrinter(int crashAfter) {
+            super(snapshot);
+            this.crashAfter = crashAfter;
+        }
+
+        @Override
+        public void printReceiptFrames(Iterator<CartCaseVO> reader, ReceiptSink sink) throws IOException {
+            super.printReceiptFrames(new Iterator<>() {
+                private int read;
+
+                @Override
+                public boolean hasNext() {
+                    return reader.hasNext();
+                }
+
+                @Override
+                public CartCaseVO next() {
+                    if (read++ == crashAfter) {
+                        throw new IllegalStateException("模擬中止");
+                    }
+                    return reader.next();
+                }
+            }, sink);
+        }
+    }
+}
@@ -4,8 +4,11 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import java.math.BigDecimal;
+import java.util.AbstractCollection;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -16,8 +19,12 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 
+import com.vinskao.receipt.config.ConfigSnapshot;
 import com.vinskao.receipt.model.ItemVO;
+import com.vinskao.receipt.model.LineItem;
+import com.vinskao.receipt.model.LocationENUM;
 import com.vinskao.receipt.model.PriceDO;
+import com.vinskao.receipt.model.ReceiptTotals;
 
 /**
  * ShoppingCart 單元測試
@@ -151,6 +158,106 @@ public class ShoppingCartTest {
         }
     }
 
+    /**
+     * 收據計算結果測試類
+     * 包含一次走訪計算小計、稅金與總金額的測試
+     */
+    @Nested
+    class ReceiptTotalsTests {
+        /**
+         * 測試一次走訪即算出小計、稅金與總金額，且每個項目只被走訪一次
+         * 場景：1000 項商品，每項 1.00 元、稅率 10%
+         * 測試步驟：
+         * 1. 以會記錄走訪次數的集合包裝商品清單
+         * 2. 計算收據結果
+         * 3. 驗證金額與走訪次數
+         */
+        @Test
+        public void shouldVisitEachItemOnce() {
+            // 準備測試數據
+            when(taxCalculator.determineLineTax(any(LineItem.class))).thenReturn(new BigDecimal("0.1"));
+            ItemVO[] items = new ItemVO[1000];
+            for (int i = 0; i < items.length; i++) {
+                items[i] = new ItemVO("apple", new BigDecimal("1.00"), 1, LocationENUM.CA, "misc");
+            }
+            CountingCollection counting = new CountingCollection(Arrays.asList(items));
+
+            // 執行測試
+            ReceiptTotals totals = shoppingCart.calReceiptTotals(counting);
+
+            // 驗證結果：小計 1000、稅金 100、總金額 1100
+            assertEquals(1000, totals.getLines());
+            assertEquals(0, new BigDecimal("1000").compareTo(totals.getSubtotal()));
+            assertEquals(0, new BigDecimal("100").compareTo(totals.getTax()));
+            assertEquals(0, new BigDecimal("1100").compareTo(totals.getTotal()));
+            assertEquals(1, counting.iterations, "商品清單只應被走訪一次");
+            assertEquals(items.length, counting.visits, "每個商品只應被讀取一次");
+            verify(taxCalculator, times(items.length)).determineLineTax(any(LineItem.class));
+            verify(taxCalculator, never()).calculateTotalTax(anyCollection());
+        }
+
+        /**
+         * 測試一次走訪的結果與分別計算小計、稅金、總金額相同
+         */
+        @Test
+        public void shouldMatchSeparateCalculations() {
+            // 準備測試數據
+            when(taxCalculator.determineLineTax(any(LineItem.class))).thenReturn(new BigDecimal("0.0975"));
+            List<ItemVO> items = List.of(
+                    new ItemVO("book", new BigDecimal("17.99"), 1, LocationENUM.CA, "misc"),
+                    new ItemVO("pencil", new BigDecimal("2.99"), 1, LocationENUM.CA, "misc"));
+
+            // 執行測試
+            ReceiptTotals totals = shoppingCart.calReceiptTotals(items);
+
+            // 以實際的 TaxCalculator 另外計算稅金：CA 稅率 9.75%，misc 類別應稅
+            BigDecimal subtotal = shoppingCart.calSubtotal(items);
+            BigDecimal separateTax = new TaxCalculator(ConfigSnapshot.getDefault()).calculateTotalTax(items);
+
+            // 驗證結果：(17.99 + 2.99) * 0.0975 = 2.04555 進位為 2.05
+            assertEquals(0, subtotal.compareTo(totals.getSubtotal()));
+            assertEquals(0, new BigDecimal("2.05").compareTo(separateTax));
+            assertEquals(0, separateTax.compareTo(totals.getTax()));
+            assertEquals(0, subtotal.add(separateTax).compareTo(totals.getTotal()));
+        }
+    }
+
+    /**
+     * 記錄被走訪次數的集合，用來驗證每個項目只被讀取一次
+     */
+    private static class CountingCollection extends AbstractCollection<ItemVO> {
+        private final Collection<ItemVO> delegate;
+        private int iterations;
+        private int visits;
+
+        CountingCollection(Collection<ItemVO> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Iterator<ItemVO> iterator() {
+            iterations++;
+            Iterator<ItemVO> it = delegate.iterator();
+            return new Iterator<ItemVO>() {
+                @Override
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+
+                @Override
+                public ItemVO next() {
+                    visits++;
+                    return it.next();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return delegate.size();
+        }
+    }
+
     /**
      * 商品名稱格式化測試類
      * 商品名稱格式轉換測試案例
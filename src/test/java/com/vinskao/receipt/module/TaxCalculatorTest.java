@@ -153,6 +153,24 @@ class TaxCalculatorTest {
                 "商品列表不能為 null");
         }
 
+        /**
+         * 測試以價格表補上價格計算稅金時，不會把價格寫回傳入的 ItemVO
+         */
+        @Test
+        void shouldNotMutateItemsWhenResolvingPrices() {
+            // Given
+            setupPriceMap();
+            ItemVO laptop = createItemVO(LocationENUM.CA, "electronics", "laptop");
+            laptop.setQuantity(1);
+
+            // When
+            BigDecimal tax = taxCalculator.calculateTotalTax(List.of(laptop));
+
+            // Then：100 * 0.0975 = 9.75
+            assertEquals(new BigDecimal("9.75"), tax);
+            assertNull(laptop.getPrice(), "計算稅金不應修改 ItemVO 的價格");
+        }
+
         /**
          * 測試商品列表中包含空值項目時的異常處理
          * 驗證是否拋出適當的異常信息
@@ -0,0 +1,228 @@
+package com.vinskao.receipt.module;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.vinskao.receipt.config.ConfigSnapshot;
+import com.vinskao.receipt.config.SharedObjectMapper;
+import com.vinskao.receipt.model.CartCaseVO;
+import com.vinskao.receipt.model.ItemVO;
+import com.vinskao.receipt.model.LineItem;
+import com.vinskao.receipt.model.LocationENUM;
+import com.vinskao.receipt.model.ReceiptTotals;
+
+/**
+ * TaxLiabilityAggregator 單元測試
+ * 測試稅務報表彙總，包括：
+ * 1. 收取的稅金、應稅與免稅銷售額與逐張收據計算的結果相同
+ * 2. 不同平行度與批次大小的報表完全相同，累加器可合併
+ * 3. CSV 與 JSON 輸出格式
+ *
+ * @author VinsKao
+ */
+class TaxLiabilityAggregatorTest {
+
+    private static final String[] PRODUCTS = {"book", "pencil", "shirt", "potato_chips"};
+    private static final String[] CATEGORIES = {"misc", "food", "clothing"};
+    private static final LocationENUM[] LOCATIONS = {LocationENUM.CA, LocationENUM.NY};
+
+    private final ConfigSnapshot snapshot = ConfigSnapshot.getDefault();
+
+    @Nested
+    class TotalsTests {
+        /**
+         * 測試報表金額與逐張收據的小計、稅金加總相同
+         */
+        @Test
+        void shouldMatchReceiptTotals() {
+            List<CartCaseVO> cases = randomCases(500);
+            ReceiptPrinter printer = new ReceiptPrinter(snapshot);
+            BigDecimal subtotal = BigDecimal.ZERO;
+            BigDecimal tax = BigDecimal.ZERO;
+            for (CartCaseVO cartCase : cases) {
+                ReceiptTotals totals = printer.getTotals(cartCase.getItems());
+                subtotal = subtotal.add(totals.getSubtotal());
+                tax = tax.add(totals.getTax());
+            }
+
+            TaxLiabilityReport report = new TaxLiabilityAggregator(snapshot, 1).aggregate(cases.iterator());
+            assertEquals(500, report.getReceipts());
+            assertEquals(0, report.getCollectedTax().compareTo(tax));
+            assertEquals(0, report.getTaxableSales().add(report.getExemptSales()).compareTo(subtotal));
+            assertTrue(report.getRoundingAdjustment().signum() >= 0);
+        }
+
+        /**
+         * 測試免稅類別計入免稅銷售額，查無價格的項目只計入項目數
+         */
+        @Test
+        void shouldClassifyExemptAndMissingPrices() {
+            List<CartCaseVO> cases = List.of(
+                    cartCase("case1", item("potato_chips", 2, LocationENUM.CA, "food"),
+                            item("book", 1, LocationENUM.CA, "misc")),
+                    cartCase("case2", item("no_such_product", 1, LocationENUM.NY, "misc")));
+
+            TaxLiabilityReport report = new TaxLiabilityAggregator(snapshot, 1).aggregate(cases.iterator());
+            assertEquals(3, report.getRows().size());
+            TaxLiabilityReport.Row food = report.getRows().get(0);
+            assertEquals(LocationENUM.CA, food.getLocation());
+            assertEquals("food", food.getCategory());
+            assertEquals(0, food.getTaxableSales().signum());
+            assertEquals(0, food.getTax().signum());
+            assertEquals(0, new BigDecimal("7.98").compareTo(food.getExemptSales()));
+            TaxLiabilityReport.Row misc = report.getRows().get(1);
+            assertEquals(0, new BigDecimal("17.99").compareTo(misc.getTaxableSales()));
+            assertEquals(1, report.getMissingPriceLines());
+            assertEquals(1, report.getRows().get(2).getLines());
+        }
+    }
+
+    @Nested
+    class ParallelTests {
+        /**
+         * 測試各種平行度與批次大小的報表逐字元相同
+         */
+        @Test
+        void shouldMatchSequentialReport() throws IOException {
+            String expected = csv(new TaxLiabilityAggregator(snapshot, 1).aggregate(randomCases(2000).iterator()));
+            for (int parallelism : new int[] {2, 4, 8}) {
+                for (int batchSize : new int[] {1, 7, 256}) {
+                    TaxLiabilityReport report = new TaxLiabilityAggregator(snapshot, parallelism, batchSize)
+                            .aggregate(randomCases(2000).iterator());
+                    assertEquals(expected, csv(report), "parallelism=" + parallelism + ", batchSize=" + batchSize);
+                }
+            }
+        }
+
+        /**
+         * 測試分開累加再合併的結果與一次累加相同
+         */
+        @Test
+        void shouldMergeAccumulators() throws IOException {
+            TaxCalculator taxCalculator = new TaxCalculator(snapshot);
+            TaxLiabilityAccumulator whole = new TaxLiabilityAccumulator(taxCalculator);
+            TaxLiabilityAccumulator first = new TaxLiabilityAccumulator(taxCalculator);
+            TaxLiabilityAccumulator second = new TaxLiabilityAccumulator(taxCalculator);
+            List<CartCaseVO> cases = randomCases(300);
+            for (int i = 0; i < cases.size(); i++) {
+                List<LineItem> lines = lines(cases.get(i));
+                whole.add(lines);
+                (i % 3 == 0 ? first : second).add(lines);
+            }
+            first.merge(second);
+            assertEquals(csv(whole.toReport()), csv(first.toReport()));
+        }
+
+        /**
+         * 測試累加過程的例外會傳回呼叫端
+         */
+        @Test
+        void shouldPropagateFailures() {
+            List<CartCaseVO> cases = randomCases(100);
+            Map<String, ItemVO> broken = new LinkedHashMap<>();
+            broken.put("purchase1", null);
+            cases.add(50, new CartCaseVO("broken", broken));
+            assertThrows(IllegalArgumentException.class,
+                    () -> new TaxLiabilityAggregator(snapshot, 4, 8).aggregate(cases.iterator()));
+        }
+    }
+
+    @Nested
+    class FormatTests {
+        /**
+         * 測試 CSV 的稅額欄位加總等於收取的稅金，含逗號的類別以雙引號包住
+         */
+        @Test
+        void shouldWriteCsv() throws IOException {
+            List<CartCaseVO> cases = List.of(
+                    cartCase("case1", item("book", 1, LocationENUM.CA, "misc"),
+                            item("pencil", 3, LocationENUM.CA, "office, \"school\"")));
+            String csv = csv(new TaxLiabilityAggregator(snapshot, 1).aggregate(cases.iterator()));
+            String[] rows = csv.split("\n");
+            assertEquals("location,category,lines,taxable_sales,exempt_sales,tax", rows[0]);
+            assertEquals("CA,misc,1,17.99,0,1.754025", rows[1]);
+            assertTrue(rows[2].startsWith("CA,\"office, \"\"school\"\"\",1,"), rows[2]);
+            assertTrue(rows[3].startsWith(TaxLiabilityReport.ROUNDING + ",,0,0,0,"), rows[3]);
+            assertTrue(rows[4].startsWith(TaxLiabilityReport.TOTAL + ",,2,"), rows[4]);
+
+            BigDecimal sum = BigDecimal.ZERO;
+            for (int i = 1; i <= 3; i++) {
+                String[] columns = rows[i].split(",");
+                sum = sum.add(new BigDecimal(columns[columns.length - 1]));
+            }
+            String[] total = rows[4].split(",");
+            assertEquals(0, sum.compareTo(new BigDecimal(total[total.length - 1])));
+        }
+
+        /**
+         * 測試 JSON 輸出的金額保留完整小數位數
+         */
+        @Test
+        void shouldWriteJson() throws IOException {
+            List<CartCaseVO> cases = List.of(cartCase("case1", item("book", 1, LocationENUM.CA, "misc")));
+            TaxLiabilityReport report = new TaxLiabilityAggregator(snapshot, 1).aggregate(cases.iterator());
+            StringWriter out = new StringWriter();
+            report.writeJson(out);
+
+            JsonNode json = SharedObjectMapper.MAPPER.readTree(out.toString());
+            assertEquals(1, json.get("receipts").asLong());
+            assertEquals("misc", json.get("rows").get(0).get("category").asText());
+            // 讀回 JsonNode 時數字會轉為 double，直接比對原始文字確認小數位數
+            assertTrue(out.toString().contains("\"collectedTax\" : 1.80"), out.toString());
+            assertTrue(out.toString().contains("\"tax\" : 1.754025"), out.toString());
+        }
+    }
+
+    private static String csv(TaxLiabilityReport report) throws IOException {
+        StringBuilder out = new StringBuilder();
+        report.writeCsv(out);
+        return out.toString();
+    }
+
+    private List<LineItem> lines(CartCaseVO cartCase) {
+        List<LineItem> lines = new ArrayList<>();
+        for (ItemVO item : cartCase.getItems().values()) {
+            lines.add(LineItem.of(item, snapshot.getPriceDO().getPrices(), LocationENUM.NA));
+        }
+        return lines;
+    }
+
+    private static List<CartCaseVO> randomCases(int count) {
+        Random random = new Random(42);
+        List<CartCaseVO> cases = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, ItemVO> items = new LinkedHashMap<>();
+            int lines = 1 + random.nextInt(5);
+            for (int j = 0; j < lines; j++) {
+                items.put("purchase" + (j + 1), item(PRODUCTS[random.nextInt(PRODUCTS.length)], 1 + random.nextInt(10),
+                        LOCATIONS[random.nextInt(LOCATIONS.length)], CATEGORIES[random.nextInt(CATEGORIES.length)]));
+            }
+            cases.add(new CartCaseVO("case" + i, items));
+        }
+        return cases;
+    }
+
+    private static CartCaseVO cartCase(String caseKey, ItemVO... items) {
+        Map<String, ItemVO> map = new LinkedHashMap<>();
+        for (int i = 0; i < items.length; i++) {
+            map.put("purchase" + (i + 1), items[i]);
+        }
+        return new CartCaseVO(caseKey, map);
+    }
+
+    private static ItemVO item(String productName, int quantity, LocationENUM location, String category) {
+        return new ItemVO(productName, null, quantity, location, category);
+    }
+}
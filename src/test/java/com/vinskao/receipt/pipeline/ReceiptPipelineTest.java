@@ -0,0 +1,282 @@
+package com.vinskao.receipt.pipeline;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.vinskao.receipt.config.ConfigSnapshot;
+import com.vinskao.receipt.model.CartCaseVO;
+import com.vinskao.receipt.model.ItemVO;
+import com.vinskao.receipt.model.LocationENUM;
+import com.vinskao.receipt.module.ReceiptPrinter;
+import com.vinskao.receipt.module.ReceiptSink;
+import com.vinskao.receipt.module.StdoutReceiptSink;
+
+/**
+ * ReceiptPipeline 單元測試
+ * 測試分段管線產生收據，包括：
+ * 1. 各種階段平行度與緩衝區大小的輸出與 ReceiptPrinter 逐字元相同
+ * 2. 輸出目標停住時，讀取的 case 數不超過各階段緩衝區的總和
+ * 3. 任一階段的例外會傳回呼叫端
+ *
+ * @author VinsKao
+ */
+class ReceiptPipelineTest {
+
+    private static final String[] PRODUCTS = {"book", "pencil", "shirt", "potato_chips"};
+    private static final String[] CATEGORIES = {"misc", "food", "clothing"};
+    private static final LocationENUM[] LOCATIONS = {LocationENUM.CA, LocationENUM.NY};
+
+    private final ConfigSnapshot snapshot = ConfigSnapshot.getDefault();
+
+    @Nested
+    class OutputTests {
+        /**
+         * 測試輸出內容與順序都與 ReceiptPrinter 循序列印相同
+         */
+        @Test
+        void shouldMatchReceiptPrinterOutput() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (StdoutReceiptSink sink = new StdoutReceiptSink(new PrintStream(bytes, false, StandardCharsets.UTF_8), 16)) {
+                new ReceiptPrinter(snapshot).printReceiptFrames(randomCases(300).iterator(), sink);
+            }
+            String expected = bytes.toString(StandardCharsets.UTF_8);
+
+            int[][] settings = {{1, 1, 1, 1}, {2, 3, 4, 8}, {4, 1, 2, 2}, {1, 4, 1, 64}};
+            for (int[] setting : settings) {
+                ReceiptPipeline pipeline = new ReceiptPipeline(snapshot);
+                pipeline.setPriceParallelism(setting[0]);
+                pipeline.setTaxParallelism(setting[1]);
+                pipeline.setRenderParallelism(setting[2]);
+                pipeline.setBufferSize(setting[3]);
+                assertEquals(expected, run(pipeline, randomCases(300)), "setting=" + Arrays.toString(setting));
+            }
+        }
+
+        /**
+         * 測試沒有任何 case 時正常結束
+         */
+        @Test
+        void shouldCompleteOnEmptyInput() throws IOException {
+            assertEquals("", run(new ReceiptPipeline(snapshot), new ArrayList<>()));
+        }
+
+        /**
+         * 測試平行度與緩衝區大小必須大於 0
+         */
+        @Test
+        void shouldRejectInvalidSettings() {
+            ReceiptPipeline pipeline = new ReceiptPipeline(snapshot);
+            assertThrows(IllegalArgumentException.class, () -> pipeline.setPriceParallelism(0));
+            assertThrows(IllegalArgumentException.class, () -> pipeline.setTaxParallelism(0));
+            assertThrows(IllegalArgumentException.class, () -> pipeline.setRenderParallelism(-1));
+            assertThrows(IllegalArgumentException.class, () -> pipeline.setBufferSize(0));
+        }
+    }
+
+    @Nested
+    class BackpressureTests {
+        /**
+         * 測試輸出目標停住時，管線只讀取有限數量的 case；放行後全部寫出
+         */
+        @Test
+        void shouldThrottleIngestionWhenSinkStalls() throws Exception {
+            int bufferSize = 4;
+            AtomicInteger consumed = new AtomicInteger();
+            Iterator<CartCaseVO> cases = randomCases(1000).iterator();
+            Iterator<CartCaseVO> counting = new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return cases.hasNext();
+                }
+
+                @Override
+                public CartCaseVO next() {
+                    consumed.incrementAndGet();
+                    return cases.next();
+                }
+            };
+            CountDownLatch firstWrite = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicInteger written = new AtomicInteger();
+            ReceiptSink stalled = new ReceiptSink() {
+                @Override
+                public void write(CharSequence receipt) throws IOException {
+                    firstWrite.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException(e);
+                    }
+                    written.incrementAndGet();
+                }
+
+                @Override
+                public void flush() {
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+
+            ReceiptPipeline pipeline = new ReceiptPipeline(snapshot);
+            pipeline.setPriceParallelism(2);
+            pipeline.setTaxParallelism(2);
+            pipeline.setRenderParallelism(2);
+            pipeline.setBufferSize(bufferSize);
+            CompletableFuture<Long> result = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return pipeline.run(counting, stalled);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            assertTrue(firstWrite.await(10, TimeUnit.SECONDS));
+            // 等待各階段填滿緩衝區
+            int previous;
+            do {
+                previous = consumed.get();
+                Thread.sleep(100);
+            } while (consumed.get() != previous);
+            // 三個階段各 bufferSize 筆，加上輸出目標正在寫的一筆
+            assertTrue(consumed.get() <= bufferSize * 3 + 1, "consumed=" + consumed.get());
+
+            release.countDown();
+            assertEquals(1000L, result.get(30, TimeUnit.SECONDS));
+            assertEquals(1000, written.get());
+        }
+    }
+
+    @Nested
+    class FailureTests {
+        /**
+         * 測試計價階段失敗時，例外會傳回呼叫端
+         */
+        @Test
+        void shouldPropagateFailures() {
+            List<CartCaseVO> cases = randomCases(50);
+            Map<String, ItemVO> broken = new LinkedHashMap<>();
+            broken.put("purchase1", null);
+            cases.add(20, new CartCaseVO("broken", broken));
+            ReceiptPipeline pipeline = new ReceiptPipeline(snapshot);
+            pipeline.setPriceParallelism(4);
+            assertThrows(IllegalArgumentException.class, () -> run(pipeline, cases));
+        }
+
+        /**
+         * 測試讀取來源拋出 Error 時，Error 會傳回呼叫端而不是讓管線一直等待
+         */
+        @Test
+        void shouldPropagateSourceErrors() {
+            Iterator<CartCaseVO> cases = randomCases(50).iterator();
+            Iterator<CartCaseVO> failing = new Iterator<>() {
+                private int read;
+
+                @Override
+                public boolean hasNext() {
+                    return cases.hasNext();
+                }
+
+                @Override
+                public CartCaseVO next() {
+                    if (++read == 20) {
+                        throw new StackOverflowError("parse");
+                    }
+                    return cases.next();
+                }
+            };
+            ReceiptSink discarding = new ReceiptSink() {
+                @Override
+                public void write(CharSequence receipt) {
+                }
+
+                @Override
+                public void flush() {
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+            CompletableFuture<Long> result = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return new ReceiptPipeline(snapshot).run(failing, discarding);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(30, TimeUnit.SECONDS));
+            assertInstanceOf(StackOverflowError.class, e.getCause());
+        }
+
+        /**
+         * 測試輸出目標寫出失敗時，IOException 會傳回呼叫端
+         */
+        @Test
+        void shouldPropagateSinkFailures() {
+            ReceiptSink failing = new ReceiptSink() {
+                @Override
+                public void write(CharSequence receipt) throws IOException {
+                    throw new IOException("disk full");
+                }
+
+                @Override
+                public void flush() {
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+            IOException e = assertThrows(IOException.class,
+                    () -> new ReceiptPipeline(snapshot).run(randomCases(10).iterator(), failing));
+            assertEquals("disk full", e.getMessage());
+        }
+    }
+
+    private static String run(ReceiptPipeline pipeline, List<CartCaseVO> cases) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (StdoutReceiptSink sink = new StdoutReceiptSink(new PrintStream(bytes, false, StandardCharsets.UTF_8), 16)) {
+            assertEquals(cases.size(), pipeline.run(cases.iterator(), sink));
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    // 每次以相同種子重新建立，各輪列印使用互不共用的 ItemVO
+    private static List<CartCaseVO> randomCases(int count) {
+        Random random = new Random(42L);
+        List<CartCaseVO> cases = new ArrayList<>();
+        for (int c = 0; c < count; c++) {
+            Map<String, ItemVO> items = new LinkedHashMap<>();
+            int lines = 1 + random.nextInt(6);
+            for (int i = 1; i <= lines; i++) {
+                LocationENUM location = LOCATIONS[random.nextInt(LOCATIONS.length)];
+                items.put("purchase" + i, new ItemVO(PRODUCTS[random.nextInt(PRODUCTS.length)], null,
+                        1 + random.nextInt(5), location, CATEGORIES[random.nextInt(CATEGORIES.length)]));
+            }
+            cases.add(new CartCaseVO("case" + c, items));
+        }
+        return cases;
+    }
+}
@@ -0,0 +1,162 @@
+package com.vinskao.receipt.server;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.vinskao.receipt.config.ConfigSnapshot;
+import com.vinskao.receipt.config.SharedObjectMapper;
+import com.vinskao.receipt.model.ItemVO;
+import com.vinskao.receipt.model.LocationENUM;
+import com.vinskao.receipt.module.ReceiptPrinter;
+
+/**
+ * ReceiptServer 單元測試
+ * 測試 HTTP 收據服務，包括：
+ * 1. 回傳與 ReceiptPrinter 相同的收據表格
+ * 2. 回傳 JSON 格式的金額
+ * 3. 錯誤請求的狀態碼，包括超過大小上限的請求內容
+ * 4. 查詢字串參數的解析
+ *
+ * @author VinsKao
+ */
+class ReceiptServerTest {
+
+    private static final String CASE1 = "{"
+            + "\"purchase1\": {\"productName\": \"book\", \"quantity\": 1, \"category\": \"misc\", \"location\": \"CA\"},"
+            + "\"purchase2\": {\"productName\": \"potato_chips\", \"quantity\": 1, \"category\": \"food\", \"location\": \"CA\"}"
+            + "}";
+
+    private final ReceiptPrinter printer = new ReceiptPrinter(ConfigSnapshot.getDefault());
+    private final HttpClient client = HttpClient.newHttpClient();
+    private ReceiptServer server;
+
+    @BeforeEach
+    void setup() throws Exception {
+        server = new ReceiptServer(printer, 0, 2);
+        server.start();
+    }
+
+    @AfterEach
+    void teardown() {
+        server.close();
+    }
+
+    @Nested
+    class ReceiptTests {
+        /**
+         * 測試回傳的收據表格與直接呼叫 ReceiptPrinter 相同
+         */
+        @Test
+        void shouldReturnTable() throws Exception {
+            HttpResponse<String> response = post("", CASE1);
+
+            Map<String, ItemVO> items = new LinkedHashMap<>();
+            items.put("purchase1", new ItemVO("book", null, 1, LocationENUM.CA, "misc"));
+            items.put("purchase2", new ItemVO("potato_chips", null, 1, LocationENUM.CA, "food"));
+            assertEquals(200, response.statusCode());
+            assertEquals(printer.getTable(items), response.body());
+        }
+
+        /**
+         * 測試 JSON 格式的小計、稅金與總金額（對應 carts.json case1）
+         */
+        @Test
+        void shouldReturnJsonTotals() throws Exception {
+            HttpResponse<String> response = post("?format=json", CASE1);
+
+            assertEquals(200, response.statusCode());
+            assertEquals("application/json", response.headers().firstValue("Content-Type").orElse(""));
+            JsonNode totals = SharedObjectMapper.MAPPER.readTree(response.body());
+            assertEquals(2, totals.get("lines").asInt());
+            assertEquals(21.98, totals.get("subtotal").asDouble());
+            assertEquals(23.78, totals.get("total").asDouble());
+            // 金額保留兩位小數
+            assertTrue(response.body().contains("\"tax\":1.80"), response.body());
+        }
+    }
+
+    @Nested
+    class ErrorTests {
+        /**
+         * 測試格式錯誤、項目為 null 與非 POST 請求
+         */
+        @Test
+        void shouldRejectBadRequests() throws Exception {
+            assertEquals(400, post("", "{not json").statusCode());
+            assertEquals(400, post("", "{\"purchase1\": null}").statusCode());
+
+            HttpResponse<String> get = client.send(HttpRequest.newBuilder(uri("")).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(405, get.statusCode());
+        }
+
+        /**
+         * 測試請求內容超過大小上限時回傳 413，未宣告長度的分段傳輸也在讀取時被限制
+         */
+        @Test
+        void shouldRejectOversizedBody() throws Exception {
+            try (ReceiptServer limited = new ReceiptServer(printer, 0, 2, 64)) {
+                limited.start();
+                URI uri = URI.create("http://localhost:" + limited.getPort() + ReceiptServer.RECEIPT_PATH);
+                String oversized = "{\"purchase1\": {\"productName\": \"" + "x".repeat(100) + "\", \"quantity\": 1}}";
+
+                HttpResponse<String> declared = client.send(HttpRequest.newBuilder(uri)
+                        .POST(HttpRequest.BodyPublishers.ofString(oversized)).build(),
+                        HttpResponse.BodyHandlers.ofString());
+                assertEquals(413, declared.statusCode());
+
+                // 未知長度的內容以 chunked 傳輸，不帶 Content-Length
+                HttpResponse<String> chunked = client.send(HttpRequest.newBuilder(uri)
+                        .POST(HttpRequest.BodyPublishers.ofInputStream(
+                                () -> new ByteArrayInputStream(oversized.getBytes(StandardCharsets.UTF_8))))
+                        .build(), HttpResponse.BodyHandlers.ofString());
+                assertEquals(413, chunked.statusCode());
+            }
+        }
+    }
+
+    @Nested
+    class QueryTests {
+        /**
+         * 測試只有名稱完全相同的參數才會被採用
+         */
+        @Test
+        void shouldParseQueryParameters() throws Exception {
+            assertEquals("json", ReceiptServer.queryParameter("format=json", "format"));
+            assertEquals("json", ReceiptServer.queryParameter("a=1&format=json&format=text", "format"));
+            assertEquals("", ReceiptServer.queryParameter("format", "format"));
+            assertNull(ReceiptServer.queryParameter("xformat=json", "format"));
+            assertNull(ReceiptServer.queryParameter(null, "format"));
+            assertEquals("jsonp", ReceiptServer.queryParameter("format=jsonp", "format"));
+
+            HttpResponse<String> response = post("?xformat=json", CASE1);
+            assertEquals(200, response.statusCode());
+            assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/plain"));
+        }
+    }
+
+    private HttpResponse<String> post(String query, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri(query))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String query) {
+        return URI.create("http://localhost:" + server.getPort() + ReceiptServer.RECEIPT_PATH + query);
+    }
+}